@@ -27,6 +27,7 @@ import oharastream.ohara.client.configurator.v0.VolumeApi.Volume
 import oharastream.ohara.client.configurator.v0.WorkerApi
 import oharastream.ohara.client.configurator.v0.WorkerApi.{Creation, WorkerClusterInfo}
 import oharastream.ohara.client.kafka.ConnectorAdmin
+import oharastream.ohara.metrics.prometheus.PrometheusExporter
 
 import scala.concurrent.{ExecutionContext, Future}
 
@@ -123,8 +124,10 @@ trait WorkerCollie extends Collie {
                   "KAFKA_HEAP_OPTS" -> s"-Xms${creation.initHeap}M -Xmx${creation.maxHeap}M",
                   // define the urls as string list so as to simplify the script for worker
                   "WORKER_PLUGIN_URLS"     -> pluginInfos.map(_.url.get.toURI.toASCIIString).mkString(","),
-                  "WORKER_SHARED_JAR_URLS" -> sharedJarInfos.map(_.url.get.toURI.toASCIIString).mkString(",")
-                ),
+                  "WORKER_SHARED_JAR_URLS" -> sharedJarInfos.map(_.url.get.toURI.toASCIIString).mkString(","),
+                  // the connectors use the brokers to collect the consumer lag
+                  "WORKER_BROKERS" -> brokers
+                ) ++ creation.prometheusPort.map(port => PrometheusExporter.PORT_ENV_KEY -> port.toString),
                 hostname = Collie.containerHostName(creation.group, creation.name, kind)
               )
 
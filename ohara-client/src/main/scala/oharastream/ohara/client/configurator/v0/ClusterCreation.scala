@@ -54,6 +54,12 @@ trait ClusterCreation extends BasicCreation {
     */
   def jmxPort: Int = noJsNull(settings)(JMX_PORT_KEY).convertTo[Int]
 
+  /**
+    * the port used to export the metrics in prometheus format
+    * @return prometheus port or None if the exporter is disabled
+    */
+  def prometheusPort: Option[Int] = noJsNull(settings).get(PROMETHEUS_PORT_KEY).map(_.convertTo[Int])
+
   def routes: Map[String, String] =
     noJsNull(settings)(ROUTES_KEY).asJsObject.fields.filter(_._2.isInstanceOf[JsString]).map {
       case (k, v) => k -> v.convertTo[String]
@@ -63,6 +63,12 @@ trait ClusterInfo extends Data {
     */
   def jmxPort: Int = noJsNull(settings)(JMX_PORT_KEY).convertTo[Int]
 
+  /**
+    * the port used to export the metrics in prometheus format
+    * @return prometheus port or None if the exporter is disabled
+    */
+  def prometheusPort: Option[Int] = noJsNull(settings).get(PROMETHEUS_PORT_KEY).map(_.convertTo[Int])
+
   /**
     * @return nodes running this cluster
     */
@@ -67,7 +67,7 @@ final object ShabondiApi {
 
   final class ShabondiClusterCreation(val settings: Map[String, JsValue]) extends ClusterCreation {
     private val updating         = new ShabondiClusterUpdating(noJsNull(settings))
-    override def ports: Set[Int] = Set(clientPort, jmxPort)
+    override def ports: Set[Int] = Set(clientPort, jmxPort) ++ prometheusPort
 
     def shabondiClass: String         = updating.shabondiClass.get
     def clientPort: Int               = updating.clientPort.get
@@ -133,6 +133,10 @@ final object ShabondiApi {
     def jmxPort(jmxPort: Int): Request.this.type =
       setting(JMX_PORT_DEFINITION.key(), JsNumber(CommonUtils.requireBindPort(jmxPort)))
 
+    @Optional("the default is disabled")
+    def prometheusPort(prometheusPort: Int): Request.this.type =
+      setting(PROMETHEUS_PORT_DEFINITION.key(), JsNumber(CommonUtils.requireBindPort(prometheusPort)))
+
     def brokerClusterKey(brokerClusterKey: ObjectKey): Request.this.type =
       setting(BROKER_CLUSTER_KEY_DEFINITION.key, OBJECT_KEY_FORMAT.write(Objects.requireNonNull(brokerClusterKey)))
 
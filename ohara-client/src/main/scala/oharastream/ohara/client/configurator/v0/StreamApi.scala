@@ -63,7 +63,7 @@ object StreamApi {
 
     def className: Option[String] = settings.className
 
-    override def ports: Set[Int] = Set(jmxPort)
+    override def ports: Set[Int] = Set(jmxPort) ++ prometheusPort
 
     def jarKey: ObjectKey = settings.jarKey.get
 
@@ -193,6 +193,12 @@ object StreamApi {
     @Optional("the default port is random")
     def jmxPort(jmxPort: Int): Request.this.type =
       setting(StreamDefUtils.JMX_PORT_DEFINITION.key(), JsNumber(CommonUtils.requireConnectionPort(jmxPort)))
+    @Optional("the default is disabled")
+    def prometheusPort(prometheusPort: Int): Request.this.type =
+      setting(
+        StreamDefUtils.PROMETHEUS_PORT_DEFINITION.key(),
+        JsNumber(CommonUtils.requireConnectionPort(prometheusPort))
+      )
 
     @Optional("default value is empty array in creation and None in update")
     def tags(tags: Map[String, JsValue]): Request.this.type =
@@ -357,6 +357,21 @@ object TopicApi {
     def update()(implicit executionContext: ExecutionContext): Future[TopicInfo]
   }
 
+  /**
+    * the request of starting/stopping many topics at once.
+    * @param keys topic keys
+    */
+  final case class BulkRequest(keys: Set[TopicKey])
+  implicit val BULK_REQUEST_FORMAT: RootJsonFormat[BulkRequest] = jsonFormat1(BulkRequest)
+
+  /**
+    * the result of starting/stopping a topic in the bulk request.
+    * @param key topic key
+    * @param error the error message. It is empty if the action is done
+    */
+  final case class BulkResult(key: TopicKey, error: Option[String])
+  implicit val BULK_RESULT_FORMAT: RootJsonFormat[BulkResult] = jsonFormat2(BulkResult)
+
   sealed trait Query extends BasicQuery[TopicInfo] {
     import spray.json._
     def state(value: TopicState): Query = setting("state", value.name)
@@ -371,6 +386,28 @@ object TopicApi {
     def start(key: TopicKey)(implicit executionContext: ExecutionContext): Future[Unit] = put(key, START_COMMAND)
     def stop(key: TopicKey)(implicit executionContext: ExecutionContext): Future[Unit]  = put(key, STOP_COMMAND)
 
+    /**
+      * start many topics in a single request. The topics are created by a single request to each broker cluster.
+      * @param keys topic keys
+      * @return the result of each topic
+      */
+    def start(keys: Set[TopicKey])(implicit executionContext: ExecutionContext): Future[Seq[BulkResult]] =
+      exec.post[BulkRequest, Seq[BulkResult], ErrorApi.Error](
+        urlBuilder.postfix(START_COMMAND).build(),
+        BulkRequest(keys)
+      )
+
+    /**
+      * stop many topics in a single request. The topics are deleted by a single request to each broker cluster.
+      * @param keys topic keys
+      * @return the result of each topic
+      */
+    def stop(keys: Set[TopicKey])(implicit executionContext: ExecutionContext): Future[Seq[BulkResult]] =
+      exec.post[BulkRequest, Seq[BulkResult], ErrorApi.Error](
+        urlBuilder.postfix(STOP_COMMAND).build(),
+        BulkRequest(keys)
+      )
+
     def query: Query = new Query {
       override protected def doExecute(request: QueryRequest)(
         implicit executionContext: ExecutionContext
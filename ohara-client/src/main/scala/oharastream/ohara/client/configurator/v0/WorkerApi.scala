@@ -48,17 +48,18 @@ object WorkerApi {
     _DEFINITIONS += (settingDef.key() -> settingDef)
     settingDef
   }
-  val GROUP_DEFINITION: SettingDef         = createDef(groupDefinition)
-  val NAME_DEFINITION: SettingDef          = createDef(nameDefinition)
-  val IMAGE_NAME_DEFINITION: SettingDef    = createDef(imageNameDefinition(IMAGE_NAME_DEFAULT))
-  val CLIENT_PORT_DEFINITION: SettingDef   = createDef(clientPortDefinition)
-  val JMX_PORT_DEFINITION: SettingDef      = createDef(jmxPortDefinition)
-  val NODE_NAMES_DEFINITION: SettingDef    = createDef(nodeDefinition)
-  val ROUTES_DEFINITION: SettingDef        = createDef(routesDefinition)
-  val TAGS_DEFINITION: SettingDef          = createDef(tagsDefinition)
-  val MAX_HEAP_DEFINITION: SettingDef      = createDef(maxHeapDefinition)
-  val INIT_HEAP_DEFINITION: SettingDef     = createDef(initHeapDefinition)
-  private[this] val BROKER_CLUSTER_KEY_KEY = "brokerClusterKey"
+  val GROUP_DEFINITION: SettingDef           = createDef(groupDefinition)
+  val NAME_DEFINITION: SettingDef            = createDef(nameDefinition)
+  val IMAGE_NAME_DEFINITION: SettingDef      = createDef(imageNameDefinition(IMAGE_NAME_DEFAULT))
+  val CLIENT_PORT_DEFINITION: SettingDef     = createDef(clientPortDefinition)
+  val JMX_PORT_DEFINITION: SettingDef        = createDef(jmxPortDefinition)
+  val PROMETHEUS_PORT_DEFINITION: SettingDef = createDef(prometheusPortDefinition)
+  val NODE_NAMES_DEFINITION: SettingDef      = createDef(nodeDefinition)
+  val ROUTES_DEFINITION: SettingDef          = createDef(routesDefinition)
+  val TAGS_DEFINITION: SettingDef            = createDef(tagsDefinition)
+  val MAX_HEAP_DEFINITION: SettingDef        = createDef(maxHeapDefinition)
+  val INIT_HEAP_DEFINITION: SettingDef       = createDef(initHeapDefinition)
+  private[this] val BROKER_CLUSTER_KEY_KEY   = "brokerClusterKey"
   val BROKER_CLUSTER_KEY_DEFINITION: SettingDef = createDef(
     _.key(BROKER_CLUSTER_KEY_KEY)
       .documentation("broker cluster used to store data for this worker cluster")
@@ -196,7 +197,7 @@ object WorkerApi {
     def sharedJarKeys: Set[ObjectKey]                                           = settings.sharedJarKeys.getOrElse(Set.empty)
     def freePorts: Set[Int]                                                     = settings.freePorts.get
 
-    override def ports: Set[Int] = freePorts + clientPort + jmxPort
+    override def ports: Set[Int] = freePorts + clientPort + jmxPort ++ prometheusPort
 
     // TODO: we should allow connector developers to define volume and then use it
     // https://github.com/oharastream/ohara/issues/4621
@@ -314,6 +315,10 @@ object WorkerApi {
     def jmxPort(jmxPort: Int): Request.this.type =
       setting(JMX_PORT_KEY, JsNumber(CommonUtils.requireConnectionPort(jmxPort)))
 
+    @Optional("the default is disabled")
+    def prometheusPort(prometheusPort: Int): Request.this.type =
+      setting(PROMETHEUS_PORT_KEY, JsNumber(CommonUtils.requireConnectionPort(prometheusPort)))
+
     @Optional("Ignoring the name will invoke an auto-mapping to existent broker cluster")
     def brokerClusterKey(brokerClusterKey: ObjectKey): Request.this.type =
       setting(BROKER_CLUSTER_KEY_KEY, OBJECT_KEY_FORMAT.write(Objects.requireNonNull(brokerClusterKey)))
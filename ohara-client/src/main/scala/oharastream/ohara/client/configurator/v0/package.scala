@@ -49,6 +49,11 @@ package object v0 {
     */
   val JMX_PORT_KEY = "jmxPort"
 
+  /**
+    * All services are able to bind a port to export the metrics in prometheus format.
+    */
+  val PROMETHEUS_PORT_KEY = "prometheusPort"
+
   /**
     * Noted: there are other two definition having "name"
     * 1) ConnectorDefUtils.CONNECTOR_NAME_DEFINITION
@@ -379,6 +384,12 @@ package object v0 {
       .bindingPortWithRandomDefault()
       .build()
 
+  private[v0] def prometheusPortDefinition: SettingDef.Builder => SettingDef =
+    _.key(PROMETHEUS_PORT_KEY)
+      .documentation("the port used to export metrics in prometheus format. It is disabled if the port is absent")
+      .optional(Type.BINDING_PORT)
+      .build()
+
   private[v0] def nodeDefinition: SettingDef.Builder => SettingDef =
     _.key(NODE_NAMES_KEY)
       .documentation("the nodes hosting this cluster")
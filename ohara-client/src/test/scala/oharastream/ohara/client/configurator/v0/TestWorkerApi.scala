@@ -97,6 +97,28 @@ class TestWorkerApi extends OharaTest {
   @Test
   def negativeJmxPort(): Unit = an[IllegalArgumentException] should be thrownBy accessApi.jmxPort(-1)
 
+  @Test
+  def negativePrometheusPort(): Unit = an[IllegalArgumentException] should be thrownBy accessApi.prometheusPort(-1)
+
+  @Test
+  def testPrometheusPort(): Unit = {
+    val creation = accessApi
+      .nodeName(CommonUtils.randomString(10))
+      .brokerClusterKey(ObjectKey.of("g", "n"))
+      .creation
+    creation.prometheusPort shouldBe None
+
+    val port = CommonUtils.availablePort()
+
+    val creation2 = accessApi
+      .nodeName(CommonUtils.randomString(10))
+      .brokerClusterKey(ObjectKey.of("g", "n"))
+      .prometheusPort(port)
+      .creation
+    creation2.prometheusPort shouldBe Some(port)
+    creation2.ports should contain(port)
+  }
+
   @Test
   def nullConfigTopicName(): Unit = an[NullPointerException] should be thrownBy accessApi.configTopicName(null)
 
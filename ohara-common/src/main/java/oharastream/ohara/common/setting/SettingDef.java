@@ -917,6 +917,17 @@ public class SettingDef implements JsonObject, Serializable {
           Type.STRING, Necessary.OPTIONAL, CommonUtils.requireNonEmpty(defaultValue));
     }
 
+    /**
+     * set the type to string and add the recommended values. The empty/null value is legal.
+     *
+     * @param recommendedValues recommended string value
+     * @return builder
+     */
+    public Builder optional(Set<String> recommendedValues) {
+      this.recommendedValues = Objects.requireNonNull(recommendedValues);
+      return checkAndSet(Type.STRING, Necessary.OPTIONAL, null);
+    }
+
     /**
      * set the type to string and add the recommended values
      *
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.common.rule;
+
+import org.junit.experimental.categories.Category;
+
+/**
+ * OharaBenchmark is the super class of tests measuring the wall-clock cost. They are flaky in the
+ * parallel forks of unit tests so they are excluded from "gradle test" and are run serially by
+ * "gradle benchmark". Noted that the full name of this class is used by root/build.gradle so make
+ * sure both side have consistent information.
+ *
+ * <p>The budgets can be overridden by the system properties, for example, "gradle benchmark
+ * -Pohara.benchmark.metrics.update.budget=5000".
+ */
+@Category(OharaBenchmark.class)
+public abstract class OharaBenchmark extends OharaTest {
+
+  /**
+   * @param key the system property of budget
+   * @param defaultValue the budget used if the system property is not defined
+   * @return the budget
+   */
+  protected static double budget(String key, double defaultValue) {
+    String value = System.getProperty(key);
+    return value == null ? defaultValue : Double.parseDouble(value);
+  }
+
+  /**
+   * run the action a few times and then return the best result. The best one is less noisy than
+   * average since the gc and jit affect the first rounds.
+   *
+   * @param rounds the number of runs
+   * @param runnable action
+   * @return the best cost in nanoseconds
+   */
+  protected static long bestOf(int rounds, Runnable runnable) {
+    long best = Long.MAX_VALUE;
+    for (int i = 0; i != rounds; ++i) {
+      long start = System.nanoTime();
+      runnable.run();
+      best = Math.min(best, System.nanoTime() - start);
+    }
+    return best;
+  }
+}
@@ -333,6 +333,20 @@ public class TestSettingDef extends OharaTest {
         .accept(null);
   }
 
+  @Test
+  public void testOptionNullValueWithRecommendedValues() {
+    SettingDef def =
+        SettingDef.builder()
+            .key(CommonUtils.randomString())
+            .optional(new HashSet<>(Arrays.asList("a", "b")))
+            .build();
+    Assert.assertEquals(SettingDef.Necessary.OPTIONAL, def.necessary());
+    Assert.assertFalse(def.hasDefault());
+    Assert.assertEquals(new HashSet<>(Arrays.asList("a", "b")), def.recommendedValues());
+    // pass
+    def.checker().accept(null);
+  }
+
   @Test
   public void testBooleanType() {
     SettingDef def =
@@ -55,7 +55,7 @@ private[configurator] class FakeBrokerCollie(dataCollie: DataCollie, bkConnectio
   override def topicAdmin(
     brokerClusterInfo: BrokerClusterInfo
   )(implicit executionContext: ExecutionContext): Future[TopicAdmin] =
-    if (bkConnectionProps != null) Future.successful(TopicAdmin.of(bkConnectionProps))
+    if (bkConnectionProps != null) Future.successful(TopicAdmin.shared(bkConnectionProps))
     else if (clusterCache.keySet().asScala.contains(brokerClusterInfo.key)) {
       val fake = new FakeTopicAdmin
       val r    = fakeAdminCache.putIfAbsent(brokerClusterInfo, fake)
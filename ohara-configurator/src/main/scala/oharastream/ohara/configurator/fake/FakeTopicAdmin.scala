@@ -20,6 +20,7 @@ import java.util.Collections
 import java.util.concurrent.{CompletableFuture, CompletionStage, ConcurrentHashMap}
 import java.{lang, util}
 
+import oharastream.ohara.kafka.connector.TopicPartition
 import oharastream.ohara.kafka.{TopicAdmin, TopicCreator, TopicDescription, TopicOption}
 
 private[configurator] class FakeTopicAdmin extends TopicAdmin {
@@ -93,6 +94,12 @@ private[configurator] class FakeTopicAdmin extends TopicAdmin {
   override def brokerPorts(): CompletionStage[util.Map[String, Integer]] =
     CompletableFuture.completedFuture(Collections.emptyMap())
 
+  override def consumerGroupOffsets(groupId: String): CompletionStage[util.Map[TopicPartition, lang.Long]] =
+    CompletableFuture.completedFuture(Collections.emptyMap())
+
+  override def endOffsets(partitions: util.Set[TopicPartition]): CompletionStage[util.Map[TopicPartition, lang.Long]] =
+    CompletableFuture.completedFuture(partitions.asScala.map(_ -> lang.Long.valueOf(0)).toMap.asJava)
+
   override def exist(name: String): CompletionStage[lang.Boolean] =
     CompletableFuture.completedFuture(cachedTopics.containsKey(name))
 
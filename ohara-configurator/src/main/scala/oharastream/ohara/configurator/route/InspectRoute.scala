@@ -54,6 +54,7 @@ import oharastream.ohara.shabondi.{ShabondiDefinitions, ShabondiType}
 import oharastream.ohara.stream.config.StreamDefUtils
 import spray.json.{DeserializationException, JsNull, JsObject}
 
+import scala.collection.mutable
 import scala.concurrent.{ExecutionContext, Future}
 import scala.jdk.CollectionConverters._
 
@@ -199,14 +200,11 @@ private[configurator] object InspectRoute {
                   .build()
                 try {
                   val endTime = CommonUtils.current() + timeoutMs
+                  // only the partitions of the topic are fetched
                   consumer.assignments(
                     consumer
-                      .endOffsets()
+                      .endOffsets(consumer.partitions(topicKey))
                       .asScala
-                      .filter {
-                        case (tp, _) =>
-                          tp.topicName() == topicKey.topicNameOnKafka()
-                      }
                       .map {
                         case (tp, offset) =>
                           tp -> new lang.Long(offset - limit)
@@ -214,14 +212,16 @@ private[configurator] object InspectRoute {
                       .toMap
                       .asJava
                   )
-                  topicData(
-                    consumer
-                    // even if the timeout reach the limit, we still give a last try :)
-                      .poll(java.time.Duration.ofMillis(Math.max(1000L, endTime - CommonUtils.current())), limit)
-                      .asScala
-                      .slice(0, limit)
-                      .toSeq
-                  )
+                  // the records out of limit are dropped without conversion
+                  val records = new mutable.ArrayBuffer[Record[Array[Byte], Array[Byte]]](limit)
+                  do {
+                    consumer.poll(
+                      // even if the timeout reach the limit, we still give a last try :)
+                      java.time.Duration.ofMillis(Math.max(1000L, endTime - CommonUtils.current())),
+                      (record: Record[Array[Byte], Array[Byte]]) => if (records.size < limit) records += record
+                    )
+                  } while (records.size < limit && CommonUtils.current() < endTime)
+                  topicData(records.toSeq)
                 } finally Releasable.close(consumer)
               }
           )
@@ -34,7 +34,6 @@ import oharastream.ohara.configurator.route.ObjectChecker.CheckList
 import oharastream.ohara.configurator.route.ObjectChecker.Condition.{RUNNING, STOPPED}
 import oharastream.ohara.configurator.store.DataStore
 
-import scala.jdk.CollectionConverters._
 import scala.collection.mutable
 import scala.compat.java8.FutureConverters._
 import scala.concurrent.{ExecutionContext, Future}
@@ -505,14 +504,8 @@ object ObjectChecker {
                     case RUNNING =>
                       topicAdmin(brokerClusterInfo)(serviceCollie.brokerCollie, adminCleaner, executionContext)
                       // make sure the topic admin is closed!!!
-                        .flatMap(
-                          admin =>
-                            admin
-                              .topicDescriptions()
-                              .toScala
-                              .map(_.asScala)
-                        )
-                        .map(_.exists(_.name == key.topicNameOnKafka()))
+                        .flatMap(_.exist(key).toScala)
+                        .map(_.booleanValue())
                         .map(if (_) RUNNING else STOPPED)
                         .map(condition => Some(topicInfo -> condition))
                   }
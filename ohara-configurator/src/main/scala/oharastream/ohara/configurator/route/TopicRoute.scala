@@ -15,8 +15,11 @@
  */
 
 package oharastream.ohara.configurator.route
+import akka.http.scaladsl.marshallers.sprayjson.SprayJsonSupport._
 import akka.http.scaladsl.server
+import akka.http.scaladsl.server.Directives._
 import oharastream.ohara.agent.BrokerCollie
+import oharastream.ohara.client.configurator.v0.BrokerApi.BrokerClusterInfo
 import oharastream.ohara.client.configurator.v0.ConnectorApi.ConnectorInfo
 import oharastream.ohara.client.configurator.v0.ShabondiApi.ShabondiClusterInfo
 import oharastream.ohara.client.configurator.v0.StreamApi.StreamClusterInfo
@@ -27,8 +30,9 @@ import oharastream.ohara.common.util.CommonUtils
 import oharastream.ohara.configurator.route.ObjectChecker.Condition.{RUNNING, STOPPED}
 import oharastream.ohara.configurator.route.hook._
 import oharastream.ohara.configurator.store.{DataStore, MetricsCache}
-import oharastream.ohara.kafka.PartitionInfo
+import oharastream.ohara.kafka.{PartitionInfo, TopicAdmin, TopicCreation}
 import oharastream.ohara.shabondi.ShabondiType
+import spray.json.DefaultJsonProtocol._
 import spray.json.JsString
 
 import scala.compat.java8.FutureConverters._
@@ -74,10 +78,8 @@ private[configurator] object TopicRoute {
                   .flatMap { existent =>
                     if (existent)
                       topicAdmin
-                        .topicDescriptions()
+                        .topicDescription(topicInfo.key)
                         .toScala
-                        .map(_.asScala)
-                        .map(_.find(_.name == topicInfo.key.topicNameOnKafka()).get)
                         .map(_.partitionInfos.asScala -> Some(TopicState.RUNNING))
                     else Future.successful(Seq.empty  -> None)
                   }
@@ -243,6 +245,20 @@ private[configurator] object TopicRoute {
         }
         .map(_ => ())
 
+  /**
+    * convert the topic configs to the string options used by kafka.
+    * @param topicInfo topic info
+    * @return options
+    */
+  private[this] def options(topicInfo: TopicInfo): Map[String, String] =
+    topicInfo.configs.map {
+      case (key, value) =>
+        key -> (value match {
+          case JsString(value) => value
+          case _               => value.toString()
+        })
+    }
+
   private[this] def hookOfStart(
     implicit objectChecker: ObjectChecker,
     adminCleaner: AdminCleaner,
@@ -265,13 +281,7 @@ private[configurator] object TopicRoute {
                     .topicKey(topicInfo.key)
                     .numberOfPartitions(topicInfo.numberOfPartitions)
                     .numberOfReplications(topicInfo.numberOfReplications)
-                    .options(topicInfo.configs.map {
-                      case (key, value) =>
-                        key -> (value match {
-                          case JsString(value) => value
-                          case _               => value.toString()
-                        })
-                    }.asJava)
+                    .options(options(topicInfo).asJava)
                     .create()
                     .toScala
                     .flatMap(_ => Future.unit)
@@ -317,6 +327,139 @@ private[configurator] object TopicRoute {
             }
         }
 
+  /**
+    * check the topics one by one so a bad topic does not fail the others.
+    * @param keys topic keys
+    * @return the topics which pass the check and the errors of others
+    */
+  private[this] def checkTopics(keys: Set[TopicKey])(
+    implicit objectChecker: ObjectChecker,
+    executionContext: ExecutionContext
+  ): Future[(Map[TopicInfo, ObjectChecker.Condition], Seq[BulkResult])] =
+    Future
+      .traverse(keys.toSeq) { key =>
+        objectChecker.checkList
+          .topic(key)
+          .check()
+          .map(report => Left(report.topicInfos.head): Either[(TopicInfo, ObjectChecker.Condition), BulkResult])
+          .recover {
+            case e: Throwable => Right(BulkResult(key, Some(e.getMessage)))
+          }
+      }
+      .map(results => results.collect { case Left(t) => t }.toMap -> results.collect { case Right(r) => r })
+
+  /**
+    * group the topics by broker cluster and then execute the action for each running broker cluster.
+    * @param topicInfos topics
+    * @param action action to the topics hosted by a broker cluster
+    * @return the result of each topic
+    */
+  private[this] def perBroker(topicInfos: Seq[TopicInfo])(
+    action: (TopicAdmin, Seq[TopicInfo]) => Future[Seq[BulkResult]]
+  )(
+    implicit objectChecker: ObjectChecker,
+    adminCleaner: AdminCleaner,
+    brokerCollie: BrokerCollie,
+    executionContext: ExecutionContext
+  ): Future[Seq[BulkResult]] =
+    Future
+      .traverse(topicInfos.groupBy(_.brokerClusterKey).toSeq) {
+        case (brokerClusterKey, topicInfos) =>
+          objectChecker.checkList
+            .brokerCluster(brokerClusterKey, RUNNING)
+            .check()
+            .map(_.runningBrokers.head)
+            .flatMap((b: BrokerClusterInfo) => topicAdmin(b))
+            .flatMap(topicAdmin => action(topicAdmin, topicInfos))
+            .recover {
+              case e: Throwable => topicInfos.map(t => BulkResult(t.key, Some(e.getMessage)))
+            }
+      }
+      .map(_.flatten)
+
+  private[this] def toResult(key: TopicKey, f: Future[_])(
+    implicit executionContext: ExecutionContext
+  ): Future[BulkResult] =
+    f.map(_ => BulkResult(key, None)).recover {
+      case e: Throwable => BulkResult(key, Some(e.getMessage))
+    }
+
+  /**
+    * start many topics. The stopped topics are created by a single request to each broker cluster.
+    * @param keys topic keys
+    * @return the result of each topic
+    */
+  private[this] def bulkStart(keys: Set[TopicKey])(
+    implicit objectChecker: ObjectChecker,
+    adminCleaner: AdminCleaner,
+    brokerCollie: BrokerCollie,
+    executionContext: ExecutionContext
+  ): Future[Seq[BulkResult]] =
+    checkTopics(keys).flatMap {
+      case (topicInfos, errors) =>
+        perBroker(topicInfos.filter(_._2 == STOPPED).keys.toSeq) { (topicAdmin, topicInfos) =>
+          val futures = topicAdmin
+            .createTopics(
+              topicInfos
+                .map(
+                  t => TopicCreation.of(t.key, t.numberOfPartitions, t.numberOfReplications, options(t).asJava)
+                )
+                .asJava
+            )
+            .asScala
+          Future.traverse(topicInfos)(t => toResult(t.key, futures(t.key.topicNameOnKafka).toScala))
+        }.map(
+          _ ++ errors ++ topicInfos.filter(_._2 == RUNNING).keys.map(t => BulkResult(t.key, None))
+        )
+    }
+
+  /**
+    * stop many topics. The running topics are deleted by a single request to each broker cluster.
+    * @param keys topic keys
+    * @return the result of each topic
+    */
+  private[this] def bulkStop(keys: Set[TopicKey])(
+    implicit objectChecker: ObjectChecker,
+    adminCleaner: AdminCleaner,
+    brokerCollie: BrokerCollie,
+    executionContext: ExecutionContext
+  ): Future[Seq[BulkResult]] =
+    objectChecker.checkList
+      .allConnectors()
+      .allStreams()
+      .allShabondis()
+      .check()
+      .flatMap { report =>
+        checkTopics(keys).map {
+          case (topicInfos, errors) =>
+            val (conflicts, passed) = topicInfos
+              .filter(_._2 == RUNNING)
+              .keys
+              .toSeq
+              .map { topicInfo =>
+                try {
+                  checkConflict(topicInfo, report.runningConnectors, report.runningStreams, report.runningShabondis)
+                  Right(topicInfo)
+                } catch {
+                  case e: Throwable => Left(BulkResult(topicInfo.key, Some(e.getMessage)))
+                }
+              }
+              .partition(_.isLeft)
+            (
+              passed.collect { case Right(t) => t },
+              errors ++ conflicts.collect { case Left(r) => r } ++
+                topicInfos.filter(_._2 == STOPPED).keys.map(t => BulkResult(t.key, None))
+            )
+        }
+      }
+      .flatMap {
+        case (topicInfos, results) =>
+          perBroker(topicInfos) { (topicAdmin, topicInfos) =>
+            val futures = topicAdmin.deleteTopics(topicInfos.map(_.key.topicNameOnKafka).toSet.asJava).asScala
+            Future.traverse(topicInfos)(t => toResult(t.key, futures(t.key.topicNameOnKafka).toScala))
+          }.map(_ ++ results)
+      }
+
   def apply(
     implicit store: DataStore,
     objectChecker: ObjectChecker,
@@ -325,7 +468,12 @@ private[configurator] object TopicRoute {
     brokerCollie: BrokerCollie,
     executionContext: ExecutionContext
   ): server.Route =
-    RouteBuilder[Creation, Updating, TopicInfo]()
+    // the bulk actions use POST since PUT /v0/topics/start is the update to the topic called "start"
+    pathPrefix(TOPICS_PREFIX_PATH / START_COMMAND) {
+      pathEnd(post(entity(as[BulkRequest])(request => complete(bulkStart(request.keys)))))
+    } ~ pathPrefix(TOPICS_PREFIX_PATH / STOP_COMMAND) {
+      pathEnd(post(entity(as[BulkRequest])(request => complete(bulkStop(request.keys)))))
+    } ~ RouteBuilder[Creation, Updating, TopicInfo]()
       .root(TOPICS_PREFIX_PATH)
       .hookOfCreation(hookOfCreation)
       .hookOfUpdating(hookOfUpdating)
@@ -593,6 +593,26 @@ class TestTopicRoute extends OharaTest {
     result(topicApi.query.tags(tags2).name(topic.name).execute()).size shouldBe 1
   }
 
+  @Test
+  def testBulkStartAndStop(): Unit = {
+    val topics = (0 until 3).map(_ => result(topicApi.request.brokerClusterKey(brokerClusterInfo.key).create()))
+    val nonexistent = TopicKey.of(CommonUtils.randomString(), CommonUtils.randomString())
+
+    val started = result(topicApi.start(topics.map(_.key).toSet + nonexistent))
+    started.size shouldBe 4
+    started.filter(_.error.isEmpty).map(_.key).toSet shouldBe topics.map(_.key).toSet
+    started.find(_.key == nonexistent).get.error should not be None
+    result(topicApi.query.state(TopicState.RUNNING).execute()).size shouldBe 3
+
+    // start running topics again is ok
+    result(topicApi.start(topics.map(_.key).toSet)).forall(_.error.isEmpty) shouldBe true
+
+    val stopped = result(topicApi.stop(topics.map(_.key).toSet))
+    stopped.size shouldBe 3
+    stopped.forall(_.error.isEmpty) shouldBe true
+    result(topicApi.list()).flatMap(_.state) shouldBe Seq.empty
+  }
+
   @After
   def tearDown(): Unit = Releasable.close(configurator)
 }
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.kafka;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import oharastream.ohara.common.data.Cell;
+import oharastream.ohara.common.data.Row;
+import oharastream.ohara.common.data.Serializer;
+import oharastream.ohara.common.setting.TopicKey;
+import org.apache.kafka.common.utils.Utils;
+
+/**
+ * This partitioner hashes a subset of columns. Hence, the rows having the same values in the
+ * selected columns are sent to the same partition even if the other columns are different. The hash
+ * is computed by the serialized values so it is stable across the jvms.
+ *
+ * <p>The columns are defined by producer option {@link #COLUMNS_KEY} (separated by comma). The
+ * positions of columns are cached and they are reused by the following rows having the same schema.
+ * The rows lacking any of columns are sent by the default partitioner.
+ */
+public class ColumnHashPartitioner extends RowPartitioner {
+  /** the producer option carrying the column names. */
+  public static final String COLUMNS_KEY = "ohara.partitioner.columns";
+
+  private volatile List<String> columns = null;
+
+  /** the cached positions of columns. The rows sharing schema have the same positions. */
+  private volatile int[] positions = null;
+
+  @Override
+  protected void doConfigure(Map<String, ?> configs) {
+    Object value = configs.get(COLUMNS_KEY);
+    if (value == null) throw new IllegalArgumentException(COLUMNS_KEY + " is required");
+    columns(
+        value instanceof List
+            ? ((List<?>) value).stream().map(Object::toString).collect(Collectors.toList())
+            : Arrays.asList(value.toString().split(",")));
+  }
+
+  /**
+   * set the columns used to compute the hash.
+   *
+   * @param columns column names
+   */
+  void columns(List<String> columns) {
+    List<String> names =
+        columns.stream().map(String::trim).filter(s -> !s.isEmpty()).collect(Collectors.toList());
+    if (names.isEmpty()) throw new IllegalArgumentException(COLUMNS_KEY + " can't be empty");
+    this.columns = names;
+    this.positions = null;
+  }
+
+  @Override
+  public Optional<Integer> partition(
+      TopicKey topicKey, Supplier<Row> row, byte[] serializedRow, Cluster cluster) {
+    int numberOfPartitions = cluster.partitionInfos(topicKey).size();
+    if (numberOfPartitions == 0) return Optional.empty();
+    Optional<Cell<?>[]> cells = cells(row.get());
+    return cells.map(
+        cs -> Utils.toPositive(Utils.murmur2(Serializer.ROW.to(Row.of(cs)))) % numberOfPartitions);
+  }
+
+  private Optional<Cell<?>[]> cells(Row row) {
+    List<String> columns = this.columns;
+    int[] positions = this.positions;
+    Cell<?>[] cells = new Cell<?>[columns.size()];
+    if (positions != null && matches(row, columns, positions, cells)) return Optional.of(cells);
+    // the schema is changed so we have to find the positions again
+    List<String> names = row.names();
+    int[] newPositions = new int[columns.size()];
+    for (int i = 0; i != columns.size(); ++i) {
+      int index = names.indexOf(columns.get(i));
+      if (index < 0) return Optional.empty();
+      newPositions[i] = index;
+      cells[i] = row.cell(index);
+    }
+    this.positions = newPositions;
+    return Optional.of(cells);
+  }
+
+  private static boolean matches(Row row, List<String> columns, int[] positions, Cell<?>[] cells) {
+    int size = row.size();
+    for (int i = 0; i != positions.length; ++i) {
+      if (positions[i] >= size) return false;
+      Cell<?> cell = row.cell(positions[i]);
+      if (!cell.name().equals(columns.get(i))) return false;
+      cells[i] = cell;
+    }
+    return true;
+  }
+}
@@ -21,7 +21,6 @@ import java.util.*;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 import oharastream.ohara.common.data.Serializer;
 import oharastream.ohara.common.setting.TopicKey;
 import oharastream.ohara.common.util.CommonUtils;
@@ -30,10 +29,11 @@ import oharastream.ohara.kafka.connector.TopicPartition;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.kafka.clients.CommonClientConfigs;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.clients.consumer.OffsetResetStrategy;
-import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
 
 /**
  * A wrap of kafka consumer.
@@ -51,6 +51,17 @@ public interface Consumer<K, V> extends Releasable {
    */
   List<Record<K, V>> poll(Duration timeout);
 
+  /**
+   * poll the data from subscribed topics and pass them to the handler one by one. It is cheaper
+   * than {@link #poll(Duration)} since no list is created for the records. The key and value of
+   * record are decoded at the first access so the handler pays only for what it touches.
+   *
+   * @param timeout waiting time
+   * @param handler record handler
+   * @return the number of records passed to the handler
+   */
+  int poll(Duration timeout, java.util.function.Consumer<Record<K, V>> handler);
+
   /**
    * Overloading poll method
    *
@@ -129,11 +140,59 @@ public interface Consumer<K, V> extends Releasable {
   }
 
   /**
+   * Noted: this method lists all topics of the cluster and then fetch the end offsets of all
+   * partitions. It is expensive to a large cluster so please use {@link #endOffsets(Collection)}
+   * instead if you know the partitions.
+   *
    * @return all partitions and offsets even if those partitions are not subscribed by this
    *     consumer.
    */
   Map<TopicPartition, Long> endOffsets();
 
+  /**
+   * fetch the end offsets of specific partitions. The partitions are not required to be subscribed
+   * by this consumer.
+   *
+   * @param partitions partitions
+   * @return partitions and end offsets
+   */
+  Map<TopicPartition, Long> endOffsets(Collection<TopicPartition> partitions);
+
+  /**
+   * fetch the beginning offsets of specific partitions. The partitions are not required to be
+   * subscribed by this consumer.
+   *
+   * @param partitions partitions
+   * @return partitions and beginning offsets
+   */
+  Map<TopicPartition, Long> beginningOffsets(Collection<TopicPartition> partitions);
+
+  /**
+   * look up the earliest offsets whose timestamps are bigger than or equal to the given timestamps.
+   * The partitions having no such record are excluded from the returned map.
+   *
+   * @param timestamps partitions and timestamps
+   * @return partitions and offsets
+   */
+  Map<TopicPartition, Long> offsetsForTimes(Map<TopicPartition, Long> timestamps);
+
+  /**
+   * move the offsets of all assigned partitions to the earliest records whose timestamps are bigger
+   * than or equal to the given timestamp. The partitions having no such record are moved to the
+   * end.
+   *
+   * @param timestamp timestamp (in milliseconds)
+   */
+  void seekToTimestamp(long timestamp);
+
+  /**
+   * fetch the partitions of specific topic. It fetches only the metadata of the topic.
+   *
+   * @param topicKey topic key
+   * @return partitions of the topic. empty if the topic does not exist
+   */
+  Set<TopicPartition> partitions(TopicKey topicKey);
+
   /** break the poll right now. */
   void wakeup();
 
@@ -174,11 +233,25 @@ public interface Consumer<K, V> extends Releasable {
     private String connectionProps;
     private Serializer<?> keySerializer = null;
     private Serializer<?> valueSerializer = null;
+    private TuningProfile profile = null;
 
     private Builder() {
       // do nothing
     }
 
+    /**
+     * apply the consumer options of profile. The options passed by {@link #options(Map)} override
+     * the options of profile.
+     *
+     * @param profile tuning profile
+     * @return this builder
+     */
+    @oharastream.ohara.common.annotations.Optional("default is kafka's default options")
+    public Builder<Key, Value> profile(TuningProfile profile) {
+      this.profile = Objects.requireNonNull(profile);
+      return this;
+    }
+
     @oharastream.ohara.common.annotations.Optional("default is empty")
     public Builder<Key, Value> option(String key, String value) {
       return options(
@@ -272,34 +345,6 @@ public interface Consumer<K, V> extends Releasable {
       return (Builder<Key, NewValue>) this;
     }
 
-    /**
-     * Used to convert byte array to ohara row. It is a private class since ohara consumer will
-     * instantiate one and pass it to kafka consumer. Hence, no dynamical call will happen in kafka
-     * consumer. The access exception won't be caused.
-     *
-     * @param serializer ohara serializer
-     * @return a wrapper from kafka deserializer
-     */
-    private static <T> Deserializer<T> wrap(Serializer<T> serializer) {
-      return new org.apache.kafka.common.serialization.Deserializer<T>() {
-
-        @Override
-        public void configure(Map<String, ?> configs, boolean isKey) {
-          // do nothing
-        }
-
-        @Override
-        public T deserialize(String topic, byte[] data) {
-          return data == null ? null : serializer.from(data);
-        }
-
-        @Override
-        public void close() {
-          // do nothing
-        }
-      };
-    }
-
     private void checkArguments() {
       CommonUtils.requireNonEmpty(connectionProps);
       CommonUtils.requireNonEmpty(groupId);
@@ -314,17 +359,16 @@ public interface Consumer<K, V> extends Releasable {
       checkArguments();
 
       Properties props = new Properties();
+      if (profile != null) profile.consumerOptions().forEach(props::setProperty);
       options.forEach(props::setProperty);
       props.setProperty(CommonClientConfigs.BOOTSTRAP_SERVERS_CONFIG, connectionProps);
       props.setProperty(ConsumerConfig.GROUP_ID_CONFIG, groupId);
       // kafka demand us to pass lowe case words...
       props.setProperty(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, fromBegin.name().toLowerCase());
 
-      KafkaConsumer<Key, Value> kafkaConsumer =
-          new KafkaConsumer<>(
-              props,
-              wrap((Serializer<Key>) keySerializer),
-              wrap((Serializer<Value>) valueSerializer));
+      // the bytes are decoded by record at the first access
+      KafkaConsumer<byte[], byte[]> kafkaConsumer =
+          new KafkaConsumer<>(props, new ByteArrayDeserializer(), new ByteArrayDeserializer());
 
       if (!CommonUtils.isEmpty(topicNames)) kafkaConsumer.subscribe(topicNames);
       if (!CommonUtils.isEmpty(assignments))
@@ -349,32 +393,27 @@ public interface Consumer<K, V> extends Releasable {
           kafkaConsumer.close();
         }
 
+        private Record<Key, Value> toRecord(ConsumerRecord<byte[], byte[]> cr) {
+          return new Record<>(
+              cr, (Serializer<Key>) keySerializer, (Serializer<Value>) valueSerializer);
+        }
+
         @Override
         public List<Record<Key, Value>> poll(Duration timeout) {
-          ConsumerRecords<Key, Value> r = kafkaConsumer.poll(timeout);
+          ConsumerRecords<byte[], byte[]> r = kafkaConsumer.poll(timeout);
 
           if (r == null || r.isEmpty()) return Collections.emptyList();
-          else
-            return StreamSupport.stream(
-                    Spliterators.spliteratorUnknownSize(r.iterator(), Spliterator.ORDERED), false)
-                .map(
-                    cr ->
-                        new Record<>(
-                            cr.topic(),
-                            cr.partition(),
-                            cr.timestamp(),
-                            TimestampType.of(cr.timestampType()),
-                            cr.offset(),
-                            Optional.ofNullable(cr.headers())
-                                .map(
-                                    headers ->
-                                        StreamSupport.stream(headers.spliterator(), false)
-                                            .map(header -> new Header(header.key(), header.value()))
-                                            .collect(Collectors.toList()))
-                                .orElse(Collections.emptyList()),
-                            cr.key(),
-                            cr.value()))
-                .collect(Collectors.toList());
+          List<Record<Key, Value>> records = new ArrayList<>(r.count());
+          for (ConsumerRecord<byte[], byte[]> cr : r) records.add(toRecord(cr));
+          return records;
+        }
+
+        @Override
+        public int poll(Duration timeout, java.util.function.Consumer<Record<Key, Value>> handler) {
+          ConsumerRecords<byte[], byte[]> r = kafkaConsumer.poll(timeout);
+          if (r == null || r.isEmpty()) return 0;
+          for (ConsumerRecord<byte[], byte[]> cr : r) handler.accept(toRecord(cr));
+          return r.count();
         }
 
         @Override
@@ -417,6 +456,65 @@ public interface Consumer<K, V> extends Releasable {
               .collect(Collectors.toMap(e -> toTopicPartition(e.getKey()), Map.Entry::getValue));
         }
 
+        @Override
+        public Map<TopicPartition, Long> endOffsets(Collection<TopicPartition> partitions) {
+          return toOffsets(
+              kafkaConsumer.endOffsets(
+                  partitions.stream().map(this::toTopicPartition).collect(Collectors.toList())));
+        }
+
+        @Override
+        public Map<TopicPartition, Long> beginningOffsets(Collection<TopicPartition> partitions) {
+          return toOffsets(
+              kafkaConsumer.beginningOffsets(
+                  partitions.stream().map(this::toTopicPartition).collect(Collectors.toList())));
+        }
+
+        @Override
+        public Map<TopicPartition, Long> offsetsForTimes(Map<TopicPartition, Long> timestamps) {
+          return kafkaConsumer
+              .offsetsForTimes(
+                  timestamps.entrySet().stream()
+                      .collect(
+                          Collectors.toMap(e -> toTopicPartition(e.getKey()), Map.Entry::getValue)))
+              .entrySet().stream()
+              // kafka returns null if there is no such record
+              .filter(e -> e.getValue() != null)
+              .collect(
+                  Collectors.toMap(e -> toTopicPartition(e.getKey()), e -> e.getValue().offset()));
+        }
+
+        @Override
+        public void seekToTimestamp(long timestamp) {
+          Set<TopicPartition> partitions = assignment();
+          Map<TopicPartition, Long> offsets =
+              offsetsForTimes(
+                  partitions.stream().collect(Collectors.toMap(p -> p, p -> timestamp)));
+          offsets.forEach(this::seek);
+          List<org.apache.kafka.common.TopicPartition> others =
+              partitions.stream()
+                  .filter(p -> !offsets.containsKey(p))
+                  .map(this::toTopicPartition)
+                  .collect(Collectors.toList());
+          if (!others.isEmpty()) kafkaConsumer.seekToEnd(others);
+        }
+
+        @Override
+        public Set<TopicPartition> partitions(TopicKey topicKey) {
+          List<org.apache.kafka.common.PartitionInfo> infos =
+              kafkaConsumer.partitionsFor(topicKey.topicNameOnKafka());
+          if (infos == null) return Collections.emptySet();
+          return infos.stream()
+              .map(p -> new TopicPartition(p.topic(), p.partition()))
+              .collect(Collectors.toSet());
+        }
+
+        private Map<TopicPartition, Long> toOffsets(
+            Map<org.apache.kafka.common.TopicPartition, Long> offsets) {
+          return offsets.entrySet().stream()
+              .collect(Collectors.toMap(e -> toTopicPartition(e.getKey()), Map.Entry::getValue));
+        }
+
         @Override
         public void wakeup() {
           kafkaConsumer.wakeup();
@@ -453,44 +551,27 @@ public interface Consumer<K, V> extends Releasable {
   }
 
   /**
-   * a scala wrap from kafka's consumer record.
+   * a scala wrap from kafka's consumer record. The key, value and headers are converted at the
+   * first access. Noted: this class is not thread-safe.
    *
    * @param <K> K key type
    * @param <V> V value type
    */
   class Record<K, V> {
-    private final String topicName;
-    private final int partition;
-    private final long timestamp;
-    private final TimestampType timestampType;
-    private final long offset;
-    private final List<Header> headers;
-    private final K key;
-    private final V value;
-
-    /**
-     * @param topicName topic name
-     * @param timestamp time to create this record or time to append this record.
-     * @param key key (nullable)
-     * @param value value
-     */
-    private Record(
-        String topicName,
-        int partition,
-        long timestamp,
-        TimestampType timestampType,
-        long offset,
-        List<Header> headers,
-        K key,
-        V value) {
-      this.topicName = topicName;
-      this.partition = partition;
-      this.timestamp = timestamp;
-      this.timestampType = timestampType;
-      this.offset = offset;
-      this.headers = Collections.unmodifiableList(headers);
-      this.key = key;
-      this.value = value;
+    private final ConsumerRecord<byte[], byte[]> record;
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+    private List<Header> headers = null;
+    private K key = null;
+    private V value = null;
+
+    Record(
+        ConsumerRecord<byte[], byte[]> record,
+        Serializer<K> keySerializer,
+        Serializer<V> valueSerializer) {
+      this.record = record;
+      this.keySerializer = keySerializer;
+      this.valueSerializer = valueSerializer;
     }
 
     /**
@@ -499,11 +580,11 @@ public interface Consumer<K, V> extends Releasable {
      * @return a topic name
      */
     public String topicName() {
-      return topicName;
+      return record.topic();
     }
 
     public int partition() {
-      return partition;
+      return record.partition();
     }
     /**
      * The timestamp of this record.
@@ -511,7 +592,7 @@ public interface Consumer<K, V> extends Releasable {
      * @return timestamp
      */
     public long timestamp() {
-      return timestamp;
+      return record.timestamp();
     }
 
     /**
@@ -520,7 +601,7 @@ public interface Consumer<K, V> extends Releasable {
      * @return timestamp type
      */
     public TimestampType timestampType() {
-      return timestampType;
+      return TimestampType.of(record.timestampType());
     }
 
     /**
@@ -529,7 +610,7 @@ public interface Consumer<K, V> extends Releasable {
      * @return offset
      */
     public long offset() {
-      return offset;
+      return record.offset();
     }
 
     /**
@@ -538,24 +619,33 @@ public interface Consumer<K, V> extends Releasable {
      * @return header list
      */
     public List<Header> headers() {
+      if (headers == null) {
+        List<Header> hs = new ArrayList<>();
+        if (record.headers() != null)
+          for (org.apache.kafka.common.header.Header header : record.headers())
+            hs.add(new Header(header.key(), header.value()));
+        headers = Collections.unmodifiableList(hs);
+      }
       return headers;
     }
 
     /**
-     * The key
+     * The key. It is decoded at the first call.
      *
      * @return optional key
      */
     public Optional<K> key() {
+      if (key == null && record.key() != null) key = keySerializer.from(record.key());
       return Optional.ofNullable(key);
     }
 
     /**
-     * The value
+     * The value. It is decoded at the first call.
      *
      * @return optional value
      */
     public Optional<V> value() {
+      if (value == null && record.value() != null) value = valueSerializer.from(record.value());
       return Optional.ofNullable(value);
     }
 
@@ -564,29 +654,29 @@ public interface Consumer<K, V> extends Releasable {
       if (this == o) return true;
       if (o == null || getClass() != o.getClass()) return false;
       Record<?, ?> that = (Record<?, ?>) o;
-      return Objects.equals(topicName, that.topicName)
-          && Objects.equals(timestamp, that.timestamp)
-          && Objects.equals(timestampType, that.timestampType)
-          && Objects.equals(offset, that.offset)
-          && CommonUtils.equals(headers, that.headers)
-          && Objects.equals(key, that.key)
-          && Objects.equals(value, that.value);
+      return Objects.equals(topicName(), that.topicName())
+          && Objects.equals(timestamp(), that.timestamp())
+          && Objects.equals(timestampType(), that.timestampType())
+          && Objects.equals(offset(), that.offset())
+          && CommonUtils.equals(headers(), that.headers())
+          && Objects.equals(key(), that.key())
+          && Objects.equals(value(), that.value());
     }
 
     @Override
     public int hashCode() {
-      return Objects.hash(topicName, headers, key, value);
+      return Objects.hash(topicName(), headers(), key(), value());
     }
 
     @Override
     public String toString() {
       return new ToStringBuilder(this)
-          .append("topicName", topicName)
-          .append("timestamp", timestamp)
-          .append("offset", offset)
-          .append("headers", headers)
-          .append("key", key)
-          .append("value", value)
+          .append("topicName", topicName())
+          .append("timestamp", timestamp())
+          .append("offset", offset())
+          .append("headers", headers())
+          .append("key", key())
+          .append("value", value())
           .toString();
     }
   }
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.kafka;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import oharastream.ohara.common.annotations.Optional;
+import oharastream.ohara.common.annotations.VisibleForTesting;
+import oharastream.ohara.common.setting.ObjectKey;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.common.util.Releasable;
+import oharastream.ohara.common.util.ReleaseOnce;
+import oharastream.ohara.kafka.connector.TopicPartition;
+import oharastream.ohara.metrics.basic.Counter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The lag collector compares the committed offsets of a consumer group with the end offsets of
+ * partitions periodically. The lag of each partition and the total lag are published as {@link
+ * Counter} under the object key of the owner so they are visible to the metrics tools.
+ */
+public final class LagCollector extends ReleaseOnce {
+  private static final Logger LOG = LoggerFactory.getLogger(LagCollector.class);
+
+  /** the default item of counter recording the total lag */
+  public static final String DEFAULT_ITEM = "consumer.lag";
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  private final TopicAdmin topicAdmin;
+  private final boolean needCloseAdmin;
+  private final ObjectKey key;
+  private final String groupId;
+  private final String item;
+  private final Counter totalCounter;
+  private final Map<TopicPartition, Counter> partitionCounters = new ConcurrentHashMap<>();
+  private final ScheduledExecutorService executor;
+
+  private LagCollector(
+      TopicAdmin topicAdmin,
+      boolean needCloseAdmin,
+      ObjectKey key,
+      String groupId,
+      String item,
+      Duration interval) {
+    this.topicAdmin = topicAdmin;
+    this.needCloseAdmin = needCloseAdmin;
+    this.key = key;
+    this.groupId = groupId;
+    this.item = item;
+    this.totalCounter =
+        Counter.builder()
+            .key(key)
+            .item(item)
+            .unit("records")
+            .document("the total lag of consumer group " + groupId)
+            .register();
+    this.executor =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "lag-collector-" + groupId);
+              thread.setDaemon(true);
+              return thread;
+            });
+    this.executor.scheduleWithFixedDelay(
+        () -> {
+          try {
+            refresh();
+          } catch (Throwable e) {
+            LOG.warn("failed to collect the lag of group:" + groupId, e);
+          }
+        },
+        0,
+        interval.toMillis(),
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * fetch the committed offsets and end offsets and then update the counters.
+   *
+   * @return the latest lags
+   */
+  @VisibleForTesting
+  Map<TopicPartition, Long> refresh() {
+    Map<TopicPartition, Long> committed =
+        topicAdmin.consumerGroupOffsets(groupId).toCompletableFuture().join();
+    Map<TopicPartition, Long> ends =
+        topicAdmin.endOffsets(committed.keySet()).toCompletableFuture().join();
+    Map<TopicPartition, Long> lags = new HashMap<>(committed.size());
+    committed.forEach(
+        (tp, offset) -> {
+          Long end = ends.get(tp);
+          // the end offset may be absent if the topic is deleted
+          if (end != null) lags.put(tp, Math.max(0, end - offset));
+        });
+    // release the counters of partitions which are not consumed by this group
+    partitionCounters.entrySet().stream()
+        .filter(entry -> !lags.containsKey(entry.getKey()))
+        .map(Map.Entry::getKey)
+        .forEach(tp -> Releasable.close(partitionCounters.remove(tp)));
+    lags.forEach(
+        (tp, lag) ->
+            partitionCounters
+                .computeIfAbsent(
+                    tp,
+                    ignored ->
+                        Counter.builder()
+                            .key(key)
+                            .item(item + "-" + tp.topicName() + "-" + tp.partition())
+                            .unit("records")
+                            .document("the lag of " + tp + " in consumer group " + groupId)
+                            .registerAggregated())
+                .setAndGet(lag));
+    totalCounter.setAndGet(lags.values().stream().mapToLong(Long::longValue).sum());
+    return Collections.unmodifiableMap(lags);
+  }
+
+  /** @return the total lag of last collection */
+  public long totalLag() {
+    return totalCounter.getValue();
+  }
+
+  /** @return the lag of each partition from last collection */
+  public Map<TopicPartition, Long> lags() {
+    Map<TopicPartition, Long> lags = new HashMap<>(partitionCounters.size());
+    partitionCounters.forEach((tp, counter) -> lags.put(tp, counter.getValue()));
+    return Collections.unmodifiableMap(lags);
+  }
+
+  @Override
+  protected void doClose() {
+    executor.shutdownNow();
+    try {
+      if (!executor.awaitTermination(30, TimeUnit.SECONDS))
+        LOG.warn("failed to stop the lag collector of group:" + groupId);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    partitionCounters.values().forEach(Counter::close);
+    partitionCounters.clear();
+    Releasable.close(totalCounter);
+    if (needCloseAdmin) Releasable.close(topicAdmin);
+  }
+
+  public static class Builder implements oharastream.ohara.common.pattern.Builder<LagCollector> {
+    private TopicAdmin topicAdmin = null;
+    private String connectionProps = null;
+    private ObjectKey key;
+    private String groupId;
+    private String item = DEFAULT_ITEM;
+    private Duration interval = Duration.ofSeconds(10);
+
+    private Builder() {}
+
+    /**
+     * the collector creates a topic admin by the connection props and it closes the admin when the
+     * collector is closed.
+     *
+     * @param connectionProps broker connection props
+     * @return this builder
+     */
+    public Builder connectionProps(String connectionProps) {
+      this.connectionProps = CommonUtils.requireNonEmpty(connectionProps);
+      return this;
+    }
+
+    /**
+     * use an existent topic admin. NOTED: the admin is NOT closed by the collector.
+     *
+     * @param topicAdmin topic admin
+     * @return this builder
+     */
+    public Builder topicAdmin(TopicAdmin topicAdmin) {
+      this.topicAdmin = Objects.requireNonNull(topicAdmin);
+      return this;
+    }
+
+    /**
+     * @param key the object key of owner. The counters are registered under this key
+     * @return this builder
+     */
+    public Builder key(ObjectKey key) {
+      this.key = Objects.requireNonNull(key);
+      return this;
+    }
+
+    public Builder groupId(String groupId) {
+      this.groupId = CommonUtils.requireNonEmpty(groupId);
+      return this;
+    }
+
+    /**
+     * the item of total lag. The item of partition lag is "item-topic-partition".
+     *
+     * @param item item of counter
+     * @return this builder
+     */
+    @Optional("default is DEFAULT_ITEM")
+    public Builder item(String item) {
+      this.item = CommonUtils.requireNonEmpty(item);
+      return this;
+    }
+
+    @Optional("default is 10 seconds")
+    public Builder interval(Duration interval) {
+      this.interval = Objects.requireNonNull(interval);
+      return this;
+    }
+
+    private void checkArguments() {
+      if (topicAdmin == null) CommonUtils.requireNonEmpty(connectionProps);
+      Objects.requireNonNull(key);
+      CommonUtils.requireNonEmpty(groupId);
+      CommonUtils.requireNonEmpty(item);
+      Objects.requireNonNull(interval);
+    }
+
+    /**
+     * create and start the collector.
+     *
+     * @return collector
+     */
+    @Override
+    public LagCollector build() {
+      checkArguments();
+      return topicAdmin == null
+          ? new LagCollector(TopicAdmin.of(connectionProps), true, key, groupId, item, interval)
+          : new LagCollector(topicAdmin, false, key, groupId, item, interval);
+    }
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.kafka;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import oharastream.ohara.common.annotations.VisibleForTesting;
+import oharastream.ohara.common.data.Row;
+import oharastream.ohara.common.setting.TopicKey;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.metrics.BeanChannel;
+import oharastream.ohara.metrics.kafka.TopicMeter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This partitioner sticks on a partition until the batch of the partition is full (see {@link
+ * StickyRoundRobinPartitioner}), and then it picks up the next partition by the load of leaders.
+ * The load of a broker is the sum of {@link TopicMeter.Catalog#BytesInPerSec} of all topics. Two
+ * partitions are selected randomly and the one having the lighter leader is used. Hence, the
+ * partitions hosted by busy brokers get fewer records.
+ *
+ * <p>The metrics are fetched from the jmx port defined by producer option {@link #JMX_PORT_KEY},
+ * and they are updated in background every {@link #REFRESH_INTERVAL_KEY} milliseconds. The
+ * partitions are picked up randomly if the jmx port is not defined.
+ */
+public class LoadAwarePartitioner extends RowPartitioner {
+  private static final Logger LOG = LoggerFactory.getLogger(LoadAwarePartitioner.class);
+
+  /** the producer option carrying the jmx port of brokers. */
+  public static final String JMX_PORT_KEY = "ohara.partitioner.jmx.port";
+
+  /** the producer option carrying the interval (in milliseconds) of updating the metrics. */
+  public static final String REFRESH_INTERVAL_KEY = "ohara.partitioner.refresh.interval.ms";
+
+  private final Map<TopicKey, Integer> partitions = new ConcurrentHashMap<>();
+  private final AtomicBoolean refreshing = new AtomicBoolean(false);
+  private volatile Map<String, Double> loads = Collections.emptyMap();
+  private volatile long lastRefresh = 0;
+  private int jmxPort = -1;
+  private long refreshInterval = 10 * 1000;
+  private ExecutorService executor = null;
+
+  @Override
+  protected void doConfigure(Map<String, ?> configs) {
+    Object port = configs.get(JMX_PORT_KEY);
+    if (port != null)
+      jmxPort = CommonUtils.requireConnectionPort(Integer.parseInt(port.toString()));
+    Object interval = configs.get(REFRESH_INTERVAL_KEY);
+    if (interval != null)
+      refreshInterval = CommonUtils.requirePositiveLong(Long.parseLong(interval.toString()));
+    if (jmxPort > 0)
+      executor =
+          Executors.newSingleThreadExecutor(
+              r -> {
+                Thread t = new Thread(r, "load-aware-partitioner");
+                t.setDaemon(true);
+                return t;
+              });
+  }
+
+  @Override
+  protected void doClose() {
+    if (executor != null) executor.shutdownNow();
+  }
+
+  /**
+   * fetch the load of brokers.
+   *
+   * @param hostnames the hostnames of brokers
+   * @return hostname and load (bytes in per second)
+   */
+  protected Map<String, Double> loads(Set<String> hostnames) {
+    Map<String, Double> result = new HashMap<>();
+    hostnames.forEach(
+        hostname -> {
+          try {
+            result.put(
+                hostname,
+                BeanChannel.builder().hostname(hostname).port(jmxPort).domainName("kafka.server")
+                    .build().topicMeters().stream()
+                    .filter(meter -> meter.catalog() == TopicMeter.Catalog.BytesInPerSec)
+                    .mapToDouble(TopicMeter::oneMinuteRate)
+                    .sum());
+          } catch (Exception e) {
+            LOG.debug("failed to fetch the metrics from " + hostname, e);
+          }
+        });
+    return result;
+  }
+
+  /**
+   * update the loads of leaders.
+   *
+   * @param cluster cluster
+   */
+  @VisibleForTesting
+  void refresh(Cluster cluster) {
+    try {
+      loads =
+          Collections.unmodifiableMap(
+              loads(
+                  cluster.partitionsByNode().keySet().stream()
+                      .map(PartitionNode::host)
+                      .collect(Collectors.toSet())));
+    } finally {
+      lastRefresh = CommonUtils.current();
+      refreshing.set(false);
+    }
+  }
+
+  private void refreshIfNeeded(Cluster cluster) {
+    if (executor == null || CommonUtils.current() - lastRefresh < refreshInterval) return;
+    if (refreshing.compareAndSet(false, true)) {
+      try {
+        executor.execute(() -> refresh(cluster));
+      } catch (Exception e) {
+        refreshing.set(false);
+      }
+    }
+  }
+
+  /**
+   * select two partitions randomly and then return the one having lighter leader.
+   *
+   * @param partitionInfos partitions
+   * @return partition id
+   */
+  @VisibleForTesting
+  int choose(List<PartitionInfo> partitionInfos) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    PartitionInfo first = partitionInfos.get(random.nextInt(partitionInfos.size()));
+    PartitionInfo second = partitionInfos.get(random.nextInt(partitionInfos.size()));
+    return load(first) <= load(second) ? first.id() : second.id();
+  }
+
+  private double load(PartitionInfo partitionInfo) {
+    // the partition having no leader is unavailable so it is the heaviest one
+    if (partitionInfo.leader() == null) return Double.MAX_VALUE;
+    return loads.getOrDefault(partitionInfo.leader().host(), 0D);
+  }
+
+  @Override
+  public Optional<Integer> partition(
+      TopicKey topicKey, Supplier<Row> row, byte[] serializedRow, Cluster cluster) {
+    List<PartitionInfo> partitionInfos = cluster.partitionInfos(topicKey);
+    if (partitionInfos.isEmpty()) return Optional.empty();
+    refreshIfNeeded(cluster);
+    int partition = partitions.computeIfAbsent(topicKey, k -> choose(partitionInfos));
+    // the number of partitions is decreased so we choose it again
+    if (partition >= partitionInfos.size()) {
+      partition = choose(partitionInfos);
+      partitions.put(topicKey, partition);
+    }
+    return Optional.of(partition);
+  }
+
+  @Override
+  protected void onNewBatch(TopicKey topicKey, Cluster cluster, int previousPartition) {
+    List<PartitionInfo> partitionInfos = cluster.partitionInfos(topicKey);
+    if (partitionInfos.isEmpty()) return;
+    // the partition is changed by other thread already
+    partitions.computeIfPresent(
+        topicKey, (k, current) -> current == previousPartition ? choose(partitionInfos) : current);
+  }
+}
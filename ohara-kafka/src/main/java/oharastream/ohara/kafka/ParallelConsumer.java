@@ -0,0 +1,481 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.kafka;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import oharastream.ohara.common.annotations.Optional;
+import oharastream.ohara.common.annotations.VisibleForTesting;
+import oharastream.ohara.common.data.Serializer;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.common.util.ReleaseOnce;
+import org.apache.kafka.clients.CommonClientConfigs;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A consumer polling the records by a single thread and processing them by a pool of workers. The
+ * records having the same key (or the same partition) are processed by the same worker so their
+ * order is kept. The offsets are committed only if all previous records of the partition are
+ * completed. The partitions are paused when the size of in-flight records exceeds the bound, and
+ * they are resumed when the workers catch up.
+ *
+ * <p>The key and value of record are decoded by the worker so the decoding cost is shared by the
+ * workers. The records failed by the handler are logged and committed.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public final class ParallelConsumer<K, V> extends ReleaseOnce {
+  private static final Logger LOG = LoggerFactory.getLogger(ParallelConsumer.class);
+
+  /** the unit of ordering. */
+  public enum Ordering {
+    /** the records having the same key are processed in order */
+    KEY,
+    /** the records in the same partition are processed in order */
+    PARTITION
+  }
+
+  public static Builder<byte[], byte[]> builder() {
+    return new Builder<>().keySerializer(Serializer.BYTES).valueSerializer(Serializer.BYTES);
+  }
+
+  /**
+   * track the in-flight offsets of a partition. The offsets are added by the poll thread in order
+   * and they are completed by workers in any order.
+   */
+  @VisibleForTesting
+  static final class Tracker {
+    private final ArrayDeque<Long> offsets = new ArrayDeque<>();
+    private final Set<Long> completed = new HashSet<>();
+
+    synchronized void add(long offset) {
+      offsets.addLast(offset);
+    }
+
+    synchronized void complete(long offset) {
+      completed.add(offset);
+    }
+
+    /** @return the offset to commit (the offset after the last contiguous completed offset) */
+    synchronized java.util.Optional<Long> committable() {
+      long next = -1;
+      while (!offsets.isEmpty() && completed.remove(offsets.peekFirst()))
+        next = offsets.pollFirst() + 1;
+      return next < 0 ? java.util.Optional.empty() : java.util.Optional.of(next);
+    }
+
+    synchronized boolean isEmpty() {
+      return offsets.isEmpty();
+    }
+  }
+
+  private final KafkaConsumer<byte[], byte[]> kafkaConsumer;
+  private final Serializer<K> keySerializer;
+  private final Serializer<V> valueSerializer;
+  private final java.util.function.Consumer<Consumer.Record<K, V>> handler;
+  private final Ordering ordering;
+  private final long maxInFlightBytes;
+  private final Duration pollTimeout;
+  private final Duration commitInterval;
+  private final ExecutorService[] workers;
+  private final ExecutorService poller;
+  // only the poll thread accesses the trackers
+  private final Map<TopicPartition, Tracker> trackers = new HashMap<>();
+  private final AtomicLong inFlightBytes = new AtomicLong(0);
+  private final AtomicLong failedRecords = new AtomicLong(0);
+  private final AtomicBoolean closed = new AtomicBoolean(false);
+  private volatile boolean paused = false;
+
+  private ParallelConsumer(
+      Properties props,
+      Set<String> topicNames,
+      Serializer<K> keySerializer,
+      Serializer<V> valueSerializer,
+      java.util.function.Consumer<Consumer.Record<K, V>> handler,
+      Ordering ordering,
+      int numberOfWorkers,
+      long maxInFlightBytes,
+      Duration pollTimeout,
+      Duration commitInterval) {
+    this.kafkaConsumer =
+        new KafkaConsumer<>(props, new ByteArrayDeserializer(), new ByteArrayDeserializer());
+    this.keySerializer = keySerializer;
+    this.valueSerializer = valueSerializer;
+    this.handler = handler;
+    this.ordering = ordering;
+    this.maxInFlightBytes = maxInFlightBytes;
+    this.pollTimeout = pollTimeout;
+    this.commitInterval = commitInterval;
+    this.workers = new ExecutorService[numberOfWorkers];
+    for (int i = 0; i != numberOfWorkers; ++i) {
+      String name = "parallel-consumer-worker-" + i;
+      this.workers[i] = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, name));
+    }
+    this.poller =
+        Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "parallel-consumer-poller"));
+    kafkaConsumer.subscribe(
+        topicNames,
+        new ConsumerRebalanceListener() {
+          @Override
+          public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            drain(partitions);
+          }
+
+          @Override
+          public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+            // the new partitions should be paused also if we are waiting for the workers
+            if (paused) kafkaConsumer.pause(partitions);
+          }
+        });
+    this.poller.execute(this::run);
+  }
+
+  private void run() {
+    try {
+      long nextCommit = CommonUtils.current() + commitInterval.toMillis();
+      while (!closed.get()) {
+        ConsumerRecords<byte[], byte[]> records = kafkaConsumer.poll(pollTimeout);
+        for (TopicPartition tp : records.partitions()) {
+          Tracker tracker = trackers.computeIfAbsent(tp, ignored -> new Tracker());
+          for (ConsumerRecord<byte[], byte[]> record : records.records(tp))
+            dispatch(tracker, record);
+        }
+        if (!paused && inFlightBytes.get() > maxInFlightBytes) {
+          kafkaConsumer.pause(kafkaConsumer.assignment());
+          paused = true;
+        } else if (paused && inFlightBytes.get() <= maxInFlightBytes / 2) {
+          // resume at the half of bound to avoid pausing/resuming frequently
+          kafkaConsumer.resume(kafkaConsumer.paused());
+          paused = false;
+        }
+        if (CommonUtils.current() >= nextCommit) {
+          commit(false);
+          nextCommit = CommonUtils.current() + commitInterval.toMillis();
+        }
+      }
+    } catch (WakeupException e) {
+      // the consumer is closing
+    } catch (Throwable e) {
+      LOG.error("the parallel consumer is broken", e);
+    } finally {
+      Arrays.stream(workers).forEach(ExecutorService::shutdown);
+      try {
+        for (ExecutorService worker : workers)
+          if (!worker.awaitTermination(30, TimeUnit.SECONDS))
+            LOG.warn("failed to wait for the worker of parallel consumer");
+        try {
+          commit(true);
+        } catch (WakeupException e) {
+          // the wakeup may be called when the poll thread is not polling
+          commit(true);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (Throwable e) {
+        LOG.warn("failed to commit the offsets of parallel consumer", e);
+      } finally {
+        kafkaConsumer.close();
+      }
+    }
+  }
+
+  private void dispatch(Tracker tracker, ConsumerRecord<byte[], byte[]> record) {
+    int hash =
+        ordering == Ordering.KEY && record.key() != null
+            ? Arrays.hashCode(record.key())
+            : Objects.hash(record.topic(), record.partition());
+    long size = Math.max(0, record.serializedKeySize()) + Math.max(0, record.serializedValueSize());
+    long offset = record.offset();
+    tracker.add(offset);
+    inFlightBytes.addAndGet(size);
+    workers[Math.floorMod(hash, workers.length)].execute(
+        () -> {
+          try {
+            handler.accept(new Consumer.Record<>(record, keySerializer, valueSerializer));
+          } catch (Throwable e) {
+            failedRecords.incrementAndGet();
+            LOG.error(
+                "failed to process the record of "
+                    + record.topic()
+                    + "-"
+                    + record.partition()
+                    + " at "
+                    + offset,
+                e);
+          } finally {
+            tracker.complete(offset);
+            inFlightBytes.addAndGet(-size);
+          }
+        });
+  }
+
+  /**
+   * wait for the in-flight records of partitions and then commit them. It is called by the poll
+   * thread when the partitions are revoked.
+   */
+  private void drain(Collection<TopicPartition> partitions) {
+    long endTime = CommonUtils.current() + 30 * 1000;
+    for (TopicPartition tp : partitions) {
+      Tracker tracker = trackers.get(tp);
+      while (tracker != null && !tracker.isEmpty() && CommonUtils.current() < endTime) {
+        tracker.committable().ifPresent(offset -> commit(tp, offset));
+        if (!tracker.isEmpty()) {
+          try {
+            TimeUnit.MILLISECONDS.sleep(10);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            break;
+          }
+        }
+      }
+      if (tracker != null) tracker.committable().ifPresent(offset -> commit(tp, offset));
+      trackers.remove(tp);
+    }
+  }
+
+  private void commit(TopicPartition tp, long offset) {
+    kafkaConsumer.commitSync(Collections.singletonMap(tp, new OffsetAndMetadata(offset)));
+  }
+
+  private void commit(boolean sync) {
+    Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+    trackers.forEach(
+        (tp, tracker) ->
+            tracker
+                .committable()
+                .ifPresent(offset -> offsets.put(tp, new OffsetAndMetadata(offset))));
+    if (offsets.isEmpty()) return;
+    if (sync) kafkaConsumer.commitSync(offsets);
+    else
+      kafkaConsumer.commitAsync(
+          offsets,
+          (ignored, e) -> {
+            if (e != null) LOG.warn("failed to commit the offsets of parallel consumer", e);
+          });
+  }
+
+  /** @return the size (in bytes) of records which are dispatched but not completed */
+  public long inFlightBytes() {
+    return inFlightBytes.get();
+  }
+
+  /** @return true if the partitions are paused since the workers are too slow */
+  public boolean paused() {
+    return paused;
+  }
+
+  /** @return the number of records which are failed by the handler */
+  public long numberOfFailedRecords() {
+    return failedRecords.get();
+  }
+
+  /** stop polling, wait for the in-flight records and then commit the completed offsets. */
+  @Override
+  protected void doClose() {
+    closed.set(true);
+    kafkaConsumer.wakeup();
+    poller.shutdown();
+    try {
+      if (!poller.awaitTermination(60, TimeUnit.SECONDS))
+        LOG.warn("failed to stop the parallel consumer");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  public static class Builder<Key, Value>
+      implements oharastream.ohara.common.pattern.Builder<ParallelConsumer<Key, Value>> {
+    private Map<String, String> options = Collections.emptyMap();
+    private OffsetResetStrategy fromBegin = OffsetResetStrategy.LATEST;
+    private Set<String> topicNames;
+    private String groupId = String.format("ohara-consumer-%s", CommonUtils.randomString());
+    private String connectionProps;
+    private Serializer<?> keySerializer = null;
+    private Serializer<?> valueSerializer = null;
+    private java.util.function.Consumer<Consumer.Record<Key, Value>> handler = null;
+    private Ordering ordering = Ordering.PARTITION;
+    private int numberOfWorkers = Runtime.getRuntime().availableProcessors();
+    private long maxInFlightBytes = 32 * 1024 * 1024;
+    private Duration pollTimeout = Duration.ofMillis(500);
+    private Duration commitInterval = Duration.ofSeconds(1);
+
+    private Builder() {
+      // do nothing
+    }
+
+    @Optional("default is empty")
+    public Builder<Key, Value> options(Map<String, String> options) {
+      this.options = CommonUtils.requireNonEmpty(options);
+      return this;
+    }
+
+    /**
+     * receive all un-deleted message from subscribed topics
+     *
+     * @return this builder
+     */
+    @Optional("default is OffsetResetStrategy.LATEST")
+    public Builder<Key, Value> offsetFromBegin() {
+      this.fromBegin = OffsetResetStrategy.EARLIEST;
+      return this;
+    }
+
+    public Builder<Key, Value> topicName(String topicName) {
+      return topicNames(Collections.singleton(CommonUtils.requireNonEmpty(topicName)));
+    }
+
+    public Builder<Key, Value> topicNames(Set<String> topicNames) {
+      this.topicNames = CommonUtils.requireNonEmpty(topicNames);
+      return this;
+    }
+
+    @Optional("default is random string")
+    public Builder<Key, Value> groupId(String groupId) {
+      this.groupId = CommonUtils.requireNonEmpty(groupId);
+      return this;
+    }
+
+    public Builder<Key, Value> connectionProps(String connectionProps) {
+      this.connectionProps = CommonUtils.requireNonEmpty(connectionProps);
+      return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <NewKey> Builder<NewKey, Value> keySerializer(Serializer<NewKey> keySerializer) {
+      this.keySerializer = Objects.requireNonNull(keySerializer);
+      this.handler = null;
+      return (Builder<NewKey, Value>) this;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <NewValue> Builder<Key, NewValue> valueSerializer(Serializer<NewValue> valueSerializer) {
+      this.valueSerializer = Objects.requireNonNull(valueSerializer);
+      this.handler = null;
+      return (Builder<Key, NewValue>) this;
+    }
+
+    /**
+     * @param handler processes the records. It is called by the workers concurrently.
+     * @return this builder
+     */
+    public Builder<Key, Value> handler(
+        java.util.function.Consumer<Consumer.Record<Key, Value>> handler) {
+      this.handler = Objects.requireNonNull(handler);
+      return this;
+    }
+
+    @Optional("default is PARTITION")
+    public Builder<Key, Value> ordering(Ordering ordering) {
+      this.ordering = Objects.requireNonNull(ordering);
+      return this;
+    }
+
+    @Optional("default is the number of processors")
+    public Builder<Key, Value> numberOfWorkers(int numberOfWorkers) {
+      this.numberOfWorkers = CommonUtils.requirePositiveInt(numberOfWorkers);
+      return this;
+    }
+
+    /**
+     * @param maxInFlightBytes the partitions are paused when the size of in-flight records exceeds
+     *     this bound
+     * @return this builder
+     */
+    @Optional("default is 32MB")
+    public Builder<Key, Value> maxInFlightBytes(long maxInFlightBytes) {
+      this.maxInFlightBytes = CommonUtils.requirePositiveLong(maxInFlightBytes);
+      return this;
+    }
+
+    @Optional("default is 500 milliseconds")
+    public Builder<Key, Value> pollTimeout(Duration pollTimeout) {
+      this.pollTimeout = Objects.requireNonNull(pollTimeout);
+      return this;
+    }
+
+    @Optional("default is 1 second")
+    public Builder<Key, Value> commitInterval(Duration commitInterval) {
+      this.commitInterval = Objects.requireNonNull(commitInterval);
+      return this;
+    }
+
+    private void checkArguments() {
+      CommonUtils.requireNonEmpty(connectionProps);
+      CommonUtils.requireNonEmpty(groupId);
+      CommonUtils.requireNonEmpty(topicNames);
+      Objects.requireNonNull(keySerializer);
+      Objects.requireNonNull(valueSerializer);
+      Objects.requireNonNull(handler);
+    }
+
+    /**
+     * create and start the consumer.
+     *
+     * @return parallel consumer
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public ParallelConsumer<Key, Value> build() {
+      checkArguments();
+      Properties props = new Properties();
+      options.forEach(props::setProperty);
+      props.setProperty(CommonClientConfigs.BOOTSTRAP_SERVERS_CONFIG, connectionProps);
+      props.setProperty(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+      props.setProperty(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, fromBegin.name().toLowerCase());
+      // the offsets are committed after the records are processed
+      props.setProperty(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+      return new ParallelConsumer<>(
+          props,
+          topicNames,
+          (Serializer<Key>) keySerializer,
+          (Serializer<Value>) valueSerializer,
+          handler,
+          ordering,
+          numberOfWorkers,
+          maxInFlightBytes,
+          pollTimeout,
+          commitInterval);
+    }
+  }
+}
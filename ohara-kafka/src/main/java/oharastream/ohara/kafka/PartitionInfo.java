@@ -27,12 +27,12 @@ public final class PartitionInfo {
   /**
    * @param partitionInfo kafka partitionInfo
    * @return ohara partition info. Noted, both offsets are -1 since kafka partition doesn't carry
-   *     such information.
+   *     such information. The leader is null if the partition has no leader.
    */
   public static PartitionInfo of(org.apache.kafka.common.PartitionInfo partitionInfo) {
     return new PartitionInfo(
         partitionInfo.partition(),
-        PartitionNode.of(partitionInfo.leader()),
+        partitionInfo.leader() == null ? null : PartitionNode.of(partitionInfo.leader()),
         Stream.of(partitionInfo.replicas()).map(PartitionNode::of).collect(Collectors.toList()),
         Stream.of(partitionInfo.inSyncReplicas())
             .map(PartitionNode::of)
@@ -67,6 +67,7 @@ public final class PartitionInfo {
     return id;
   }
 
+  /** @return the leader of this partition, or null if the partition has no leader */
   public PartitionNode leader() {
     return leader;
   }
@@ -17,7 +17,6 @@
 package oharastream.ohara.kafka;
 
 import java.util.Objects;
-import oharastream.ohara.common.util.CommonUtils;
 import org.apache.kafka.common.Node;
 
 public final class PartitionNode {
@@ -30,9 +29,14 @@ public final class PartitionNode {
   private final String host;
   private final int port;
 
+  /**
+   * @param id node id
+   * @param host node host. It is empty if the node is offline.
+   * @param port node port
+   */
   public PartitionNode(int id, String host, int port) {
     this.id = id;
-    this.host = CommonUtils.requireNonEmpty(host);
+    this.host = Objects.requireNonNull(host);
     this.port = port;
   }
 
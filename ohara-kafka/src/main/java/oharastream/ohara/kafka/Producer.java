@@ -16,19 +16,24 @@
 
 package oharastream.ohara.kafka;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import oharastream.ohara.common.annotations.Optional;
 import oharastream.ohara.common.annotations.VisibleForTesting;
 import oharastream.ohara.common.data.Serializer;
 import oharastream.ohara.common.util.CommonUtils;
 import oharastream.ohara.common.util.Releasable;
+import oharastream.ohara.kafka.connector.TopicPartition;
 import org.apache.kafka.clients.CommonClientConfigs;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
@@ -48,9 +53,44 @@ public interface Producer<Key, Value> extends Releasable {
    */
   Sender<Key, Value> sender();
 
+  /**
+   * create a sender used to send a batch of records to brokers. It is cheaper than {@link
+   * #sender()} when there are a lot of records since all records share a callback counter and the
+   * headers.
+   *
+   * @return a batch sender
+   */
+  BatchSender<Key, Value> batchSender();
+
   /** flush all on-the-flight data. */
   void flush();
 
+  /**
+   * start a transaction. The producer must be built by {@link Builder#transactional(String)}.
+   * Noted: the records sent after this call are invisible to the consumers reading committed data
+   * until the transaction is committed.
+   */
+  void beginTransaction();
+
+  /**
+   * commit current transaction. All on-the-flight data are flushed before committing.
+   *
+   * @see TransactionBatcher a helper amortizing the cost of commits over a batch of records
+   */
+  void commitTransaction();
+
+  /** abort current transaction. The records sent in this transaction are discarded. */
+  void abortTransaction();
+
+  /**
+   * add the consumer offsets to current transaction. The offsets are committed only if the
+   * transaction is committed.
+   *
+   * @param offsets partitions and the offsets of next records to consume
+   * @param groupId the consumer group owning the offsets
+   */
+  void sendOffsetsToTransaction(Map<TopicPartition, Long> offsets, String groupId);
+
   static Builder<byte[], byte[]> builder() {
     return new Builder<>().keySerializer(Serializer.BYTES).valueSerializer(Serializer.BYTES);
   }
@@ -63,11 +103,27 @@ public interface Producer<Key, Value> extends Releasable {
     private short numberOfAcks = 1;
     private Serializer<?> keySerializer = null;
     private Serializer<?> valueSerializer = null;
+    private boolean idempotent = false;
+    private String transactionalId = null;
+    private TuningProfile profile = null;
 
     private Builder() {
       // no nothing
     }
 
+    /**
+     * apply the producer options of profile. The options passed by {@link #options(Map)} override
+     * the options of profile.
+     *
+     * @param profile tuning profile
+     * @return this builder
+     */
+    @Optional("default is kafka's default options")
+    public Builder<Key, Value> profile(TuningProfile profile) {
+      this.profile = Objects.requireNonNull(profile);
+      return this;
+    }
+
     @Optional("default is empty")
     public Builder<Key, Value> option(String key, String value) {
       return options(
@@ -98,6 +154,30 @@ public interface Producer<Key, Value> extends Releasable {
       return this;
     }
 
+    /**
+     * enable the idempotence so the retries do not write duplicate records. It requires all acks.
+     *
+     * @return this builder
+     */
+    @oharastream.ohara.common.annotations.Optional("default is disabled")
+    public Builder<Key, Value> idempotent() {
+      this.idempotent = true;
+      return allAcks();
+    }
+
+    /**
+     * enable the transaction. The transactional producer is idempotent also. Noted: the producers
+     * having same id fence each other so the id should be stable for a specific task.
+     *
+     * @param transactionalId transactional id
+     * @return this builder
+     */
+    @oharastream.ohara.common.annotations.Optional("default is disabled")
+    public Builder<Key, Value> transactional(String transactionalId) {
+      this.transactionalId = CommonUtils.requireNonEmpty(transactionalId);
+      return idempotent();
+    }
+
     @SuppressWarnings("unchecked")
     public <NewKey> Builder<NewKey, Value> keySerializer(Serializer<NewKey> keySerializer) {
       this.keySerializer = Objects.requireNonNull(keySerializer);
@@ -144,6 +224,8 @@ public interface Producer<Key, Value> extends Releasable {
       CommonUtils.requireNonEmpty(connectionProps);
       Objects.requireNonNull(keySerializer);
       Objects.requireNonNull(valueSerializer);
+      if (idempotent && numberOfAcks != -1)
+        throw new IllegalArgumentException("the idempotent producer requires all acks");
     }
 
     @SuppressWarnings("unchecked")
@@ -155,9 +237,13 @@ public interface Producer<Key, Value> extends Releasable {
 
         private Properties getProducerConfig() {
           Properties props = new Properties();
+          if (profile != null) profile.producerOptions().forEach(props::setProperty);
           options.forEach(props::setProperty);
           props.setProperty(CommonClientConfigs.BOOTSTRAP_SERVERS_CONFIG, connectionProps);
           props.setProperty(ProducerConfig.ACKS_CONFIG, String.valueOf(numberOfAcks));
+          if (idempotent) props.setProperty(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, "true");
+          if (transactionalId != null)
+            props.setProperty(ProducerConfig.TRANSACTIONAL_ID_CONFIG, transactionalId);
           return props;
         }
 
@@ -167,6 +253,18 @@ public interface Producer<Key, Value> extends Releasable {
                 wrap((Serializer<Key>) keySerializer),
                 wrap((Serializer<Value>) valueSerializer));
 
+        {
+          // the transactional producer must register the id before starting any transaction
+          if (transactionalId != null) {
+            try {
+              producer.initTransactions();
+            } catch (RuntimeException e) {
+              producer.close();
+              throw e;
+            }
+          }
+        }
+
         @Override
         public final Sender<Key, Value> sender() {
           return new Sender<Key, Value>() {
@@ -203,11 +301,94 @@ public interface Producer<Key, Value> extends Releasable {
           };
         }
 
+        @Override
+        public final BatchSender<Key, Value> batchSender() {
+          return new BatchSender<Key, Value>() {
+            @Override
+            protected CompletableFuture<BatchResult> doSend() {
+              CompletableFuture<BatchResult> completableFuture = new CompletableFuture<>();
+              if (records.isEmpty()) {
+                completableFuture.complete(new BatchResult(0, Collections.emptyMap()));
+                return completableFuture;
+              }
+              // the headers are shared by all records so we convert them only once
+              List<org.apache.kafka.common.header.Header> kafkaHeaders =
+                  headers.isEmpty()
+                      ? null
+                      : headers.stream()
+                          .map(Builder.this::toKafkaHeader)
+                          .collect(Collectors.toList());
+              int size = records.size();
+              // the exception is written before decreasing the counter so the last callback can
+              // see all exceptions
+              Exception[] exceptions = new Exception[size];
+              AtomicInteger remaining = new AtomicInteger(size);
+              Runnable complete =
+                  () -> {
+                    Map<Integer, Exception> errors = new HashMap<>();
+                    for (int i = 0; i != size; ++i)
+                      if (exceptions[i] != null) errors.put(i, exceptions[i]);
+                    completableFuture.complete(new BatchResult(size, errors));
+                  };
+              for (int i = 0; i != size; ++i) {
+                BatchSender.Entry<Key, Value> entry = records.get(i);
+                int index = i;
+                try {
+                  producer.send(
+                      new ProducerRecord<>(
+                          entry.topicName,
+                          entry.partition,
+                          entry.timestamp,
+                          entry.key,
+                          entry.value,
+                          kafkaHeaders),
+                      (metadata, exception) -> {
+                        if (exception != null) exceptions[index] = exception;
+                        if (remaining.decrementAndGet() == 0) complete.run();
+                      });
+                } catch (Exception e) {
+                  exceptions[index] = e;
+                  if (remaining.decrementAndGet() == 0) complete.run();
+                }
+              }
+              return completableFuture;
+            }
+          };
+        }
+
         @Override
         public void flush() {
           producer.flush();
         }
 
+        @Override
+        public void beginTransaction() {
+          producer.beginTransaction();
+        }
+
+        @Override
+        public void commitTransaction() {
+          producer.commitTransaction();
+        }
+
+        @Override
+        public void abortTransaction() {
+          producer.abortTransaction();
+        }
+
+        @Override
+        public void sendOffsetsToTransaction(Map<TopicPartition, Long> offsets, String groupId) {
+          producer.sendOffsetsToTransaction(
+              offsets.entrySet().stream()
+                  .collect(
+                      Collectors.toMap(
+                          e ->
+                              new org.apache.kafka.common.TopicPartition(
+                                  e.getKey().topicName(), e.getKey().partition()),
+                          e -> new OffsetAndMetadata(e.getValue()))),
+              CommonUtils.requireNonEmpty(groupId));
+        }
+
         @Override
         public void close() {
           producer.close();
@@ -311,4 +492,123 @@ public interface Producer<Key, Value> extends Releasable {
 
     protected abstract CompletableFuture<RecordMetadata> doSend();
   }
+
+  /**
+   * a fluent-style sender used to send a batch of records. All records share the headers and the
+   * returned future is completed after all records are acked (or failed).
+   */
+  abstract class BatchSender<Key, Value> {
+    static final class Entry<Key, Value> {
+      final String topicName;
+      final Integer partition;
+      final Long timestamp;
+      final Key key;
+      final Value value;
+
+      private Entry(String topicName, Integer partition, Long timestamp, Key key, Value value) {
+        this.topicName = topicName;
+        this.partition = partition;
+        this.timestamp = timestamp;
+        this.key = key;
+        this.value = value;
+      }
+    }
+
+    protected List<Header> headers = Collections.emptyList();
+    protected final List<Entry<Key, Value>> records = new ArrayList<>();
+
+    @VisibleForTesting
+    BatchSender() {
+      // do nothing
+    }
+
+    @Optional("default is empty")
+    public BatchSender<Key, Value> headers(List<Header> headers) {
+      this.headers = CommonUtils.requireNonEmpty(headers);
+      return this;
+    }
+
+    /**
+     * add a record to this batch. The partition is decided by the partitioner and the timestamp is
+     * decided by producer.
+     *
+     * @param topicName topic name
+     * @param key key (nullable)
+     * @param value value (nullable)
+     * @return this sender
+     */
+    public BatchSender<Key, Value> record(String topicName, Key key, Value value) {
+      return record(topicName, null, null, key, value);
+    }
+
+    /**
+     * add a record to this batch.
+     *
+     * @param topicName topic name
+     * @param partition partition (nullable)
+     * @param timestamp timestamp (nullable)
+     * @param key key (nullable)
+     * @param value value (nullable)
+     * @return this sender
+     */
+    public BatchSender<Key, Value> record(
+        String topicName, Integer partition, Long timestamp, Key key, Value value) {
+      records.add(
+          new Entry<>(CommonUtils.requireNonEmpty(topicName), partition, timestamp, key, value));
+      return this;
+    }
+
+    /** @return the number of records in this batch */
+    public int size() {
+      return records.size();
+    }
+
+    /**
+     * start to send the batch in background. Noted: the returned future is completed normally even
+     * if some records are failed. You should check {@link BatchResult#errors()} to handle them.
+     *
+     * @return an async thread processing the request
+     */
+    public CompletableFuture<BatchResult> send() {
+      Objects.requireNonNull(headers);
+      return doSend();
+    }
+
+    protected abstract CompletableFuture<BatchResult> doSend();
+  }
+
+  /** the result of {@link BatchSender#send()}. */
+  class BatchResult {
+    private final int numberOfRecords;
+    private final Map<Integer, Exception> errors;
+
+    @VisibleForTesting
+    BatchResult(int numberOfRecords, Map<Integer, Exception> errors) {
+      this.numberOfRecords = numberOfRecords;
+      this.errors = Collections.unmodifiableMap(errors);
+    }
+
+    /** @return the number of records in the batch */
+    public int numberOfRecords() {
+      return numberOfRecords;
+    }
+
+    /** @return the number of records which are sent successfully */
+    public int numberOfSucceeded() {
+      return numberOfRecords - errors.size();
+    }
+
+    /**
+     * @return the errors of failed records. The key is the index of record (in the order of adding
+     *     records to the batch)
+     */
+    public Map<Integer, Exception> errors() {
+      return errors;
+    }
+
+    /** @return true if all records are sent successfully */
+    public boolean succeeded() {
+      return errors.isEmpty();
+    }
+  }
 }
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.kafka;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import oharastream.ohara.common.annotations.VisibleForTesting;
+import oharastream.ohara.common.data.Serializer;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.common.util.Releasable;
+import oharastream.ohara.kafka.connector.TopicPartition;
+import org.apache.kafka.clients.producer.ProducerConfig;
+
+/**
+ * A pool sharing the producers. The producers are keyed by the connection props and the pair of
+ * serializers. Each call to {@link #producer(String, Serializer, Serializer)} returns a handle
+ * referencing to a shared producer, and the shared producer is closed when the last handle is
+ * closed. Sharing the producer saves the I/O thread, buffers and metadata fetch of producer.
+ *
+ * <p>Noted: {@link Producer#flush()} of handle flushes the data of all handles sharing the same
+ * producer. The transaction can't be shared so the transactional producer must be built by {@link
+ * Producer.Builder#transactional(String)}.
+ */
+public final class ProducerPool {
+
+  private static final ProducerPool GLOBAL = new ProducerPool();
+
+  /** @return the pool shared by whole jvm */
+  public static ProducerPool global() {
+    return GLOBAL;
+  }
+
+  /** @return a new pool */
+  public static ProducerPool of() {
+    return new ProducerPool();
+  }
+
+  private static final class Key {
+    private final String connectionProps;
+    private final Serializer<?> keySerializer;
+    private final Serializer<?> valueSerializer;
+    private final Map<String, String> options;
+
+    private Key(
+        String connectionProps,
+        Serializer<?> keySerializer,
+        Serializer<?> valueSerializer,
+        Map<String, String> options) {
+      this.connectionProps = connectionProps;
+      this.keySerializer = keySerializer;
+      this.valueSerializer = valueSerializer;
+      this.options = options;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj instanceof Key) {
+        Key another = (Key) obj;
+        // the serializers don't override equals so we compare the references
+        return connectionProps.equals(another.connectionProps)
+            && keySerializer == another.keySerializer
+            && valueSerializer == another.valueSerializer
+            && options.equals(another.options);
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(connectionProps, keySerializer, valueSerializer, options);
+    }
+  }
+
+  private static final class Shared {
+    private final Producer<?, ?> producer;
+    private int count = 0;
+
+    private Shared(Producer<?, ?> producer) {
+      this.producer = producer;
+    }
+  }
+
+  private final Map<Key, Shared> producers = new HashMap<>();
+
+  private ProducerPool() {}
+
+  /**
+   * get a handle of shared producer. The handle must be closed after use.
+   *
+   * @param connectionProps brokers connection props
+   * @param keySerializer key serializer
+   * @param valueSerializer value serializer
+   * @param <K> key type
+   * @param <V> value type
+   * @return a handle of shared producer
+   */
+  public <K, V> Producer<K, V> producer(
+      String connectionProps, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+    return producer(connectionProps, keySerializer, valueSerializer, Collections.emptyMap());
+  }
+
+  /**
+   * get a handle of shared producer. The handle must be closed after use. The producers having
+   * different options are not shared. The transactional options are rejected since the transaction
+   * can't be shared by handles.
+   *
+   * @param connectionProps brokers connection props
+   * @param keySerializer key serializer
+   * @param valueSerializer value serializer
+   * @param options producer options
+   * @param <K> key type
+   * @param <V> value type
+   * @return a handle of shared producer
+   * @throws IllegalArgumentException if the options contain the transactional id
+   */
+  @SuppressWarnings("unchecked")
+  public <K, V> Producer<K, V> producer(
+      String connectionProps,
+      Serializer<K> keySerializer,
+      Serializer<V> valueSerializer,
+      Map<String, String> options) {
+    if (options.containsKey(ProducerConfig.TRANSACTIONAL_ID_CONFIG))
+      throw new IllegalArgumentException(
+          "the shared producer can't be transactional. Use Producer.Builder#transactional instead");
+    Key key =
+        new Key(
+            CommonUtils.requireNonEmpty(connectionProps),
+            Objects.requireNonNull(keySerializer),
+            Objects.requireNonNull(valueSerializer),
+            new HashMap<>(options));
+    Producer<K, V> producer;
+    synchronized (producers) {
+      Shared shared =
+          producers.computeIfAbsent(
+              key,
+              k -> {
+                Producer.Builder<K, V> builder =
+                    Producer.builder()
+                        .connectionProps(connectionProps)
+                        .keySerializer(keySerializer)
+                        .valueSerializer(valueSerializer);
+                if (!options.isEmpty()) builder.options(options);
+                return new Shared(builder.build());
+              });
+      shared.count += 1;
+      producer = (Producer<K, V>) shared.producer;
+    }
+    return new Handle<>(key, producer);
+  }
+
+  /** @return the number of shared producers */
+  @VisibleForTesting
+  int size() {
+    synchronized (producers) {
+      return producers.size();
+    }
+  }
+
+  private void release(Key key) {
+    Producer<?, ?> toClose = null;
+    synchronized (producers) {
+      Shared shared = producers.get(key);
+      if (shared != null && --shared.count == 0) {
+        producers.remove(key);
+        toClose = shared.producer;
+      }
+    }
+    // closing producer may be blocked by the in-flight data so we don't hold the lock
+    Releasable.close(toClose);
+  }
+
+  private static UnsupportedOperationException transactionUnsupported() {
+    return new UnsupportedOperationException(
+        "the shared producer does not support transaction. "
+            + "Use Producer.Builder#transactional instead");
+  }
+
+  private final class Handle<K, V> implements Producer<K, V> {
+    private final Key key;
+    private final Producer<K, V> producer;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    private Handle(Key key, Producer<K, V> producer) {
+      this.key = key;
+      this.producer = producer;
+    }
+
+    private Producer<K, V> producer() {
+      if (closed.get()) throw new IllegalStateException("the producer is closed");
+      return producer;
+    }
+
+    @Override
+    public Sender<K, V> sender() {
+      return producer().sender();
+    }
+
+    @Override
+    public BatchSender<K, V> batchSender() {
+      return producer().batchSender();
+    }
+
+    @Override
+    public void flush() {
+      producer().flush();
+    }
+
+    // the transaction of shared producer would be mixed with the records of other handles
+
+    @Override
+    public void beginTransaction() {
+      throw transactionUnsupported();
+    }
+
+    @Override
+    public void commitTransaction() {
+      throw transactionUnsupported();
+    }
+
+    @Override
+    public void abortTransaction() {
+      throw transactionUnsupported();
+    }
+
+    @Override
+    public void sendOffsetsToTransaction(Map<TopicPartition, Long> offsets, String groupId) {
+      throw transactionUnsupported();
+    }
+
+    @Override
+    public void close() {
+      if (closed.compareAndSet(false, true)) release(key);
+    }
+  }
+}
@@ -18,6 +18,7 @@ package oharastream.ohara.kafka;
 
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 import oharastream.ohara.common.data.Pair;
 import oharastream.ohara.common.data.Row;
 import oharastream.ohara.common.setting.TopicKey;
@@ -36,8 +37,47 @@ public abstract class RowPartitioner implements Partitioner, WithDefinitions {
   private final DefaultPartitioner kafkaDefaultPartitioner = new DefaultPartitioner();
 
   /**
-   * Compute the partition for the given record. Noted: if the input data is NOT row, the partition
-   * distribution is calculated by default implementation.
+   * kafka reuses the cluster object until the metadata is updated so we cache the converted one. It
+   * is a pair of kafka cluster and ohara cluster.
+   */
+  private volatile Pair<org.apache.kafka.common.Cluster, Cluster> cachedCluster = null;
+
+  /**
+   * true if the sub class overrides {@link #partition(TopicKey, Row, byte[], Cluster)}. Otherwise,
+   * the row is never decoded.
+   */
+  private final boolean rowRequired =
+      overrides(getClass(), "partition", TopicKey.class, Row.class, byte[].class, Cluster.class);
+
+  /**
+   * true if the sub class overrides any partition method. Otherwise, the record is passed to kafka
+   * default partitioner directly and ohara cluster is never built.
+   */
+  private final boolean partitionRequired =
+      rowRequired
+          || overrides(
+              getClass(), "partition", TopicKey.class, Supplier.class, byte[].class, Cluster.class);
+
+  /** true if the sub class overrides {@link #onNewBatch(TopicKey, Cluster, int)}. */
+  private final boolean batchRequired =
+      overrides(getClass(), "onNewBatch", TopicKey.class, Cluster.class, int.class);
+
+  private static boolean overrides(Class<?> clz, String name, Class<?>... parameterTypes) {
+    // the method may be protected so we check the declared methods of each sub class
+    for (Class<?> c = clz; c != null && c != RowPartitioner.class; c = c.getSuperclass()) {
+      try {
+        c.getDeclaredMethod(name, parameterTypes);
+        return true;
+      } catch (NoSuchMethodException e) {
+        // keep searching the super class
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Compute the partition for the given record. Noted: if the input data is NOT row (or serialized
+   * row), the partition distribution is calculated by default implementation.
    *
    * @param topicKey The topic key
    * @param row The row data
@@ -50,6 +90,59 @@ public abstract class RowPartitioner implements Partitioner, WithDefinitions {
     return Optional.empty();
   }
 
+  /**
+   * Compute the partition for the given record. The row is decoded only if the supplier is called.
+   * Override this method if your partitioner does not always need the cells. By default, it passes
+   * the decoded row to {@link #partition(TopicKey, Row, byte[], Cluster)} if the sub class
+   * overrides it.
+   *
+   * @param topicKey The topic key
+   * @param row The supplier of row data
+   * @param serializedRow row in bytes array
+   * @param cluster The current cluster metadata
+   * @return the number of partition to store the data. Or empty if you have no idea :)
+   */
+  public Optional<Integer> partition(
+      TopicKey topicKey, Supplier<Row> row, byte[] serializedRow, Cluster cluster) {
+    if (rowRequired) return partition(topicKey, row.get(), serializedRow, cluster);
+    return Optional.empty();
+  }
+
+  /**
+   * configure this partitioner. The configs are the options of producer so you can pass the custom
+   * settings through the producer options (or the producer overrides of connector).
+   *
+   * @param configs producer options
+   */
+  protected void doConfigure(Map<String, ?> configs) {
+    // do nothing
+  }
+
+  /**
+   * this method is called when the batch of previous partition is full and a new batch is going to
+   * be created. It is useful to the partitioner sticking on a partition.
+   *
+   * @param topicKey The topic key
+   * @param cluster The current cluster metadata
+   * @param previousPartition the partition of previous batch
+   */
+  protected void onNewBatch(TopicKey topicKey, Cluster cluster, int previousPartition) {
+    // do nothing
+  }
+
+  /** release the resources of this partitioner. */
+  protected void doClose() {
+    // do nothing
+  }
+
+  private Cluster cluster(org.apache.kafka.common.Cluster kafkaCluster) {
+    Pair<org.apache.kafka.common.Cluster, Cluster> cached = cachedCluster;
+    if (cached != null && cached.left() == kafkaCluster) return cached.right();
+    Cluster cluster = Cluster.of(kafkaCluster);
+    cachedCluster = Pair.of(kafkaCluster, cluster);
+    return cluster;
+  }
+
   // -----------------------------[wrap]-----------------------------//
 
   @Override
@@ -60,16 +153,21 @@ public abstract class RowPartitioner implements Partitioner, WithDefinitions {
       Object value,
       byte[] valueBytes,
       org.apache.kafka.common.Cluster cluster) {
+    // the default partitioner doesn't care for ohara's data and cluster
+    if (!partitionRequired)
+      return kafkaDefaultPartitioner.partition(topic, key, keyBytes, value, valueBytes, cluster);
     // if the input data is NOT ohara's data, we don't pass it to following partitioner.
-    return TopicKey.of(topic)
-        .flatMap(
-            topicKey ->
-                key instanceof Row ? Optional.of(Pair.of(topicKey, (Row) key)) : Optional.empty())
-        .flatMap(pair -> partition(pair.left(), pair.right(), keyBytes, Cluster.of(cluster)))
-        .orElseGet(
-            () ->
-                kafkaDefaultPartitioner.partition(
-                    topic, key, keyBytes, value, valueBytes, cluster));
+    Supplier<Row> row = null;
+    if (key instanceof Row) row = () -> (Row) key;
+    else if (key instanceof SerializedRow) row = ((SerializedRow) key)::row;
+    // kafka connect passes the serialized row, and it is decoded only if the sub class needs it
+    else if (key instanceof byte[]) row = SerializedRow.of((byte[]) key)::row;
+    Optional<TopicKey> topicKey = row == null ? Optional.empty() : TopicKey.of(topic);
+    if (topicKey.isPresent()) {
+      Optional<Integer> partition = partition(topicKey.get(), row, keyBytes, cluster(cluster));
+      if (partition.isPresent()) return partition.get();
+    }
+    return kafkaDefaultPartitioner.partition(topic, key, keyBytes, value, valueBytes, cluster);
   }
 
   // TODO: should we open them to ohara developer ???
@@ -77,16 +175,21 @@ public abstract class RowPartitioner implements Partitioner, WithDefinitions {
   @Override
   public final void configure(Map<String, ?> configs) {
     kafkaDefaultPartitioner.configure(configs);
+    doConfigure(configs);
   }
 
   @Override
   public final void close() {
     kafkaDefaultPartitioner.close();
+    doClose();
   }
 
   @Override
   public final void onNewBatch(
       String topic, org.apache.kafka.common.Cluster cluster, int prevPartition) {
     kafkaDefaultPartitioner.onNewBatch(topic, cluster, prevPartition);
+    if (batchRequired)
+      TopicKey.of(topic)
+          .ifPresent(topicKey -> onNewBatch(topicKey, cluster(cluster), prevPartition));
   }
 }
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.kafka;
+
+import java.util.Objects;
+import oharastream.ohara.common.data.Row;
+import oharastream.ohara.common.data.Serializer;
+
+/**
+ * A row carrying its serialized bytes. The row is decoded lazily so the callers holding the
+ * serialized row (for example, the forwarding pipelines) don't need to encode/decode the row again.
+ * Use {@link SerializedRow#SERIALIZER} as the key serializer of {@link Producer} to send the bytes
+ * directly, or as the key serializer of {@link Consumer} to defer the decoding.
+ */
+public final class SerializedRow {
+
+  /** the serializer passing the bytes through. */
+  public static final Serializer<SerializedRow> SERIALIZER =
+      new Serializer<SerializedRow>() {
+        @Override
+        public byte[] to(SerializedRow obj) {
+          return obj.bytes();
+        }
+
+        @Override
+        public SerializedRow from(byte[] bytes) {
+          return SerializedRow.of(bytes);
+        }
+      };
+
+  /**
+   * @param bytes serialized row
+   * @return a serialized row which is decoded lazily
+   */
+  public static SerializedRow of(byte[] bytes) {
+    return new SerializedRow(bytes, null);
+  }
+
+  /**
+   * @param bytes serialized row
+   * @param row the row of bytes. It is used by the caller which has both row and bytes.
+   * @return a serialized row which is already decoded
+   */
+  public static SerializedRow of(byte[] bytes, Row row) {
+    return new SerializedRow(bytes, Objects.requireNonNull(row));
+  }
+
+  private final byte[] bytes;
+  /** it is ok to decode the bytes twice in concurrent access since the result is same. */
+  private volatile Row row;
+
+  private SerializedRow(byte[] bytes, Row row) {
+    this.bytes = Objects.requireNonNull(bytes);
+    this.row = row;
+  }
+
+  /** @return the serialized row */
+  public byte[] bytes() {
+    return bytes;
+  }
+
+  /** @return the row. It is decoded at the first call. */
+  public Row row() {
+    Row current = row;
+    if (current == null) {
+      current = Serializer.ROW.from(bytes);
+      row = current;
+    }
+    return current;
+  }
+
+  /** @return true if the row is already decoded */
+  public boolean decoded() {
+    return row != null;
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.kafka;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import oharastream.ohara.common.data.Row;
+import oharastream.ohara.common.setting.TopicKey;
+
+/**
+ * This partitioner ignores the content of row and it sticks on a partition until the batch of the
+ * partition is full. And then it moves to the next partition. It is useful to the bulk loads which
+ * don't care for the distribution of keys since all records are accumulated in a single batch.
+ * Noted: the row is never decoded by this partitioner.
+ */
+public class StickyRoundRobinPartitioner extends RowPartitioner {
+
+  private final Map<TopicKey, AtomicInteger> indexes = new ConcurrentHashMap<>();
+
+  private AtomicInteger index(TopicKey topicKey) {
+    // the initial partition is random so the producers don't pile on the same partition
+    return indexes.computeIfAbsent(
+        topicKey, k -> new AtomicInteger(ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE)));
+  }
+
+  @Override
+  public Optional<Integer> partition(
+      TopicKey topicKey, Supplier<Row> row, byte[] serializedRow, Cluster cluster) {
+    int numberOfPartitions = cluster.partitionInfos(topicKey).size();
+    if (numberOfPartitions == 0) return Optional.empty();
+    return Optional.of((index(topicKey).get() & Integer.MAX_VALUE) % numberOfPartitions);
+  }
+
+  @Override
+  protected void onNewBatch(TopicKey topicKey, Cluster cluster, int previousPartition) {
+    int numberOfPartitions = cluster.partitionInfos(topicKey).size();
+    if (numberOfPartitions == 0) return;
+    AtomicInteger index = index(topicKey);
+    int current = index.get();
+    // the index is moved by other thread already
+    if ((current & Integer.MAX_VALUE) % numberOfPartitions != previousPartition) return;
+    index.compareAndSet(current, current + 1);
+  }
+}
@@ -16,31 +16,17 @@
 
 package oharastream.ohara.kafka;
 
-import java.util.Arrays;
+import java.time.Duration;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.Properties;
 import java.util.Set;
-import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
-import oharastream.ohara.common.data.Pair;
 import oharastream.ohara.common.setting.TopicKey;
-import oharastream.ohara.common.util.CommonUtils;
 import oharastream.ohara.common.util.Releasable;
-import org.apache.kafka.clients.CommonClientConfigs;
-import org.apache.kafka.clients.admin.AdminClient;
-import org.apache.kafka.clients.admin.NewPartitions;
-import org.apache.kafka.clients.admin.NewTopic;
-import org.apache.kafka.clients.consumer.ConsumerConfig;
-import org.apache.kafka.clients.consumer.KafkaConsumer;
-import org.apache.kafka.common.Node;
-import org.apache.kafka.common.TopicPartition;
-import org.apache.kafka.common.config.ConfigResource;
-import org.apache.kafka.common.serialization.ByteArrayDeserializer;
 
 /**
  * a helper methods used by configurator. It provide many helper method to operate kafka cluster.
@@ -91,6 +77,12 @@ public interface TopicAdmin extends Releasable {
             });
   }
 
+  /**
+   * describe the specified topics. The nonexistent topics are ignored.
+   *
+   * @param topicNames topic names
+   * @return topic details
+   */
   default CompletionStage<List<TopicDescription>> topicDescriptions(Set<String> topicNames) {
     return topicDescriptions()
         .thenApply(
@@ -147,6 +139,60 @@ public interface TopicAdmin extends Releasable {
    */
   CompletionStage<Boolean> deleteTopic(String name);
 
+  /**
+   * create the topics in a single request.
+   *
+   * @param creations the settings of topics. The topic names must be unique
+   * @return the async callback of each topic
+   */
+  default Map<String, CompletionStage<Void>> createTopics(Collection<TopicCreation> creations) {
+    TopicCreation.requireUniqueNames(creations);
+    // the default implementation sends a request for each topic
+    return creations.stream()
+        .collect(
+            Collectors.toMap(
+                TopicCreation::name,
+                c -> {
+                  TopicCreator creator =
+                      topicCreator()
+                          .topicName(c.name())
+                          .numberOfPartitions(c.numberOfPartitions())
+                          .numberOfReplications(c.numberOfReplications());
+                  if (!c.options().isEmpty()) creator.options(c.options());
+                  return creator.create();
+                }));
+  }
+
+  /**
+   * remove the topics in a single request.
+   *
+   * @param names topic names
+   * @return the async callback of each topic. It carries the "true" if it does remove the topic.
+   *     otherwise, false
+   */
+  default Map<String, CompletionStage<Boolean>> deleteTopics(Set<String> names) {
+    // the default implementation sends a request for each topic
+    return names.stream().collect(Collectors.toMap(name -> name, this::deleteTopic));
+  }
+
+  /**
+   * list the offsets committed by a consumer group.
+   *
+   * @param groupId consumer group id
+   * @return the committed offset of each partition. It is empty if the group does not exist
+   */
+  CompletionStage<Map<oharastream.ohara.kafka.connector.TopicPartition, Long>> consumerGroupOffsets(
+      String groupId);
+
+  /**
+   * fetch the latest offsets of specified partitions.
+   *
+   * @param partitions partitions
+   * @return the end offset of each partition
+   */
+  CompletionStage<Map<oharastream.ohara.kafka.connector.TopicPartition, Long>> endOffsets(
+      Set<oharastream.ohara.kafka.connector.TopicPartition> partitions);
+
   /** @return Connection information. form: host:port,host:port */
   String connectionProps();
 
@@ -161,262 +207,38 @@ public interface TopicAdmin extends Releasable {
 
   boolean closed();
 
+  /**
+   * create a topic admin having its own connections. The metadata is not cached.
+   *
+   * @param connectionProps brokers connection props
+   * @return topic admin
+   */
   static TopicAdmin of(String connectionProps) {
-    return new TopicAdmin() {
-
-      private final AdminClient admin = AdminClient.create(toAdminProps(connectionProps));
-
-      private final AtomicBoolean closed = new AtomicBoolean(false);
-
-      private Map<String, List<PartitionInfo>> partitionInfos() {
-        Properties properties = new Properties();
-        properties.setProperty(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, connectionProps);
-        properties.setProperty(ConsumerConfig.CLIENT_ID_CONFIG, CommonUtils.randomString());
-        try (KafkaConsumer<byte[], byte[]> consumer =
-            new KafkaConsumer<>(
-                properties, new ByteArrayDeserializer(), new ByteArrayDeserializer())) {
-          return consumer.listTopics().entrySet().stream()
-              .map(
-                  entry -> {
-                    List<TopicPartition> tps =
-                        entry.getValue().stream()
-                            .map(p -> new TopicPartition(p.topic(), p.partition()))
-                            .collect(Collectors.toList());
-                    Map<TopicPartition, Long> beginningOffsets = consumer.beginningOffsets(tps);
-                    Map<TopicPartition, Long> endOffsets = consumer.endOffsets(tps);
-                    List<PartitionInfo> ps =
-                        entry.getValue().stream()
-                            .map(
-                                p -> {
-                                  TopicPartition tp = new TopicPartition(p.topic(), p.partition());
-                                  return new PartitionInfo(
-                                      p.partition(),
-                                      PartitionNode.of(p.leader()),
-                                      p.replicas() == null
-                                          ? Collections.emptyList()
-                                          : Arrays.stream(p.replicas())
-                                              .map(PartitionNode::of)
-                                              .collect(Collectors.toList()),
-                                      p.inSyncReplicas() == null
-                                          ? Collections.emptyList()
-                                          : Arrays.stream(p.inSyncReplicas())
-                                              .map(PartitionNode::of)
-                                              .collect(Collectors.toList()),
-                                      beginningOffsets.getOrDefault(tp, -1L),
-                                      endOffsets.getOrDefault(tp, -1L));
-                                })
-                            .collect(Collectors.toList());
-                    return Pair.of(entry.getKey(), ps);
-                  })
-              .collect(Collectors.toMap(Pair::left, Pair::right));
-        }
-      }
-
-      @Override
-      public TopicCreator topicCreator() {
-        return new TopicCreator() {
-          @Override
-          protected CompletionStage<Void> doCreate(
-              int numberOfPartitions,
-              short numberOfReplications,
-              Map<String, String> options,
-              String name) {
-            CompletableFuture<Void> f = new CompletableFuture<>();
-            admin
-                .createTopics(
-                    Collections.singletonList(
-                        new NewTopic(name, numberOfPartitions, numberOfReplications)
-                            .configs(options)))
-                .values()
-                .get(name)
-                .whenComplete(
-                    (v, exception) -> {
-                      if (exception != null) f.completeExceptionally(exception);
-                      else f.complete(null);
-                    });
-            return f;
-          }
-        };
-      }
-
-      @Override
-      public CompletionStage<Boolean> exist(String name) {
-        return topicNames().thenApply(tps -> tps.contains(name));
-      }
-
-      private CompletionStage<Set<String>> topicNames() {
-        CompletableFuture<Set<String>> f = new CompletableFuture<>();
-        admin
-            .listTopics()
-            .names()
-            .whenComplete(
-                (tps, exception) -> {
-                  if (exception != null) f.completeExceptionally(exception);
-                  else f.complete(tps);
-                });
-        return f;
-      }
-
-      private CompletionStage<Map<String, List<TopicOption>>> options(Set<String> topicNames) {
-        return topicNames()
-            .thenApply(
-                names ->
-                    names.stream()
-                        .map(name -> new ConfigResource(ConfigResource.Type.TOPIC, name))
-                        .collect(Collectors.toList()))
-            .thenCompose(
-                rs -> {
-                  CompletableFuture<Map<String, List<TopicOption>>> f = new CompletableFuture<>();
-                  admin
-                      .describeConfigs(rs)
-                      .all()
-                      .whenComplete(
-                          (configs, exception) -> {
-                            if (exception != null) f.completeExceptionally(exception);
-                            else
-                              f.complete(
-                                  configs.entrySet().stream()
-                                      .map(
-                                          entry ->
-                                              Pair.of(
-                                                  entry.getKey().name(),
-                                                  entry.getValue().entries().stream()
-                                                      .map(
-                                                          o ->
-                                                              new TopicOption(
-                                                                  o.name(),
-                                                                  o.value(),
-                                                                  o.isDefault(),
-                                                                  o.isSensitive(),
-                                                                  o.isReadOnly()))
-                                                      .collect(Collectors.toList())))
-                                      .collect(Collectors.toMap(Pair::left, Pair::right)));
-                          });
-                  return f;
-                });
-      }
-
-      @Override
-      public CompletionStage<List<TopicDescription>> topicDescriptions() {
-        return topicNames()
-            .thenCompose(this::options)
-            .thenApply(
-                nameAndOpts -> {
-                  Map<String, List<PartitionInfo>> partitionInfos = partitionInfos();
-                  return nameAndOpts.entrySet().stream()
-                      .map(
-                          entry -> {
-                            List<PartitionInfo> infos =
-                                partitionInfos.getOrDefault(
-                                    entry.getKey(), Collections.emptyList());
-                            return new TopicDescription(entry.getKey(), infos, entry.getValue());
-                          })
-                      .collect(Collectors.toList());
-                });
-      }
-
-      @Override
-      public CompletionStage<Void> createPartitions(String name, int numberOfPartitions) {
-        return topicDescription(name)
-            .thenCompose(
-                current -> {
-                  if (current.numberOfPartitions() > numberOfPartitions)
-                    throw new IllegalArgumentException(
-                        "Reducing the number from partitions is disallowed. current:"
-                            + current.numberOfPartitions()
-                            + ", expected:"
-                            + numberOfPartitions);
-                  else if (current.numberOfPartitions() == numberOfPartitions)
-                    return CompletableFuture.completedFuture(null);
-                  else {
-                    CompletableFuture<Void> f = new CompletableFuture<>();
-                    admin
-                        .createPartitions(
-                            Collections.singletonMap(
-                                name, NewPartitions.increaseTo(numberOfPartitions)))
-                        .values()
-                        .get(name)
-                        .whenComplete(
-                            (v, exception) -> {
-                              if (exception != null) f.completeExceptionally(exception);
-                              else f.complete(null);
-                            });
-                    return f;
-                  }
-                });
-      }
-
-      @Override
-      public CompletionStage<Boolean> deleteTopic(String topicName) {
-        CompletableFuture<Boolean> f = new CompletableFuture<>();
-        topicNames()
-            .thenApply(names -> names.stream().anyMatch(name -> name.equals(topicName)))
-            .whenComplete(
-                (existent, exception) -> {
-                  if (exception != null) f.completeExceptionally(exception);
-                  else f.complete(existent);
-                });
-        return f.thenCompose(
-            existent -> {
-              if (existent) {
-                CompletableFuture<Boolean> f2 = new CompletableFuture<>();
-                admin
-                    .deleteTopics(Collections.singletonList(topicName))
-                    .values()
-                    .get(topicName)
-                    .whenComplete(
-                        (v, exception) -> {
-                          if (exception != null) f2.completeExceptionally(exception);
-                          else f2.complete(true);
-                        });
-                return f2;
-              } else return CompletableFuture.completedFuture(false);
-            });
-      }
-
-      @Override
-      public String connectionProps() {
-        return connectionProps;
-      }
-
-      @Override
-      public CompletionStage<Map<String, Integer>> brokerPorts() {
-        CompletableFuture<Map<String, Integer>> f = new CompletableFuture<>();
-        admin
-            .describeCluster()
-            .nodes()
-            .whenComplete(
-                (nodes, exception) -> {
-                  if (exception != null) f.completeExceptionally(exception);
-                  else f.complete(nodes.stream().collect(Collectors.toMap(Node::host, Node::port)));
-                });
-        return f;
-      }
-
-      /**
-       * this impl will host a kafka.AdminClient so you must call the #close() to release the
-       * kafka.AdminClient.
-       *
-       * @param brokers the kafka brokers information
-       * @return the props for TopicAdmin
-       */
-      private Properties toAdminProps(String brokers) {
-        Properties adminProps = new Properties();
-        adminProps.put(CommonClientConfigs.BOOTSTRAP_SERVERS_CONFIG, brokers);
-        return adminProps;
-      }
+    return of(connectionProps, Duration.ZERO);
+  }
 
-      @Override
-      public void close() {
-        if (closed.compareAndSet(false, true)) {
-          admin.close();
-        }
-      }
+  /**
+   * create a topic admin having its own connections. The topic names and metadata (partitions and
+   * options) are cached for the TTL, and they are invalidated after the topic is created, deleted
+   * or repartitioned by this admin. The offsets are never cached.
+   *
+   * @param connectionProps brokers connection props
+   * @param metadataTtl the TTL of cached metadata
+   * @return topic admin
+   */
+  static TopicAdmin of(String connectionProps, Duration metadataTtl) {
+    return TopicAdminImpl.of(connectionProps, metadataTtl);
+  }
 
-      @Override
-      public boolean closed() {
-        return closed.get();
-      }
-    };
+  /**
+   * get a topic admin sharing the connections and metadata cache with other shared admins of the
+   * same brokers. It is useful to the long-running service which operates topics frequently. The
+   * shared connections are closed when the last shared admin is closed.
+   *
+   * @param connectionProps brokers connection props
+   * @return topic admin
+   */
+  static TopicAdmin shared(String connectionProps) {
+    return TopicAdminImpl.shared(connectionProps);
   }
 }
@@ -0,0 +1,600 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.kafka;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import oharastream.ohara.common.annotations.VisibleForTesting;
+import oharastream.ohara.common.util.CommonUtils;
+import org.apache.kafka.clients.CommonClientConfigs;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.clients.admin.NewPartitions;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.kafka.common.config.ConfigResource;
+import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
+
+/**
+ * The implementation of {@link TopicAdmin} based on kafka.AdminClient. The topic names and topic
+ * metadata (partitions and options) are cached for a period (TTL), and the cache is invalidated
+ * when the topic is created, deleted or repartitioned by this admin. The topics created or deleted
+ * by this admin are visible to it even if the broker serving the listing has not seen them yet. The
+ * offsets are never cached.
+ *
+ * <p>The shared admins connecting to the same brokers share the kafka.AdminClient and the cache.
+ * The kafka.AdminClient is closed when the last shared admin is closed.
+ */
+final class TopicAdminImpl implements TopicAdmin {
+
+  /** the TTL of cache used by the shared admins */
+  static final Duration SHARED_METADATA_TTL = Duration.ofSeconds(3);
+
+  private static final Map<String, Context> SHARED_CONTEXTS = new HashMap<>();
+
+  static TopicAdmin of(String connectionProps, Duration metadataTtl) {
+    return new TopicAdminImpl(new Context(connectionProps, metadataTtl, false));
+  }
+
+  static TopicAdmin shared(String connectionProps) {
+    synchronized (SHARED_CONTEXTS) {
+      Context context =
+          SHARED_CONTEXTS.computeIfAbsent(
+              connectionProps, props -> new Context(props, SHARED_METADATA_TTL, true));
+      context.count += 1;
+      return new TopicAdminImpl(context);
+    }
+  }
+
+  @VisibleForTesting
+  static int numberOfSharedContexts() {
+    synchronized (SHARED_CONTEXTS) {
+      return SHARED_CONTEXTS.size();
+    }
+  }
+
+  private static final class Cached<T> {
+    private final T value;
+    private final long expiredTime;
+
+    private Cached(T value, long expiredTime) {
+      this.value = value;
+      this.expiredTime = expiredTime;
+    }
+
+    private boolean expired() {
+      return CommonUtils.current() >= expiredTime;
+    }
+  }
+
+  /** the metadata of topic. It does not carry the offsets. */
+  private static final class Metadata {
+    private final List<TopicPartitionInfo> partitions;
+    private final List<TopicOption> options;
+
+    private Metadata(List<TopicPartitionInfo> partitions, List<TopicOption> options) {
+      this.partitions = partitions;
+      this.options = options;
+    }
+  }
+
+  /** the objects which can be shared by admins. */
+  private static final class Context {
+    private final String connectionProps;
+    private final Duration metadataTtl;
+    private final boolean shared;
+    private final AdminClient admin;
+    private final Map<String, Cached<Metadata>> metadata = new ConcurrentHashMap<>();
+    private volatile Cached<Set<String>> topicNames = null;
+    // bumped by invalidate so the in-flight listing can't overwrite the invalidation
+    private final AtomicLong generation = new AtomicLong();
+    // the topics created (true) or deleted (false) by this context. It is guarded by this context
+    private final Map<String, Cached<Boolean>> changes = new HashMap<>();
+    // the number of shared admins. It is guarded by SHARED_CONTEXTS
+    private int count = 0;
+
+    private Context(String connectionProps, Duration metadataTtl, boolean shared) {
+      this.connectionProps = CommonUtils.requireNonEmpty(connectionProps);
+      this.metadataTtl = Objects.requireNonNull(metadataTtl);
+      this.shared = shared;
+      Properties adminProps = new Properties();
+      adminProps.put(CommonClientConfigs.BOOTSTRAP_SERVERS_CONFIG, connectionProps);
+      this.admin = AdminClient.create(adminProps);
+    }
+
+    private <T> Cached<T> cache(T value) {
+      return new Cached<>(value, CommonUtils.current() + metadataTtl.toMillis());
+    }
+
+    private synchronized void invalidate(String name) {
+      generation.incrementAndGet();
+      topicNames = null;
+      metadata.remove(name);
+      changes.remove(name);
+    }
+
+    private synchronized void changed(String name, boolean existent) {
+      invalidate(name);
+      changes.put(name, cache(existent));
+    }
+
+    /**
+     * apply the changes made by this context to the listed topic names, and then cache them only if
+     * there is no invalidation since the names were requested and the listing has seen all changes.
+     *
+     * @param generation the generation captured before requesting the names
+     * @param names listed topic names
+     * @return topic names
+     */
+    private synchronized Set<String> cacheTopicNames(long generation, Set<String> names) {
+      changes.values().removeIf(Cached::expired);
+      Set<String> result = new HashSet<>(names);
+      changes.forEach(
+          (name, existent) -> {
+            if (existent.value) result.add(name);
+            else result.remove(name);
+          });
+      Set<String> copy = Collections.unmodifiableSet(result);
+      if (this.generation.get() == generation && result.equals(names)) topicNames = cache(copy);
+      return copy;
+    }
+
+    private void release() {
+      if (shared) {
+        synchronized (SHARED_CONTEXTS) {
+          if (--count > 0) return;
+          SHARED_CONTEXTS.remove(connectionProps);
+        }
+      }
+      admin.close();
+    }
+  }
+
+  private static <T> CompletableFuture<T> toCompletableFuture(KafkaFuture<T> kafkaFuture) {
+    CompletableFuture<T> f = new CompletableFuture<>();
+    kafkaFuture.whenComplete(
+        (v, exception) -> {
+          if (exception != null) f.completeExceptionally(exception);
+          else f.complete(v);
+        });
+    return f;
+  }
+
+  private final Context context;
+  private final AdminClient admin;
+  private final AtomicBoolean closed = new AtomicBoolean(false);
+
+  private TopicAdminImpl(Context context) {
+    this.context = context;
+    this.admin = context.admin;
+  }
+
+  @Override
+  public TopicCreator topicCreator() {
+    return new TopicCreator() {
+      @Override
+      protected CompletionStage<Void> doCreate(
+          int numberOfPartitions,
+          short numberOfReplications,
+          Map<String, String> options,
+          String name) {
+        CompletableFuture<Void> f = new CompletableFuture<>();
+        admin
+            .createTopics(
+                Collections.singletonList(
+                    new NewTopic(name, numberOfPartitions, numberOfReplications).configs(options)))
+            .values()
+            .get(name)
+            .whenComplete(
+                (v, exception) -> {
+                  if (exception != null) {
+                    context.invalidate(name);
+                    f.completeExceptionally(exception);
+                  } else {
+                    context.changed(name, true);
+                    f.complete(null);
+                  }
+                });
+        return f;
+      }
+    };
+  }
+
+  @Override
+  public CompletionStage<Boolean> exist(String name) {
+    return topicNames().thenApply(tps -> tps.contains(name));
+  }
+
+  private CompletionStage<Set<String>> topicNames() {
+    Cached<Set<String>> cached = context.topicNames;
+    if (cached != null && !cached.expired()) return CompletableFuture.completedFuture(cached.value);
+    return freshTopicNames();
+  }
+
+  private CompletionStage<Set<String>> freshTopicNames() {
+    long generation = context.generation.get();
+    return toCompletableFuture(admin.listTopics().names())
+        .thenApply(names -> context.cacheTopicNames(generation, names));
+  }
+
+  /**
+   * fetch the metadata of topics. The cached metadata is used if it is not expired. The topics
+   * which are deleted after listing topic names are skipped.
+   *
+   * @param names topic names
+   * @return metadata of topics
+   */
+  private CompletionStage<Map<String, Metadata>> metadata(Collection<String> names) {
+    Map<String, Metadata> result = new HashMap<>(names.size());
+    List<String> missed = new ArrayList<>();
+    names.forEach(
+        name -> {
+          Cached<Metadata> cached = context.metadata.get(name);
+          if (cached != null && !cached.expired()) result.put(name, cached.value);
+          else missed.add(name);
+        });
+    if (missed.isEmpty()) return CompletableFuture.completedFuture(result);
+    // use the future of each topic since the future of all topics fails if any topic is missed
+    Map<String, KafkaFuture<org.apache.kafka.clients.admin.TopicDescription>> descriptions =
+        admin.describeTopics(missed).values();
+    Map<ConfigResource, KafkaFuture<Config>> configs =
+        admin
+            .describeConfigs(
+                missed.stream()
+                    .map(name -> new ConfigResource(ConfigResource.Type.TOPIC, name))
+                    .collect(Collectors.toList()))
+            .values();
+    Map<String, CompletableFuture<Optional<Metadata>>> fetched =
+        missed.stream()
+            .collect(
+                Collectors.toMap(
+                    name -> name,
+                    name ->
+                        metadata(
+                            name,
+                            descriptions.get(name),
+                            configs.get(new ConfigResource(ConfigResource.Type.TOPIC, name)))));
+    return CompletableFuture.allOf(fetched.values().toArray(new CompletableFuture<?>[0]))
+        .thenApply(
+            ignored -> {
+              fetched.forEach((name, f) -> f.join().ifPresent(m -> result.put(name, m)));
+              return result;
+            });
+  }
+
+  /**
+   * convert the description and config of a topic to metadata and then cache it.
+   *
+   * @param name topic name
+   * @param description the future of topic description
+   * @param config the future of topic config
+   * @return metadata of topic, or empty if the topic does not exist
+   */
+  private CompletableFuture<Optional<Metadata>> metadata(
+      String name,
+      KafkaFuture<org.apache.kafka.clients.admin.TopicDescription> description,
+      KafkaFuture<Config> config) {
+    return toCompletableFuture(description)
+        .thenCombine(
+            toCompletableFuture(config),
+            (d, c) -> {
+              Metadata metadata =
+                  new Metadata(
+                      d.partitions(),
+                      c.entries().stream()
+                          .map(
+                              o ->
+                                  new TopicOption(
+                                      o.name(),
+                                      o.value(),
+                                      o.isDefault(),
+                                      o.isSensitive(),
+                                      o.isReadOnly()))
+                          .collect(Collectors.toList()));
+              context.metadata.put(name, context.cache(metadata));
+              return Optional.of(metadata);
+            })
+        .handle(
+            (metadata, e) -> {
+              if (e == null) return metadata;
+              Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+              if (cause instanceof UnknownTopicOrPartitionException) {
+                // the topic is deleted by others so the cached topic names are stale
+                context.invalidate(name);
+                return Optional.empty();
+              }
+              throw e instanceof CompletionException
+                  ? (CompletionException) e
+                  : new CompletionException(e);
+            });
+  }
+
+  private CompletionStage<Map<TopicPartition, Long>> offsets(
+      Collection<TopicPartition> partitions, OffsetSpec spec) {
+    if (partitions.isEmpty()) return CompletableFuture.completedFuture(Collections.emptyMap());
+    return toCompletableFuture(
+            admin
+                .listOffsets(partitions.stream().collect(Collectors.toMap(tp -> tp, tp -> spec)))
+                .all())
+        .thenApply(
+            offsets ->
+                offsets.entrySet().stream()
+                    .collect(
+                        Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().offset())));
+  }
+
+  private static List<PartitionNode> toNodes(List<Node> nodes) {
+    return nodes == null
+        ? Collections.emptyList()
+        : nodes.stream().map(PartitionNode::of).collect(Collectors.toList());
+  }
+
+  @Override
+  public CompletionStage<List<TopicDescription>> topicDescriptions(Set<String> names) {
+    return topicNames()
+        .thenCompose(
+            existentNames ->
+                metadata(
+                    names.stream().filter(existentNames::contains).collect(Collectors.toList())))
+        .thenCompose(
+            metadata -> {
+              List<TopicPartition> partitions =
+                  metadata.entrySet().stream()
+                      .flatMap(
+                          entry ->
+                              entry.getValue().partitions.stream()
+                                  .map(p -> new TopicPartition(entry.getKey(), p.partition())))
+                      .collect(Collectors.toList());
+              return offsets(partitions, OffsetSpec.earliest())
+                  .thenCombine(
+                      offsets(partitions, OffsetSpec.latest()),
+                      (beginningOffsets, endOffsets) ->
+                          metadata.entrySet().stream()
+                              .map(
+                                  entry ->
+                                      new TopicDescription(
+                                          entry.getKey(),
+                                          entry.getValue().partitions.stream()
+                                              .map(
+                                                  p -> {
+                                                    TopicPartition tp =
+                                                        new TopicPartition(
+                                                            entry.getKey(), p.partition());
+                                                    return new PartitionInfo(
+                                                        p.partition(),
+                                                        PartitionNode.of(p.leader()),
+                                                        toNodes(p.replicas()),
+                                                        toNodes(p.isr()),
+                                                        beginningOffsets.getOrDefault(tp, -1L),
+                                                        endOffsets.getOrDefault(tp, -1L));
+                                                  })
+                                              .collect(Collectors.toList()),
+                                          entry.getValue().options))
+                              .collect(Collectors.toList()));
+            });
+  }
+
+  @Override
+  public CompletionStage<List<TopicDescription>> topicDescriptions() {
+    return topicNames().thenCompose(this::topicDescriptions);
+  }
+
+  @Override
+  public CompletionStage<Void> createPartitions(String name, int numberOfPartitions) {
+    // the number of partitions must be up-to-date
+    context.invalidate(name);
+    return topicDescription(name)
+        .thenCompose(
+            current -> {
+              if (current.numberOfPartitions() > numberOfPartitions)
+                throw new IllegalArgumentException(
+                    "Reducing the number from partitions is disallowed. current:"
+                        + current.numberOfPartitions()
+                        + ", expected:"
+                        + numberOfPartitions);
+              else if (current.numberOfPartitions() == numberOfPartitions)
+                return CompletableFuture.completedFuture(null);
+              else {
+                CompletableFuture<Void> f = new CompletableFuture<>();
+                admin
+                    .createPartitions(
+                        Collections.singletonMap(
+                            name, NewPartitions.increaseTo(numberOfPartitions)))
+                    .values()
+                    .get(name)
+                    .whenComplete(
+                        (v, exception) -> {
+                          context.invalidate(name);
+                          if (exception != null) f.completeExceptionally(exception);
+                          else f.complete(null);
+                        });
+                return f;
+              }
+            });
+  }
+
+  @Override
+  public CompletionStage<Boolean> deleteTopic(String topicName) {
+    // the cached names may be stale so we fetch the latest names
+    return freshTopicNames()
+        .thenApply(names -> names.contains(topicName))
+        .thenCompose(
+            existent -> {
+              if (existent) {
+                CompletableFuture<Boolean> f = new CompletableFuture<>();
+                admin
+                    .deleteTopics(Collections.singletonList(topicName))
+                    .values()
+                    .get(topicName)
+                    .whenComplete(
+                        (v, exception) -> {
+                          if (exception != null) {
+                            context.invalidate(topicName);
+                            f.completeExceptionally(exception);
+                          } else {
+                            context.changed(topicName, false);
+                            f.complete(true);
+                          }
+                        });
+                return f;
+              } else return CompletableFuture.completedFuture(false);
+            });
+  }
+
+  @Override
+  public Map<String, CompletionStage<Void>> createTopics(Collection<TopicCreation> creations) {
+    TopicCreation.requireUniqueNames(creations);
+    if (creations.isEmpty()) return Collections.emptyMap();
+    Map<String, KafkaFuture<Void>> fs =
+        admin
+            .createTopics(
+                creations.stream()
+                    .map(
+                        c ->
+                            new NewTopic(c.name(), c.numberOfPartitions(), c.numberOfReplications())
+                                .configs(c.options()))
+                    .collect(Collectors.toList()))
+            .values();
+    Map<String, CompletionStage<Void>> result = new HashMap<>(fs.size());
+    fs.forEach(
+        (name, f) ->
+            result.put(
+                name,
+                toCompletableFuture(f)
+                    .whenComplete(
+                        (v, exception) -> {
+                          if (exception != null) context.invalidate(name);
+                          else context.changed(name, true);
+                        })));
+    return result;
+  }
+
+  @Override
+  public Map<String, CompletionStage<Boolean>> deleteTopics(Set<String> names) {
+    if (names.isEmpty()) return Collections.emptyMap();
+    // the cached names may be stale so we fetch the latest names
+    CompletionStage<Map<String, KafkaFuture<Void>>> deletions =
+        freshTopicNames()
+            .thenApply(
+                existentNames -> {
+                  List<String> targets =
+                      names.stream().filter(existentNames::contains).collect(Collectors.toList());
+                  return targets.isEmpty()
+                      ? Collections.emptyMap()
+                      : admin.deleteTopics(targets).values();
+                });
+    Map<String, CompletionStage<Boolean>> result = new HashMap<>(names.size());
+    names.forEach(
+        name ->
+            result.put(
+                name,
+                deletions.thenCompose(
+                    fs -> {
+                      KafkaFuture<Void> f = fs.get(name);
+                      if (f == null) return CompletableFuture.completedFuture(false);
+                      return toCompletableFuture(f)
+                          .whenComplete(
+                              (v, exception) -> {
+                                if (exception != null) context.invalidate(name);
+                                else context.changed(name, false);
+                              })
+                          .thenApply(v -> true);
+                    })));
+    return result;
+  }
+
+  @Override
+  public CompletionStage<Map<oharastream.ohara.kafka.connector.TopicPartition, Long>>
+      consumerGroupOffsets(String groupId) {
+    return toCompletableFuture(
+            admin
+                .listConsumerGroupOffsets(CommonUtils.requireNonEmpty(groupId))
+                .partitionsToOffsetAndMetadata())
+        .thenApply(
+            offsets ->
+                offsets.entrySet().stream()
+                    // the partition having no committed offset carries null
+                    .filter(entry -> entry.getValue() != null)
+                    .collect(
+                        Collectors.toMap(
+                            entry ->
+                                new oharastream.ohara.kafka.connector.TopicPartition(
+                                    entry.getKey().topic(), entry.getKey().partition()),
+                            entry -> entry.getValue().offset())));
+  }
+
+  @Override
+  public CompletionStage<Map<oharastream.ohara.kafka.connector.TopicPartition, Long>> endOffsets(
+      Set<oharastream.ohara.kafka.connector.TopicPartition> partitions) {
+    return offsets(
+            partitions.stream()
+                .map(tp -> new TopicPartition(tp.topicName(), tp.partition()))
+                .collect(Collectors.toList()),
+            OffsetSpec.latest())
+        .thenApply(
+            offsets ->
+                offsets.entrySet().stream()
+                    .collect(
+                        Collectors.toMap(
+                            entry ->
+                                new oharastream.ohara.kafka.connector.TopicPartition(
+                                    entry.getKey().topic(), entry.getKey().partition()),
+                            Map.Entry::getValue)));
+  }
+
+  @Override
+  public String connectionProps() {
+    return context.connectionProps;
+  }
+
+  @Override
+  public CompletionStage<Map<String, Integer>> brokerPorts() {
+    return toCompletableFuture(admin.describeCluster().nodes())
+        .thenApply(nodes -> nodes.stream().collect(Collectors.toMap(Node::host, Node::port)));
+  }
+
+  @Override
+  public void close() {
+    if (closed.compareAndSet(false, true)) context.release();
+  }
+
+  @Override
+  public boolean closed() {
+    return closed.get();
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.kafka;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import oharastream.ohara.common.setting.TopicKey;
+import oharastream.ohara.common.util.CommonUtils;
+
+/** the settings of topic used by {@link TopicAdmin#createTopics(Collection)}. */
+public final class TopicCreation {
+
+  public static TopicCreation of(
+      TopicKey key,
+      int numberOfPartitions,
+      short numberOfReplications,
+      Map<String, String> options) {
+    return of(key.topicNameOnKafka(), numberOfPartitions, numberOfReplications, options);
+  }
+
+  public static TopicCreation of(
+      String name,
+      int numberOfPartitions,
+      short numberOfReplications,
+      Map<String, String> options) {
+    return new TopicCreation(
+        CommonUtils.requireNonEmpty(name),
+        CommonUtils.requirePositiveInt(numberOfPartitions),
+        CommonUtils.requirePositiveShort(numberOfReplications),
+        Collections.unmodifiableMap(new HashMap<>(Objects.requireNonNull(options))));
+  }
+
+  static void requireUniqueNames(Collection<TopicCreation> creations) {
+    if (creations.stream().map(TopicCreation::name).distinct().count() != creations.size())
+      throw new IllegalArgumentException("the topic names must be unique");
+  }
+
+  private final String name;
+  private final int numberOfPartitions;
+  private final short numberOfReplications;
+  private final Map<String, String> options;
+
+  private TopicCreation(
+      String name,
+      int numberOfPartitions,
+      short numberOfReplications,
+      Map<String, String> options) {
+    this.name = name;
+    this.numberOfPartitions = numberOfPartitions;
+    this.numberOfReplications = numberOfReplications;
+    this.options = options;
+  }
+
+  public String name() {
+    return name;
+  }
+
+  public int numberOfPartitions() {
+    return numberOfPartitions;
+  }
+
+  public short numberOfReplications() {
+    return numberOfReplications;
+  }
+
+  public Map<String, String> options() {
+    return options;
+  }
+}
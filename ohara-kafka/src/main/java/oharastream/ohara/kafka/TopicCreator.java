@@ -36,6 +36,7 @@ public abstract class TopicCreator
   protected short numberOfReplications = 1;
   protected Map<String, String> options = Collections.emptyMap();
   protected String name = null;
+  protected TuningProfile profile = null;
 
   @Optional("default value is 1")
   public TopicCreator numberOfPartitions(int numberOfPartitions) {
@@ -103,6 +104,19 @@ public abstract class TopicCreator
     return this;
   }
 
+  /**
+   * apply the topic options of profile. The options passed by {@link #options(Map)} override the
+   * options of profile.
+   *
+   * @param profile tuning profile
+   * @return this builder
+   */
+  @Optional("default is kafka's default options")
+  public TopicCreator profile(TuningProfile profile) {
+    this.profile = Objects.requireNonNull(profile);
+    return this;
+  }
+
   public TopicCreator topicName(String name) {
     this.name = CommonUtils.requireNonEmpty(name);
     return this;
@@ -117,10 +131,18 @@ public abstract class TopicCreator
     return doCreate(
         CommonUtils.requirePositiveInt(numberOfPartitions),
         CommonUtils.requirePositiveShort(numberOfReplications),
-        Objects.requireNonNull(options),
+        mergedOptions(),
         CommonUtils.requireNonEmpty(name));
   }
 
+  private Map<String, String> mergedOptions() {
+    Objects.requireNonNull(options);
+    if (profile == null) return options;
+    Map<String, String> merged = new HashMap<>(profile.topicOptions());
+    merged.putAll(options);
+    return merged;
+  }
+
   protected abstract CompletionStage<Void> doCreate(
       int numberOfPartitions, short numberOfReplications, Map<String, String> options, String name);
 }
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.kafka;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import oharastream.ohara.common.annotations.Optional;
+import oharastream.ohara.common.annotations.VisibleForTesting;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.common.util.Releasable;
+import oharastream.ohara.kafka.connector.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A helper grouping many records and consumer offsets into a single transaction. The transaction is
+ * started by the first record (or offset) and it is committed when the number of records reaches
+ * the bound or the transaction is older than the max delay. Hence, the cost of commit is amortized
+ * over a batch of records.
+ *
+ * <p>Noted: the max delay is checked when sending records so an idle batcher does not commit by
+ * itself. Call {@link #commit()} or {@link #close()} to commit the remaining records. If the commit
+ * fails, the transaction is aborted and the exception is rethrown.
+ *
+ * <p>This class is thread-safe.
+ *
+ * @param <Key> key type
+ * @param <Value> value type
+ */
+public final class TransactionBatcher<Key, Value> implements Releasable {
+  private static final Logger LOG = LoggerFactory.getLogger(TransactionBatcher.class);
+
+  public static <Key, Value> Builder<Key, Value> builder() {
+    return new Builder<>();
+  }
+
+  private final Producer<Key, Value> producer;
+  private final String groupId;
+  private final int maxRecords;
+  private final long maxDelay;
+  private final Map<TopicPartition, Long> offsets = new HashMap<>();
+  private boolean inTransaction = false;
+  private int numberOfRecords = 0;
+  private long startTime = 0;
+
+  private TransactionBatcher(
+      Producer<Key, Value> producer, String groupId, int maxRecords, Duration maxDelay) {
+    this.producer = producer;
+    this.groupId = groupId;
+    this.maxRecords = maxRecords;
+    this.maxDelay = maxDelay.toMillis();
+  }
+
+  /**
+   * create a sender used to send a record in current transaction. The transaction may be committed
+   * after the record is sent.
+   *
+   * @return a sender
+   */
+  public Producer.Sender<Key, Value> sender() {
+    return new Producer.Sender<Key, Value>() {
+      @Override
+      protected CompletableFuture<RecordMetadata> doSend() {
+        synchronized (TransactionBatcher.this) {
+          begin();
+          Producer.Sender<Key, Value> sender = producer.sender().topicName(topicName);
+          if (partition != null) sender.partition(partition);
+          if (!headers.isEmpty()) sender.headers(headers);
+          if (key != null) sender.key(key);
+          if (value != null) sender.value(value);
+          if (timestamp != null) sender.timestamp(timestamp);
+          CompletableFuture<RecordMetadata> f = sender.send();
+          numberOfRecords += 1;
+          if (numberOfRecords >= maxRecords || CommonUtils.current() - startTime >= maxDelay)
+            commit();
+          return f;
+        }
+      }
+    };
+  }
+
+  /**
+   * add the consumer offsets to current transaction. The bigger offset is kept if the partition has
+   * been added.
+   *
+   * @param offsets partitions and the offsets of next records to consume
+   */
+  public synchronized void offsets(Map<TopicPartition, Long> offsets) {
+    if (groupId == null)
+      throw new IllegalStateException("the group id is required to commit the offsets");
+    begin();
+    offsets.forEach((tp, offset) -> this.offsets.merge(tp, offset, Math::max));
+  }
+
+  /** commit current transaction. Do nothing if there is no transaction. */
+  public synchronized void commit() {
+    if (!inTransaction) return;
+    try {
+      if (!offsets.isEmpty()) producer.sendOffsetsToTransaction(offsets, groupId);
+      producer.commitTransaction();
+    } catch (RuntimeException e) {
+      abort();
+      throw e;
+    }
+    reset();
+  }
+
+  /** abort current transaction. Do nothing if there is no transaction. */
+  public synchronized void abort() {
+    if (!inTransaction) return;
+    try {
+      producer.abortTransaction();
+    } catch (RuntimeException e) {
+      LOG.error("failed to abort the transaction", e);
+    }
+    reset();
+  }
+
+  /** @return the number of records in current transaction */
+  @VisibleForTesting
+  synchronized int numberOfRecords() {
+    return numberOfRecords;
+  }
+
+  private void begin() {
+    if (inTransaction) return;
+    producer.beginTransaction();
+    inTransaction = true;
+    startTime = CommonUtils.current();
+  }
+
+  private void reset() {
+    inTransaction = false;
+    numberOfRecords = 0;
+    offsets.clear();
+  }
+
+  /** commit the remaining records. Noted: the producer is NOT closed by this method. */
+  @Override
+  public void close() {
+    commit();
+  }
+
+  public static class Builder<Key, Value>
+      implements oharastream.ohara.common.pattern.Builder<TransactionBatcher<Key, Value>> {
+    private Producer<Key, Value> producer = null;
+    private String groupId = null;
+    private int maxRecords = 1000;
+    private Duration maxDelay = Duration.ofSeconds(1);
+
+    private Builder() {
+      // do nothing
+    }
+
+    /**
+     * @param producer the producer built by {@link Producer.Builder#transactional(String)}
+     * @return this builder
+     */
+    public Builder<Key, Value> producer(Producer<Key, Value> producer) {
+      this.producer = Objects.requireNonNull(producer);
+      return this;
+    }
+
+    @Optional("default is null. It is required if you want to commit the consumer offsets")
+    public Builder<Key, Value> groupId(String groupId) {
+      this.groupId = CommonUtils.requireNonEmpty(groupId);
+      return this;
+    }
+
+    @Optional("default is 1000")
+    public Builder<Key, Value> maxRecords(int maxRecords) {
+      this.maxRecords = CommonUtils.requirePositiveInt(maxRecords);
+      return this;
+    }
+
+    @Optional("default is 1 second")
+    public Builder<Key, Value> maxDelay(Duration maxDelay) {
+      this.maxDelay = Objects.requireNonNull(maxDelay);
+      return this;
+    }
+
+    @Override
+    public TransactionBatcher<Key, Value> build() {
+      Objects.requireNonNull(producer);
+      return new TransactionBatcher<>(producer, groupId, maxRecords, maxDelay);
+    }
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.kafka;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.config.TopicConfig;
+
+/**
+ * The named sets of client and topic options. Each profile sets the batching, compression and
+ * fetching options which work well together so the users don't need to tune the raw kafka options
+ * one by one. The options passed explicitly always override the options of profile.
+ */
+public enum TuningProfile {
+  /** large batches and compression. It trades the latency for the throughput. */
+  THROUGHPUT(
+      map(
+          ProducerConfig.BATCH_SIZE_CONFIG,
+          String.valueOf(256 * 1024),
+          ProducerConfig.LINGER_MS_CONFIG,
+          "50",
+          ProducerConfig.COMPRESSION_TYPE_CONFIG,
+          "lz4",
+          ProducerConfig.BUFFER_MEMORY_CONFIG,
+          String.valueOf(64 * 1024 * 1024)),
+      map(
+          ConsumerConfig.FETCH_MIN_BYTES_CONFIG,
+          String.valueOf(64 * 1024),
+          ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG,
+          "500",
+          ConsumerConfig.MAX_POLL_RECORDS_CONFIG,
+          "2000",
+          ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG,
+          String.valueOf(4 * 1024 * 1024)),
+      map(
+          TopicConfig.SEGMENT_BYTES_CONFIG,
+          String.valueOf(1024 * 1024 * 1024),
+          TopicConfig.COMPRESSION_TYPE_CONFIG,
+          "producer")),
+  /** no linger and small fetches. The records are sent and received as soon as possible. */
+  LOW_LATENCY(
+      map(
+          ProducerConfig.BATCH_SIZE_CONFIG, String.valueOf(16 * 1024),
+          ProducerConfig.LINGER_MS_CONFIG, "0",
+          ProducerConfig.COMPRESSION_TYPE_CONFIG, "none"),
+      map(
+          ConsumerConfig.FETCH_MIN_BYTES_CONFIG, "1",
+          ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, "10",
+          ConsumerConfig.MAX_POLL_RECORDS_CONFIG, "100"),
+      map(TopicConfig.SEGMENT_BYTES_CONFIG, String.valueOf(256 * 1024 * 1024))),
+  /** moderate batching with a short linger. */
+  BALANCED(
+      map(
+          ProducerConfig.BATCH_SIZE_CONFIG, String.valueOf(64 * 1024),
+          ProducerConfig.LINGER_MS_CONFIG, "5",
+          ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4"),
+      map(
+          ConsumerConfig.FETCH_MIN_BYTES_CONFIG, "1",
+          ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, "100",
+          ConsumerConfig.MAX_POLL_RECORDS_CONFIG, "500"),
+      map(TopicConfig.SEGMENT_BYTES_CONFIG, String.valueOf(512 * 1024 * 1024)));
+
+  /** the prefix used by kafka worker to override the producer options of connector */
+  public static final String PRODUCER_OVERRIDE_PREFIX = "producer.override.";
+
+  /** the prefix used by kafka worker to override the consumer options of connector */
+  public static final String CONSUMER_OVERRIDE_PREFIX = "consumer.override.";
+
+  /** @return the names of all profiles */
+  public static Set<String> names() {
+    return Arrays.stream(values()).map(TuningProfile::name).collect(Collectors.toSet());
+  }
+
+  /**
+   * @param name profile name (case insensitive)
+   * @return profile
+   */
+  public static TuningProfile of(String name) {
+    return Arrays.stream(values())
+        .filter(p -> p.name().equalsIgnoreCase(name))
+        .findFirst()
+        .orElseThrow(
+            () ->
+                new IllegalArgumentException(
+                    "the supported profiles are " + names() + " but actual is " + name));
+  }
+
+  private static Map<String, String> map(String... kvs) {
+    Map<String, String> map = new HashMap<>();
+    for (int i = 0; i < kvs.length; i += 2) map.put(kvs[i], kvs[i + 1]);
+    return Collections.unmodifiableMap(map);
+  }
+
+  private final Map<String, String> producerOptions;
+  private final Map<String, String> consumerOptions;
+  private final Map<String, String> topicOptions;
+
+  TuningProfile(
+      Map<String, String> producerOptions,
+      Map<String, String> consumerOptions,
+      Map<String, String> topicOptions) {
+    this.producerOptions = producerOptions;
+    this.consumerOptions = consumerOptions;
+    this.topicOptions = topicOptions;
+  }
+
+  /** @return the options of producer */
+  public Map<String, String> producerOptions() {
+    return producerOptions;
+  }
+
+  /** @return the options of consumer */
+  public Map<String, String> consumerOptions() {
+    return consumerOptions;
+  }
+
+  /** @return the options of topic */
+  public Map<String, String> topicOptions() {
+    return topicOptions;
+  }
+
+  /**
+   * the options used by kafka worker to override the producer and consumer options of connector.
+   *
+   * @return connector options
+   */
+  public Map<String, String> connectorOptions() {
+    Map<String, String> options = new HashMap<>();
+    producerOptions.forEach((k, v) -> options.put(PRODUCER_OVERRIDE_PREFIX + k, v));
+    consumerOptions.forEach((k, v) -> options.put(CONSUMER_OVERRIDE_PREFIX + k, v));
+    return Collections.unmodifiableMap(options);
+  }
+}
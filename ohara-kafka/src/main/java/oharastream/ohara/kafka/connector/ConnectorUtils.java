@@ -19,22 +19,31 @@ package oharastream.ohara.kafka.connector;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.TreeMap;
 import java.util.function.Function;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
-import oharastream.ohara.common.data.Cell;
 import oharastream.ohara.common.data.Column;
 import oharastream.ohara.common.data.Row;
+import oharastream.ohara.common.setting.ConnectorKey;
 import oharastream.ohara.common.setting.ObjectKey;
 import oharastream.ohara.common.setting.SettingDef;
 import oharastream.ohara.common.setting.WithDefinitions;
 import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.kafka.LagCollector;
 import oharastream.ohara.kafka.connector.json.ConnectorDefUtils;
 import oharastream.ohara.metrics.basic.Counter;
 import org.apache.kafka.common.config.ConfigDef;
 import org.apache.kafka.connect.connector.ConnectRecord;
 
 final class ConnectorUtils {
+  /**
+   * the env key carrying the broker connection props of worker. It is set by worker collie and it
+   * is used by the metrics which need to access the brokers.
+   */
+  static final String BROKERS_ENV_KEY = "WORKER_BROKERS";
+
   static Map<String, SettingDef> toSettingDefinitions(
       List<SettingDef> systemDefinedDefinitions,
       List<SettingDef> userDefinedDefinitions,
@@ -63,6 +72,27 @@ final class ConnectorUtils {
     return def;
   }
 
+  /**
+   * Create a collector reporting the lag of sink connector. NOTED: kafka names the consumer group
+   * of sink connector "connect-{connector name}".
+   *
+   * @param setting task setting
+   * @return lag collector or empty if the lag metrics are disabled or the brokers are not defined
+   *     by worker
+   */
+  static Optional<LagCollector> sinkLagCollector(TaskSetting setting) {
+    if (!setting.lagMetrics()) return Optional.empty();
+    String brokers = System.getenv(BROKERS_ENV_KEY);
+    if (CommonUtils.isEmpty(brokers)) return Optional.empty();
+    ConnectorKey key = setting.connectorKey();
+    return Optional.of(
+        LagCollector.builder()
+            .connectionProps(brokers)
+            .key(key)
+            .groupId("connect-" + key.connectorNameOnKafka())
+            .build());
+  }
+
   /**
    * Create and register a row counter with specific group name.
    *
@@ -76,7 +106,7 @@ final class ConnectorUtils {
         .unit("messages")
         .document("number of messages")
         .value(0)
-        .register();
+        .registerAggregated();
   }
 
   /**
@@ -92,7 +122,7 @@ final class ConnectorUtils {
         .unit("bytes")
         .document("size (in bytes) of messages")
         .value(0)
-        .register();
+        .registerAggregated();
   }
 
   /**
@@ -108,7 +138,7 @@ final class ConnectorUtils {
         .unit("messages")
         .document("number of ignored messages")
         .value(0)
-        .register();
+        .registerAggregated();
   }
 
   /**
@@ -124,28 +154,80 @@ final class ConnectorUtils {
         .unit("bytes")
         .document("size of ignored messages")
         .value(0)
-        .register();
+        .registerAggregated();
+  }
+
+  /**
+   * Create and register a number counter for in-flight messages
+   *
+   * @param key It is normally equal to connector key
+   * @return number counter
+   */
+  static Counter inFlightMessageNumberCounter(ObjectKey key) {
+    return Counter.builder()
+        .key(key)
+        .item("inflight.message.number")
+        .unit("messages")
+        .document("number of messages polled by source task but not acked by producer")
+        .value(0)
+        .registerAggregated();
+  }
+
+  /**
+   * Create and register a size counter for in-flight messages
+   *
+   * @param key It is normally equal to connector key
+   * @return size counter
+   */
+  static Counter inFlightMessageSizeCounter(ObjectKey key) {
+    return Counter.builder()
+        .key(key)
+        .item("inflight.message.size")
+        .unit("bytes")
+        .document("size of messages polled by source task but not acked by producer")
+        .value(0)
+        .registerAggregated();
+  }
+
+  /**
+   * Create and register a time counter for the tasks throttled by rate limit
+   *
+   * @param key It is normally equal to connector key
+   * @return time counter
+   */
+  static Counter throttledTimeCounter(ObjectKey key) {
+    return Counter.builder()
+        .key(key)
+        .item("throttled.time")
+        .unit("milliseconds")
+        .document("time of task throttled by the rate limit")
+        .value(0)
+        .registerAggregated();
   }
 
   /**
    * compare the schema with input/output data.
    *
+   * @param rule check rule
    * @param row row
-   * @param columns columns
+   * @param rowSize size of row
+   * @param validator the compiled columns
+   * @param ignoredMessageNumberCounter counter of ignored messages. nullable
+   * @param ignoredMessageSizeCounter counter of size of ignored messages. nullable
+   * @return true if the row matches the schema or the rule is none
    */
   static boolean match(
       SettingDef.CheckRule rule,
       Row row,
       long rowSize,
-      List<Column> columns,
-      boolean isSink,
+      SchemaValidator validator,
       Counter ignoredMessageNumberCounter,
       Counter ignoredMessageSizeCounter) {
     switch (rule) {
       case PERMISSIVE:
       case ENFORCING:
         try {
-          ConnectorUtils.match(row, columns, isSink);
+          validator.validate(row);
           return true;
         } catch (Throwable e) {
           if (rule == SettingDef.CheckRule.PERMISSIVE) {
@@ -160,86 +242,37 @@ final class ConnectorUtils {
     }
   }
 
+  /**
+   * handle the row which can't be transformed. The row is dropped and counted as an ignored message
+   * if the rule is PERMISSIVE. Otherwise, the error is rethrown to fail the task.
+   *
+   * @param rule check rule
+   * @param error the failure of transforms
+   * @param rowSize supplies the size of row. It is evaluated only if the row is ignored
+   * @param ignoredMessageNumberCounter counter of ignored messages. nullable
+   * @param ignoredMessageSizeCounter counter of size of ignored messages. nullable
+   */
+  static void ignoreOrThrow(
+      SettingDef.CheckRule rule,
+      RuntimeException error,
+      LongSupplier rowSize,
+      Counter ignoredMessageNumberCounter,
+      Counter ignoredMessageSizeCounter) {
+    if (rule != SettingDef.CheckRule.PERMISSIVE) throw error;
+    if (ignoredMessageNumberCounter != null) ignoredMessageNumberCounter.incrementAndGet();
+    if (ignoredMessageSizeCounter != null) ignoredMessageSizeCounter.addAndGet(rowSize.getAsLong());
+  }
+
   /**
    * compare the schema with input/output data. this is a strict check that all columns MUST exist
-   * and the input/output data can't have "unknown" column
+   * and the input/output data can't have "unknown" column. Noted: the columns are compiled for each
+   * call so the hot path should use {@link SchemaValidator} instead.
    *
    * @param row row
    * @param columns columns
    */
   static void match(Row row, List<Column> columns, boolean isSink) {
-    List<String> requiredNames =
-        columns.stream()
-            .map(column -> isSink ? column.name() : column.newName())
-            .collect(Collectors.toList());
-
-    if (!CommonUtils.isEmpty(columns)) {
-      if (row.size() != columns.size())
-        throw new IllegalArgumentException(
-            "expected size:" + columns.size() + ", actual:" + row.size());
-      List<String> dataColumnNames = row.names();
-      dataColumnNames.forEach(
-          name -> {
-            if (requiredNames.stream().noneMatch(requiredName -> requiredName.equals(name)))
-              throw new IllegalArgumentException(
-                  "column name:"
-                      + name
-                      + " is not matched by schema:"
-                      + String.join(",", requiredNames));
-          });
-      requiredNames.forEach(
-          requiredName -> {
-            if (dataColumnNames.stream().noneMatch(name -> name.equals(requiredName)))
-              throw new IllegalArgumentException("there is not data for column:" + requiredName);
-          });
-      columns.forEach(
-          column -> {
-            Cell<?> cell = row.cell(isSink ? column.name() : column.newName());
-            boolean match = false;
-            switch (column.dataType()) {
-              case BYTES:
-                if (cell.value() instanceof byte[]) match = true;
-                break;
-              case BOOLEAN:
-                if (cell.value() instanceof Boolean) match = true;
-                break;
-              case BYTE:
-                if (cell.value() instanceof Byte) match = true;
-                break;
-              case SHORT:
-                if (cell.value() instanceof Short) match = true;
-                break;
-              case INT:
-                if (cell.value() instanceof Integer) match = true;
-                break;
-              case LONG:
-                if (cell.value() instanceof Long) match = true;
-                break;
-              case FLOAT:
-                if (cell.value() instanceof Float) match = true;
-                break;
-              case DOUBLE:
-                if (cell.value() instanceof Double) match = true;
-                break;
-              case STRING:
-                if (cell.value() instanceof String) match = true;
-                break;
-              case ROW:
-                if (cell.value() instanceof Row) match = true;
-                break;
-              case OBJECT:
-              default:
-                if (cell.value() != null) match = true;
-                break;
-            }
-            if (!match)
-              throw new IllegalArgumentException(
-                  "expected type: "
-                      + column.dataType()
-                      + ", actual:"
-                      + cell.value().getClass().getName());
-          });
-    }
+    SchemaValidator.of(columns, isSink).validate(row);
   }
 
   static long sizeOf(ConnectRecord<?> record) {
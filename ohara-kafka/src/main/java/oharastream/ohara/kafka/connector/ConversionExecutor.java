@@ -0,0 +1,123 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.kafka.connector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import oharastream.ohara.common.annotations.VisibleForTesting;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.common.util.Releasable;
+
+/**
+ * Converts a batch of records by multiple threads. The batch is split into contiguous chunks and
+ * the results of chunks are concatenated in order so the order of records is preserved. The first
+ * chunk is converted by the caller thread.
+ *
+ * <p>The function passed to {@link #map(List, Function)} is called concurrently so it must not
+ * touch the mutable state of task.
+ */
+final class ConversionExecutor implements Releasable {
+
+  /** the small batch is converted by the caller thread since the handoff is more expensive. */
+  @VisibleForTesting static final int MIN_CHUNK_SIZE = 64;
+
+  /**
+   * @param threads the number of threads used to convert a batch. It includes the caller thread so
+   *     1 means the conversion is sequential
+   * @return conversion executor
+   */
+  static ConversionExecutor of(int threads) {
+    return new ConversionExecutor(threads);
+  }
+
+  private final int threads;
+  private final ExecutorService executor;
+
+  private ConversionExecutor(int threads) {
+    this.threads = CommonUtils.requirePositiveInt(threads);
+    AtomicInteger index = new AtomicInteger(0);
+    this.executor =
+        threads == 1
+            ? null
+            : Executors.newFixedThreadPool(
+                threads - 1,
+                r -> {
+                  Thread t = new Thread(r, "row-converter-" + index.getAndIncrement());
+                  t.setDaemon(true);
+                  return t;
+                });
+  }
+
+  /**
+   * convert the values.
+   *
+   * @param values values
+   * @param function conversion
+   * @param <T> type of value
+   * @param <R> type of result
+   * @return the results having same order of values
+   */
+  <T, R> List<R> map(List<T> values, Function<T, R> function) {
+    int chunks = Math.min(threads, values.size() / MIN_CHUNK_SIZE);
+    if (executor == null || chunks <= 1) return convert(values, function);
+    int chunkSize = (values.size() + chunks - 1) / chunks;
+    List<Future<List<R>>> futures = new ArrayList<>(chunks - 1);
+    for (int start = chunkSize; start < values.size(); start += chunkSize) {
+      List<T> chunk = values.subList(start, Math.min(values.size(), start + chunkSize));
+      futures.add(executor.submit(() -> convert(chunk, function)));
+    }
+    List<R> results = new ArrayList<>(values.size());
+    boolean done = false;
+    try {
+      results.addAll(convert(values.subList(0, chunkSize), function));
+      for (Future<List<R>> future : futures) results.addAll(future.get());
+      done = true;
+      return results;
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+      throw new IllegalStateException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } finally {
+      // don't waste the cpu on the batch which is never returned
+      if (!done) futures.forEach(f -> f.cancel(true));
+    }
+  }
+
+  private static <T, R> List<R> convert(List<T> values, Function<T, R> function) {
+    List<R> results = new ArrayList<>(values.size());
+    for (T value : values) results.add(function.apply(value));
+    return results;
+  }
+
+  /** @return the number of threads used to convert a batch */
+  int threads() {
+    return threads;
+  }
+
+  @Override
+  public void close() {
+    if (executor != null) executor.shutdownNow();
+  }
+}
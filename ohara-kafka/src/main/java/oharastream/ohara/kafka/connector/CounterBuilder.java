@@ -68,6 +68,6 @@ public final class CounterBuilder implements Builder<Counter> {
    */
   @Override
   public Counter build() {
-    return builder.register();
+    return builder.registerAggregated();
   }
 }
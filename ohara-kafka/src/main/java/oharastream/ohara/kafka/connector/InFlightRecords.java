@@ -0,0 +1,154 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.kafka.connector;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.metrics.basic.Counter;
+import org.apache.kafka.connect.source.SourceRecord;
+
+/**
+ * The records polled by source task but not acked by producer yet. Kafka passes the same {@link
+ * SourceRecord} object to {@link RowSourceTask#commitRecord(SourceRecord,
+ * org.apache.kafka.clients.producer.RecordMetadata)} so the records are keyed by identity. It
+ * avoids hashing the serialized row of each record.
+ *
+ * <p>The records are put by the task thread and removed by the producer callback so all methods are
+ * synchronized.
+ */
+final class InFlightRecords {
+
+  /**
+   * @param maxRecords the max number of records
+   * @param maxBytes the max size (in bytes) of records
+   * @param numberCounter the counter of number of records. nullable
+   * @param sizeCounter the counter of size of records. nullable
+   * @return a bounded in-flight records
+   */
+  static InFlightRecords of(
+      int maxRecords, long maxBytes, Counter numberCounter, Counter sizeCounter) {
+    return new InFlightRecords(maxRecords, maxBytes, numberCounter, sizeCounter);
+  }
+
+  private static class Entry {
+    private final RowSourceRecord record;
+    private final long size;
+
+    private Entry(RowSourceRecord record, long size) {
+      this.record = record;
+      this.size = size;
+    }
+  }
+
+  private final Map<SourceRecord, Entry> records = new IdentityHashMap<>();
+  private final int maxRecords;
+  private final long maxBytes;
+  private final Counter numberCounter;
+  private final Counter sizeCounter;
+  private long bytes = 0;
+
+  private InFlightRecords(
+      int maxRecords, long maxBytes, Counter numberCounter, Counter sizeCounter) {
+    this.maxRecords = CommonUtils.requirePositiveInt(maxRecords);
+    this.maxBytes = CommonUtils.requirePositiveLong(maxBytes);
+    this.numberCounter = numberCounter;
+    this.sizeCounter = sizeCounter;
+  }
+
+  /**
+   * track a record which is going to be sent.
+   *
+   * @param record kafka record
+   * @param rowRecord the original record
+   * @param size size (in bytes) of record
+   */
+  synchronized void put(SourceRecord record, RowSourceRecord rowRecord, long size) {
+    Entry previous = records.put(record, new Entry(rowRecord, size));
+    if (previous != null) bytes -= previous.size;
+    bytes += size;
+  }
+
+  /**
+   * stop tracking a record.
+   *
+   * @param record kafka record
+   * @return the original record or empty if the record is not tracked
+   */
+  synchronized Optional<RowSourceRecord> remove(SourceRecord record) {
+    Entry entry = records.remove(record);
+    if (entry == null) return Optional.empty();
+    bytes -= entry.size;
+    notifyAll();
+    return Optional.of(entry.record);
+  }
+
+  /**
+   * wait for the space of new records. Noted: the limit is checked before polling so the tracked
+   * records can exceed the limit by a batch.
+   *
+   * @param timeout the max time (in milliseconds) to wait
+   * @return true if there is space for new records. Otherwise, false
+   * @throws InterruptedException if the thread is interrupted
+   */
+  synchronized boolean awaitCapacity(long timeout) throws InterruptedException {
+    long end = CommonUtils.current() + timeout;
+    while (full()) {
+      long remaining = end - CommonUtils.current();
+      if (remaining <= 0) return false;
+      wait(remaining);
+    }
+    return true;
+  }
+
+  /** @return true if the number or size of in-flight records reaches the limit */
+  synchronized boolean isFull() {
+    return full();
+  }
+
+  private boolean full() {
+    return records.size() >= maxRecords || bytes >= maxBytes;
+  }
+
+  /**
+   * update the counters by current records. The counters are not updated by each record since the
+   * update of counter is not cheap.
+   */
+  synchronized void updateCounters() {
+    if (numberCounter != null) numberCounter.setAndGet(records.size());
+    if (sizeCounter != null) sizeCounter.setAndGet(bytes);
+  }
+
+  /** @return number of tracked records */
+  synchronized int size() {
+    return records.size();
+  }
+
+  /** @return size (in bytes) of tracked records */
+  synchronized long bytes() {
+    return bytes;
+  }
+
+  /** remove all tracked records. */
+  synchronized void clear() {
+    records.clear();
+    bytes = 0;
+    updateCounters();
+    notifyAll();
+  }
+}
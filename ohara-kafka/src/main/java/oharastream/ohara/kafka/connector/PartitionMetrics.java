@@ -0,0 +1,93 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.kafka.connector;
+
+import oharastream.ohara.common.annotations.VisibleForTesting;
+import oharastream.ohara.common.setting.ObjectKey;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.common.util.Releasable;
+import oharastream.ohara.metrics.basic.Counter;
+import oharastream.ohara.metrics.basic.Histogram;
+import oharastream.ohara.metrics.basic.Timer;
+
+/**
+ * The metrics of a single topic partition. It is used by row tasks only if the "partition.metrics"
+ * is enabled since each instance registers a histogram mbean.
+ */
+final class PartitionMetrics implements Releasable {
+
+  /**
+   * create and register the metrics of specific topic partition.
+   *
+   * @param key It is normally equal to connector key
+   * @param partition topic partition
+   * @return partition metrics
+   */
+  static PartitionMetrics of(ObjectKey key, TopicPartition partition) {
+    return new PartitionMetrics(key, partition);
+  }
+
+  @VisibleForTesting final Counter messageNumberCounter;
+  @VisibleForTesting final Counter messageSizeCounter;
+  @VisibleForTesting final Histogram latencyHistogram;
+
+  private PartitionMetrics(ObjectKey key, TopicPartition partition) {
+    String suffix = "-" + partition.topicName() + "-" + partition.partition();
+    this.messageNumberCounter =
+        Counter.builder()
+            .key(key)
+            .item("message.number" + suffix)
+            .unit("messages")
+            .document("number of messages of " + partition)
+            .value(0)
+            .registerAggregated();
+    this.messageSizeCounter =
+        Counter.builder()
+            .key(key)
+            .item("message.size" + suffix)
+            .unit("bytes")
+            .document("size (in bytes) of messages of " + partition)
+            .value(0)
+            .registerAggregated();
+    this.latencyHistogram =
+        Histogram.builder()
+            .key(key)
+            .item("latency" + suffix)
+            .unit(Timer.UNIT)
+            .document("the latency from record timestamp to processing of " + partition)
+            .register();
+  }
+
+  /**
+   * update the metrics by a processed record.
+   *
+   * @param size size (in bytes) of record
+   * @param timestamp the timestamp of record. The non-positive value is not counted by latency
+   */
+  void record(long size, long timestamp) {
+    messageNumberCounter.incrementAndGet();
+    messageSizeCounter.addAndGet(size);
+    if (timestamp > 0) latencyHistogram.update(Math.max(0, CommonUtils.current() - timestamp));
+  }
+
+  @Override
+  public void close() {
+    Releasable.close(messageNumberCounter);
+    Releasable.close(messageSizeCounter);
+    Releasable.close(latencyHistogram);
+  }
+}
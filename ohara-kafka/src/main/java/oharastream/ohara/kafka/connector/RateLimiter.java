@@ -0,0 +1,190 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.kafka.connector;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import oharastream.ohara.common.setting.ObjectKey;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.common.util.Releasable;
+import oharastream.ohara.metrics.BeanChannel;
+import oharastream.ohara.metrics.basic.Counter;
+
+/**
+ * The token buckets of rows and bytes. The bucket is refilled continuously by the rate and it holds
+ * the tokens of one second at most. The task consumes the tokens after processing the data so the
+ * bucket may be in debt, and the next data is allowed only if the debt is repaid. It avoids
+ * splitting the batch returned by connector.
+ *
+ * <p>The limits are exposed by mbean so they are updatable without restarting the task. All methods
+ * are synchronized since the mbean is accessed by jmx threads.
+ */
+public final class RateLimiter implements RateLimiterMBean, Releasable {
+
+  /**
+   * @param rowsPerSecond the max number of rows per second. Zero means no limit
+   * @param bytesPerSecond the max size (in bytes) of rows per second. Zero means no limit
+   * @param throttledTimeCounter the counter of throttled time. nullable
+   * @return rate limiter
+   */
+  static RateLimiter of(long rowsPerSecond, long bytesPerSecond, Counter throttledTimeCounter) {
+    return new RateLimiter(rowsPerSecond, bytesPerSecond, throttledTimeCounter);
+  }
+
+  private static final class Bucket {
+    private long rate;
+    private double tokens;
+    private long lastRefill;
+
+    private Bucket(long rate, long now) {
+      this.rate = requireRate(rate);
+      this.tokens = rate;
+      this.lastRefill = now;
+    }
+
+    private void refill(long now) {
+      if (rate > 0) tokens = Math.min(rate, tokens + (now - lastRefill) * rate / 1000D);
+      lastRefill = now;
+    }
+
+    private void rate(long rate, long now) {
+      requireRate(rate);
+      refill(now);
+      // the bucket of unlimited rate is empty so it is filled when the limit is enabled
+      tokens = this.rate == 0 ? rate : Math.min(tokens, rate);
+      this.rate = rate;
+    }
+
+    private void consume(long n, long now) {
+      if (rate <= 0) return;
+      refill(now);
+      tokens -= n;
+    }
+
+    private long waitTime(long now) {
+      if (rate <= 0) return 0;
+      refill(now);
+      return tokens >= 0 ? 0 : (long) Math.ceil(-tokens * 1000 / rate);
+    }
+  }
+
+  private static long requireRate(long rate) {
+    if (rate < 0) throw new IllegalArgumentException("the rate can't be negative. actual:" + rate);
+    return rate;
+  }
+
+  private final Bucket rows;
+  private final Bucket bytes;
+  private final Counter throttledTimeCounter;
+  private Map<String, String> properties = null;
+
+  private RateLimiter(long rowsPerSecond, long bytesPerSecond, Counter throttledTimeCounter) {
+    long now = CommonUtils.current();
+    this.rows = new Bucket(rowsPerSecond, now);
+    this.bytes = new Bucket(bytesPerSecond, now);
+    this.throttledTimeCounter = throttledTimeCounter;
+  }
+
+  /**
+   * register the mbean of this rate limiter.
+   *
+   * @param key It is normally equal to connector key
+   * @return this rate limiter
+   */
+  synchronized RateLimiter register(ObjectKey key) {
+    if (properties != null) throw new IllegalStateException("the rate limiter is registered");
+    Map<String, String> properties = new HashMap<>();
+    properties.put(TYPE_KEY, TYPE_VALUE);
+    properties.put(KEY_KEY, key.toPlain());
+    // kafka worker may create multiple tasks on same worker node
+    properties.put(ID_KEY, CommonUtils.randomString());
+    BeanChannel.<RateLimiterMBean>register()
+        .domain(DOMAIN)
+        .properties(properties)
+        .beanObject(this)
+        .run();
+    this.properties = properties;
+    return this;
+  }
+
+  /**
+   * consume the tokens of processed data.
+   *
+   * @param numberOfRows number of rows
+   * @param numberOfBytes size of rows
+   */
+  synchronized void consume(long numberOfRows, long numberOfBytes) {
+    long now = CommonUtils.current();
+    rows.consume(numberOfRows, now);
+    bytes.consume(numberOfBytes, now);
+  }
+
+  /**
+   * wait for the tokens.
+   *
+   * @param timeout the max time to wait
+   * @return true if the next data is allowed. Otherwise, false
+   * @throws InterruptedException if the sleep is interrupted
+   */
+  boolean await(long timeout) throws InterruptedException {
+    long wait = Math.min(getThrottleTime(), timeout);
+    if (wait <= 0) return true;
+    TimeUnit.MILLISECONDS.sleep(wait);
+    throttled(wait);
+    return getThrottleTime() <= 0;
+  }
+
+  /** @param time the time (in milliseconds) the task is throttled */
+  void throttled(long time) {
+    if (throttledTimeCounter != null) throttledTimeCounter.addAndGet(time);
+  }
+
+  @Override
+  public synchronized long getRowsPerSecond() {
+    return rows.rate;
+  }
+
+  @Override
+  public synchronized void setRowsPerSecond(long rowsPerSecond) {
+    rows.rate(rowsPerSecond, CommonUtils.current());
+  }
+
+  @Override
+  public synchronized long getBytesPerSecond() {
+    return bytes.rate;
+  }
+
+  @Override
+  public synchronized void setBytesPerSecond(long bytesPerSecond) {
+    bytes.rate(bytesPerSecond, CommonUtils.current());
+  }
+
+  @Override
+  public synchronized long getThrottleTime() {
+    long now = CommonUtils.current();
+    return Math.max(rows.waitTime(now), bytes.waitTime(now));
+  }
+
+  @Override
+  public synchronized void close() {
+    if (properties != null) {
+      BeanChannel.unregister(DOMAIN, properties);
+      properties = null;
+    }
+  }
+}
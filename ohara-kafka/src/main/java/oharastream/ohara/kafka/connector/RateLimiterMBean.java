@@ -0,0 +1,45 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.kafka.connector;
+
+/**
+ * The management interface of {@link RateLimiter}. The limits are writable so they can be updated
+ * by jmx without restarting the task.
+ */
+public interface RateLimiterMBean {
+  String DOMAIN = "oharastream.ohara";
+  String TYPE_KEY = "type";
+  String TYPE_VALUE = "rateLimiter";
+  String KEY_KEY = "key";
+  /** This is a internal property used to distinguish the rate limiters of tasks. */
+  String ID_KEY = "id";
+
+  /** @return the max number of rows per second. Zero means no limit */
+  long getRowsPerSecond();
+
+  /** @param rowsPerSecond the max number of rows per second. Zero means no limit */
+  void setRowsPerSecond(long rowsPerSecond);
+
+  /** @return the max size (in bytes) of rows per second. Zero means no limit */
+  long getBytesPerSecond();
+
+  /** @param bytesPerSecond the max size (in bytes) of rows per second. Zero means no limit */
+  void setBytesPerSecond(long bytesPerSecond);
+
+  /** @return the time (in milliseconds) to wait before next data is allowed */
+  long getThrottleTime();
+}
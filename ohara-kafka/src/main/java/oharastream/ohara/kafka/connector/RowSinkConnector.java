@@ -23,7 +23,9 @@ import java.util.stream.Collectors;
 import oharastream.ohara.common.annotations.VisibleForTesting;
 import oharastream.ohara.common.setting.SettingDef;
 import oharastream.ohara.common.setting.WithDefinitions;
+import oharastream.ohara.common.util.Releasable;
 import oharastream.ohara.common.util.VersionUtils;
+import oharastream.ohara.kafka.LagCollector;
 import oharastream.ohara.kafka.connector.json.ConnectorDefUtils;
 import org.apache.kafka.common.config.Config;
 import org.apache.kafka.common.config.ConfigDef;
@@ -110,15 +112,24 @@ public abstract class RowSinkConnector extends SinkConnector implements WithDefi
 
   @VisibleForTesting TaskSetting taskSetting = null;
 
+  /** the connector is in charge of reporting the lag of all tasks */
+  private LagCollector lagCollector = null;
+
   @Override
   public final void start(Map<String, String> props) {
     taskSetting = TaskSetting.of(Collections.unmodifiableMap(props));
     run(taskSetting);
+    lagCollector = ConnectorUtils.sinkLagCollector(taskSetting).orElse(null);
   }
 
   @Override
   public final void stop() {
-    terminate();
+    try {
+      terminate();
+    } finally {
+      Releasable.close(lagCollector);
+      lagCollector = null;
+    }
   }
 
   /** @return custom definitions + core definitions */
@@ -16,6 +16,7 @@
 
 package oharastream.ohara.kafka.connector;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
@@ -60,8 +61,48 @@ public interface RowSinkContext {
     this.offset(Collections.singletonMap(partition, offset));
   }
 
+  /**
+   * Pause consumption of messages from the specified partitions. The partitions are still assigned
+   * to this task so it is the way to stop fetching data without triggering the rebalance. Noted:
+   * this method must be called by the thread calling put.
+   *
+   * @param partitions the partitions which should be paused
+   */
+  void pause(Collection<TopicPartition> partitions);
+
+  /**
+   * Resume consumption of messages from previously paused partitions. Noted: this method must be
+   * called by the thread calling put.
+   *
+   * @param partitions the partitions to resume
+   */
+  void resume(Collection<TopicPartition> partitions);
+
+  /**
+   * Request an offset commit. Sink tasks can use this to minimize the potential for redelivery by
+   * requesting an offset commit as soon as they flush data to the destination system. The commit is
+   * processed by the thread calling put so it is not done immediately.
+   */
+  void requestCommit();
+
+  /**
+   * Set the max time to wait for new data. The sink task which has to do something (for example,
+   * rotating the files) in a period of time can use this method to get the chance (the put with
+   * empty data) even if there is no new data. The timeout is applied to the next poll only.
+   *
+   * @param timeoutMs the max time (in milliseconds) to wait for new data
+   */
+  void timeout(long timeoutMs);
+
   static RowSinkContext toRowSinkContext(SinkTaskContext context) {
     return new RowSinkContext() {
+      private org.apache.kafka.common.TopicPartition[] toKafka(
+          Collection<TopicPartition> partitions) {
+        return partitions.stream()
+            .map(p -> new org.apache.kafka.common.TopicPartition(p.topicName(), p.partition()))
+            .toArray(org.apache.kafka.common.TopicPartition[]::new);
+      }
+
       @Override
       public void offset(Map<TopicPartition, Long> offsets) {
         context.offset(
@@ -74,6 +115,26 @@ public interface RowSinkContext {
                         Map.Entry::getValue)));
       }
 
+      @Override
+      public void pause(Collection<TopicPartition> partitions) {
+        context.pause(toKafka(partitions));
+      }
+
+      @Override
+      public void resume(Collection<TopicPartition> partitions) {
+        context.resume(toKafka(partitions));
+      }
+
+      @Override
+      public void requestCommit() {
+        context.requestCommit();
+      }
+
+      @Override
+      public void timeout(long timeoutMs) {
+        context.timeout(timeoutMs);
+      }
+
       @Override
       public Set<TopicPartition> assignment() {
         return context.assignment().stream()
@@ -16,21 +16,27 @@
 
 package oharastream.ohara.kafka.connector;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import oharastream.ohara.common.annotations.VisibleForTesting;
-import oharastream.ohara.common.data.Column;
-import oharastream.ohara.common.data.Pair;
 import oharastream.ohara.common.data.Row;
 import oharastream.ohara.common.data.Serializer;
 import oharastream.ohara.common.setting.SettingDef;
+import oharastream.ohara.common.util.CommonUtils;
 import oharastream.ohara.common.util.Releasable;
 import oharastream.ohara.common.util.VersionUtils;
 import oharastream.ohara.kafka.TimestampType;
 import oharastream.ohara.metrics.basic.Counter;
+import oharastream.ohara.metrics.prometheus.PrometheusExporter;
 import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.connect.sink.SinkRecord;
 import org.apache.kafka.connect.sink.SinkTask;
@@ -62,10 +68,27 @@ public abstract class RowSinkTask extends SinkTask {
    * Put the table record in the sink. Usually this should send the records to the sink
    * asynchronously and immediately return.
    *
+   * <p>If the async mode is enabled (see {@link
+   * oharastream.ohara.kafka.connector.json.ConnectorDefUtils#SINK_WRITERS_DEFINITION}), this method
+   * is called by the writer threads and the input records belong to a single partition. The records
+   * of different partitions may be put concurrently if there are many writers.
+   *
    * @param records table record
    */
   protected abstract void putRecords(List<RowSinkRecord> records);
 
+  /**
+   * This method is called by each put for the assigned partitions which have no records in the put.
+   * Kafka calls put even if there is no data so it is useful to the work depending on time, such as
+   * the scheduled rotation of files. If the async mode is enabled, this method is called by the
+   * writer thread of the partition.
+   *
+   * @param partition the assigned partition having no records in the put
+   */
+  protected void idlePartition(TopicPartition partition) {
+    // do nothing
+  }
+
   /**
    * The SinkTask use this method to create writers for newly assigned partitions in case from
    * partition rebalance. This method will be called after partition re-assignment completes and
@@ -100,7 +123,8 @@ public abstract class RowSinkTask extends SinkTask {
    *
    * @param offsets the current offset state as from the last call to put, provided for convenience
    *     but could also be determined by tracking all offsets included in the RowSourceRecord's
-   *     passed to put.
+   *     passed to put. In async mode, the offsets cover only the records which are already written
+   *     by {@link #putRecords(List)}.
    * @return an empty map if Connect-managed offset commit is not desired, otherwise a map from
    *     offsets by topic-partition that are safe to commit.
    */
@@ -110,25 +134,108 @@ public abstract class RowSinkTask extends SinkTask {
   }
 
   protected RowSinkContext rowContext;
+  /**
+   * the context used by this task to pause and resume partitions. The sub class uses {@link
+   * #rowContext}, which tracks the partitions paused by the sub class.
+   */
+  @VisibleForTesting RowSinkContext taskContext;
+  /**
+   * true if the sub class overrides {@link #idlePartition(TopicPartition)}. Otherwise, the idle
+   * partitions are not computed by put.
+   */
+  private final boolean idleRequired = overridesIdlePartition(getClass());
+
+  private static boolean overridesIdlePartition(Class<?> clz) {
+    // the method is protected so we check the declared methods of each sub class
+    for (Class<?> c = clz; c != null && c != RowSinkTask.class; c = c.getSuperclass()) {
+      try {
+        c.getDeclaredMethod("idlePartition", TopicPartition.class);
+        return true;
+      } catch (NoSuchMethodException e) {
+        // keep searching the super class
+      }
+    }
+    return false;
+  }
+
+  /** the partitions paused by the sub class. They are not resumed by the end of throttle. */
+  private final Set<TopicPartition> pausedBySubClass = new HashSet<>();
   // -------------------------------------------------[WRAPPED]-------------------------------------------------//
   @VisibleForTesting Counter messageNumberCounter = null;
   @VisibleForTesting Counter messageSizeCounter = null;
   @VisibleForTesting Counter ignoredMessageNumberCounter = null;
   @VisibleForTesting Counter ignoredMessageSizeCounter = null;
   @VisibleForTesting TaskSetting taskSetting = null;
+  /** the columns are compiled when starting this task. */
+  @VisibleForTesting SchemaValidator validator = null;
+  /** the transforms are compiled when starting this task. */
+  @VisibleForTesting RowTransformer transformer = RowTransformer.EMPTY;
+
+  @VisibleForTesting Counter throttledTimeCounter = null;
+  /** the limit of rows and bytes put by this task. */
+  @VisibleForTesting RateLimiter rateLimiter = null;
+  /**
+   * the time that all partitions are paused by rate limit. It is -1 if the task is not throttled.
+   */
+  @VisibleForTesting long throttledSince = -1;
+  /** the partitions paused by rate limit. They are resumed by the end of throttle. */
+  @VisibleForTesting final Set<TopicPartition> throttledPartitions = new HashSet<>();
+  /** the writers of async mode. It is null if the async mode is disabled. */
+  @VisibleForTesting SinkWriterPool writerPool = null;
+  /**
+   * the metrics of assigned topic partitions. It is null if the "partition.metrics" is disabled.
+   * The metrics are registered when the partitions are opened and they are released when the
+   * partitions are closed.
+   */
+  @VisibleForTesting Map<TopicPartition, PartitionMetrics> partitionMetrics = null;
+
+  /** decodes the records passed to put. It is serial if "conversion.threads" is 1 */
+  @VisibleForTesting ConversionExecutor conversionExecutor = null;
+
+  /** the record decoded and transformed by the conversion threads. */
+  private static final class ConvertedRecord {
+    /** ohara's sink record. It is empty if the row is filtered out by the transforms */
+    private final Optional<RowSinkRecord> record;
+    /** the failure of transforms. It is handled by the check rule in the task thread */
+    private final IllegalArgumentException error;
+
+    private ConvertedRecord(Optional<RowSinkRecord> record, IllegalArgumentException error) {
+      this.record = record;
+      this.error = error;
+    }
+  }
+
+  /**
+   * decode the row and then apply the transforms to it. It may be called by multiple threads so it
+   * must not touch the mutable state of this task.
+   *
+   * @param record kafka's sink record
+   * @return converted record
+   */
+  private ConvertedRecord toOhara(SinkRecord record) {
+    // add a room to accept the row in kafka
+    Row row =
+        (record.key() instanceof Row)
+            ? ((Row) record.key())
+            : Serializer.ROW.from((byte[]) record.key());
+    if (transformer.isEmpty()) return new ConvertedRecord(Optional.of(toOhara(record, row)), null);
+    try {
+      return new ConvertedRecord(transformer.transform(row).map(r -> toOhara(record, r)), null);
+    } catch (IllegalArgumentException e) {
+      // don't throw it in the conversion threads since it fails the whole batch
+      return new ConvertedRecord(Optional.empty(), e);
+    }
+  }
 
   /**
    * @param record kafka's sink record
+   * @param row the decoded row
    * @return ohara's sink record
    */
-  private static RowSinkRecord toOhara(SinkRecord record) {
+  private static RowSinkRecord toOhara(SinkRecord record, Row row) {
     return RowSinkRecord.builder()
         .topicName(record.topic())
-        // add a room to accept the row in kafka
-        .row(
-            (record.key() instanceof Row)
-                ? ((Row) record.key())
-                : Serializer.ROW.from((byte[]) record.key()))
+        .row(row)
         .partition(record.kafkaPartition())
         .offset(record.kafkaOffset())
         // constructing a record without timeout is legal in kafka ...
@@ -140,31 +247,100 @@ public abstract class RowSinkTask extends SinkTask {
   @Override
   public final void put(Collection<SinkRecord> raw) {
     SettingDef.CheckRule rule = taskSetting.checkRule();
-    List<Column> columns = taskSetting.columns();
     if (raw == null) return;
-    List<RowSinkRecord> records =
-        raw.stream()
-            .map(kafkaRecord -> Pair.of(toOhara(kafkaRecord), kafkaRecord))
-            .filter(
-                pair -> {
-                  long rowSize = ConnectorUtils.sizeOf(pair.right());
-                  boolean pass =
-                      ConnectorUtils.match(
-                          rule,
-                          pair.left().row(),
-                          rowSize,
-                          columns,
-                          true,
-                          ignoredMessageNumberCounter,
-                          ignoredMessageSizeCounter);
-                  if (pass && messageSizeCounter != null) messageSizeCounter.addAndGet(rowSize);
-
-                  return pass;
-                })
-            .map(Pair::left)
-            .collect(Collectors.toList());
+    // kafka calls put even if there is no data so it is a good chance to end the throttle
+    resumeIfRepaid();
+    List<SinkRecord> kafkaRecords = new ArrayList<>(raw);
+    List<ConvertedRecord> converted = conversionExecutor.map(kafkaRecords, this::toOhara);
+    List<RowSinkRecord> records = new ArrayList<>(raw.size());
+    long bytes = 0;
+    for (int index = 0; index != kafkaRecords.size(); ++index) {
+      SinkRecord kafkaRecord = kafkaRecords.get(index);
+      if (converted.get(index).error != null) {
+        ConnectorUtils.ignoreOrThrow(
+            rule,
+            converted.get(index).error,
+            () -> ConnectorUtils.sizeOf(kafkaRecord),
+            ignoredMessageNumberCounter,
+            ignoredMessageSizeCounter);
+        continue;
+      }
+      Optional<RowSinkRecord> record = converted.get(index).record;
+      if (!record.isPresent()) continue;
+      long rowSize = ConnectorUtils.sizeOf(kafkaRecord);
+      if (ConnectorUtils.match(
+          rule,
+          record.get().row(),
+          rowSize,
+          validator,
+          ignoredMessageNumberCounter,
+          ignoredMessageSizeCounter)) {
+        bytes += rowSize;
+        if (partitionMetrics != null) {
+          PartitionMetrics metrics =
+              partitionMetrics.get(
+                  new TopicPartition(record.get().topicName(), record.get().partition()));
+          if (metrics != null) metrics.record(rowSize, record.get().timestamp());
+        }
+        records.add(record.get());
+      }
+    }
     if (messageNumberCounter != null) messageNumberCounter.addAndGet(records.size());
-    putRecords(records);
+    if (messageSizeCounter != null) messageSizeCounter.addAndGet(bytes);
+    Set<TopicPartition> idle = new HashSet<>();
+    if (idleRequired) {
+      idle.addAll(taskContext.assignment());
+      records.forEach(r -> idle.remove(new TopicPartition(r.topicName(), r.partition())));
+    }
+    if (writerPool == null) {
+      putRecords(records);
+      idle.forEach(this::idlePartition);
+    } else {
+      // kafka calls put even if there is no data so it is a good chance to resume partitions. The
+      // throttled partitions are resumed by the end of throttle.
+      if (throttledSince < 0) {
+        List<TopicPartition> resumable = writerPool.resumable();
+        if (!resumable.isEmpty()) taskContext.resume(resumable);
+      }
+      List<TopicPartition> full = writerPool.submit(records);
+      if (!full.isEmpty()) taskContext.pause(full);
+      if (!idle.isEmpty()) writerPool.idle(idle);
+    }
+    rateLimiter.consume(records.size(), bytes);
+    throttleIfNeed();
+  }
+
+  /**
+   * pause all partitions if the rate limit is exceeded. The consumer is not blocked so the task is
+   * still in the group and the offsets can be committed.
+   */
+  private void throttleIfNeed() {
+    if (throttledSince >= 0) return;
+    long wait = rateLimiter.getThrottleTime();
+    if (wait <= 0) return;
+    throttledSince = CommonUtils.current();
+    throttledPartitions.addAll(taskContext.assignment());
+    taskContext.pause(throttledPartitions);
+    // wake up the put when the debt is repaid
+    taskContext.timeout(wait);
+  }
+
+  /** resume the partitions paused by rate limit if the debt is repaid. */
+  private void resumeIfRepaid() {
+    if (throttledSince < 0) return;
+    long wait = rateLimiter.getThrottleTime();
+    if (wait > 0) {
+      taskContext.timeout(wait);
+      return;
+    }
+    rateLimiter.throttled(CommonUtils.current() - throttledSince);
+    throttledSince = -1;
+    Set<TopicPartition> partitions = new HashSet<>(throttledPartitions);
+    throttledPartitions.clear();
+    partitions.removeAll(pausedBySubClass);
+    // the partitions having full queue are resumed by writer pool
+    if (writerPool != null) partitions.removeAll(writerPool.paused());
+    if (!partitions.isEmpty()) taskContext.resume(partitions);
   }
 
   /**
@@ -183,24 +359,54 @@ public abstract class RowSinkTask extends SinkTask {
   @Override
   public final void start(Map<String, String> props) {
     taskSetting = TaskSetting.of(Collections.unmodifiableMap(props));
+    validator = SchemaValidator.of(taskSetting.columns(), true);
+    transformer = RowTransformer.of(taskSetting.rowTransforms());
+    // the exporter is shared by all tasks in this worker and it is enabled by worker collie.
+    PrometheusExporter.localFromEnv();
     messageNumberCounter = ConnectorUtils.messageNumberCounter(taskSetting.connectorKey());
     messageSizeCounter = ConnectorUtils.messageSizeCounter(taskSetting.connectorKey());
     ignoredMessageNumberCounter =
         ConnectorUtils.ignoredMessageNumberCounter(taskSetting.connectorKey());
     ignoredMessageSizeCounter =
         ConnectorUtils.ignoredMessageSizeCounter(taskSetting.connectorKey());
+    throttledTimeCounter = ConnectorUtils.throttledTimeCounter(taskSetting.connectorKey());
+    rateLimiter =
+        RateLimiter.of(
+                taskSetting.rateLimitRows(), taskSetting.rateLimitBytes(), throttledTimeCounter)
+            .register(taskSetting.connectorKey());
+    if (taskSetting.partitionMetrics()) partitionMetrics = new ConcurrentHashMap<>();
+    conversionExecutor = ConversionExecutor.of(taskSetting.conversionThreads());
+    taskSetting
+        .sinkWriters()
+        .ifPresent(
+            writers ->
+                writerPool =
+                    SinkWriterPool.of(
+                        writers,
+                        taskSetting.sinkQueueSize(),
+                        this::putRecords,
+                        this::idlePartition));
     run(taskSetting);
   }
 
   @Override
   public final void stop() {
     try {
+      // the data in queue must be written before terminating the sink
+      Releasable.close(writerPool);
       terminate();
     } finally {
       Releasable.close(messageNumberCounter);
       Releasable.close(messageSizeCounter);
       Releasable.close(ignoredMessageNumberCounter);
       Releasable.close(ignoredMessageSizeCounter);
+      Releasable.close(rateLimiter);
+      Releasable.close(throttledTimeCounter);
+      Releasable.close(conversionExecutor);
+      if (partitionMetrics != null) {
+        partitionMetrics.values().forEach(PartitionMetrics::close);
+        partitionMetrics.clear();
+      }
     }
   }
 
@@ -211,32 +417,56 @@ public abstract class RowSinkTask extends SinkTask {
 
   @Override
   public final void open(Collection<org.apache.kafka.common.TopicPartition> partitions) {
-
-    openPartitions(
+    List<TopicPartition> ps =
         partitions.stream()
             .map(p -> new TopicPartition(p.topic(), (p.partition())))
-            .collect(Collectors.toList()));
+            .collect(Collectors.toList());
+    if (partitionMetrics != null)
+      ps.forEach(
+          p ->
+              partitionMetrics.computeIfAbsent(
+                  p, k -> PartitionMetrics.of(taskSetting.connectorKey(), k)));
+    // the partitions paused by full queue are paused again by kafka
+    if (writerPool != null) writerPool.add(ps);
+    // the new partitions are resumed by the end of throttle
+    if (throttledSince >= 0 && !ps.isEmpty()) {
+      throttledPartitions.addAll(ps);
+      taskContext.pause(ps);
+    }
+    openPartitions(ps);
   }
 
   @Override
   public final void close(Collection<org.apache.kafka.common.TopicPartition> partitions) {
-    closePartitions(
+    List<TopicPartition> ps =
         partitions.stream()
             .map(p -> new TopicPartition(p.topic(), (p.partition())))
-            .collect(Collectors.toList()));
+            .collect(Collectors.toList());
+    // the closed partitions can't be resumed
+    throttledPartitions.removeAll(ps);
+    pausedBySubClass.removeAll(ps);
+    try {
+      if (writerPool != null) writerPool.remove(ps);
+      closePartitions(ps);
+    } finally {
+      if (partitionMetrics != null) ps.forEach(p -> Releasable.close(partitionMetrics.remove(p)));
+    }
   }
 
   @Override
   public final Map<org.apache.kafka.common.TopicPartition, OffsetAndMetadata> preCommit(
       Map<org.apache.kafka.common.TopicPartition, OffsetAndMetadata> currentOffsets) {
-
-    return preCommitOffsets(
-            currentOffsets.entrySet().stream()
-                .collect(
-                    Collectors.toMap(
-                        x -> new TopicPartition(x.getKey().topic(), x.getKey().partition()),
-                        x -> new TopicOffset(x.getValue().metadata(), x.getValue().offset()))))
-        .entrySet().stream()
+    if (writerPool != null) writerPool.checkError();
+    Map<TopicPartition, TopicOffset> offsets = new HashMap<>(currentOffsets.size());
+    currentOffsets.forEach(
+        (partition, offset) -> {
+          OffsetAndMetadata durable = durable(partition, offset);
+          if (durable != null)
+            offsets.put(
+                new TopicPartition(partition.topic(), partition.partition()),
+                new TopicOffset(durable.metadata(), durable.offset()));
+        });
+    return preCommitOffsets(offsets).entrySet().stream()
         .collect(
             Collectors.toMap(
                 x ->
@@ -244,12 +474,61 @@ public abstract class RowSinkTask extends SinkTask {
                         x.getKey().topicName(), x.getKey().partition()),
                 x -> new OffsetAndMetadata(x.getValue().offset(), x.getValue().metadata())));
   }
+
+  /**
+   * In async mode, the offset is limited by the written data.
+   *
+   * @return the offset which is safe to commit, or null if no data is written
+   */
+  private OffsetAndMetadata durable(
+      org.apache.kafka.common.TopicPartition partition, OffsetAndMetadata offset) {
+    if (writerPool == null) return offset;
+    long durableOffset =
+        writerPool.durableOffset(new TopicPartition(partition.topic(), partition.partition()));
+    if (durableOffset < 0) return null;
+    if (durableOffset >= offset.offset()) return offset;
+    return new OffsetAndMetadata(durableOffset, offset.metadata());
+  }
   // -------------------------------------------------[UN-OVERRIDE]-------------------------------------------------//
 
   @Override
   public final void initialize(SinkTaskContext context) {
     super.initialize(context);
-    rowContext = RowSinkContext.toRowSinkContext(context);
+    taskContext = RowSinkContext.toRowSinkContext(context);
+    rowContext =
+        new RowSinkContext() {
+          @Override
+          public void offset(Map<TopicPartition, Long> offsets) {
+            taskContext.offset(offsets);
+          }
+
+          @Override
+          public Set<TopicPartition> assignment() {
+            return taskContext.assignment();
+          }
+
+          @Override
+          public void pause(Collection<TopicPartition> partitions) {
+            pausedBySubClass.addAll(partitions);
+            taskContext.pause(partitions);
+          }
+
+          @Override
+          public void resume(Collection<TopicPartition> partitions) {
+            pausedBySubClass.removeAll(partitions);
+            taskContext.resume(partitions);
+          }
+
+          @Override
+          public void requestCommit() {
+            taskContext.requestCommit();
+          }
+
+          @Override
+          public void timeout(long timeoutMs) {
+            taskContext.timeout(timeoutMs);
+          }
+        };
   }
 
   @SuppressWarnings({
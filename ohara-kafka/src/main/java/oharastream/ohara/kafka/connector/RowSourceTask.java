@@ -17,14 +17,17 @@
 package oharastream.ohara.kafka.connector;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import oharastream.ohara.common.annotations.VisibleForTesting;
-import oharastream.ohara.common.data.Column;
-import oharastream.ohara.common.data.Pair;
+import oharastream.ohara.common.data.Row;
 import oharastream.ohara.common.data.Serializer;
 import oharastream.ohara.common.setting.ObjectKey;
 import oharastream.ohara.common.setting.SettingDef;
@@ -34,6 +37,7 @@ import oharastream.ohara.common.util.VersionUtils;
 import oharastream.ohara.kafka.Header;
 import oharastream.ohara.kafka.RecordMetadata;
 import oharastream.ohara.metrics.basic.Counter;
+import oharastream.ohara.metrics.prometheus.PrometheusExporter;
 import org.apache.kafka.connect.data.Schema;
 import org.apache.kafka.connect.header.ConnectHeaders;
 import org.apache.kafka.connect.source.SourceRecord;
@@ -100,7 +104,20 @@ public abstract class RowSourceTask extends SourceTask {
   @VisibleForTesting Counter messageSizeCounter = null;
   @VisibleForTesting Counter ignoredMessageNumberCounter = null;
   @VisibleForTesting Counter ignoredMessageSizeCounter = null;
+  @VisibleForTesting Counter inFlightMessageNumberCounter = null;
+  @VisibleForTesting Counter inFlightMessageSizeCounter = null;
+  @VisibleForTesting Counter throttledTimeCounter = null;
   @VisibleForTesting TaskSetting taskSetting = null;
+  /** the columns are compiled when starting this task. */
+  @VisibleForTesting SchemaValidator validator = null;
+  /** the transforms are compiled when starting this task. */
+  @VisibleForTesting RowTransformer transformer = RowTransformer.EMPTY;
+  /**
+   * the metrics of written topic partitions. It is null if the "partition.metrics" is disabled.
+   * Source task has no partition assignment so the metrics are registered by the first ack of each
+   * partition and they are released when this task is stopped.
+   */
+  @VisibleForTesting Map<TopicPartition, PartitionMetrics> partitionMetrics = null;
   /**
    * this value should be immutable after starting this connector task. It is used to generate kafka
    * records and the serialization of jackson is expensive so we cache it.
@@ -136,41 +153,192 @@ public abstract class RowSourceTask extends SourceTask {
         headers);
   }
 
-  /** the conversion is too expensive so we keep this mapping. */
-  @VisibleForTesting final Map<SourceRecord, RowSourceRecord> cachedRecords = new HashMap<>();
+  /**
+   * the max time to wait for the acks of in-flight records. The poll returns nothing if the
+   * in-flight records are still full after this timeout.
+   */
+  private static final long IN_FLIGHT_TIMEOUT = 1000;
+
+  /** the max time to wait for the tokens of rate limit. */
+  private static final long THROTTLE_TIMEOUT = 1000;
+
+  /** the limit of rows and bytes polled by this task. */
+  @VisibleForTesting RateLimiter rateLimiter = null;
+
+  /**
+   * the conversion is too expensive so we keep the original records until they are acked by
+   * producer.
+   */
+  @VisibleForTesting InFlightRecords inFlightRecords = null;
+
+  /** converts the records returned by pollRecords. It is serial if "conversion.threads" is 1 */
+  @VisibleForTesting ConversionExecutor conversionExecutor = null;
+
+  /** the record converted by the transforms and serializer. */
+  private static final class ConvertedRecord {
+    /** the record returned by pollRecords */
+    private final RowSourceRecord record;
+    /** the transformed record. It is null if the record is filtered out by the transforms */
+    private final RowSourceRecord transformed;
+
+    private final SourceRecord kafkaRecord;
+    private final long size;
+    /** the failure of transforms. It is handled by the check rule in the task thread */
+    private final IllegalArgumentException error;
+
+    private ConvertedRecord(
+        RowSourceRecord record,
+        RowSourceRecord transformed,
+        SourceRecord kafkaRecord,
+        long size,
+        IllegalArgumentException error) {
+      this.record = record;
+      this.transformed = transformed;
+      this.kafkaRecord = kafkaRecord;
+      this.size = size;
+      this.error = error;
+    }
+  }
+
+  /**
+   * the records returned by pollRecords but not sent yet since the batch of last poll is full. They
+   * are sent by next poll.
+   */
+  @VisibleForTesting final Queue<ConvertedRecord> pendingRecords = new ConcurrentLinkedQueue<>();
+
+  /** the max number of records returned by a poll */
+  private int batchRecords = Integer.MAX_VALUE;
+
+  /** the max size of records returned by a poll */
+  private long batchBytes = Long.MAX_VALUE;
+
+  /** the time to accumulate the records by calling pollRecords repeatedly */
+  private long lingerMs = 0;
+
+  /** the max time to sleep when the connector has no data */
+  private long maxEmptyPollSleepMs = 0;
+
+  /** the sleep is doubled by each empty pollRecords and it is reset when there are data. */
+  @VisibleForTesting long emptyPollSleepMs = 0;
 
   @Override
   public final List<SourceRecord> poll() {
-    List<RowSourceRecord> records = pollRecords();
+    try {
+      // apply the backpressure to source when the producer is slower than it
+      if (!inFlightRecords.awaitCapacity(IN_FLIGHT_TIMEOUT)) return null;
+      // wait for the debt of previous polls if the rate limit is exceeded
+      if (!rateLimiter.await(THROTTLE_TIMEOUT)) return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    }
+    inFlightRecords.updateCounters();
+    SettingDef.CheckRule rule = taskSetting.checkRule();
+    List<SourceRecord> raw = new ArrayList<>();
+    long bytes = 0;
+    boolean hasData = !pendingRecords.isEmpty();
+    long deadline = CommonUtils.current() + lingerMs;
+    try {
+      while (true) {
+        if (pendingRecords.isEmpty()) {
+          List<RowSourceRecord> records = pollRecords();
+          if (CommonUtils.isEmpty(records)) {
+            emptyPollSleepMs = Math.min(Math.max(emptyPollSleepMs * 2, 1), maxEmptyPollSleepMs);
+            long remaining = deadline - CommonUtils.current();
+            if (remaining <= 0) {
+              // don't spin the loop of kafka if the connector has no data
+              if (raw.isEmpty()) TimeUnit.MILLISECONDS.sleep(emptyPollSleepMs);
+              break;
+            }
+            TimeUnit.MILLISECONDS.sleep(Math.min(emptyPollSleepMs, remaining));
+            continue;
+          }
+          emptyPollSleepMs = 0;
+          hasData = true;
+          pendingRecords.addAll(conversionExecutor.map(records, this::convert));
+        }
+        while (!pendingRecords.isEmpty()
+            && raw.size() < batchRecords
+            && bytes < batchBytes
+            && !inFlightRecords.isFull()) {
+          ConvertedRecord converted = pendingRecords.poll();
+          if (converted.error != null) {
+            // the row is not serialized yet so its size is measured by the original row
+            ConnectorUtils.ignoreOrThrow(
+                rule,
+                converted.error,
+                () -> Serializer.ROW.to(converted.record.row()).length,
+                ignoredMessageNumberCounter,
+                ignoredMessageSizeCounter);
+            continue;
+          }
+          if (converted.transformed == null) continue;
+          // the columns describe the rows generated by connector so the check is applied to the
+          // rows before transformation
+          // the filtered records are never sent so they are not tracked
+          if (ConnectorUtils.match(
+              rule,
+              converted.record.row(),
+              converted.size,
+              validator,
+              ignoredMessageNumberCounter,
+              ignoredMessageSizeCounter)) {
+            inFlightRecords.put(converted.kafkaRecord, converted.transformed, converted.size);
+            bytes += converted.size;
+            raw.add(converted.kafkaRecord);
+          }
+        }
+        if (raw.size() >= batchRecords || bytes >= batchBytes || inFlightRecords.isFull()) break;
+        if (CommonUtils.current() >= deadline) break;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      if (messageNumberCounter != null) messageNumberCounter.addAndGet(raw.size());
+      if (messageSizeCounter != null) messageSizeCounter.addAndGet(bytes);
+      inFlightRecords.updateCounters();
+      rateLimiter.consume(raw.size(), bytes);
+    }
     // kafka connector doesn't support the empty list in testing. see
     // https://github.com/apache/kafka/pull/4958
-    if (CommonUtils.isEmpty(records)) return null;
+    return hasData ? raw : null;
+  }
 
-    SettingDef.CheckRule rule = taskSetting.checkRule();
-    List<Column> columns = taskSetting.columns();
-    List<SourceRecord> raw =
-        records.stream()
-            .map(record -> Pair.of(record, toKafka(record)))
-            .filter(
-                pair -> {
-                  cachedRecords.put(pair.right(), pair.left());
-                  long rowSize = ConnectorUtils.sizeOf(pair.right());
-                  boolean pass =
-                      ConnectorUtils.match(
-                          rule,
-                          pair.left().row(),
-                          rowSize,
-                          columns,
-                          false,
-                          ignoredMessageNumberCounter,
-                          ignoredMessageSizeCounter);
-                  if (pass && messageSizeCounter != null) messageSizeCounter.addAndGet(rowSize);
-                  return pass;
-                })
-            .map(Pair::right)
-            .collect(Collectors.toList());
-    if (messageNumberCounter != null) messageNumberCounter.addAndGet(raw.size());
-    return raw;
+  /**
+   * apply the transforms and serializer to the record. It may be called by multiple threads so it
+   * must not touch the mutable state of this task.
+   *
+   * @param record the record returned by pollRecords
+   * @return converted record
+   */
+  private ConvertedRecord convert(RowSourceRecord record) {
+    RowSourceRecord transformed = record;
+    if (!transformer.isEmpty()) {
+      Optional<Row> row;
+      try {
+        row = transformer.transform(record.row());
+      } catch (IllegalArgumentException e) {
+        // don't throw it in the conversion threads since it fails the whole batch
+        return new ConvertedRecord(record, null, null, 0, e);
+      }
+      if (!row.isPresent()) return new ConvertedRecord(record, null, null, 0, null);
+      transformed = withRow(record, row.get());
+    }
+    SourceRecord kafkaRecord = toKafka(transformed);
+    return new ConvertedRecord(
+        record, transformed, kafkaRecord, ConnectorUtils.sizeOf(kafkaRecord), null);
+  }
+
+  private static RowSourceRecord withRow(RowSourceRecord record, Row row) {
+    RowSourceRecord.Builder builder =
+        RowSourceRecord.builder()
+            .sourcePartition(record.sourcePartition())
+            .sourceOffset(record.sourceOffset())
+            .topicName(record.topicName())
+            .row(row);
+    record.partition().ifPresent(builder::partition);
+    record.timestamp().ifPresent(builder::timestamp);
+    return builder.build();
   }
 
   /**
@@ -189,14 +357,39 @@ public abstract class RowSourceTask extends SourceTask {
   @Override
   public final void start(Map<String, String> props) {
     taskSetting = TaskSetting.of(Collections.unmodifiableMap(props));
+    validator = SchemaValidator.of(taskSetting.columns(), false);
+    transformer = RowTransformer.of(taskSetting.rowTransforms());
+    // the exporter is shared by all tasks in this worker and it is enabled by worker collie.
+    PrometheusExporter.localFromEnv();
     messageNumberCounter = ConnectorUtils.messageNumberCounter(taskSetting.connectorKey());
     messageSizeCounter = ConnectorUtils.messageSizeCounter(taskSetting.connectorKey());
     ignoredMessageNumberCounter =
         ConnectorUtils.ignoredMessageNumberCounter(taskSetting.connectorKey());
     ignoredMessageSizeCounter =
         ConnectorUtils.ignoredMessageSizeCounter(taskSetting.connectorKey());
+    inFlightMessageNumberCounter =
+        ConnectorUtils.inFlightMessageNumberCounter(taskSetting.connectorKey());
+    inFlightMessageSizeCounter =
+        ConnectorUtils.inFlightMessageSizeCounter(taskSetting.connectorKey());
+    inFlightRecords =
+        InFlightRecords.of(
+            taskSetting.maxInFlightRecords(),
+            taskSetting.maxInFlightBytes(),
+            inFlightMessageNumberCounter,
+            inFlightMessageSizeCounter);
+    throttledTimeCounter = ConnectorUtils.throttledTimeCounter(taskSetting.connectorKey());
+    rateLimiter =
+        RateLimiter.of(
+                taskSetting.rateLimitRows(), taskSetting.rateLimitBytes(), throttledTimeCounter)
+            .register(taskSetting.connectorKey());
+    batchRecords = taskSetting.sourceBatchRecords().orElse(Integer.MAX_VALUE);
+    batchBytes = taskSetting.sourceBatchBytes().orElse(Long.MAX_VALUE);
+    lingerMs = taskSetting.sourceLinger().toMillis();
+    maxEmptyPollSleepMs = taskSetting.sourceEmptyPollBackoff().toMillis();
+    conversionExecutor = ConversionExecutor.of(taskSetting.conversionThreads());
     keyInBytes =
         ObjectKey.toJsonString(taskSetting.connectorKey()).getBytes(StandardCharsets.UTF_8);
+    if (taskSetting.partitionMetrics()) partitionMetrics = new ConcurrentHashMap<>();
     run(taskSetting);
   }
 
@@ -209,6 +402,17 @@ public abstract class RowSourceTask extends SourceTask {
       Releasable.close(messageSizeCounter);
       Releasable.close(ignoredMessageNumberCounter);
       Releasable.close(ignoredMessageSizeCounter);
+      if (inFlightRecords != null) inFlightRecords.clear();
+      pendingRecords.clear();
+      Releasable.close(conversionExecutor);
+      Releasable.close(inFlightMessageNumberCounter);
+      Releasable.close(inFlightMessageSizeCounter);
+      Releasable.close(rateLimiter);
+      Releasable.close(throttledTimeCounter);
+      if (partitionMetrics != null) {
+        partitionMetrics.values().forEach(PartitionMetrics::close);
+        partitionMetrics.clear();
+      }
     }
   }
 
@@ -221,22 +425,32 @@ public abstract class RowSourceTask extends SourceTask {
   @Override
   public final void commitRecord(
       SourceRecord record, org.apache.kafka.clients.producer.RecordMetadata metadata) {
-    RowSourceRecord r = cachedRecords.remove(record);
-    // It is impossible to observer the null since we cache all records in #poll method.
+    // It is impossible to miss the record since we track all sent records in #poll method.
     // However, we all hate the null so the workaround is to create a new record :(
-    if (r == null) {
-      RowSourceRecord.Builder builder = RowSourceRecord.builder();
-      builder.topicName(record.topic());
-      if (record.sourceOffset() != null) builder.sourceOffset(record.sourceOffset());
-      if (record.sourcePartition() != null) builder.sourcePartition(record.sourcePartition());
-      if (record.kafkaPartition() != null) builder.partition(record.kafkaPartition());
-      if (record.timestamp() != null) builder.timestamp(record.timestamp());
-      builder.row(Serializer.ROW.from((byte[]) record.key()));
-      r = builder.build();
-    }
+    RowSourceRecord r = inFlightRecords.remove(record).orElseGet(() -> toRow(record));
+    // the metadata is null if the record is filtered by transformation
+    if (partitionMetrics != null && metadata != null)
+      partitionMetrics
+          .computeIfAbsent(
+              new TopicPartition(metadata.topic(), metadata.partition()),
+              p -> PartitionMetrics.of(taskSetting.connectorKey(), p))
+          .record(
+              ConnectorUtils.sizeOf(record),
+              record.timestamp() == null ? metadata.timestamp() : record.timestamp());
     commitRecord(r, RecordMetadata.of(metadata));
   }
 
+  private static RowSourceRecord toRow(SourceRecord record) {
+    RowSourceRecord.Builder builder = RowSourceRecord.builder();
+    builder.topicName(record.topic());
+    if (record.sourceOffset() != null) builder.sourceOffset(record.sourceOffset());
+    if (record.sourcePartition() != null) builder.sourcePartition(record.sourcePartition());
+    if (record.kafkaPartition() != null) builder.partition(record.kafkaPartition());
+    if (record.timestamp() != null) builder.timestamp(record.timestamp());
+    builder.row(Serializer.ROW.from((byte[]) record.key()));
+    return builder.build();
+  }
+
   @Override
   public final String version() {
     return VersionUtils.VERSION;
@@ -0,0 +1,298 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.kafka.connector;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import oharastream.ohara.common.data.Cell;
+import oharastream.ohara.common.data.DataType;
+import oharastream.ohara.common.data.Row;
+import oharastream.ohara.common.setting.PropGroup;
+import oharastream.ohara.common.setting.SettingDef;
+import oharastream.ohara.common.util.CommonUtils;
+
+/**
+ * The compiled chain of row transforms. Each transform is a row of {@link
+ * oharastream.ohara.kafka.connector.json.ConnectorDefUtils#ROW_TRANSFORMS_DEFINITION} and the
+ * transforms are executed by the "order". The settings are parsed once so the transformation of
+ * each row does not touch the settings again.
+ *
+ * <p>The source task transforms the rows after the check of columns and before serialization. The
+ * sink task transforms the rows after decoding and before the check of columns.
+ */
+public final class RowTransformer {
+  public static final String OPERATOR_KEY = "operator";
+  public static final String VALUE_KEY = "value";
+
+  public enum Operator {
+    /** keep the columns listed in "name". The names are separated by comma. */
+    PROJECT,
+    /** rename the column "name" to "value" */
+    RENAME,
+    /** cast the column "name" to the data type "value" */
+    CAST,
+    /** keep the rows whose column "name" matches the predicate "value". For example, "> 10" */
+    FILTER,
+    /** add the column "name" with the constant string "value" */
+    CONSTANT,
+    /** add the column "name" with the current time in milliseconds */
+    TIMESTAMP;
+
+    public static Operator of(String name) {
+      return Stream.of(values())
+          .filter(op -> op.name().equalsIgnoreCase(name))
+          .findFirst()
+          .orElseThrow(() -> new IllegalArgumentException("unknown operator:" + name));
+    }
+  }
+
+  /** the transformer having no transforms */
+  public static final RowTransformer EMPTY = new RowTransformer(Collections.emptyList());
+
+  /**
+   * compile the transforms.
+   *
+   * @param transforms the table of transforms
+   * @return row transformer
+   */
+  public static RowTransformer of(PropGroup transforms) {
+    return new RowTransformer(
+        transforms.raw().stream()
+            .sorted(
+                Comparator.comparingInt(
+                    props -> Integer.parseInt(props.getOrDefault(SettingDef.ORDER_KEY, "0"))))
+            .map(RowTransformer::step)
+            .collect(Collectors.toList()));
+  }
+
+  @FunctionalInterface
+  private interface Step {
+    /**
+     * @param cells the cells of row. They can be modified by this step
+     * @param now the current time
+     * @return false if the row is filtered out
+     */
+    boolean apply(List<Cell<?>> cells, long now);
+  }
+
+  private final List<Step> steps;
+
+  private RowTransformer(List<Step> steps) {
+    this.steps = Collections.unmodifiableList(steps);
+  }
+
+  /** @return true if there is no transform */
+  public boolean isEmpty() {
+    return steps.isEmpty();
+  }
+
+  /**
+   * transform the row.
+   *
+   * @param row input row
+   * @return the transformed row, or empty if the row is filtered out
+   * @throws IllegalArgumentException if the value of row can't be cast. The row tasks handle it by
+   *     the check rule
+   */
+  public Optional<Row> transform(Row row) {
+    if (steps.isEmpty()) return Optional.of(row);
+    List<Cell<?>> cells = new ArrayList<>(row.cells());
+    long now = CommonUtils.current();
+    for (Step step : steps) if (!step.apply(cells, now)) return Optional.empty();
+    return Optional.of(Row.of(row.tags(), cells.toArray(new Cell<?>[0])));
+  }
+
+  private static Step step(Map<String, String> props) {
+    Operator operator = Operator.of(require(props, OPERATOR_KEY));
+    String name = require(props, SettingDef.COLUMN_NAME_KEY);
+    switch (operator) {
+      case PROJECT:
+        List<String> names =
+            Stream.of(name.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toList());
+        return (cells, now) -> {
+          List<Cell<?>> projected = new ArrayList<>(names.size());
+          names.forEach(
+              n -> {
+                int index = indexOf(cells, n);
+                if (index >= 0) projected.add(cells.get(index));
+              });
+          cells.clear();
+          cells.addAll(projected);
+          return true;
+        };
+      case RENAME:
+        String newName = require(props, VALUE_KEY);
+        return (cells, now) -> {
+          int index = indexOf(cells, name);
+          if (index >= 0) cells.set(index, Cell.of(newName, cells.get(index).value()));
+          return true;
+        };
+      case CAST:
+        DataType type = DataType.valueOf(require(props, VALUE_KEY).toUpperCase());
+        Function<Object, Object> caster = caster(type);
+        return (cells, now) -> {
+          int index = indexOf(cells, name);
+          if (index >= 0) {
+            Object value = cells.get(index).value();
+            try {
+              cells.set(index, Cell.of(name, caster.apply(value)));
+            } catch (RuntimeException e) {
+              // NumberFormatException or NullPointerException (null value)
+              throw new IllegalArgumentException(
+                  "failed to cast the value:" + value + " of " + name + " to " + type, e);
+            }
+          }
+          return true;
+        };
+      case FILTER:
+        Predicate<Object> predicate = predicate(require(props, VALUE_KEY));
+        return (cells, now) -> {
+          int index = indexOf(cells, name);
+          return index >= 0
+              && cells.get(index).value() != null
+              && predicate.test(cells.get(index).value());
+        };
+      case CONSTANT:
+        Cell<String> constant = Cell.of(name, require(props, VALUE_KEY));
+        return (cells, now) -> {
+          put(cells, constant);
+          return true;
+        };
+      case TIMESTAMP:
+        return (cells, now) -> {
+          put(cells, Cell.of(name, now));
+          return true;
+        };
+      default:
+        throw new UnsupportedOperationException("what is " + operator);
+    }
+  }
+
+  private static String require(Map<String, String> props, String key) {
+    String value = props.get(key);
+    if (value == null)
+      throw new IllegalArgumentException("the \"" + key + "\" is required by transform:" + props);
+    return value;
+  }
+
+  private static int indexOf(List<Cell<?>> cells, String name) {
+    for (int i = 0; i != cells.size(); ++i) if (cells.get(i).name().equals(name)) return i;
+    return -1;
+  }
+
+  /** replace the cell having same name, or append it if there is no such cell. */
+  private static void put(List<Cell<?>> cells, Cell<?> cell) {
+    int index = indexOf(cells, cell.name());
+    if (index >= 0) cells.set(index, cell);
+    else cells.add(cell);
+  }
+
+  private static Function<Object, Object> caster(DataType type) {
+    switch (type) {
+      case BOOLEAN:
+        return v -> v instanceof Boolean ? v : Boolean.valueOf(string(v).trim());
+      case BYTE:
+        return v -> v instanceof Number ? ((Number) v).byteValue() : Byte.valueOf(string(v).trim());
+      case SHORT:
+        return v ->
+            v instanceof Number ? ((Number) v).shortValue() : Short.valueOf(string(v).trim());
+      case INT:
+        return v ->
+            v instanceof Number ? ((Number) v).intValue() : Integer.valueOf(string(v).trim());
+      case LONG:
+        return v -> v instanceof Number ? ((Number) v).longValue() : Long.valueOf(string(v).trim());
+      case FLOAT:
+        return v ->
+            v instanceof Number ? ((Number) v).floatValue() : Float.valueOf(string(v).trim());
+      case DOUBLE:
+        return v ->
+            v instanceof Number ? ((Number) v).doubleValue() : Double.valueOf(string(v).trim());
+      case STRING:
+        return RowTransformer::string;
+      default:
+        throw new IllegalArgumentException("unsupported type of cast:" + type);
+    }
+  }
+
+  private static String string(Object value) {
+    if (value instanceof byte[]) return new String((byte[]) value, StandardCharsets.UTF_8);
+    return value.toString();
+  }
+
+  private static final Pattern PREDICATE = Pattern.compile("^\\s*(==|!=|>=|<=|>|<)\\s*(.*)$");
+
+  /**
+   * compile the predicate. The number is compared numerically if the literal is a number and the
+   * value is a number. Otherwise, the string form of value is compared with the literal.
+   */
+  private static Predicate<Object> predicate(String expression) {
+    Matcher matcher = PREDICATE.matcher(expression);
+    if (!matcher.matches())
+      throw new IllegalArgumentException(
+          "illegal predicate:" + expression + ". The format is \"<op> <literal>\", e.g. \"> 10\"");
+    String literal = matcher.group(2).trim();
+    Double number = toDouble(literal);
+    IntPredicate result = result(matcher.group(1));
+    return value -> {
+      int c =
+          number != null && value instanceof Number
+              ? Double.compare(((Number) value).doubleValue(), number)
+              : string(value).compareTo(literal);
+      return result.test(c);
+    };
+  }
+
+  private static IntPredicate result(String op) {
+    switch (op) {
+      case "==":
+        return c -> c == 0;
+      case "!=":
+        return c -> c != 0;
+      case ">=":
+        return c -> c >= 0;
+      case "<=":
+        return c -> c <= 0;
+      case ">":
+        return c -> c > 0;
+      default:
+        return c -> c < 0;
+    }
+  }
+
+  private static Double toDouble(String s) {
+    try {
+      return Double.valueOf(s);
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.kafka.connector;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import oharastream.ohara.common.data.Cell;
+import oharastream.ohara.common.data.Column;
+import oharastream.ohara.common.data.Row;
+
+/**
+ * The compiled form of columns. It checks that all columns exist in the row, the row has no
+ * "unknown" column and the values have the expected types. The names and types are resolved once so
+ * the check of each row is linear to the number of cells.
+ */
+final class SchemaValidator {
+
+  /**
+   * compile the columns.
+   *
+   * @param columns columns
+   * @param isSink true if the names of input data are the column names. Otherwise, the new names
+   *     are used.
+   * @return schema validator
+   */
+  static SchemaValidator of(List<Column> columns, boolean isSink) {
+    return new SchemaValidator(columns, isSink);
+  }
+
+  private final List<String> names;
+  private final List<Column> columns;
+  private final Map<String, Integer> positions;
+  private final Class<?>[] types;
+
+  private SchemaValidator(List<Column> columns, boolean isSink) {
+    this.columns = Collections.unmodifiableList(columns);
+    this.names =
+        columns.stream()
+            .map(column -> isSink ? column.name() : column.newName())
+            .collect(Collectors.toList());
+    this.positions = new HashMap<>(names.size());
+    for (int i = 0; i != names.size(); ++i) positions.put(names.get(i), i);
+    this.types = columns.stream().map(SchemaValidator::type).toArray(Class<?>[]::new);
+  }
+
+  private static Class<?> type(Column column) {
+    switch (column.dataType()) {
+      case BYTES:
+        return byte[].class;
+      case BOOLEAN:
+        return Boolean.class;
+      case BYTE:
+        return Byte.class;
+      case SHORT:
+        return Short.class;
+      case INT:
+        return Integer.class;
+      case LONG:
+        return Long.class;
+      case FLOAT:
+        return Float.class;
+      case DOUBLE:
+        return Double.class;
+      case STRING:
+        return String.class;
+      case ROW:
+        return Row.class;
+      case OBJECT:
+      default:
+        return Object.class;
+    }
+  }
+
+  /** @return true if there is no column so all rows are accepted */
+  boolean isEmpty() {
+    return names.isEmpty();
+  }
+
+  /**
+   * check the row.
+   *
+   * @param row row
+   * @throws IllegalArgumentException if the row does not match the columns
+   */
+  void validate(Row row) {
+    if (isEmpty()) return;
+    if (row.size() != names.size())
+      throw new IllegalArgumentException(
+          "expected size:" + names.size() + ", actual:" + row.size());
+    Cell<?>[] cells = new Cell<?>[names.size()];
+    for (Cell<?> cell : row) {
+      Integer position = positions.get(cell.name());
+      if (position == null)
+        throw new IllegalArgumentException(
+            "column name:" + cell.name() + " is not matched by schema:" + String.join(",", names));
+      cells[position] = cell;
+    }
+    for (int i = 0; i != cells.length; ++i) {
+      if (cells[i] == null)
+        throw new IllegalArgumentException("there is not data for column:" + names.get(i));
+      Object value = cells[i].value();
+      if (!types[i].isInstance(value))
+        throw new IllegalArgumentException(
+            "expected type: "
+                + columns.get(i).dataType()
+                + ", actual:"
+                + (value == null ? null : value.getClass().getName()));
+    }
+  }
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.kafka.connector;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import oharastream.ohara.common.annotations.VisibleForTesting;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.common.util.Releasable;
+
+/**
+ * The writers used by the async mode of {@link RowSinkTask}. The records are grouped by partition
+ * and each partition is bound to a single writer thread so the records of a partition are written
+ * in order. The writes of different partitions may run concurrently if there are many writers.
+ *
+ * <p>The number of records waiting for writing is bounded per partition. The partitions having full
+ * queues should be paused by the caller and they are resumable after half of the queue is written.
+ * The paused partitions are remembered after they are removed since kafka pauses them again when
+ * they are reassigned.
+ */
+final class SinkWriterPool implements Releasable {
+
+  /**
+   * @param numberOfWriters number of writer threads
+   * @param queueSize the max number of pending records of each partition
+   * @param writer the function writing the records of single partition
+   * @return writer pool
+   */
+  static SinkWriterPool of(
+      int numberOfWriters, int queueSize, Consumer<List<RowSinkRecord>> writer) {
+    return of(numberOfWriters, queueSize, writer, partition -> {});
+  }
+
+  /**
+   * @param numberOfWriters number of writer threads
+   * @param queueSize the max number of pending records of each partition
+   * @param writer the function writing the records of single partition
+   * @param idle the function called for the partition having no records in the put
+   * @return writer pool
+   */
+  static SinkWriterPool of(
+      int numberOfWriters,
+      int queueSize,
+      Consumer<List<RowSinkRecord>> writer,
+      Consumer<TopicPartition> idle) {
+    return new SinkWriterPool(numberOfWriters, queueSize, writer, idle);
+  }
+
+  private static class PartitionQueue {
+    private final AtomicInteger pending = new AtomicInteger(0);
+    // the next offset to commit. -1 means nothing is written
+    private volatile long durableOffset = -1;
+    private volatile Future<?> lastWrite = null;
+    // true if the idle call is submitted but not done yet
+    private final AtomicBoolean idling = new AtomicBoolean(false);
+    // it is accessed by the thread calling put only
+    private boolean paused = false;
+  }
+
+  private final ExecutorService[] executors;
+  private final int queueSize;
+  private final Consumer<List<RowSinkRecord>> writer;
+  private final Consumer<TopicPartition> idle;
+  private final Map<TopicPartition, PartitionQueue> queues = new ConcurrentHashMap<>();
+  // the paused partitions which are removed. It is accessed by the thread calling put only
+  private final Set<TopicPartition> removedPaused = new HashSet<>();
+  private final AtomicReference<Throwable> error = new AtomicReference<>();
+
+  private SinkWriterPool(
+      int numberOfWriters,
+      int queueSize,
+      Consumer<List<RowSinkRecord>> writer,
+      Consumer<TopicPartition> idle) {
+    CommonUtils.requirePositiveInt(numberOfWriters);
+    this.queueSize = CommonUtils.requirePositiveInt(queueSize);
+    this.writer = writer;
+    this.idle = idle;
+    this.executors =
+        IntStream.range(0, numberOfWriters)
+            .mapToObj(
+                index ->
+                    Executors.newSingleThreadExecutor(
+                        r -> {
+                          Thread t = new Thread(r, "sink-writer-" + index);
+                          t.setDaemon(true);
+                          return t;
+                        }))
+            .toArray(ExecutorService[]::new);
+  }
+
+  private PartitionQueue queue(TopicPartition partition) {
+    return queues.computeIfAbsent(partition, p -> new PartitionQueue());
+  }
+
+  private ExecutorService executor(TopicPartition partition) {
+    return executors[Math.floorMod(partition.hashCode(), executors.length)];
+  }
+
+  /** @throws IllegalStateException if any write fails */
+  void checkError() {
+    Throwable e = error.get();
+    if (e != null) throw new IllegalStateException("failed to write records", e);
+  }
+
+  /**
+   * submit the records to writers.
+   *
+   * @param records records
+   * @return the partitions whose queues are full
+   */
+  List<TopicPartition> submit(List<RowSinkRecord> records) {
+    checkError();
+    Map<TopicPartition, List<RowSinkRecord>> groups =
+        records.stream()
+            .collect(
+                Collectors.groupingBy(
+                    r -> new TopicPartition(r.topicName(), r.partition()),
+                    Collectors.toCollection(ArrayList::new)));
+    List<TopicPartition> full = new ArrayList<>();
+    groups.forEach(
+        (partition, batch) -> {
+          PartitionQueue queue = queue(partition);
+          long nextOffset = batch.get(batch.size() - 1).offset() + 1;
+          if (queue.pending.addAndGet(batch.size()) >= queueSize && !queue.paused) {
+            queue.paused = true;
+            full.add(partition);
+          }
+          queue.lastWrite =
+              executor(partition)
+                  .submit(
+                      () -> {
+                        try {
+                          // the subsequent records can't be written if previous records are lost
+                          if (error.get() == null) {
+                            writer.accept(batch);
+                            queue.durableOffset = nextOffset;
+                          }
+                        } catch (Throwable e) {
+                          error.compareAndSet(null, e);
+                        } finally {
+                          queue.pending.addAndGet(-batch.size());
+                        }
+                      });
+        });
+    return full;
+  }
+
+  /**
+   * call the idle function for the partitions by their writer threads so it is serialized with the
+   * writes of the partition, and it is waited by {@link #await(Collection)}. The call is skipped if
+   * the previous call of partition is not done yet.
+   *
+   * @param partitions the partitions having no records in the put
+   */
+  void idle(Collection<TopicPartition> partitions) {
+    checkError();
+    partitions.forEach(
+        partition -> {
+          PartitionQueue queue = queue(partition);
+          if (!queue.idling.compareAndSet(false, true)) return;
+          queue.lastWrite =
+              executor(partition)
+                  .submit(
+                      () -> {
+                        try {
+                          if (error.get() == null) idle.accept(partition);
+                        } catch (Throwable e) {
+                          error.compareAndSet(null, e);
+                        } finally {
+                          queue.idling.set(false);
+                        }
+                      });
+        });
+  }
+
+  /** @return the paused partitions whose half of queue is written */
+  List<TopicPartition> resumable() {
+    List<TopicPartition> partitions = new ArrayList<>();
+    queues.forEach(
+        (partition, queue) -> {
+          if (queue.paused && queue.pending.get() <= queueSize / 2) {
+            queue.paused = false;
+            partitions.add(partition);
+          }
+        });
+    return partitions;
+  }
+
+  /** @return the partitions paused by the full queue */
+  Set<TopicPartition> paused() {
+    return queues.entrySet().stream()
+        .filter(e -> e.getValue().paused)
+        .map(Map.Entry::getKey)
+        .collect(Collectors.toSet());
+  }
+
+  /**
+   * @param partition partition
+   * @return the next offset to commit, or -1 if there is no written records
+   */
+  long durableOffset(TopicPartition partition) {
+    PartitionQueue queue = queues.get(partition);
+    return queue == null ? -1 : queue.durableOffset;
+  }
+
+  /** @return number of records waiting for writing */
+  @VisibleForTesting
+  int pending(TopicPartition partition) {
+    PartitionQueue queue = queues.get(partition);
+    return queue == null ? 0 : queue.pending.get();
+  }
+
+  /**
+   * wait for the submitted records of partitions.
+   *
+   * @param partitions partitions
+   */
+  void await(Collection<TopicPartition> partitions) {
+    partitions.forEach(
+        partition -> {
+          PartitionQueue queue = queues.get(partition);
+          Future<?> lastWrite = queue == null ? null : queue.lastWrite;
+          if (lastWrite != null) {
+            try {
+              lastWrite.get();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+              throw new IllegalStateException(e);
+            } catch (ExecutionException e) {
+              throw new IllegalStateException(e.getCause());
+            }
+          }
+        });
+    checkError();
+  }
+
+  /**
+   * wait for the submitted records of partitions and then forget them. The paused partitions are
+   * remembered so they can be resumed after they are added again.
+   *
+   * @param partitions partitions
+   */
+  void remove(Collection<TopicPartition> partitions) {
+    try {
+      await(partitions);
+    } finally {
+      partitions.forEach(
+          partition -> {
+            PartitionQueue queue = queues.remove(partition);
+            if (queue != null && queue.paused) removedPaused.add(partition);
+          });
+    }
+  }
+
+  /**
+   * add the assigned partitions. The partitions which were paused before removal are still paused
+   * by kafka so they are marked as paused and then they are resumed by {@link #resumable()}.
+   *
+   * @param partitions partitions
+   */
+  void add(Collection<TopicPartition> partitions) {
+    partitions.forEach(
+        partition -> {
+          if (removedPaused.remove(partition)) queue(partition).paused = true;
+        });
+  }
+
+  @Override
+  public void close() {
+    Set<TopicPartition> partitions = new HashSet<>(queues.keySet());
+    try {
+      await(partitions);
+    } finally {
+      for (ExecutorService executor : executors) {
+        executor.shutdownNow();
+        try {
+          executor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      queues.clear();
+      removedPaused.clear();
+    }
+  }
+}
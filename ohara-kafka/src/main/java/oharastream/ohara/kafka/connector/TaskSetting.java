@@ -50,6 +50,9 @@ public class TaskSetting {
   }
 
   private final Map<String, String> raw;
+  // the following values are parsed from raw and then cached
+  private volatile List<Column> columns = null;
+  private volatile SettingDef.CheckRule checkRule = null;
 
   private TaskSetting(Map<String, String> raw) {
     this.raw = Collections.unmodifiableMap(Objects.requireNonNull(raw));
@@ -284,10 +287,22 @@ public class TaskSetting {
     return stringList(ConnectorDefUtils.TOPIC_NAMES_DEFINITION.key());
   }
 
+  /**
+   * the columns are parsed from json so they are cached. Noted: the raw settings are immutable.
+   *
+   * @return immutable columns
+   */
   public List<Column> columns() {
-    return propGroupOption(ConnectorDefUtils.COLUMNS_DEFINITION.key())
-        .map(PropGroup::toColumns)
-        .orElseGet(Collections::emptyList);
+    List<Column> columns = this.columns;
+    if (columns == null) {
+      columns =
+          Collections.unmodifiableList(
+              propGroupOption(ConnectorDefUtils.COLUMNS_DEFINITION.key())
+                  .map(PropGroup::toColumns)
+                  .orElseGet(Collections::emptyList));
+      this.columns = columns;
+    }
+    return columns;
   }
 
   public ConnectorKey connectorKey() {
@@ -301,6 +316,15 @@ public class TaskSetting {
    * @return check rule
    */
   public SettingDef.CheckRule checkRule() {
+    SettingDef.CheckRule checkRule = this.checkRule;
+    if (checkRule == null) {
+      checkRule = parseCheckRule();
+      this.checkRule = checkRule;
+    }
+    return checkRule;
+  }
+
+  private SettingDef.CheckRule parseCheckRule() {
     return stringOption(ConnectorDefUtils.CHECK_RULE_DEFINITION.key())
         .map(
             s -> {
@@ -314,6 +338,88 @@ public class TaskSetting {
         .orElse(SettingDef.CheckRule.NONE);
   }
 
+  /**
+   * @return true if this connector should expose the metrics of each topic partition. Otherwise,
+   *     false
+   */
+  public boolean partitionMetrics() {
+    return booleanOption(ConnectorDefUtils.PARTITION_METRICS_DEFINITION.key()).orElse(false);
+  }
+
+  /** @return true if the sink connector should expose the consumer lag. Otherwise, false */
+  public boolean lagMetrics() {
+    return booleanOption(ConnectorDefUtils.LAG_METRICS_DEFINITION.key()).orElse(false);
+  }
+
+  /** @return the max number of records which are polled by source task but not acked by producer */
+  public int maxInFlightRecords() {
+    return intOption(ConnectorDefUtils.MAX_INFLIGHT_RECORDS_DEFINITION.key())
+        .orElse(ConnectorDefUtils.MAX_INFLIGHT_RECORDS_DEFINITION.defaultInt());
+  }
+
+  /**
+   * @return the max size (in bytes) of records which are polled by source task but not acked by
+   *     producer
+   */
+  public long maxInFlightBytes() {
+    return longOption(ConnectorDefUtils.MAX_INFLIGHT_BYTES_DEFINITION.key())
+        .orElse(ConnectorDefUtils.MAX_INFLIGHT_BYTES_DEFINITION.defaultLong());
+  }
+
+  /** @return the max number of records returned by a poll of source task */
+  public Optional<Integer> sourceBatchRecords() {
+    return intOption(ConnectorDefUtils.SOURCE_BATCH_RECORDS_DEFINITION.key());
+  }
+
+  /** @return the max size (in bytes) of records returned by a poll of source task */
+  public Optional<Long> sourceBatchBytes() {
+    return longOption(ConnectorDefUtils.SOURCE_BATCH_BYTES_DEFINITION.key());
+  }
+
+  /** @return the time to accumulate the records by a poll of source task */
+  public Duration sourceLinger() {
+    return durationOption(ConnectorDefUtils.SOURCE_LINGER_DEFINITION.key())
+        .orElse(ConnectorDefUtils.SOURCE_LINGER_DEFINITION.defaultDuration());
+  }
+
+  /** @return the max time to sleep when the source connector has no data */
+  public Duration sourceEmptyPollBackoff() {
+    return durationOption(ConnectorDefUtils.SOURCE_EMPTY_POLL_BACKOFF_DEFINITION.key())
+        .orElse(ConnectorDefUtils.SOURCE_EMPTY_POLL_BACKOFF_DEFINITION.defaultDuration());
+  }
+
+  /** @return the number of async writers of sink task, or empty if the async mode is disabled */
+  public Optional<Integer> sinkWriters() {
+    return intOption(ConnectorDefUtils.SINK_WRITERS_DEFINITION.key());
+  }
+
+  /** @return the max number of records waiting for writing in each partition */
+  public int sinkQueueSize() {
+    return intOption(ConnectorDefUtils.SINK_QUEUE_SIZE_DEFINITION.key())
+        .orElse(ConnectorDefUtils.SINK_QUEUE_SIZE_DEFINITION.defaultInt());
+  }
+
+  /** @return the max number of rows processed by the task per second. Zero means no limit */
+  public long rateLimitRows() {
+    return longOption(ConnectorDefUtils.RATE_LIMIT_ROWS_DEFINITION.key()).orElse(0L);
+  }
+
+  /** @return the max size of rows processed by the task per second. Zero means no limit */
+  public long rateLimitBytes() {
+    return longOption(ConnectorDefUtils.RATE_LIMIT_BYTES_DEFINITION.key()).orElse(0L);
+  }
+
+  /** @return the number of threads converting the rows of task. 1 means the conversion is serial */
+  public int conversionThreads() {
+    return intOption(ConnectorDefUtils.CONVERSION_THREADS_DEFINITION.key()).orElse(1);
+  }
+
+  /** @return the transforms applied to each row. It is empty if there is no transform */
+  public PropGroup rowTransforms() {
+    return propGroupOption(ConnectorDefUtils.ROW_TRANSFORMS_DEFINITION.key())
+        .orElseGet(() -> PropGroup.of(Collections.emptyList()));
+  }
+
   @VisibleForTesting
   Map<String, String> raw() {
     return Collections.unmodifiableMap(raw);
@@ -66,6 +66,11 @@ public abstract class CsvSinkTask extends RowSinkTask {
     writer.write(records);
   }
 
+  @Override
+  protected void idlePartition(TopicPartition partition) {
+    writer.rotate(partition);
+  }
+
   @Override
   public Map<TopicPartition, TopicOffset> preCommitOffsets(
       Map<TopicPartition, TopicOffset> offsets) {
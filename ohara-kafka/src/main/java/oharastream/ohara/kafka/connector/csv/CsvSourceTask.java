@@ -17,6 +17,7 @@
 package oharastream.ohara.kafka.connector.csv;
 
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -72,22 +73,24 @@ public abstract class CsvSourceTask extends RowSourceTask {
   public final List<RowSourceRecord> pollRecords() {
     if (fileNameCache.isEmpty()) {
       Iterator<String> fileNames = fs.listFileNames(config.inputFolder());
+      List<String> paths = new ArrayList<>();
       while (fileNames.hasNext()) {
         if (fileNameCacheCapacity <= fileNameCache.size()) break;
-        else fileNameCache.offer(fileNames.next());
+        String fileName = fileNames.next();
+        fileNameCache.offer(fileName);
+        if (isOwned(fileName)) paths.add(toPath(fileName));
       }
+      // load the offsets of whole page by a single lookup rather than one lookup per file
+      if (!paths.isEmpty()) dataReader.prefetch(paths);
     }
 
     try {
       String fileName = fileNameCache.poll(5, TimeUnit.SECONDS);
       if (fileName != null) {
-        String path = Paths.get(config.inputFolder(), fileName).toString();
+        String path = toPath(fileName);
 
         // we skip the folder
-        if (fs.fileType(path) == FileType.FILE
-            &&
-            // Avoid more than one Task processing the same file
-            fileName.hashCode() % config.total() == config.hash()) {
+        if (fs.fileType(path) == FileType.FILE && isOwned(fileName)) {
           return dataReader.read(path);
         }
       }
@@ -99,6 +102,20 @@ public abstract class CsvSourceTask extends RowSourceTask {
     return Collections.emptyList();
   }
 
+  /**
+   * Avoid more than one Task processing the same file
+   *
+   * @param fileName file name
+   * @return true if this task should process the file
+   */
+  private boolean isOwned(String fileName) {
+    return fileName.hashCode() % config.total() == config.hash();
+  }
+
+  private String toPath(String fileName) {
+    return Paths.get(config.inputFolder(), fileName).toString();
+  }
+
   @Override
   public final void terminate() {
     Releasable.close(fs);
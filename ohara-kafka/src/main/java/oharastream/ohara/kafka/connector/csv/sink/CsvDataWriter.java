@@ -17,6 +17,7 @@
 package oharastream.ohara.kafka.connector.csv.sink;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import oharastream.ohara.common.annotations.VisibleForTesting;
 import oharastream.ohara.common.util.Releasable;
 import oharastream.ohara.kafka.connector.RowSinkContext;
@@ -37,8 +38,9 @@ public class CsvDataWriter implements DataWriter {
   private CsvRecordWriterProvider writerProvider;
 
   public CsvDataWriter(CsvSinkConfig config, RowSinkContext context, FileSystem fileSystem) {
-    assignment = new HashSet<>();
-    topicPartitionWriters = new HashMap<>();
+    // the writers of different partitions can be used concurrently by the async mode of sink task
+    assignment = ConcurrentHashMap.newKeySet();
+    topicPartitionWriters = new ConcurrentHashMap<>();
     this.context = context;
     this.config = config;
     this.fileSystem = fileSystem;
@@ -50,37 +52,57 @@ public class CsvDataWriter implements DataWriter {
   public void attach(Collection<TopicPartition> partitions) {
     assignment.addAll(partitions);
     assignment.forEach(
-        tp -> {
-          if (!topicPartitionWriters.containsKey(tp)) {
-            topicPartitionWriters.put(
-                tp, new TopicPartitionWriter(tp, writerProvider, config, context));
-          }
-        });
+        tp ->
+            topicPartitionWriters.computeIfAbsent(
+                tp, k -> new TopicPartitionWriter(k, writerProvider, config, context)));
   }
 
+  /**
+   * write the records to the writers of their partitions. Only the partitions of records are
+   * written since the async mode of sink task calls this method concurrently with the records of
+   * different partitions. The other partitions are rotated by {@link #rotate(TopicPartition)}. The
+   * records of detached partitions are skipped.
+   *
+   * @param records records
+   */
   @Override
   public void write(Collection<RowSinkRecord> records) {
+    Set<TopicPartition> partitions = new HashSet<>();
     records.forEach(
         record -> {
           TopicPartition tp = new TopicPartition(record.topicName(), record.partition());
-          topicPartitionWriters.get(tp).buffer(record);
+          TopicPartitionWriter writer = topicPartitionWriters.get(tp);
+          if (writer != null) {
+            writer.buffer(record);
+            partitions.add(tp);
+          }
+        });
+    partitions.forEach(
+        tp -> {
+          TopicPartitionWriter writer = topicPartitionWriters.get(tp);
+          if (writer != null) writer.write();
         });
-    assignment.forEach(tp -> topicPartitionWriters.get(tp).write());
+  }
+
+  @Override
+  public void rotate(TopicPartition partition) {
+    TopicPartitionWriter writer = topicPartitionWriters.get(partition);
+    // writing nothing commits the pending files if the scheduled rotation is due
+    if (writer != null) writer.write();
   }
 
   @Override
   public void detach(Collection<TopicPartition> partitions) {
-    partitions.stream()
-        .forEach(
-            tp -> {
-              Releasable.close(topicPartitionWriters.get(tp));
-              topicPartitionWriters.remove(tp);
-            });
+    partitions.forEach(
+        tp -> {
+          assignment.remove(tp);
+          Releasable.close(topicPartitionWriters.remove(tp));
+        });
   }
 
   @Override
   public void close() {
-    detach(assignment);
+    detach(new ArrayList<>(assignment));
     assignment.clear();
     topicPartitionWriters.clear();
     Releasable.close(fileSystem);
@@ -90,7 +112,10 @@ public class CsvDataWriter implements DataWriter {
   public Map<TopicPartition, Long> getCommittedOffsetsAndReset() {
     Map<TopicPartition, Long> offsetsToCommit = new HashMap<>();
     for (TopicPartition tp : assignment) {
-      Long offset = topicPartitionWriters.get(tp).getOffsetToCommitAndReset();
+      TopicPartitionWriter writer = topicPartitionWriters.get(tp);
+      // the partition is detached concurrently
+      if (writer == null) continue;
+      Long offset = writer.getOffsetToCommitAndReset();
       if (offset != null) {
         LOG.trace("Forwarding to framework request to commit offset: {} for {}", offset, tp);
         offsetsToCommit.put(tp, offset);
@@ -43,6 +43,14 @@ public interface DataWriter extends Releasable {
    */
   void write(Collection<RowSinkRecord> records);
 
+  /**
+   * Commit the pending files of the partition if the scheduled rotation is due. It is called for
+   * the partition having no new records.
+   *
+   * @param partition the assigned partition
+   */
+  void rotate(TopicPartition partition);
+
   /**
    * The DataWriter use the method to close TopicPartitionWriters for partitions that are no longer
    * assigned to the DataWriter.
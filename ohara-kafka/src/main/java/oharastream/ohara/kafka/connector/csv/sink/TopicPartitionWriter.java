@@ -83,30 +83,31 @@ public class TopicPartitionWriter implements Releasable {
     setNextScheduledRotation();
   }
 
-  public void buffer(RowSinkRecord sinkRecord) {
+  public synchronized void buffer(RowSinkRecord sinkRecord) {
     buffer.add(sinkRecord);
   }
 
-  public void write() {
+  public synchronized void write() {
     long now = time.milliseconds();
-    pause();
 
     while (!buffer.isEmpty()) {
       rotateOrWrite(now);
     }
 
     commitOnTimeIfNoData(now);
-    resume();
+    wakeUpOnRotation(now);
   }
 
-  private void pause() {
-    LOG.trace("Pausing writer for topic-partition '{}'", tp);
-    // TODO: context.pause(tp);
-  }
-
-  private void resume() {
-    LOG.trace("Resuming writer for topic-partition '{}'", tp);
-    // TODO: context.resume(tp);
+  /**
+   * the uncommitted records must be committed by the scheduled rotation even if there is no new
+   * data. Hence, we ask the framework to call us before the rotation.
+   */
+  private void wakeUpOnRotation(long now) {
+    if (recordCount > 0 && rotateIntervalMs > 0) {
+      long timeout = Math.max(1, nextScheduledRotation - now);
+      LOG.trace("Waking up topic-partition '{}' in {} ms for rotation", tp, timeout);
+      context.timeout(timeout);
+    }
   }
 
   private void rotateOrWrite(long now) {
@@ -223,6 +224,8 @@ public class TopicPartitionWriter implements Releasable {
     offsetToCommit = currentOffset + 1;
     commitFiles.clear();
     recordCount = 0;
+    // the data is durable now so the offsets should be committed soon to avoid redelivery
+    context.requestCommit();
     LOG.info(
         "Files committed to FileSystem. Target commit offset for {} is {}", tp, offsetToCommit);
   }
@@ -244,13 +247,13 @@ public class TopicPartitionWriter implements Releasable {
     }
   }
 
-  public Long getOffsetToCommitAndReset() {
+  public synchronized Long getOffsetToCommitAndReset() {
     Long latest = offsetToCommit;
     offsetToCommit = null;
     return latest;
   }
 
-  public void close() {
+  public synchronized void close() {
     LOG.debug("Closing TopicPartitionWriter {}", tp);
     for (CsvRecordWriter writer : writers.values()) {
       Releasable.close(writer);
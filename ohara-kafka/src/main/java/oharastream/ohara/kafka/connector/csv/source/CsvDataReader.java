@@ -46,7 +46,14 @@ public class CsvDataReader implements DataReader {
     this.fs = fs;
     this.config = config;
     this.context = context;
-    this.offsetCache = new CsvOffsetCache();
+    // keep the offsets of current listing page and the previous one
+    this.offsetCache =
+        new CsvOffsetCache((int) Math.min(Integer.MAX_VALUE, 2L * config.fileCacheSize()));
+  }
+
+  @Override
+  public void prefetch(List<String> paths) {
+    offsetCache.loadIfNeed(context, paths);
   }
 
   @Override
@@ -16,13 +16,50 @@
 
 package oharastream.ohara.kafka.connector.csv.source;
 
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import oharastream.ohara.common.annotations.VisibleForTesting;
+import oharastream.ohara.common.util.CommonUtils;
 import oharastream.ohara.kafka.connector.RowSourceContext;
+import oharastream.ohara.kafka.connector.csv.CsvConnectorDefinitions;
 
+/**
+ * The cache keeps the processed index of each path. It is bounded by the capacity and the least
+ * recently used paths are evicted first. An evicted path is reloaded from RowSourceContext when it
+ * is read again.
+ */
 public class CsvOffsetCache implements OffsetCache {
-  private final Map<String, Integer> cache = new HashMap<>();
+  /** the default capacity is able to hold two listing pages */
+  public static final int DEFAULT_CAPACITY = CsvConnectorDefinitions.SIZE_OF_FILE_CACHE_DEFAULT * 2;
+
+  /**
+   * the index of header. It is cached for the path having no stored offset so it won't be looked up
+   * again.
+   */
+  private static final int HEADER_INDEX = 0;
+
+  private final Map<String, Integer> cache;
+
+  public CsvOffsetCache() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public CsvOffsetCache(int capacity) {
+    CommonUtils.requirePositiveInt(capacity);
+    this.cache =
+        new LinkedHashMap<String, Integer>(16, 0.75f, true) {
+          private static final long serialVersionUID = 1L;
+
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+            return size() > capacity;
+          }
+        };
+  }
 
   public void loadIfNeed(RowSourceContext context, String path) {
     /**
@@ -33,24 +70,44 @@ public class CsvOffsetCache implements OffsetCache {
     if (!cache.containsKey(path)) {
       Map<String, Object> offset =
           context.offset(Collections.singletonMap(CsvRecordConverter.CSV_PARTITION_KEY, path));
-      if (!offset.isEmpty()) update(path, getOffsetValue(offset));
+      update(path, offset.isEmpty() ? HEADER_INDEX : getOffsetValue(offset));
     }
   }
 
+  @Override
+  public void loadIfNeed(RowSourceContext context, Collection<String> paths) {
+    // Map#get refreshes the order of cached paths so they are not evicted by the new paths
+    List<Map<String, String>> partitions =
+        paths.stream()
+            .distinct()
+            .filter(path -> cache.get(path) == null)
+            .map(path -> Collections.singletonMap(CsvRecordConverter.CSV_PARTITION_KEY, path))
+            .collect(Collectors.toList());
+    if (partitions.isEmpty()) return;
+    Map<Map<String, String>, Map<String, Object>> offsets = context.offset(partitions);
+    partitions.forEach(
+        partition -> {
+          // the missed partition is failed to load so we leave it to the next read
+          if (!offsets.containsKey(partition)) return;
+          Map<String, Object> offset = offsets.get(partition);
+          update(
+              partition.get(CsvRecordConverter.CSV_PARTITION_KEY),
+              offset == null || offset.isEmpty() ? HEADER_INDEX : getOffsetValue(offset));
+        });
+  }
+
   public void update(String path, int index) {
-    if (!cache.containsKey(path)) {
-      cache.put(path, index);
-    }
-    int previous = cache.get(path);
-    if (index > previous) cache.put(path, index);
+    cache.merge(path, index, Math::max);
   }
 
   public boolean predicate(String path, int index) {
-    if (cache.containsKey(path)) {
-      int previous = cache.get(path);
-      return index > previous;
-    }
-    return true;
+    Integer previous = cache.get(path);
+    return previous == null || index > previous;
+  }
+
+  @VisibleForTesting
+  int size() {
+    return cache.size();
   }
 
   private int getOffsetValue(Map<String, Object> offset) {
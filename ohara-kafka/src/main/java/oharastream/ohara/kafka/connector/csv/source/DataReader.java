@@ -48,4 +48,13 @@ public interface DataReader {
    * @return a list of RowSourceRecord
    */
   List<RowSourceRecord> read(String path);
+
+  /**
+   * Prepare the state, for example the offsets, of files which are going to be read. It is called
+   * once for a listing page so the implementation is able to load the state in batch. Default
+   * implementation does nothing.
+   *
+   * @param paths the paths of files
+   */
+  default void prefetch(List<String> paths) {}
 }
@@ -16,6 +16,7 @@
 
 package oharastream.ohara.kafka.connector.csv.source;
 
+import java.util.Collection;
 import oharastream.ohara.kafka.connector.RowSourceContext;
 
 /** Used to manage the offset from files */
@@ -29,6 +30,18 @@ public interface OffsetCache {
    */
   void loadIfNeed(RowSourceContext context, String path);
 
+  /**
+   * load the latest offsets of all paths which don't exist in the cache. It is used to prefetch the
+   * offsets of a listing page so the following reads don't need to touch RowSourceContext one by
+   * one. The default implementation loads the paths individually.
+   *
+   * @param context kafka's cache
+   * @param paths file paths
+   */
+  default void loadIfNeed(RowSourceContext context, Collection<String> paths) {
+    paths.forEach(path -> loadIfNeed(context, path));
+  }
+
   /**
    * add (index, path) to the cache
    *
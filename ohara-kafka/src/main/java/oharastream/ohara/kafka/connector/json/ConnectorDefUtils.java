@@ -21,6 +21,7 @@ import static oharastream.ohara.common.setting.SettingDef.COLUMN_NAME_KEY;
 import static oharastream.ohara.common.setting.SettingDef.COLUMN_NEW_NAME_KEY;
 import static oharastream.ohara.common.setting.SettingDef.ORDER_KEY;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -34,7 +35,12 @@ import oharastream.ohara.common.setting.SettingDef;
 import oharastream.ohara.common.setting.SettingDef.Reference;
 import oharastream.ohara.common.setting.SettingDef.Type;
 import oharastream.ohara.common.setting.TableColumn;
+import oharastream.ohara.kafka.ColumnHashPartitioner;
+import oharastream.ohara.kafka.LoadAwarePartitioner;
 import oharastream.ohara.kafka.RowDefaultPartitioner;
+import oharastream.ohara.kafka.StickyRoundRobinPartitioner;
+import oharastream.ohara.kafka.TuningProfile;
+import oharastream.ohara.kafka.connector.RowTransformer;
 import org.apache.kafka.common.config.ConfigDef;
 import org.apache.kafka.connect.runtime.rest.entities.ConfigKeyInfo;
 
@@ -240,10 +246,295 @@ public final class ConnectorDefUtils {
               builder
                   .displayName("partitioner class")
                   .key("producer.override.partitioner.class")
-                  .documentation("partitioner decides the partition to send the message")
+                  .documentation(
+                      "partitioner decides the partition to send the message. The built-in "
+                          + "partitioners are "
+                          + ColumnHashPartitioner.class.getName()
+                          + ", "
+                          + StickyRoundRobinPartitioner.class.getName()
+                          + " and "
+                          + LoadAwarePartitioner.class.getName())
                   .optionalClassValue(RowDefaultPartitioner.class.getName())
                   .build());
 
+  public static final SettingDef PARTITIONER_COLUMNS_DEFINITION =
+      createDef(
+          builder ->
+              builder
+                  .displayName("partitioner columns")
+                  .key(TuningProfile.PRODUCER_OVERRIDE_PREFIX + ColumnHashPartitioner.COLUMNS_KEY)
+                  .documentation(
+                      "the columns used to compute the hash by "
+                          + ColumnHashPartitioner.class.getName())
+                  .optional(Type.ARRAY)
+                  .build());
+
+  public static final SettingDef PARTITIONER_JMX_PORT_DEFINITION =
+      createDef(
+          builder ->
+              builder
+                  .displayName("partitioner jmx port")
+                  .key(TuningProfile.PRODUCER_OVERRIDE_PREFIX + LoadAwarePartitioner.JMX_PORT_KEY)
+                  .documentation(
+                      "the jmx port of brokers used by "
+                          + LoadAwarePartitioner.class.getName()
+                          + " to fetch the load of brokers")
+                  .optional(Type.REMOTE_PORT)
+                  .build());
+
+  /**
+   * the per-partition metrics are disabled by default since each topic partition brings a couple of
+   * mbeans.
+   */
+  public static final SettingDef PARTITION_METRICS_DEFINITION =
+      createDef(
+          builder ->
+              builder
+                  .displayName("partition metrics")
+                  .key("partition.metrics")
+                  .documentation(
+                      "true if the throughput and latency of each topic partition should be exposed")
+                  .optional(false)
+                  .build());
+
+  /**
+   * the lag metrics of sink connector are disabled by default since the collector costs a topic
+   * admin and a polling thread.
+   */
+  public static final SettingDef LAG_METRICS_DEFINITION =
+      createDef(
+          builder ->
+              builder
+                  .displayName("lag metrics")
+                  .key("lag.metrics")
+                  .documentation(
+                      "true if the consumer lag of sink connector should be exposed. "
+                          + "It costs a polling thread")
+                  .optional(false)
+                  .build());
+
+  /**
+   * the source task stops polling when the number of records which are not acked by producer yet
+   * reaches this limit.
+   */
+  public static final SettingDef MAX_INFLIGHT_RECORDS_DEFINITION =
+      createDef(
+          builder ->
+              builder
+                  .displayName("max in-flight records")
+                  .key("max.inflight.records")
+                  .documentation(
+                      "the max number of records polled by source task but not acked by producer")
+                  .positiveNumber(100000)
+                  .build());
+
+  /**
+   * the source task stops polling when the size of records which are not acked by producer yet
+   * reaches this limit.
+   */
+  public static final SettingDef MAX_INFLIGHT_BYTES_DEFINITION =
+      createDef(
+          builder ->
+              builder
+                  .displayName("max in-flight bytes")
+                  .key("max.inflight.bytes")
+                  .documentation(
+                      "the max size (in bytes) of records polled by source task but not acked by "
+                          + "producer")
+                  .positiveNumber(64L * 1024 * 1024)
+                  .build());
+
+  /**
+   * the source task stops accumulating the records of a poll when the number reaches this limit.
+   */
+  public static final SettingDef SOURCE_BATCH_RECORDS_DEFINITION =
+      createDef(
+          builder ->
+              builder
+                  .displayName("source batch records")
+                  .key("source.batch.records")
+                  .documentation(
+                      "the max number of records returned by a poll of source task. The records "
+                          + "exceeding the limit are kept for next poll. No limit by default")
+                  .optional(Type.POSITIVE_INT)
+                  .build());
+
+  /** the source task stops accumulating the records of a poll when the size reaches this limit. */
+  public static final SettingDef SOURCE_BATCH_BYTES_DEFINITION =
+      createDef(
+          builder ->
+              builder
+                  .displayName("source batch bytes")
+                  .key("source.batch.bytes")
+                  .documentation(
+                      "the max size (in bytes) of records returned by a poll of source task. No "
+                          + "limit by default")
+                  .optional(Type.POSITIVE_LONG)
+                  .build());
+
+  /**
+   * the source task calls pollRecords repeatedly until the batch is full or the linger is over. The
+   * default value is zero so pollRecords is called once by each poll.
+   */
+  public static final SettingDef SOURCE_LINGER_DEFINITION =
+      createDef(
+          builder ->
+              builder
+                  .displayName("source linger")
+                  .key("source.linger")
+                  .documentation(
+                      "the time to accumulate the records from connector before returning them "
+                          + "to kafka")
+                  .optional(Duration.ZERO)
+                  .build());
+
+  /**
+   * the sleep after an empty pollRecords starts from 1 ms and it is doubled by each empty
+   * pollRecords until this limit. It is reset when any record is returned.
+   */
+  public static final SettingDef SOURCE_EMPTY_POLL_BACKOFF_DEFINITION =
+      createDef(
+          builder ->
+              builder
+                  .displayName("source empty poll backoff")
+                  .key("source.empty.poll.backoff")
+                  .documentation(
+                      "the max time to sleep when the connector has no data. Zero disables the "
+                          + "sleep")
+                  .optional(Duration.ofMillis(100))
+                  .build());
+
+  /**
+   * the sink task writes data by the threads of its own if this value is defined. It releases the
+   * thread of kafka consumer from the I/O of sink.
+   */
+  public static final SettingDef SINK_WRITERS_DEFINITION =
+      createDef(
+          builder ->
+              builder
+                  .displayName("sink writers")
+                  .key("sink.async.writers")
+                  .documentation(
+                      "the number of threads writing data of sink task. The data is written by "
+                          + "the thread of consumer if this value is not defined")
+                  .optional(Type.POSITIVE_INT)
+                  .build());
+
+  public static final SettingDef SINK_QUEUE_SIZE_DEFINITION =
+      createDef(
+          builder ->
+              builder
+                  .displayName("sink queue size")
+                  .key("sink.async.queue.size")
+                  .documentation(
+                      "the max number of records waiting for writing in each partition. The "
+                          + "partition is paused if the queue is full")
+                  .positiveNumber(10000)
+                  .build());
+
+  /**
+   * the transforms executed by the connector tasks. It saves the extra topic and stream app for the
+   * simple projection, renaming, casting and filtering.
+   */
+  public static final SettingDef ROW_TRANSFORMS_DEFINITION =
+      createDef(
+          builder ->
+              builder
+                  .displayName("row transforms")
+                  .key("row.transforms")
+                  .documentation(
+                      "the transforms applied to each row by the order. The operators are "
+                          + Stream.of(RowTransformer.Operator.values())
+                              .map(RowTransformer.Operator::name)
+                              .collect(Collectors.joining(", ")))
+                  .optional(
+                      Arrays.asList(
+                          TableColumn.builder()
+                              .name(ORDER_KEY)
+                              .type(TableColumn.Type.NUMBER)
+                              .build(),
+                          TableColumn.builder()
+                              .name(RowTransformer.OPERATOR_KEY)
+                              .type(TableColumn.Type.STRING)
+                              .recommendedItems(
+                                  Stream.of(RowTransformer.Operator.values())
+                                      .map(RowTransformer.Operator::name)
+                                      .collect(Collectors.toSet()))
+                              .build(),
+                          TableColumn.builder()
+                              .name(COLUMN_NAME_KEY)
+                              .type(TableColumn.Type.STRING)
+                              .build(),
+                          TableColumn.builder()
+                              .name(RowTransformer.VALUE_KEY)
+                              .type(TableColumn.Type.STRING)
+                              .build()))
+                  .build());
+
+  /**
+   * the rows processed by each task are limited by token bucket. The limit is updatable by the
+   * mbean of {@link oharastream.ohara.kafka.connector.RateLimiterMBean}.
+   */
+  public static final SettingDef RATE_LIMIT_ROWS_DEFINITION =
+      createDef(
+          builder ->
+              builder
+                  .displayName("rate limit of rows")
+                  .key("rate.limit.rows")
+                  .documentation(
+                      "the max number of rows processed by each task per second. No limit by "
+                          + "default")
+                  .optional(Type.POSITIVE_LONG)
+                  .build());
+
+  /**
+   * the size of rows processed by each task are limited by token bucket. The limit is updatable by
+   * the mbean of {@link oharastream.ohara.kafka.connector.RateLimiterMBean}.
+   */
+  public static final SettingDef RATE_LIMIT_BYTES_DEFINITION =
+      createDef(
+          builder ->
+              builder
+                  .displayName("rate limit of bytes")
+                  .key("rate.limit.bytes")
+                  .documentation(
+                      "the max size (in bytes) of rows processed by each task per second. No limit "
+                          + "by default")
+                  .optional(Type.POSITIVE_LONG)
+                  .build());
+
+  /**
+   * the row tasks convert and serialize the rows by multiple threads if this value is defined. It
+   * is useful to the connectors which are bound by the cpu rather than the I/O.
+   */
+  public static final SettingDef CONVERSION_THREADS_DEFINITION =
+      createDef(
+          builder ->
+              builder
+                  .displayName("conversion threads")
+                  .key("conversion.threads")
+                  .documentation(
+                      "the number of threads converting and serializing the rows of each task. "
+                          + "The order of rows is kept. The rows are converted by the thread of "
+                          + "task if this value is not defined")
+                  .optional(Type.POSITIVE_INT)
+                  .build());
+
+  /**
+   * the profile is expanded to the producer and consumer overrides of kafka worker. see {@link
+   * ConnectorFormatter#setting(String, String)}. It has no default value so the clients keep the
+   * kafka defaults unless the profile is set.
+   */
+  public static final SettingDef TUNING_PROFILE_DEFINITION =
+      createDef(
+          builder ->
+              builder
+                  .displayName("tuning profile")
+                  .key("tuning.profile")
+                  .documentation("the batching, compression and fetching options of connector")
+                  .optional(TuningProfile.names())
+                  .build());
+
   public static final SettingDef TAGS_DEFINITION =
       createDef(
           builder ->
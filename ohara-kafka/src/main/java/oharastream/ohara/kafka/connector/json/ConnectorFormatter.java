@@ -22,6 +22,7 @@ import oharastream.ohara.common.annotations.VisibleForTesting;
 import oharastream.ohara.common.data.Column;
 import oharastream.ohara.common.setting.*;
 import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.kafka.TuningProfile;
 
 /**
  * Kafka worker accept json and then unmarshal it to Map[String, String]. In most cases we can't
@@ -105,6 +106,9 @@ public final class ConnectorFormatter {
     } catch (IllegalArgumentException e) {
       settings.put(key, value);
     }
+    // the profile is expanded to the client overrides. The overrides set explicitly are kept.
+    if (key.equals(ConnectorDefUtils.TUNING_PROFILE_DEFINITION.key()))
+      TuningProfile.of(value).connectorOptions().forEach(settings::putIfAbsent);
     return this;
   }
 
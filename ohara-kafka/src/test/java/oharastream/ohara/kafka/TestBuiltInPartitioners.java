@@ -0,0 +1,188 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.kafka;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import oharastream.ohara.common.data.Cell;
+import oharastream.ohara.common.data.Row;
+import oharastream.ohara.common.data.Serializer;
+import oharastream.ohara.common.rule.OharaTest;
+import oharastream.ohara.common.setting.TopicKey;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestBuiltInPartitioners extends OharaTest {
+  private static final TopicKey TOPIC_KEY = TopicKey.of("a", "b");
+
+  /** 4 partitions. The leader of partition 0 and 2 is host0 and the leader of others is host1. */
+  private static org.apache.kafka.common.Cluster cluster() {
+    Node[] nodes = new Node[] {new Node(0, "host0", 99), new Node(1, "host1", 99)};
+    List<PartitionInfo> partitionInfos =
+        IntStream.range(0, 4)
+            .mapToObj(
+                i -> new PartitionInfo(TOPIC_KEY.topicNameOnKafka(), i, nodes[i % 2], nodes, nodes))
+            .collect(Collectors.toList());
+    return new org.apache.kafka.common.Cluster(
+        "aa", Arrays.asList(nodes), partitionInfos, Collections.emptySet(), Collections.emptySet());
+  }
+
+  private static int partition(
+      RowPartitioner partitioner, Row row, org.apache.kafka.common.Cluster cluster) {
+    return partitioner.partition(
+        TOPIC_KEY.topicNameOnKafka(), row, Serializer.ROW.to(row), null, null, cluster);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testColumnHashWithoutColumns() {
+    new ColumnHashPartitioner().configure(Collections.emptyMap());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testColumnHashWithEmptyColumns() {
+    new ColumnHashPartitioner()
+        .configure(Collections.singletonMap(ColumnHashPartitioner.COLUMNS_KEY, " , "));
+  }
+
+  @Test
+  public void testColumnHash() {
+    org.apache.kafka.common.Cluster cluster = cluster();
+    ColumnHashPartitioner partitioner = new ColumnHashPartitioner();
+    partitioner.configure(Collections.singletonMap(ColumnHashPartitioner.COLUMNS_KEY, "k0,k1"));
+    IntStream.range(0, 10)
+        .forEach(
+            i -> {
+              int partition =
+                  partition(
+                      partitioner,
+                      Row.of(Cell.of("k0", i), Cell.of("v", "a"), Cell.of("k1", "b")),
+                      cluster);
+              // the other columns don't impact the partition
+              Assert.assertEquals(
+                  partition,
+                  partition(
+                      partitioner,
+                      Row.of(Cell.of("k0", i), Cell.of("v", "c"), Cell.of("k1", "b")),
+                      cluster));
+              // the order of columns is changed
+              Assert.assertEquals(
+                  partition,
+                  partition(
+                      partitioner,
+                      Row.of(Cell.of("k1", "b"), Cell.of("k0", i), Cell.of("v", "d")),
+                      cluster));
+            });
+    // the row having no key columns is handled by default partitioner
+    int partition = partition(partitioner, Row.of(Cell.of("v", "a")), cluster);
+    Assert.assertTrue(partition >= 0 && partition < 4);
+  }
+
+  @Test
+  public void testColumnHashWithBytes() {
+    // kafka connect passes the serialized row to partitioner
+    org.apache.kafka.common.Cluster cluster = cluster();
+    ColumnHashPartitioner partitioner = new ColumnHashPartitioner();
+    partitioner.configure(Collections.singletonMap(ColumnHashPartitioner.COLUMNS_KEY, "k0"));
+    IntStream.range(0, 10)
+        .forEach(
+            i -> {
+              byte[] bytes = Serializer.ROW.to(Row.of(Cell.of("k0", i), Cell.of("v", "a")));
+              Assert.assertEquals(
+                  partition(partitioner, Row.of(Cell.of("v", "b"), Cell.of("k0", i)), cluster),
+                  partitioner.partition(
+                      TOPIC_KEY.topicNameOnKafka(), bytes, bytes, null, null, cluster));
+            });
+  }
+
+  @Test
+  public void testColumnHashWithListOfColumns() {
+    org.apache.kafka.common.Cluster cluster = cluster();
+    ColumnHashPartitioner partitioner = new ColumnHashPartitioner();
+    partitioner.configure(
+        Collections.singletonMap(ColumnHashPartitioner.COLUMNS_KEY, Arrays.asList("k0")));
+    Assert.assertEquals(
+        partition(partitioner, Row.of(Cell.of("k0", 1), Cell.of("v", "a")), cluster),
+        partition(partitioner, Row.of(Cell.of("v", "b"), Cell.of("k0", 1)), cluster));
+  }
+
+  @Test
+  public void testStickyRoundRobin() {
+    org.apache.kafka.common.Cluster cluster = cluster();
+    StickyRoundRobinPartitioner partitioner = new StickyRoundRobinPartitioner();
+    Row row = Row.of(Cell.of("a", "b"));
+    int partition = partition(partitioner, row, cluster);
+    IntStream.range(0, 10)
+        .forEach(i -> Assert.assertEquals(partition, partition(partitioner, row, cluster)));
+
+    // the stale partition is ignored
+    partitioner.onNewBatch(TOPIC_KEY.topicNameOnKafka(), cluster, (partition + 1) % 4);
+    Assert.assertEquals(partition, partition(partitioner, row, cluster));
+
+    partitioner.onNewBatch(TOPIC_KEY.topicNameOnKafka(), cluster, partition);
+    Assert.assertEquals((partition + 1) % 4, partition(partitioner, row, cluster));
+  }
+
+  @Test
+  public void testStickyRoundRobinShouldNotDecodeRow() {
+    byte[] bytes = new byte[] {1, 2, 3};
+    SerializedRow serializedRow = SerializedRow.of(bytes);
+    new StickyRoundRobinPartitioner()
+        .partition(TOPIC_KEY.topicNameOnKafka(), serializedRow, bytes, null, null, cluster());
+    Assert.assertFalse(serializedRow.decoded());
+  }
+
+  @Test
+  public void testLoadAware() {
+    LoadAwarePartitioner partitioner =
+        new LoadAwarePartitioner() {
+          @Override
+          protected Map<String, Double> loads(Set<String> hostnames) {
+            Assert.assertEquals(2, hostnames.size());
+            return Collections.singletonMap("host0", 100D);
+          }
+        };
+    Cluster cluster = Cluster.of(cluster());
+    List<oharastream.ohara.kafka.PartitionInfo> partitionInfos = cluster.partitionInfos(TOPIC_KEY);
+    partitioner.refresh(cluster);
+    // the chance of picking the heavy leader is 1/4
+    long light =
+        IntStream.range(0, 1000)
+            .map(i -> partitioner.choose(partitionInfos))
+            .filter(p -> p % 2 == 1)
+            .count();
+    Assert.assertTrue(light > 500);
+  }
+
+  @Test
+  public void testLoadAwareSticksOnPartition() {
+    org.apache.kafka.common.Cluster cluster = cluster();
+    LoadAwarePartitioner partitioner = new LoadAwarePartitioner();
+    partitioner.configure(Collections.emptyMap());
+    Row row = Row.of(Cell.of("a", "b"));
+    int partition = partition(partitioner, row, cluster);
+    IntStream.range(0, 10)
+        .forEach(i -> Assert.assertEquals(partition, partition(partitioner, row, cluster)));
+    partitioner.close();
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.kafka;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+import oharastream.ohara.common.data.Serializer;
+import oharastream.ohara.common.setting.ObjectKey;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.kafka.connector.TopicPartition;
+import oharastream.ohara.metrics.BeanChannel;
+import oharastream.ohara.metrics.basic.CounterMBean;
+import oharastream.ohara.testing.WithBroker;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestLagCollector extends WithBroker {
+
+  private void send(String topicName, int count) {
+    try (Producer<String, String> producer =
+        Producer.builder()
+            .keySerializer(Serializer.STRING)
+            .valueSerializer(Serializer.STRING)
+            .connectionProps(testUtil().brokersConnProps())
+            .build()) {
+      for (int i = 0; i != count; ++i)
+        producer.sender().key("key" + i).value("value" + i).topicName(topicName).send();
+      producer.flush();
+    }
+  }
+
+  private void consumeAll(String topicName, String groupId, int count) {
+    try (Consumer<String, String> consumer =
+        Consumer.builder()
+            .keySerializer(Serializer.STRING)
+            .valueSerializer(Serializer.STRING)
+            .offsetFromBegin()
+            .groupId(groupId)
+            .topicName(topicName)
+            .connectionProps(testUtil().brokersConnProps())
+            .build()) {
+      List<Consumer.Record<String, String>> records = consumer.poll(Duration.ofSeconds(30), count);
+      Assert.assertEquals(count, records.size());
+    }
+  }
+
+  @Test
+  public void testLag() throws ExecutionException, InterruptedException {
+    String topicName = CommonUtils.randomString(10);
+    String groupId = CommonUtils.randomString(10);
+    ObjectKey key = CommonUtils.randomKey();
+    try (TopicAdmin admin = TopicAdmin.of(testUtil().brokersConnProps())) {
+      LagCollector collector =
+          LagCollector.builder()
+              .topicAdmin(admin)
+              .key(key)
+              .groupId(groupId)
+              .interval(Duration.ofHours(1))
+              .build();
+      try {
+        admin
+            .topicCreator()
+            .numberOfPartitions(1)
+            .numberOfReplications((short) 1)
+            .topicName(topicName)
+            .create()
+            .toCompletableFuture()
+            .get();
+        send(topicName, 10);
+        // the group has not committed any offset
+        Assert.assertTrue(collector.refresh().isEmpty());
+
+        // the consumer commits offsets when it is closing
+        consumeAll(topicName, groupId, 10);
+        send(topicName, 5);
+        Map<TopicPartition, Long> lags = collector.refresh();
+        Assert.assertEquals(Collections.singletonMap(new TopicPartition(topicName, 0), 5L), lags);
+        Assert.assertEquals(lags, collector.lags());
+        Assert.assertEquals(5, collector.totalLag());
+
+        List<CounterMBean> counters =
+            BeanChannel.local().counterMBeans().stream()
+                .filter(c -> c.key().equals(key))
+                .collect(Collectors.toList());
+        Assert.assertEquals(2, counters.size());
+        Assert.assertTrue(
+            counters.stream()
+                .anyMatch(c -> c.item().equals(LagCollector.DEFAULT_ITEM) && c.getValue() == 5));
+        Assert.assertTrue(
+            counters.stream()
+                .anyMatch(
+                    c ->
+                        c.item().equals(LagCollector.DEFAULT_ITEM + "-" + topicName + "-0")
+                            && c.getValue() == 5));
+
+        collector.close();
+        Assert.assertTrue(
+            BeanChannel.local().counterMBeans().stream().noneMatch(c -> c.key().equals(key)));
+        // the admin is not closed by collector
+        Assert.assertFalse(admin.closed());
+      } finally {
+        collector.close();
+      }
+    }
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void testNullKey() {
+    LagCollector.builder().key(null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testEmptyGroupId() {
+    LagCollector.builder().groupId("");
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void testMissingConnectionProps() {
+    LagCollector.builder().key(CommonUtils.randomKey()).groupId("a").build();
+  }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.kafka;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import oharastream.ohara.common.data.Serializer;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.testing.WithBroker;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestParallelConsumer extends WithBroker {
+  private final String topicName = CommonUtils.randomString(10);
+  private final String groupId = CommonUtils.randomString(10);
+  private final TopicAdmin admin = TopicAdmin.of(testUtil().brokersConnProps());
+
+  @Before
+  public void setup() throws ExecutionException, InterruptedException {
+    admin
+        .topicCreator()
+        .numberOfPartitions(3)
+        .numberOfReplications((short) 1)
+        .topicName(topicName)
+        .create()
+        .toCompletableFuture()
+        .get();
+  }
+
+  private void send(int numberOfKeys, int numberOfRecords) {
+    try (Producer<String, String> producer =
+        Producer.builder()
+            .keySerializer(Serializer.STRING)
+            .valueSerializer(Serializer.STRING)
+            .connectionProps(testUtil().brokersConnProps())
+            .build()) {
+      for (int i = 0; i != numberOfRecords; ++i)
+        producer
+            .sender()
+            .key("key" + (i % numberOfKeys))
+            .value(String.valueOf(i))
+            .topicName(topicName)
+            .send();
+      producer.flush();
+    }
+  }
+
+  private void assertCommitted(int numberOfRecords) {
+    CommonUtils.await(
+        () ->
+            admin.consumerGroupOffsets(groupId).toCompletableFuture().join().values().stream()
+                    .mapToLong(Long::longValue)
+                    .sum()
+                == numberOfRecords,
+        Duration.ofSeconds(30));
+  }
+
+  @Test
+  public void testKeyOrdering() {
+    int numberOfRecords = 300;
+    send(5, numberOfRecords);
+    Map<String, List<Integer>> values = new ConcurrentHashMap<>();
+    AtomicInteger count = new AtomicInteger(0);
+    try (ParallelConsumer<String, String> consumer =
+        ParallelConsumer.builder()
+            .keySerializer(Serializer.STRING)
+            .valueSerializer(Serializer.STRING)
+            .handler(
+                record -> {
+                  // the records having same key are processed by same worker
+                  values
+                      .computeIfAbsent(record.key().get(), k -> new ArrayList<>())
+                      .add(Integer.valueOf(record.value().get()));
+                  count.incrementAndGet();
+                })
+            .ordering(ParallelConsumer.Ordering.KEY)
+            .numberOfWorkers(3)
+            .offsetFromBegin()
+            .groupId(groupId)
+            .topicName(topicName)
+            .connectionProps(testUtil().brokersConnProps())
+            .build()) {
+      CommonUtils.await(() -> count.get() == numberOfRecords, Duration.ofSeconds(30));
+      Assert.assertEquals(0, consumer.numberOfFailedRecords());
+    }
+    Assert.assertEquals(5, values.size());
+    values.values().forEach(vs -> Assert.assertEquals(numberOfRecords / 5, vs.size()));
+    values
+        .values()
+        .forEach(
+            vs -> {
+              for (int i = 1; i < vs.size(); ++i) Assert.assertTrue(vs.get(i - 1) < vs.get(i));
+            });
+    assertCommitted(numberOfRecords);
+  }
+
+  @Test
+  public void testPause() throws InterruptedException {
+    int numberOfRecords = 30;
+    send(3, numberOfRecords);
+    CountDownLatch latch = new CountDownLatch(1);
+    AtomicInteger count = new AtomicInteger(0);
+    try (ParallelConsumer<String, String> consumer =
+        ParallelConsumer.builder()
+            .keySerializer(Serializer.STRING)
+            .valueSerializer(Serializer.STRING)
+            .handler(
+                record -> {
+                  try {
+                    latch.await();
+                  } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                  }
+                  count.incrementAndGet();
+                })
+            .maxInFlightBytes(1)
+            .offsetFromBegin()
+            .groupId(groupId)
+            .topicName(topicName)
+            .connectionProps(testUtil().brokersConnProps())
+            .build()) {
+      CommonUtils.await(consumer::paused, Duration.ofSeconds(30));
+      Assert.assertTrue(consumer.inFlightBytes() > 1);
+      // nothing is committed since the workers are blocked
+      Assert.assertTrue(admin.consumerGroupOffsets(groupId).toCompletableFuture().join().isEmpty());
+      latch.countDown();
+      CommonUtils.await(() -> count.get() == numberOfRecords, Duration.ofSeconds(30));
+      CommonUtils.await(() -> !consumer.paused(), Duration.ofSeconds(30));
+      Assert.assertEquals(0, consumer.inFlightBytes());
+    }
+    assertCommitted(numberOfRecords);
+  }
+
+  @Test
+  public void testFailedRecords() {
+    int numberOfRecords = 10;
+    send(1, numberOfRecords);
+    AtomicInteger count = new AtomicInteger(0);
+    try (ParallelConsumer<String, String> consumer =
+        ParallelConsumer.builder()
+            .keySerializer(Serializer.STRING)
+            .valueSerializer(Serializer.STRING)
+            .handler(
+                record -> {
+                  count.incrementAndGet();
+                  throw new IllegalArgumentException("failed");
+                })
+            .offsetFromBegin()
+            .groupId(groupId)
+            .topicName(topicName)
+            .connectionProps(testUtil().brokersConnProps())
+            .build()) {
+      CommonUtils.await(() -> count.get() == numberOfRecords, Duration.ofSeconds(30));
+      CommonUtils.await(
+          () -> consumer.numberOfFailedRecords() == numberOfRecords, Duration.ofSeconds(30));
+    }
+    assertCommitted(numberOfRecords);
+  }
+
+  @Test
+  public void testTracker() {
+    ParallelConsumer.Tracker tracker = new ParallelConsumer.Tracker();
+    tracker.add(0);
+    tracker.add(1);
+    tracker.add(3);
+    Assert.assertFalse(tracker.committable().isPresent());
+    // the offset 0 is not completed so nothing can be committed
+    tracker.complete(1);
+    tracker.complete(3);
+    Assert.assertFalse(tracker.committable().isPresent());
+    tracker.complete(0);
+    Assert.assertEquals(4L, (long) tracker.committable().get());
+    Assert.assertTrue(tracker.isEmpty());
+  }
+
+  @After
+  public void tearDown() {
+    admin.deleteTopic(topicName);
+    admin.close();
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.kafka;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import oharastream.ohara.common.data.Serializer;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.testing.WithBroker;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestProducerPool extends WithBroker {
+
+  @Test
+  public void testShare() {
+    ProducerPool pool = ProducerPool.of();
+    Producer<String, String> p0 =
+        pool.producer(testUtil().brokersConnProps(), Serializer.STRING, Serializer.STRING);
+    Producer<String, String> p1 =
+        pool.producer(testUtil().brokersConnProps(), Serializer.STRING, Serializer.STRING);
+    Assert.assertEquals(1, pool.size());
+    Producer<byte[], byte[]> p2 =
+        pool.producer(testUtil().brokersConnProps(), Serializer.BYTES, Serializer.BYTES);
+    Assert.assertEquals(2, pool.size());
+
+    p0.close();
+    // close twice does not release the reference of another handle
+    p0.close();
+    Assert.assertEquals(2, pool.size());
+    p1.close();
+    Assert.assertEquals(1, pool.size());
+    p2.close();
+    Assert.assertEquals(0, pool.size());
+  }
+
+  @Test
+  public void testShareByOptions() {
+    ProducerPool pool = ProducerPool.of();
+    Map<String, String> options =
+        Collections.singletonMap(
+            ProducerConfig.PARTITIONER_CLASS_CONFIG, StickyRoundRobinPartitioner.class.getName());
+    try (Producer<String, String> p0 =
+            pool.producer(testUtil().brokersConnProps(), Serializer.STRING, Serializer.STRING);
+        Producer<String, String> p1 =
+            pool.producer(
+                testUtil().brokersConnProps(), Serializer.STRING, Serializer.STRING, options);
+        Producer<String, String> p2 =
+            pool.producer(
+                testUtil().brokersConnProps(), Serializer.STRING, Serializer.STRING, options)) {
+      Assert.assertNotNull(p0.sender());
+      Assert.assertNotNull(p1.sender());
+      Assert.assertNotNull(p2.sender());
+      // the producers having different options can't be shared
+      Assert.assertEquals(2, pool.size());
+    }
+    Assert.assertEquals(0, pool.size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectTransactionalOptions() {
+    ProducerPool.of()
+        .producer(
+            testUtil().brokersConnProps(),
+            Serializer.STRING,
+            Serializer.STRING,
+            Collections.singletonMap(ProducerConfig.TRANSACTIONAL_ID_CONFIG, "abc"));
+  }
+
+  @Test
+  public void testTransactionIsUnsupported() {
+    ProducerPool pool = ProducerPool.of();
+    try (Producer<String, String> producer =
+        pool.producer(testUtil().brokersConnProps(), Serializer.STRING, Serializer.STRING)) {
+      assertException(UnsupportedOperationException.class, producer::beginTransaction);
+      assertException(UnsupportedOperationException.class, producer::commitTransaction);
+      assertException(UnsupportedOperationException.class, producer::abortTransaction);
+      assertException(
+          UnsupportedOperationException.class,
+          () -> producer.sendOffsetsToTransaction(Collections.emptyMap(), "abc"));
+    }
+    Assert.assertEquals(0, pool.size());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testClosedHandle() {
+    ProducerPool pool = ProducerPool.of();
+    Producer<String, String> p0 =
+        pool.producer(testUtil().brokersConnProps(), Serializer.STRING, Serializer.STRING);
+    try (Producer<String, String> p1 =
+        pool.producer(testUtil().brokersConnProps(), Serializer.STRING, Serializer.STRING)) {
+      p0.close();
+      // the shared producer is still alive
+      Assert.assertNotNull(p1.sender());
+      p0.sender();
+    }
+  }
+
+  @Test
+  public void testSend() throws ExecutionException, InterruptedException {
+    String topicName = CommonUtils.randomString(10);
+    ProducerPool pool = ProducerPool.of();
+    try (Producer<String, String> p0 =
+            pool.producer(testUtil().brokersConnProps(), Serializer.STRING, Serializer.STRING);
+        Producer<String, String> p1 =
+            pool.producer(testUtil().brokersConnProps(), Serializer.STRING, Serializer.STRING)) {
+      p0.sender().key("a").topicName(topicName).send().get();
+      p1.sender().key("b").topicName(topicName).send().get();
+    }
+    Assert.assertEquals(0, pool.size());
+    try (Consumer<String, String> consumer =
+        Consumer.builder()
+            .keySerializer(Serializer.STRING)
+            .valueSerializer(Serializer.STRING)
+            .offsetFromBegin()
+            .topicName(topicName)
+            .connectionProps(testUtil().brokersConnProps())
+            .build()) {
+      List<Consumer.Record<String, String>> records = consumer.poll(Duration.ofSeconds(30), 2);
+      Assert.assertEquals(2, records.size());
+    }
+  }
+}
@@ -19,6 +19,7 @@ package oharastream.ohara.kafka;
 import java.util.Collections;
 import java.util.concurrent.CompletableFuture;
 import oharastream.ohara.common.rule.OharaTest;
+import org.junit.Assert;
 import org.junit.Test;
 
 public class TestProducerSender extends OharaTest {
@@ -68,4 +69,39 @@ public class TestProducerSender extends OharaTest {
   public void emptyTopicName() {
     fake().topicName("");
   }
+
+  private static class FakeBatchSender<K, V> extends Producer.BatchSender<K, V> {
+    @Override
+    protected CompletableFuture<Producer.BatchResult> doSend() {
+      return null;
+    }
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void nullHeadersOfBatch() {
+    new FakeBatchSender<String, String>().headers(null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void emptyHeadersOfBatch() {
+    new FakeBatchSender<String, String>().headers(Collections.emptyList());
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void nullTopicNameOfBatch() {
+    new FakeBatchSender<String, String>().record(null, "a", "b");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void emptyTopicNameOfBatch() {
+    new FakeBatchSender<String, String>().record("", "a", "b");
+  }
+
+  @Test
+  public void testSizeOfBatch() {
+    FakeBatchSender<String, String> sender = new FakeBatchSender<>();
+    Assert.assertEquals(0, sender.size());
+    sender.record("a", null, null).record("b", 1, 1L, "a", "b");
+    Assert.assertEquals(2, sender.size());
+  }
 }
@@ -17,18 +17,24 @@
 package oharastream.ohara.kafka;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import oharastream.ohara.common.data.Cell;
+import oharastream.ohara.common.data.Row;
 import oharastream.ohara.common.data.Serializer;
+import oharastream.ohara.common.setting.TopicKey;
 import oharastream.ohara.common.util.CommonUtils;
 import oharastream.ohara.kafka.connector.TopicPartition;
 import oharastream.ohara.testing.WithBroker;
 import org.apache.kafka.clients.CommonClientConfigs;
+import org.apache.kafka.clients.producer.ProducerConfig;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -321,6 +327,259 @@ public class TestProducerToConsumer extends WithBroker {
     }
   }
 
+  @Test
+  public void testScopedOffsets() throws ExecutionException, InterruptedException {
+    int numberOfPartitions = 3;
+    TopicKey topicKey = TopicKey.of(CommonUtils.randomString(), CommonUtils.randomString());
+    createTopic(topicKey.topicNameOnKafka(), numberOfPartitions);
+    try (Producer<String, String> producer =
+        Producer.builder()
+            .keySerializer(Serializer.STRING)
+            .valueSerializer(Serializer.STRING)
+            .connectionProps(testUtil().brokersConnProps())
+            .build()) {
+      for (int i = 0; i < 10; i++)
+        producer
+            .sender()
+            .key("key" + i)
+            .value("value" + i)
+            .topicName(topicKey.topicNameOnKafka())
+            .partition(0)
+            .send();
+      producer.flush();
+    }
+    try (Consumer<String, String> consumer =
+        Consumer.builder()
+            .keySerializer(Serializer.STRING)
+            .valueSerializer(Serializer.STRING)
+            .connectionProps(testUtil().brokersConnProps())
+            .build()) {
+      Set<TopicPartition> partitions = consumer.partitions(topicKey);
+      Assert.assertEquals(numberOfPartitions, partitions.size());
+      Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+      Assert.assertEquals(partitions, endOffsets.keySet());
+      Assert.assertEquals(
+          10L, endOffsets.get(new TopicPartition(topicKey.topicNameOnKafka(), 0)).longValue());
+      Map<TopicPartition, Long> beginningOffsets = consumer.beginningOffsets(partitions);
+      Assert.assertEquals(partitions, beginningOffsets.keySet());
+      beginningOffsets.values().forEach(offset -> Assert.assertEquals(0L, offset.longValue()));
+    }
+  }
+
+  @Test
+  public void testSeekToTimestamp() {
+    long timestamp = CommonUtils.current() - 1000;
+    try (Producer<String, String> producer =
+        Producer.builder()
+            .keySerializer(Serializer.STRING)
+            .valueSerializer(Serializer.STRING)
+            .connectionProps(testUtil().brokersConnProps())
+            .build()) {
+      for (int i = 0; i < 10; i++)
+        producer
+            .sender()
+            .key("key" + i)
+            .value("value" + i)
+            .topicName(topicName)
+            .timestamp(timestamp + i)
+            .send();
+      producer.flush();
+    }
+    try (Consumer<String, String> consumer =
+        Consumer.builder()
+            .keySerializer(Serializer.STRING)
+            .valueSerializer(Serializer.STRING)
+            .assignments(Collections.singleton(new TopicPartition(topicName, 0)))
+            .connectionProps(testUtil().brokersConnProps())
+            .build()) {
+      TopicPartition partition = new TopicPartition(topicName, 0);
+      Assert.assertEquals(
+          5L,
+          consumer
+              .offsetsForTimes(Collections.singletonMap(partition, timestamp + 5))
+              .get(partition)
+              .longValue());
+      Assert.assertEquals(
+          0, consumer.offsetsForTimes(Collections.singletonMap(partition, timestamp + 100)).size());
+
+      consumer.seekToTimestamp(timestamp + 5);
+      List<Consumer.Record<String, String>> records = consumer.poll(Duration.ofSeconds(30), 5);
+      Assert.assertEquals(5, records.size());
+      Assert.assertEquals("key5", records.get(0).key().get());
+
+      // no record is newer than the timestamp so the offset is moved to the end
+      consumer.seekToTimestamp(timestamp + 100);
+      Assert.assertEquals(0, consumer.poll(Duration.ofSeconds(1)).size());
+    }
+  }
+
+  @Test
+  public void testBatchSender() throws ExecutionException, InterruptedException {
+    Header header = new Header(CommonUtils.randomString(), new byte[] {1, 2, 3});
+    int numberOfRecords = 100;
+    try (Producer<String, String> producer =
+        Producer.builder()
+            .keySerializer(Serializer.STRING)
+            .valueSerializer(Serializer.STRING)
+            .connectionProps(testUtil().brokersConnProps())
+            .build()) {
+      Producer.BatchSender<String, String> sender =
+          producer.batchSender().headers(Collections.singletonList(header));
+      IntStream.range(0, numberOfRecords)
+          .forEach(i -> sender.record(topicName, String.valueOf(i), "v"));
+      Assert.assertEquals(numberOfRecords, sender.size());
+      Producer.BatchResult result = sender.send().get();
+      Assert.assertTrue(result.succeeded());
+      Assert.assertEquals(numberOfRecords, result.numberOfRecords());
+      Assert.assertEquals(numberOfRecords, result.numberOfSucceeded());
+    }
+    try (Consumer<String, String> consumer =
+        Consumer.builder()
+            .keySerializer(Serializer.STRING)
+            .valueSerializer(Serializer.STRING)
+            .offsetFromBegin()
+            .topicName(topicName)
+            .connectionProps(testUtil().brokersConnProps())
+            .build()) {
+      List<Consumer.Record<String, String>> records =
+          consumer.poll(Duration.ofSeconds(30), numberOfRecords);
+      Assert.assertEquals(numberOfRecords, records.size());
+      // the order is kept since there is only one partition
+      IntStream.range(0, numberOfRecords)
+          .forEach(
+              i -> {
+                Assert.assertEquals(String.valueOf(i), records.get(i).key().get());
+                Assert.assertEquals(Collections.singletonList(header), records.get(i).headers());
+              });
+    }
+  }
+
+  @Test
+  public void testErrorsOfBatchSender() throws ExecutionException, InterruptedException {
+    try (Producer<String, String> producer =
+        Producer.builder()
+            .keySerializer(Serializer.STRING)
+            .valueSerializer(Serializer.STRING)
+            .connectionProps(testUtil().brokersConnProps())
+            // the producer waits for the metadata of nonexistent partition until timeout
+            .option(ProducerConfig.MAX_BLOCK_MS_CONFIG, "3000")
+            .build()) {
+      Producer.BatchResult result =
+          producer
+              .batchSender()
+              .record(topicName, "a", "b")
+              // the topic has only one partition
+              .record(topicName, 100, null, "c", "d")
+              .record(topicName, "e", "f")
+              .send()
+              .get();
+      Assert.assertFalse(result.succeeded());
+      Assert.assertEquals(3, result.numberOfRecords());
+      Assert.assertEquals(2, result.numberOfSucceeded());
+      Assert.assertEquals(Collections.singleton(1), result.errors().keySet());
+    }
+  }
+
+  @Test
+  public void testEmptyBatchSender() throws ExecutionException, InterruptedException {
+    try (Producer<String, String> producer =
+        Producer.builder()
+            .keySerializer(Serializer.STRING)
+            .valueSerializer(Serializer.STRING)
+            .connectionProps(testUtil().brokersConnProps())
+            .build()) {
+      Producer.BatchResult result = producer.batchSender().send().get();
+      Assert.assertTrue(result.succeeded());
+      Assert.assertEquals(0, result.numberOfRecords());
+    }
+  }
+
+  @Test
+  public void testSerializedRow() {
+    Row row = Row.of(Cell.of("a", "b"));
+    try (Producer<SerializedRow, byte[]> producer =
+        Producer.builder()
+            .keySerializer(SerializedRow.SERIALIZER)
+            .valueSerializer(Serializer.BYTES)
+            .connectionProps(testUtil().brokersConnProps())
+            .build()) {
+      producer.sender().key(SerializedRow.of(Serializer.ROW.to(row))).topicName(topicName).send();
+      producer.flush();
+    }
+    try (Consumer<Row, byte[]> consumer =
+        Consumer.builder()
+            .keySerializer(Serializer.ROW)
+            .valueSerializer(Serializer.BYTES)
+            .offsetFromBegin()
+            .topicName(topicName)
+            .connectionProps(testUtil().brokersConnProps())
+            .build()) {
+      List<Consumer.Record<Row, byte[]>> records = consumer.poll(Duration.ofSeconds(30), 1);
+      Assert.assertEquals(1, records.size());
+      Assert.assertEquals(row, records.get(0).key().get());
+    }
+  }
+
+  @Test
+  public void testPollWithHandler() throws ExecutionException, InterruptedException {
+    try (Producer<String, String> producer =
+        Producer.builder()
+            .keySerializer(Serializer.STRING)
+            .valueSerializer(Serializer.STRING)
+            .connectionProps(testUtil().brokersConnProps())
+            .build()) {
+      for (int i = 0; i != 10; ++i)
+        producer.sender().key("key" + i).value("value" + i).topicName(topicName).send().get();
+    }
+    try (Consumer<String, String> consumer =
+        Consumer.builder()
+            .keySerializer(Serializer.STRING)
+            .valueSerializer(Serializer.STRING)
+            .offsetFromBegin()
+            .topicName(topicName)
+            .connectionProps(testUtil().brokersConnProps())
+            .build()) {
+      List<Consumer.Record<String, String>> records = new ArrayList<>();
+      long endTime = CommonUtils.current() + 30 * 1000;
+      while (records.size() < 10 && CommonUtils.current() < endTime)
+        consumer.poll(Duration.ofSeconds(1), records::add);
+      Assert.assertEquals(10, records.size());
+      for (int i = 0; i != 10; ++i) {
+        Assert.assertEquals(i, records.get(i).offset());
+        Assert.assertEquals("key" + i, records.get(i).key().get());
+        Assert.assertEquals("value" + i, records.get(i).value().get());
+      }
+    }
+  }
+
+  @Test
+  public void testLazyDecoding() throws ExecutionException, InterruptedException {
+    try (Producer<byte[], byte[]> producer =
+        Producer.builder().connectionProps(testUtil().brokersConnProps()).build()) {
+      // the bytes are not a row
+      producer
+          .sender()
+          .key(new byte[] {1, 2, 3})
+          .value(new byte[0])
+          .topicName(topicName)
+          .send()
+          .get();
+    }
+    try (Consumer<Row, byte[]> consumer =
+        Consumer.builder()
+            .keySerializer(Serializer.ROW)
+            .offsetFromBegin()
+            .topicName(topicName)
+            .connectionProps(testUtil().brokersConnProps())
+            .build()) {
+      // the bad key does not break the poll since it is not decoded
+      List<Consumer.Record<Row, byte[]>> records = consumer.poll(Duration.ofSeconds(30), 1);
+      Assert.assertEquals(1, records.size());
+      Assert.assertEquals(0, records.get(0).value().get().length);
+      assertException(Exception.class, () -> records.get(0).key());
+    }
+  }
+
   @After
   public void tearDown() {
     try (TopicAdmin client = TopicAdmin.of(testUtil().brokersConnProps())) {
@@ -18,6 +18,8 @@ package oharastream.ohara.kafka;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Optional;
+import java.util.function.Supplier;
 import oharastream.ohara.common.data.Cell;
 import oharastream.ohara.common.data.Row;
 import oharastream.ohara.common.data.Serializer;
@@ -53,6 +55,135 @@ public class TestRowPartitioner extends OharaTest {
     Assert.assertEquals(1, custom.count.get());
   }
 
+  private static org.apache.kafka.common.Cluster cluster(TopicKey key) {
+    Node node = new Node(0, "localhost", 99);
+    Node[] nodes = new Node[] {node};
+    PartitionInfo partitionInfo = new PartitionInfo(key.topicNameOnKafka(), 1, node, nodes, nodes);
+    return new org.apache.kafka.common.Cluster(
+        "aa",
+        Arrays.asList(nodes),
+        Collections.singletonList(partitionInfo),
+        Collections.emptySet(),
+        Collections.emptySet());
+  }
+
+  @Test
+  public void serializedRowShouldBePassedToSubClass() {
+    CountRowPartitioner custom = new CountRowPartitioner();
+    TopicKey key = TopicKey.of("a", "b");
+    Row row = Row.of(Cell.of("a", "b"));
+    byte[] bytes = Serializer.ROW.to(row);
+    SerializedRow serializedRow = SerializedRow.of(bytes);
+    custom.partition(key.topicNameOnKafka(), serializedRow, bytes, null, null, cluster(key));
+    Assert.assertEquals(1, custom.count.get());
+    Assert.assertTrue(serializedRow.decoded());
+    Assert.assertEquals(row, serializedRow.row());
+  }
+
+  @Test
+  public void bytesShouldBePassedToSubClass() {
+    // kafka connect passes the serialized row
+    CountRowPartitioner custom = new CountRowPartitioner();
+    TopicKey key = TopicKey.of("a", "b");
+    byte[] bytes = Serializer.ROW.to(Row.of(Cell.of("a", "b")));
+    custom.partition(key.topicNameOnKafka(), bytes, bytes, null, null, cluster(key));
+    Assert.assertEquals(1, custom.count.get());
+  }
+
+  @Test
+  public void lazyPartitionerShouldNotDecodeBytes() {
+    TopicKey key = TopicKey.of("a", "b");
+    // the bytes are not a row so decoding them must fail
+    byte[] bytes = new byte[] {1, 2, 3};
+    RowPartitioner partitioner =
+        new RowPartitioner() {
+          @Override
+          public Optional<Integer> partition(
+              TopicKey topicKey, Supplier<Row> row, byte[] serializedRow, Cluster cluster) {
+            return Optional.of(0);
+          }
+        };
+    Assert.assertEquals(
+        0, partitioner.partition(key.topicNameOnKafka(), bytes, bytes, null, null, cluster(key)));
+  }
+
+  @Test
+  public void defaultPartitionerShouldNotDecodeRow() {
+    TopicKey key = TopicKey.of("a", "b");
+    // the bytes are not a row so decoding them must fail
+    byte[] bytes = new byte[] {1, 2, 3};
+    SerializedRow serializedRow = SerializedRow.of(bytes);
+    new RowDefaultPartitioner()
+        .partition(key.topicNameOnKafka(), serializedRow, bytes, null, null, cluster(key));
+    Assert.assertFalse(serializedRow.decoded());
+  }
+
+  @Test
+  public void lazyPartitionerShouldNotDecodeRow() {
+    TopicKey key = TopicKey.of("a", "b");
+    byte[] bytes = new byte[] {1, 2, 3};
+    SerializedRow serializedRow = SerializedRow.of(bytes);
+    RowPartitioner partitioner =
+        new RowPartitioner() {
+          @Override
+          public Optional<Integer> partition(
+              TopicKey topicKey, Supplier<Row> row, byte[] serializedRow, Cluster cluster) {
+            return Optional.of(0);
+          }
+        };
+    Assert.assertEquals(
+        0,
+        partitioner.partition(
+            key.topicNameOnKafka(), serializedRow, bytes, null, null, cluster(key)));
+    Assert.assertFalse(serializedRow.decoded());
+  }
+
+  @Test
+  public void testLeaderlessPartition() {
+    TopicKey key = TopicKey.of("a", "b");
+    // the offline replica has neither host nor port
+    PartitionInfo partitionInfo =
+        new PartitionInfo(
+            key.topicNameOnKafka(), 0, null, new Node[] {new Node(1, "", -1)}, new Node[0]);
+    org.apache.kafka.common.Cluster kafkaCluster =
+        new org.apache.kafka.common.Cluster(
+            "aa",
+            Collections.singletonList(new Node(0, "localhost", 99)),
+            Collections.singletonList(partitionInfo),
+            Collections.emptySet(),
+            Collections.emptySet());
+    Cluster cluster = Cluster.of(kafkaCluster);
+    Assert.assertEquals(1, cluster.partitionInfos(key).size());
+    Assert.assertNull(cluster.partitionInfos(key).get(0).leader());
+    Assert.assertEquals("", cluster.partitionInfos(key).get(0).replicas().get(0).host());
+
+    byte[] bytes = Serializer.ROW.to(Row.of(Cell.of("a", "b")));
+    RowPartitioner partitioner = new RowDefaultPartitioner();
+    Assert.assertEquals(
+        0, partitioner.partition(key.topicNameOnKafka(), bytes, bytes, null, null, kafkaCluster));
+    partitioner.onNewBatch(key.topicNameOnKafka(), kafkaCluster, 0);
+
+    CountRowPartitioner custom = new CountRowPartitioner();
+    custom.partition(key.topicNameOnKafka(), bytes, bytes, null, null, kafkaCluster);
+    Assert.assertEquals(1, custom.count.get());
+
+    RowPartitioner sticky = new StickyRoundRobinPartitioner();
+    Assert.assertEquals(
+        0, sticky.partition(key.topicNameOnKafka(), bytes, bytes, null, null, kafkaCluster));
+    sticky.onNewBatch(key.topicNameOnKafka(), kafkaCluster, 0);
+  }
+
+  @Test
+  public void testSerializer() {
+    Row row = Row.of(Cell.of("a", "b"));
+    byte[] bytes = Serializer.ROW.to(row);
+    Assert.assertSame(bytes, SerializedRow.SERIALIZER.to(SerializedRow.of(bytes)));
+    SerializedRow serializedRow = SerializedRow.SERIALIZER.from(bytes);
+    Assert.assertFalse(serializedRow.decoded());
+    Assert.assertEquals(row, serializedRow.row());
+    Assert.assertTrue(SerializedRow.of(bytes, row).decoded());
+  }
+
   @Test
   public void testKind() {
     Assert.assertEquals(
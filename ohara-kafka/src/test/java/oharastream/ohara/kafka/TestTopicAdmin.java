@@ -18,14 +18,22 @@ package oharastream.ohara.kafka;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import oharastream.ohara.common.util.CommonUtils;
 import oharastream.ohara.common.util.Releasable;
 import oharastream.ohara.testing.With3Brokers;
@@ -154,6 +162,172 @@ public class TestTopicAdmin extends With3Brokers {
             .value());
   }
 
+  private void createTopic(TopicAdmin admin, String topicName)
+      throws ExecutionException, InterruptedException {
+    admin
+        .topicCreator()
+        .numberOfPartitions(1)
+        .numberOfReplications((short) 1)
+        .topicName(topicName)
+        .create()
+        .toCompletableFuture()
+        .get();
+  }
+
+  @Test
+  public void testTargetedDescriptions() throws ExecutionException, InterruptedException {
+    String topicName = CommonUtils.randomString(10);
+    createTopic(client, topicName);
+    createTopic(client, CommonUtils.randomString(10));
+    waitPartitions(topicName, 1);
+    // the nonexistent topic is ignored
+    List<TopicDescription> descriptions =
+        client
+            .topicDescriptions(new HashSet<>(Arrays.asList(topicName, CommonUtils.randomString())))
+            .toCompletableFuture()
+            .get();
+    assertEquals(1, descriptions.size());
+    assertEquals(topicName, descriptions.get(0).name());
+    assertEquals(1, descriptions.get(0).numberOfPartitions());
+  }
+
+  @Test
+  public void testMetadataCache() throws ExecutionException, InterruptedException {
+    try (TopicAdmin cachedAdmin =
+        TopicAdmin.of(testUtil().brokersConnProps(), Duration.ofHours(1))) {
+      String topicName = CommonUtils.randomString(10);
+      assertFalse(cachedAdmin.exist(topicName).toCompletableFuture().get());
+      // the topic created by another admin is invisible before the cache is expired
+      createTopic(client, topicName);
+      CommonUtils.await(
+          () -> client.exist(topicName).toCompletableFuture().join(), Duration.ofSeconds(30));
+      assertFalse(cachedAdmin.exist(topicName).toCompletableFuture().get());
+
+      // creating topic invalidates the cache
+      String topicName2 = CommonUtils.randomString(10);
+      createTopic(cachedAdmin, topicName2);
+      assertTrue(cachedAdmin.exist(topicName).toCompletableFuture().get());
+      assertTrue(cachedAdmin.exist(topicName2).toCompletableFuture().get());
+
+      // deleting topic invalidates the cache
+      assertTrue(cachedAdmin.deleteTopic(topicName2).toCompletableFuture().get());
+      assertFalse(cachedAdmin.exist(topicName2).toCompletableFuture().get());
+
+      // repartitioning invalidates the cache
+      assertEquals(
+          1,
+          cachedAdmin.topicDescription(topicName).toCompletableFuture().get().numberOfPartitions());
+      cachedAdmin.createPartitions(topicName, 2).toCompletableFuture().get();
+      // wait for the metadata propagation
+      waitPartitions(topicName, 2);
+      assertEquals(
+          2,
+          cachedAdmin.topicDescription(topicName).toCompletableFuture().get().numberOfPartitions());
+    }
+  }
+
+  @Test
+  public void testInFlightListingDoesNotOverrideInvalidation()
+      throws ExecutionException, InterruptedException {
+    try (TopicAdmin cachedAdmin =
+        TopicAdmin.of(testUtil().brokersConnProps(), Duration.ofHours(1))) {
+      String topicName = CommonUtils.randomString(10);
+      // the listing may complete after the creation invalidates the cache
+      CompletableFuture<Boolean> inFlight = cachedAdmin.exist(topicName).toCompletableFuture();
+      createTopic(cachedAdmin, topicName);
+      inFlight.get();
+      assertTrue(cachedAdmin.exist(topicName).toCompletableFuture().get());
+    }
+  }
+
+  @Test
+  public void testDescribeTopicDeletedByOthers() throws ExecutionException, InterruptedException {
+    try (TopicAdmin cachedAdmin =
+        TopicAdmin.of(testUtil().brokersConnProps(), Duration.ofHours(1))) {
+      String topicName = CommonUtils.randomString(10);
+      String deletedTopicName = CommonUtils.randomString(10);
+      createTopic(cachedAdmin, topicName);
+      createTopic(cachedAdmin, deletedTopicName);
+      waitPartitions(topicName, 1);
+      waitPartitions(deletedTopicName, 1);
+      // cache the topic names
+      assertTrue(cachedAdmin.exist(deletedTopicName).toCompletableFuture().get());
+
+      assertTrue(client.deleteTopic(deletedTopicName).toCompletableFuture().get());
+      CommonUtils.await(
+          () -> !client.exist(deletedTopicName).toCompletableFuture().join(),
+          Duration.ofSeconds(30));
+      // the stale topic name is skipped
+      List<TopicDescription> descriptions =
+          cachedAdmin
+              .topicDescriptions(new HashSet<>(Arrays.asList(topicName, deletedTopicName)))
+              .toCompletableFuture()
+              .get();
+      assertEquals(1, descriptions.size());
+      assertEquals(topicName, descriptions.get(0).name());
+      // the cached topic names are invalidated
+      assertFalse(cachedAdmin.exist(deletedTopicName).toCompletableFuture().get());
+    }
+  }
+
+  @Test
+  public void testSharedAdmin() throws ExecutionException, InterruptedException {
+    int count = TopicAdminImpl.numberOfSharedContexts();
+    String topicName = CommonUtils.randomString(10);
+    TopicAdmin admin0 = TopicAdmin.shared(testUtil().brokersConnProps());
+    TopicAdmin admin1 = TopicAdmin.shared(testUtil().brokersConnProps());
+    assertEquals(count + 1, TopicAdminImpl.numberOfSharedContexts());
+    admin0.close();
+    assertTrue(admin0.closed());
+    assertFalse(admin1.closed());
+    // the connections are still alive
+    createTopic(admin1, topicName);
+    assertTrue(admin1.exist(topicName).toCompletableFuture().get());
+    admin1.close();
+    assertEquals(count, TopicAdminImpl.numberOfSharedContexts());
+  }
+
+  @Test
+  public void testBulkOperations() throws ExecutionException, InterruptedException {
+    String existentName = CommonUtils.randomString(10);
+    createTopic(client, existentName);
+    Set<String> names =
+        IntStream.range(0, 5)
+            .mapToObj(i -> CommonUtils.randomString(10))
+            .collect(Collectors.toSet());
+    List<TopicCreation> creations =
+        names.stream()
+            .map(name -> TopicCreation.of(name, 2, (short) 1, Collections.emptyMap()))
+            .collect(Collectors.toList());
+    creations.add(TopicCreation.of(existentName, 1, (short) 1, Collections.emptyMap()));
+    Map<String, CompletionStage<Void>> created = client.createTopics(creations);
+    assertEquals(names.size() + 1, created.size());
+    for (String name : names) created.get(name).toCompletableFuture().get();
+    // the existent topic fails but other topics are not affected
+    assertException(Exception.class, () -> created.get(existentName).toCompletableFuture().get());
+
+    List<TopicDescription> descriptions =
+        client.topicDescriptions(names).toCompletableFuture().get();
+    assertEquals(names.size(), descriptions.size());
+    descriptions.forEach(d -> assertEquals(2, d.numberOfPartitions()));
+
+    Set<String> deletedNames = new HashSet<>(names);
+    String nonexistentName = CommonUtils.randomString(10);
+    deletedNames.add(nonexistentName);
+    Map<String, CompletionStage<Boolean>> deleted = client.deleteTopics(deletedNames);
+    for (String name : names) assertTrue(deleted.get(name).toCompletableFuture().get());
+    assertFalse(deleted.get(nonexistentName).toCompletableFuture().get());
+    for (String name : names) assertFalse(client.exist(name).toCompletableFuture().get());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDuplicateCreations() {
+    client.createTopics(
+        Arrays.asList(
+            TopicCreation.of("a", 1, (short) 1, Collections.emptyMap()),
+            TopicCreation.of("a", 1, (short) 1, Collections.emptyMap())));
+  }
+
   @After
   public void cleanup() throws ExecutionException, InterruptedException {
     client
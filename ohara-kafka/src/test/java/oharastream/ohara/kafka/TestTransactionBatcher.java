@@ -0,0 +1,152 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.kafka;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+import oharastream.ohara.common.data.Serializer;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.kafka.connector.TopicPartition;
+import oharastream.ohara.testing.WithBroker;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestTransactionBatcher extends WithBroker {
+
+  private void createTopic(String topicName) throws ExecutionException, InterruptedException {
+    try (TopicAdmin client = TopicAdmin.of(testUtil().brokersConnProps())) {
+      client
+          .topicCreator()
+          .numberOfPartitions(1)
+          .numberOfReplications((short) 1)
+          .topicName(topicName)
+          .create()
+          .toCompletableFuture()
+          .get();
+    }
+  }
+
+  private Producer<String, String> producer() {
+    return Producer.builder()
+        .keySerializer(Serializer.STRING)
+        .valueSerializer(Serializer.STRING)
+        .connectionProps(testUtil().brokersConnProps())
+        .transactional(CommonUtils.randomString())
+        .build();
+  }
+
+  private Consumer<String, String> consumer(String topicName, String groupId) {
+    return Consumer.builder()
+        .keySerializer(Serializer.STRING)
+        .valueSerializer(Serializer.STRING)
+        .connectionProps(testUtil().brokersConnProps())
+        .option(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed")
+        .offsetFromBegin()
+        .groupId(groupId)
+        .topicName(topicName)
+        .build();
+  }
+
+  /** the transaction markers are not returned so we count the keys only */
+  private List<String> keys(String topicName, Duration timeout, int expectedSize) {
+    try (Consumer<String, String> consumer = consumer(topicName, CommonUtils.randomString())) {
+      return consumer.poll(timeout, expectedSize).stream()
+          .map(r -> r.key().get())
+          .collect(Collectors.toList());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIdempotentWithoutAllAcks() {
+    Producer.builder().connectionProps(testUtil().brokersConnProps()).idempotent().noAcks().build();
+  }
+
+  @Test
+  public void testCommitAndAbort() throws ExecutionException, InterruptedException {
+    String topicName = CommonUtils.randomString();
+    createTopic(topicName);
+    try (Producer<String, String> producer = producer()) {
+      producer.beginTransaction();
+      producer.sender().key("aborted").value("v").topicName(topicName).send();
+      producer.abortTransaction();
+      producer.beginTransaction();
+      producer.sender().key("committed").value("v").topicName(topicName).send();
+      producer.commitTransaction();
+    }
+    Assert.assertEquals(
+        Collections.singletonList("committed"), keys(topicName, Duration.ofSeconds(10), 2));
+  }
+
+  @Test
+  public void testBatch() throws ExecutionException, InterruptedException {
+    String topicName = CommonUtils.randomString();
+    createTopic(topicName);
+    try (Producer<String, String> producer = producer()) {
+      TransactionBatcher<String, String> batcher =
+          TransactionBatcher.<String, String>builder()
+              .producer(producer)
+              .maxRecords(10)
+              .maxDelay(Duration.ofDays(1))
+              .build();
+      for (int i = 0; i != 25; ++i)
+        batcher.sender().key(String.valueOf(i)).value("v").topicName(topicName).send();
+      // the last 5 records are not committed
+      Assert.assertEquals(5, batcher.numberOfRecords());
+      Assert.assertEquals(20, keys(topicName, Duration.ofSeconds(10), 25).size());
+      batcher.close();
+      Assert.assertEquals(0, batcher.numberOfRecords());
+      Assert.assertEquals(25, keys(topicName, Duration.ofSeconds(10), 25).size());
+    }
+  }
+
+  @Test
+  public void testOffsets() throws ExecutionException, InterruptedException {
+    String topicName = CommonUtils.randomString();
+    createTopic(topicName);
+    String groupId = CommonUtils.randomString();
+    try (Producer<String, String> producer = producer()) {
+      TransactionBatcher<String, String> batcher =
+          TransactionBatcher.<String, String>builder().producer(producer).groupId(groupId).build();
+      for (int i = 0; i != 10; ++i)
+        batcher.sender().key(String.valueOf(i)).value("v").topicName(topicName).send();
+      batcher.offsets(Collections.singletonMap(new TopicPartition(topicName, 0), 3L));
+      // the smaller offset is ignored
+      batcher.offsets(Collections.singletonMap(new TopicPartition(topicName, 0), 1L));
+      batcher.commit();
+    }
+    // the consumer group starts from the committed offset
+    try (Consumer<String, String> consumer = consumer(topicName, groupId)) {
+      List<Consumer.Record<String, String>> records = consumer.poll(Duration.ofSeconds(10), 7);
+      Assert.assertEquals(7, records.size());
+      Assert.assertEquals("3", records.get(0).key().get());
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testOffsetsWithoutGroupId() {
+    try (Producer<String, String> producer = producer()) {
+      TransactionBatcher.<String, String>builder()
+          .producer(producer)
+          .build()
+          .offsets(Collections.singletonMap(new TopicPartition("a", 0), 1L));
+    }
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.kafka;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicReference;
+import oharastream.ohara.common.rule.OharaTest;
+import oharastream.ohara.kafka.connector.json.ConnectorDefUtils;
+import oharastream.ohara.kafka.connector.json.ConnectorFormatter;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.config.TopicConfig;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestTuningProfile extends OharaTest {
+
+  @Test
+  public void testOf() {
+    for (TuningProfile profile : TuningProfile.values()) {
+      Assert.assertEquals(profile, TuningProfile.of(profile.name()));
+      Assert.assertEquals(profile, TuningProfile.of(profile.name().toLowerCase()));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownProfile() {
+    TuningProfile.of("abc");
+  }
+
+  @Test
+  public void testConnectorOptions() {
+    for (TuningProfile profile : TuningProfile.values()) {
+      Map<String, String> options = profile.connectorOptions();
+      Assert.assertEquals(
+          profile.producerOptions().size() + profile.consumerOptions().size(), options.size());
+      profile
+          .producerOptions()
+          .forEach(
+              (k, v) ->
+                  Assert.assertEquals(v, options.get(TuningProfile.PRODUCER_OVERRIDE_PREFIX + k)));
+      profile
+          .consumerOptions()
+          .forEach(
+              (k, v) ->
+                  Assert.assertEquals(v, options.get(TuningProfile.CONSUMER_OVERRIDE_PREFIX + k)));
+    }
+  }
+
+  @Test
+  public void testExpandProfileInConnectorSettings() {
+    String key = TuningProfile.PRODUCER_OVERRIDE_PREFIX + ProducerConfig.LINGER_MS_CONFIG;
+    Map<String, String> settings =
+        ConnectorFormatter.of()
+            .setting(key, "123")
+            .setting(
+                ConnectorDefUtils.TUNING_PROFILE_DEFINITION.key(), TuningProfile.THROUGHPUT.name())
+            .raw();
+    // the explicit override is kept
+    Assert.assertEquals("123", settings.get(key));
+    Assert.assertEquals(
+        TuningProfile.THROUGHPUT.producerOptions().get(ProducerConfig.BATCH_SIZE_CONFIG),
+        settings.get(TuningProfile.PRODUCER_OVERRIDE_PREFIX + ProducerConfig.BATCH_SIZE_CONFIG));
+  }
+
+  @Test
+  public void testNoDefaultProfileInConnectorSettings() {
+    // the clients keep the kafka defaults unless the profile is set
+    Assert.assertFalse(ConnectorDefUtils.TUNING_PROFILE_DEFINITION.hasDefault());
+    Assert.assertTrue(
+        ConnectorFormatter.of().raw().keySet().stream()
+            .noneMatch(k -> k.startsWith(TuningProfile.PRODUCER_OVERRIDE_PREFIX)));
+  }
+
+  @Test
+  public void testTopicOptions() {
+    AtomicReference<Map<String, String>> created = new AtomicReference<>();
+    TopicCreator creator =
+        new TopicCreator() {
+          @Override
+          protected CompletionStage<Void> doCreate(
+              int numberOfPartitions,
+              short numberOfReplications,
+              Map<String, String> o,
+              String name) {
+            created.set(o);
+            return CompletableFuture.completedFuture(null);
+          }
+        };
+    creator
+        .topicName("a")
+        .profile(TuningProfile.THROUGHPUT)
+        .options(Collections.singletonMap(TopicConfig.SEGMENT_BYTES_CONFIG, "100"))
+        .create();
+    // the explicit option is kept
+    Assert.assertEquals("100", created.get().get(TopicConfig.SEGMENT_BYTES_CONFIG));
+    Assert.assertEquals(
+        TuningProfile.THROUGHPUT.topicOptions().get(TopicConfig.COMPRESSION_TYPE_CONFIG),
+        created.get().get(TopicConfig.COMPRESSION_TYPE_CONFIG));
+  }
+}
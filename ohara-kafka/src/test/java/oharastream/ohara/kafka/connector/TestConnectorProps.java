@@ -16,6 +16,7 @@
 
 package oharastream.ohara.kafka.connector;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -28,8 +29,11 @@ import oharastream.ohara.common.rule.OharaTest;
 import oharastream.ohara.common.setting.ConnectorKey;
 import oharastream.ohara.common.setting.SettingDef;
 import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.kafka.connector.json.ConnectorDefUtils;
 import oharastream.ohara.kafka.connector.json.ConnectorFormatter;
+import org.apache.kafka.clients.producer.RecordMetadata;
 import org.apache.kafka.connect.sink.SinkRecord;
+import org.apache.kafka.connect.source.SourceRecord;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -360,4 +364,108 @@ public class TestConnectorProps extends OharaTest {
   public void failToCallCounterBuilderBeforeStartingSinkTask() {
     new DumbSinkTask().counterBuilder();
   }
+
+  @Test
+  public void partitionMetricsAreDisabledByDefault() {
+    RowSinkTask sinkTask = new DumbSinkTask();
+    sinkTask.start(ConnectorFormatter.of().connectorKey(ConnectorKey.of("g", "n")).raw());
+    try {
+      Assert.assertNull(sinkTask.partitionMetrics);
+    } finally {
+      sinkTask.stop();
+    }
+    RowSourceTask sourceTask = new DumbSourceTask();
+    sourceTask.start(ConnectorFormatter.of().connectorKey(ConnectorKey.of("g", "n")).raw());
+    try {
+      Assert.assertNull(sourceTask.partitionMetrics);
+    } finally {
+      sourceTask.stop();
+    }
+  }
+
+  @Test
+  public void testPartitionMetricsInSink() {
+    RowSinkTask task = new DumbSinkTask();
+    task.start(
+        ConnectorFormatter.of()
+            .connectorKey(ConnectorKey.of("g", "n"))
+            .setting(ConnectorDefUtils.PARTITION_METRICS_DEFINITION.key(), "true")
+            .raw());
+    try {
+      // nothing is registered before opening partitions
+      Assert.assertEquals(0, task.partitionMetrics.size());
+      org.apache.kafka.common.TopicPartition p0 =
+          new org.apache.kafka.common.TopicPartition("topic", 0);
+      org.apache.kafka.common.TopicPartition p1 =
+          new org.apache.kafka.common.TopicPartition("topic", 1);
+      task.open(Arrays.asList(p0, p1));
+      Assert.assertEquals(2, task.partitionMetrics.size());
+
+      long timestamp = CommonUtils.current() - 1000;
+      task.put(
+          Collections.singletonList(
+              new SinkRecord(
+                  "topic",
+                  1,
+                  null,
+                  Serializer.ROW.to(Row.of(Cell.of("a", CommonUtils.randomString()))),
+                  null,
+                  null,
+                  10,
+                  timestamp,
+                  org.apache.kafka.common.record.TimestampType.CREATE_TIME)));
+      PartitionMetrics metrics0 = task.partitionMetrics.get(new TopicPartition("topic", 0));
+      PartitionMetrics metrics1 = task.partitionMetrics.get(new TopicPartition("topic", 1));
+      Assert.assertEquals(0, metrics0.messageNumberCounter.getValue());
+      Assert.assertEquals(1, metrics1.messageNumberCounter.getValue());
+      Assert.assertNotEquals(0, metrics1.messageSizeCounter.getValue());
+      Assert.assertEquals(1, metrics1.latencyHistogram.getCount());
+      Assert.assertTrue(metrics1.latencyHistogram.getSum() >= 1000);
+
+      task.close(Collections.singletonList(p0));
+      Assert.assertTrue(metrics0.messageNumberCounter.isClosed());
+      Assert.assertFalse(metrics1.messageNumberCounter.isClosed());
+      Assert.assertEquals(1, task.partitionMetrics.size());
+    } finally {
+      task.stop();
+    }
+    Assert.assertEquals(0, task.partitionMetrics.size());
+  }
+
+  @Test
+  public void testPartitionMetricsInSource() {
+    RowSourceTask task = new DumbSourceTask();
+    task.start(
+        ConnectorFormatter.of()
+            .connectorKey(ConnectorKey.of("g", "n"))
+            .setting(ConnectorDefUtils.PARTITION_METRICS_DEFINITION.key(), "true")
+            .raw());
+    try {
+      Assert.assertEquals(0, task.partitionMetrics.size());
+      long timestamp = CommonUtils.current() - 1000;
+      SourceRecord record =
+          new SourceRecord(
+              null,
+              null,
+              "topic",
+              2,
+              null,
+              Serializer.ROW.to(Row.of(Cell.of("a", CommonUtils.randomString()))),
+              null,
+              null,
+              timestamp);
+      task.commitRecord(
+          record,
+          new RecordMetadata(
+              new org.apache.kafka.common.TopicPartition("topic", 2), 0, 0, timestamp, 0L, 0, 0));
+      Assert.assertEquals(1, task.partitionMetrics.size());
+      PartitionMetrics metrics = task.partitionMetrics.get(new TopicPartition("topic", 2));
+      Assert.assertEquals(1, metrics.messageNumberCounter.getValue());
+      Assert.assertNotEquals(0, metrics.messageSizeCounter.getValue());
+      Assert.assertEquals(1, metrics.latencyHistogram.getCount());
+    } finally {
+      task.stop();
+    }
+    Assert.assertEquals(0, task.partitionMetrics.size());
+  }
 }
@@ -16,13 +16,16 @@
 
 package oharastream.ohara.kafka.connector;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import oharastream.ohara.common.data.Cell;
 import oharastream.ohara.common.data.Column;
 import oharastream.ohara.common.data.DataType;
 import oharastream.ohara.common.data.Row;
 import oharastream.ohara.common.rule.OharaTest;
 import oharastream.ohara.common.util.CommonUtils;
+import org.junit.Assert;
 import org.junit.Test;
 
 public class TestConnectorUtils extends OharaTest {
@@ -79,4 +82,38 @@ public class TestConnectorUtils extends OharaTest {
         Collections.singletonList(column),
         false);
   }
+
+  @Test
+  public void testValidator() {
+    List<Column> columns =
+        Arrays.asList(
+            Column.builder().name("a").dataType(DataType.STRING).build(),
+            Column.builder().name("b").dataType(DataType.INT).build(),
+            Column.builder().name("c").dataType(DataType.OBJECT).build());
+    SchemaValidator validator = SchemaValidator.of(columns, true);
+    // the order of cells is irrelevant
+    validator.validate(Row.of(Cell.of("c", 1.0), Cell.of("a", "v"), Cell.of("b", 1)));
+
+    // test illegal size
+    assertException(
+        IllegalArgumentException.class,
+        () -> validator.validate(Row.of(Cell.of("a", "v"), Cell.of("b", 1))));
+
+    // test unknown name
+    assertException(
+        IllegalArgumentException.class,
+        () -> validator.validate(Row.of(Cell.of("a", "v"), Cell.of("b", 1), Cell.of("d", 1))));
+
+    // test illegal type
+    assertException(
+        IllegalArgumentException.class,
+        () -> validator.validate(Row.of(Cell.of("a", "v"), Cell.of("b", 1L), Cell.of("c", 1))));
+  }
+
+  @Test
+  public void emptyValidatorShouldAcceptAllRows() {
+    SchemaValidator validator = SchemaValidator.of(Collections.emptyList(), false);
+    Assert.assertTrue(validator.isEmpty());
+    validator.validate(Row.of(Cell.of("a", "v")));
+  }
 }
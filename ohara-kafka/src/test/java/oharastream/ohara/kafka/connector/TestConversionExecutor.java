@@ -0,0 +1,201 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.kafka.connector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import oharastream.ohara.common.data.Cell;
+import oharastream.ohara.common.data.Row;
+import oharastream.ohara.common.data.Serializer;
+import oharastream.ohara.common.rule.OharaTest;
+import oharastream.ohara.common.setting.ConnectorKey;
+import oharastream.ohara.kafka.connector.json.ConnectorDefUtils;
+import oharastream.ohara.kafka.connector.json.ConnectorFormatter;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestConversionExecutor extends OharaTest {
+
+  private static List<Integer> values(int size) {
+    return IntStream.range(0, size).boxed().collect(Collectors.toList());
+  }
+
+  @Test
+  public void testNegativeThreads() {
+    assertException(IllegalArgumentException.class, () -> ConversionExecutor.of(-1));
+    assertException(IllegalArgumentException.class, () -> ConversionExecutor.of(0));
+  }
+
+  @Test
+  public void testSerial() {
+    Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    try (ConversionExecutor executor = ConversionExecutor.of(1)) {
+      List<Integer> values = values(ConversionExecutor.MIN_CHUNK_SIZE * 10);
+      Assert.assertEquals(
+          values,
+          executor.map(
+              values,
+              v -> {
+                threads.add(Thread.currentThread());
+                return v;
+              }));
+    }
+    Assert.assertEquals(Collections.singleton(Thread.currentThread()), threads);
+  }
+
+  @Test
+  public void testSmallBatchIsConvertedByCaller() {
+    Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    try (ConversionExecutor executor = ConversionExecutor.of(4)) {
+      List<Integer> values = values(ConversionExecutor.MIN_CHUNK_SIZE);
+      Assert.assertEquals(
+          values,
+          executor.map(
+              values,
+              v -> {
+                threads.add(Thread.currentThread());
+                return v;
+              }));
+    }
+    Assert.assertEquals(Collections.singleton(Thread.currentThread()), threads);
+  }
+
+  @Test
+  public void testOrder() {
+    Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    try (ConversionExecutor executor = ConversionExecutor.of(4)) {
+      Assert.assertEquals(4, executor.threads());
+      // the size is not divisible by the number of threads
+      List<Integer> values = values(ConversionExecutor.MIN_CHUNK_SIZE * 10 + 3);
+      List<String> results =
+          executor.map(
+              values,
+              v -> {
+                threads.add(Thread.currentThread());
+                return String.valueOf(v);
+              });
+      Assert.assertEquals(
+          values.stream().map(String::valueOf).collect(Collectors.toList()), results);
+    }
+    Assert.assertEquals(4, threads.size());
+    Assert.assertTrue(threads.contains(Thread.currentThread()));
+  }
+
+  @Test
+  public void testException() {
+    try (ConversionExecutor executor = ConversionExecutor.of(4)) {
+      List<Integer> values = values(ConversionExecutor.MIN_CHUNK_SIZE * 10);
+      IllegalArgumentException e =
+          assertException(
+              IllegalArgumentException.class,
+              () ->
+                  executor.map(
+                      values,
+                      v -> {
+                        // the last chunk is converted by the worker thread
+                        if (v == values.size() - 1) throw new IllegalArgumentException("abc");
+                        return v;
+                      }));
+      Assert.assertEquals("abc", e.getMessage());
+      // the executor is still usable
+      Assert.assertEquals(values, executor.map(values, v -> v));
+    }
+  }
+
+  @Test
+  public void testSourceTask() {
+    int numberOfRecords = ConversionExecutor.MIN_CHUNK_SIZE * 10;
+    RowSourceTask task =
+        new DumbSourceTask() {
+          @Override
+          protected List<RowSourceRecord> pollRecords() {
+            return IntStream.range(0, numberOfRecords)
+                .mapToObj(
+                    i ->
+                        RowSourceRecord.builder()
+                            .row(Row.of(Cell.of("a", i)))
+                            .topicName("t")
+                            .build())
+                .collect(Collectors.toList());
+          }
+        };
+    task.start(
+        ConnectorFormatter.of()
+            .connectorKey(ConnectorKey.of("a", "b"))
+            .setting(ConnectorDefUtils.CONVERSION_THREADS_DEFINITION.key(), "4")
+            .raw());
+    try {
+      Assert.assertEquals(4, task.conversionExecutor.threads());
+      List<SourceRecord> records = task.poll();
+      Assert.assertEquals(numberOfRecords, records.size());
+      for (int i = 0; i != numberOfRecords; ++i)
+        Assert.assertEquals(
+            Row.of(Cell.of("a", i)), Serializer.ROW.from((byte[]) records.get(i).key()));
+    } finally {
+      task.stop();
+    }
+  }
+
+  @Test
+  public void testSinkTask() {
+    int numberOfRecords = ConversionExecutor.MIN_CHUNK_SIZE * 10;
+    List<RowSinkRecord> written = new ArrayList<>();
+    RowSinkTask task =
+        new DumbSinkTask() {
+          @Override
+          protected void putRecords(List<RowSinkRecord> records) {
+            written.addAll(records);
+          }
+        };
+    task.start(
+        ConnectorFormatter.of()
+            .connectorKey(ConnectorKey.of("a", "b"))
+            .setting(ConnectorDefUtils.CONVERSION_THREADS_DEFINITION.key(), "4")
+            .raw());
+    try {
+      Assert.assertEquals(4, task.conversionExecutor.threads());
+      task.put(
+          IntStream.range(0, numberOfRecords)
+              .mapToObj(
+                  i ->
+                      new SinkRecord(
+                          "t",
+                          0,
+                          Schema.BYTES_SCHEMA,
+                          Serializer.ROW.to(Row.of(Cell.of("a", i))),
+                          null,
+                          null,
+                          i))
+              .collect(Collectors.toList()));
+      Assert.assertEquals(numberOfRecords, written.size());
+      for (int i = 0; i != numberOfRecords; ++i) {
+        Assert.assertEquals(Row.of(Cell.of("a", i)), written.get(i).row());
+        Assert.assertEquals(i, written.get(i).offset());
+      }
+    } finally {
+      task.stop();
+    }
+  }
+}
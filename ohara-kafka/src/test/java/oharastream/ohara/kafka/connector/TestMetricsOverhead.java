@@ -0,0 +1,194 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.kafka.connector;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import oharastream.ohara.common.data.Cell;
+import oharastream.ohara.common.data.Row;
+import oharastream.ohara.common.data.Serializer;
+import oharastream.ohara.common.rule.OharaBenchmark;
+import oharastream.ohara.common.setting.ConnectorKey;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.kafka.connector.json.ConnectorDefUtils;
+import oharastream.ohara.kafka.connector.json.ConnectorFormatter;
+import oharastream.ohara.metrics.basic.Counter;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Compares the cost of data path with metrics and without metrics. The budget is the ratio of extra
+ * cost brought by metrics and it can be overridden by the system property.
+ */
+public class TestMetricsOverhead extends OharaBenchmark {
+  private static final double OVERHEAD_BUDGET =
+      budget("ohara.benchmark.connector.metrics.overhead.budget", 0.5);
+
+  private static final int NUMBER_OF_PARTITIONS = 4;
+  private static final int NUMBER_OF_RECORDS = 1000;
+  private static final int ROUNDS = 20;
+
+  private static final Row ROW =
+      Row.of(
+          Cell.of("a", CommonUtils.randomString(10)),
+          Cell.of("b", CommonUtils.current()),
+          Cell.of("c", CommonUtils.randomString(100)));
+
+  private static void checkOverhead(String name, long withMetrics, long withoutMetrics) {
+    double overhead = (double) (withMetrics - withoutMetrics) / (double) withoutMetrics;
+    Assert.assertTrue(
+        name
+            + " costs "
+            + withMetrics
+            + " ns with metrics and "
+            + withoutMetrics
+            + " ns without metrics. the budget of overhead is "
+            + OVERHEAD_BUDGET,
+        overhead <= OVERHEAD_BUDGET);
+  }
+
+  private static ConnectorFormatter formatter(boolean partitionMetrics) {
+    return ConnectorFormatter.of()
+        .connectorKey(ConnectorKey.of(CommonUtils.randomString(5), CommonUtils.randomString(5)))
+        .setting(
+            ConnectorDefUtils.PARTITION_METRICS_DEFINITION.key(), String.valueOf(partitionMetrics));
+  }
+
+  /**
+   * close the counter and return null so the task skips the metrics.
+   *
+   * @param counter counter
+   * @return null
+   */
+  private static Counter disable(Counter counter) {
+    counter.close();
+    return null;
+  }
+
+  private static void disableCounters(RowSinkTask task) {
+    task.messageNumberCounter = disable(task.messageNumberCounter);
+    task.messageSizeCounter = disable(task.messageSizeCounter);
+    task.ignoredMessageNumberCounter = disable(task.ignoredMessageNumberCounter);
+    task.ignoredMessageSizeCounter = disable(task.ignoredMessageSizeCounter);
+  }
+
+  private static void disableCounters(RowSourceTask task) {
+    task.messageNumberCounter = disable(task.messageNumberCounter);
+    task.messageSizeCounter = disable(task.messageSizeCounter);
+    task.ignoredMessageNumberCounter = disable(task.ignoredMessageNumberCounter);
+    task.ignoredMessageSizeCounter = disable(task.ignoredMessageSizeCounter);
+    task.inFlightMessageNumberCounter = disable(task.inFlightMessageNumberCounter);
+    task.inFlightMessageSizeCounter = disable(task.inFlightMessageSizeCounter);
+    // the in-flight records update the counters
+    task.inFlightRecords =
+        InFlightRecords.of(
+            task.taskSetting.maxInFlightRecords(), task.taskSetting.maxInFlightBytes(), null, null);
+  }
+
+  private static long put(RowSinkTask task) {
+    String topic = CommonUtils.randomString(5);
+    task.open(
+        IntStream.range(0, NUMBER_OF_PARTITIONS)
+            .mapToObj(i -> new org.apache.kafka.common.TopicPartition(topic, i))
+            .collect(Collectors.toList()));
+    byte[] key = Serializer.ROW.to(ROW);
+    List<SinkRecord> records =
+        IntStream.range(0, NUMBER_OF_RECORDS)
+            .mapToObj(
+                i ->
+                    new SinkRecord(
+                        topic,
+                        i % NUMBER_OF_PARTITIONS,
+                        null,
+                        key,
+                        null,
+                        null,
+                        i,
+                        CommonUtils.current(),
+                        TimestampType.CREATE_TIME))
+            .collect(Collectors.toList());
+    try {
+      return bestOf(ROUNDS, () -> task.put(records));
+    } finally {
+      task.stop();
+    }
+  }
+
+  private static long poll(RowSourceTask task) {
+    try {
+      return bestOf(
+          ROUNDS,
+          () -> {
+            Assert.assertEquals(NUMBER_OF_RECORDS, task.poll().size());
+            task.inFlightRecords.clear();
+          });
+    } finally {
+      task.stop();
+    }
+  }
+
+  private static RowSourceTask sourceTask() {
+    String topic = CommonUtils.randomString(5);
+    List<RowSourceRecord> records =
+        IntStream.range(0, NUMBER_OF_RECORDS)
+            .mapToObj(
+                i ->
+                    RowSourceRecord.builder()
+                        .row(ROW)
+                        .topicName(topic)
+                        .partition(i % NUMBER_OF_PARTITIONS)
+                        .build())
+            .collect(Collectors.toList());
+    return new DumbSourceTask() {
+      @Override
+      protected List<RowSourceRecord> pollRecords() {
+        return records;
+      }
+    };
+  }
+
+  @Test
+  public void testPut() {
+    RowSinkTask noMetrics = new DumbSinkTask();
+    noMetrics.start(formatter(false).raw());
+    disableCounters(noMetrics);
+    long withoutMetrics = put(noMetrics);
+
+    RowSinkTask counters = new DumbSinkTask();
+    counters.start(formatter(false).raw());
+    checkOverhead("put with counters", put(counters), withoutMetrics);
+
+    RowSinkTask partitionMetrics = new DumbSinkTask();
+    partitionMetrics.start(formatter(true).raw());
+    checkOverhead("put with partition metrics", put(partitionMetrics), withoutMetrics);
+  }
+
+  @Test
+  public void testPoll() {
+    RowSourceTask noMetrics = sourceTask();
+    noMetrics.start(formatter(false).raw());
+    disableCounters(noMetrics);
+    long withoutMetrics = poll(noMetrics);
+
+    RowSourceTask counters = sourceTask();
+    counters.start(formatter(false).raw());
+    checkOverhead("poll with counters", poll(counters), withoutMetrics);
+  }
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.kafka.connector;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import oharastream.ohara.common.data.Cell;
+import oharastream.ohara.common.data.Row;
+import oharastream.ohara.common.data.Serializer;
+import oharastream.ohara.common.rule.OharaTest;
+import oharastream.ohara.common.setting.ConnectorKey;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.kafka.connector.json.ConnectorDefUtils;
+import oharastream.ohara.kafka.connector.json.ConnectorFormatter;
+import oharastream.ohara.metrics.BeanChannel;
+import oharastream.ohara.metrics.BeanObject;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.apache.kafka.connect.sink.SinkTaskContext;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestRateLimiter extends OharaTest {
+
+  @Test
+  public void testUnlimited() {
+    RateLimiter limiter = RateLimiter.of(0, 0, null);
+    limiter.consume(Long.MAX_VALUE, Long.MAX_VALUE);
+    Assert.assertEquals(0, limiter.getThrottleTime());
+  }
+
+  @Test
+  public void testRows() {
+    RateLimiter limiter = RateLimiter.of(10, 0, null);
+    // the bucket holds the tokens of one second
+    limiter.consume(10, Long.MAX_VALUE);
+    Assert.assertEquals(0, limiter.getThrottleTime());
+    limiter.consume(10, 0);
+    long throttleTime = limiter.getThrottleTime();
+    Assert.assertTrue(throttleTime > 0);
+    Assert.assertTrue(throttleTime <= 1000);
+  }
+
+  @Test
+  public void testBytes() {
+    RateLimiter limiter = RateLimiter.of(0, 100, null);
+    limiter.consume(Long.MAX_VALUE, 300);
+    long throttleTime = limiter.getThrottleTime();
+    Assert.assertTrue(throttleTime > 1000);
+    Assert.assertTrue(throttleTime <= 2000);
+  }
+
+  @Test
+  public void testUpdateRate() {
+    RateLimiter limiter = RateLimiter.of(10, 0, null);
+    limiter.consume(100, 0);
+    Assert.assertTrue(limiter.getThrottleTime() > 0);
+    // the debt is not forgotten
+    limiter.setRowsPerSecond(1000);
+    Assert.assertEquals(1000, limiter.getRowsPerSecond());
+    Assert.assertTrue(limiter.getThrottleTime() > 0);
+    limiter.setRowsPerSecond(0);
+    Assert.assertEquals(0, limiter.getThrottleTime());
+    // the bucket is full when the limit is enabled
+    limiter.setBytesPerSecond(10);
+    limiter.consume(0, 10);
+    Assert.assertEquals(0, limiter.getThrottleTime());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeRate() {
+    RateLimiter.of(-1, 0, null);
+  }
+
+  @Test
+  public void testAwait() throws InterruptedException {
+    RateLimiter limiter = RateLimiter.of(100, 0, null);
+    limiter.consume(200, 0);
+    Assert.assertFalse(limiter.await(10));
+    Assert.assertTrue(limiter.await(2000));
+  }
+
+  @Test
+  public void testMBean() {
+    ConnectorKey key = ConnectorKey.of(CommonUtils.randomString(), CommonUtils.randomString());
+    RateLimiter limiter = RateLimiter.of(10, 20, null).register(key);
+    try {
+      Map<String, Object> attributes = beanAttributes(key);
+      Assert.assertEquals(10L, attributes.get("RowsPerSecond"));
+      Assert.assertEquals(20L, attributes.get("BytesPerSecond"));
+    } finally {
+      limiter.close();
+    }
+    Assert.assertTrue(beans(key).isEmpty());
+  }
+
+  private static List<BeanObject> beans(ConnectorKey key) {
+    return BeanChannel.local().beanObjects().stream()
+        .filter(obj -> obj.domainName().equals(RateLimiterMBean.DOMAIN))
+        .filter(
+            obj ->
+                RateLimiterMBean.TYPE_VALUE.equals(obj.properties().get(RateLimiterMBean.TYPE_KEY)))
+        .filter(obj -> key.toPlain().equals(obj.properties().get(RateLimiterMBean.KEY_KEY)))
+        .collect(Collectors.toList());
+  }
+
+  private static Map<String, Object> beanAttributes(ConnectorKey key) {
+    List<BeanObject> beans = beans(key);
+    Assert.assertEquals(1, beans.size());
+    return beans.get(0).attributes();
+  }
+
+  @Test
+  public void testSourceTask() {
+    RowSourceTask task =
+        new DumbSourceTask() {
+          @Override
+          protected List<RowSourceRecord> pollRecords() {
+            return Arrays.asList(
+                RowSourceRecord.builder().row(Row.of(Cell.of("a", 1))).topicName("t").build(),
+                RowSourceRecord.builder().row(Row.of(Cell.of("a", 2))).topicName("t").build(),
+                RowSourceRecord.builder().row(Row.of(Cell.of("a", 3))).topicName("t").build());
+          }
+        };
+    task.start(
+        ConnectorFormatter.of()
+            .connectorKey(ConnectorKey.of("a", "b"))
+            .setting(ConnectorDefUtils.RATE_LIMIT_ROWS_DEFINITION.key(), "1")
+            .raw());
+    try {
+      Assert.assertEquals(3, task.poll().size());
+      // the debt is 2 seconds
+      Assert.assertNull(task.poll());
+      Assert.assertTrue(task.throttledTimeCounter.getValue() > 0);
+    } finally {
+      task.stop();
+    }
+  }
+
+  @Test
+  public void testSinkTask() {
+    TopicPartition partition = new TopicPartition("t", 0);
+    Set<TopicPartition> paused = new HashSet<>();
+    List<Long> timeouts = new ArrayList<>();
+    RowSinkTask task = new DumbSinkTask();
+    task.start(
+        ConnectorFormatter.of()
+            .connectorKey(ConnectorKey.of("a", "b"))
+            .setting(ConnectorDefUtils.RATE_LIMIT_ROWS_DEFINITION.key(), "1")
+            .raw());
+    task.taskContext =
+        new RowSinkContext() {
+          @Override
+          public void offset(Map<TopicPartition, Long> offsets) {}
+
+          @Override
+          public Set<TopicPartition> assignment() {
+            return new HashSet<>(Arrays.asList(partition));
+          }
+
+          @Override
+          public void pause(Collection<TopicPartition> partitions) {
+            paused.addAll(partitions);
+          }
+
+          @Override
+          public void resume(Collection<TopicPartition> partitions) {
+            paused.removeAll(partitions);
+          }
+
+          @Override
+          public void requestCommit() {}
+
+          @Override
+          public void timeout(long timeoutMs) {
+            timeouts.add(timeoutMs);
+          }
+        };
+    try {
+      byte[] row = Serializer.ROW.to(Row.of(Cell.of("a", 1)));
+      task.put(
+          Arrays.asList(
+              new SinkRecord("t", 0, Schema.BYTES_SCHEMA, row, null, null, 0),
+              new SinkRecord("t", 0, Schema.BYTES_SCHEMA, row, null, null, 1)));
+      Assert.assertEquals(1, paused.size());
+      Assert.assertEquals(1, timeouts.size());
+      Assert.assertTrue(timeouts.get(0) > 0);
+
+      // the debt is not repaid
+      task.put(Collections.emptyList());
+      Assert.assertEquals(1, paused.size());
+      Assert.assertEquals(2, timeouts.size());
+
+      // the debt is repaid after about 1 second
+      CommonUtils.await(
+          () -> {
+            task.put(Collections.emptyList());
+            return paused.isEmpty();
+          },
+          Duration.ofSeconds(5));
+      Assert.assertTrue(task.throttledTimeCounter.getValue() > 0);
+    } finally {
+      task.stop();
+    }
+  }
+
+  @Test
+  public void testSinkTaskKeepsPartitionsPausedBySubClass() {
+    org.apache.kafka.common.TopicPartition partition0 =
+        new org.apache.kafka.common.TopicPartition("t", 0);
+    org.apache.kafka.common.TopicPartition partition1 =
+        new org.apache.kafka.common.TopicPartition("t", 1);
+    Set<org.apache.kafka.common.TopicPartition> paused = new HashSet<>();
+    RowSinkTask task = new DumbSinkTask();
+    task.initialize(
+        new SinkTaskContext() {
+          @Override
+          public Map<String, String> configs() {
+            return Collections.emptyMap();
+          }
+
+          @Override
+          public void offset(Map<org.apache.kafka.common.TopicPartition, Long> offsets) {}
+
+          @Override
+          public void offset(org.apache.kafka.common.TopicPartition tp, long offset) {}
+
+          @Override
+          public void timeout(long timeoutMs) {}
+
+          @Override
+          public Set<org.apache.kafka.common.TopicPartition> assignment() {
+            return new HashSet<>(Arrays.asList(partition0, partition1));
+          }
+
+          @Override
+          public void pause(org.apache.kafka.common.TopicPartition... partitions) {
+            paused.addAll(Arrays.asList(partitions));
+          }
+
+          @Override
+          public void resume(org.apache.kafka.common.TopicPartition... partitions) {
+            paused.removeAll(Arrays.asList(partitions));
+          }
+
+          @Override
+          public void requestCommit() {}
+        });
+    task.start(
+        ConnectorFormatter.of()
+            .connectorKey(ConnectorKey.of("a", "b"))
+            .setting(ConnectorDefUtils.RATE_LIMIT_ROWS_DEFINITION.key(), "1")
+            .raw());
+    try {
+      // the sub class pauses the partition by itself
+      task.rowContext.pause(Collections.singletonList(new TopicPartition("t", 0)));
+      byte[] row = Serializer.ROW.to(Row.of(Cell.of("a", 1)));
+      task.put(
+          Arrays.asList(
+              new SinkRecord("t", 1, Schema.BYTES_SCHEMA, row, null, null, 0),
+              new SinkRecord("t", 1, Schema.BYTES_SCHEMA, row, null, null, 1)));
+      Assert.assertEquals(new HashSet<>(Arrays.asList(partition0, partition1)), paused);
+
+      // the end of throttle resumes only the partitions paused by rate limit
+      CommonUtils.await(
+          () -> {
+            task.put(Collections.emptyList());
+            return task.throttledSince < 0;
+          },
+          Duration.ofSeconds(5));
+      Assert.assertEquals(Collections.singleton(partition0), paused);
+    } finally {
+      task.stop();
+    }
+  }
+}
@@ -24,13 +24,20 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import oharastream.ohara.common.data.Cell;
+import oharastream.ohara.common.data.Column;
+import oharastream.ohara.common.data.DataType;
 import oharastream.ohara.common.data.Row;
 import oharastream.ohara.common.rule.OharaTest;
 import oharastream.ohara.common.setting.ConnectorKey;
 import oharastream.ohara.common.setting.SettingDef;
 import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.kafka.connector.json.ConnectorDefUtils;
 import oharastream.ohara.kafka.connector.json.ConnectorFormatter;
+import org.apache.kafka.connect.source.SourceRecord;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -145,14 +152,175 @@ public class TestRowSourceRecord extends OharaTest {
             .connectorKey(ConnectorKey.of("a", "b"))
             .checkRule(SettingDef.CheckRule.PERMISSIVE)
             .raw());
-    Assert.assertEquals(1, task.poll().size());
-    Assert.assertEquals(1, task.cachedRecords.size());
+    List<SourceRecord> records = task.poll();
+    Assert.assertEquals(1, records.size());
+    Assert.assertEquals(1, task.inFlightRecords.size());
+    Assert.assertEquals(ConnectorUtils.sizeOf(records.get(0)), task.inFlightRecords.bytes());
+    Assert.assertEquals(task.inFlightRecords.bytes(), task.inFlightMessageSizeCounter.getValue());
     org.apache.kafka.clients.producer.RecordMetadata meta =
         new org.apache.kafka.clients.producer.RecordMetadata(
             new org.apache.kafka.common.TopicPartition("A", 1), 1, 2, 3, 4L, 5, 6);
-    // this loop will remove the elements in the cache so we have to clone another list to prevent
-    // ConcurrentModificationException
-    new ArrayList<>(task.cachedRecords.keySet()).forEach(r -> task.commitRecord(r, meta));
-    Assert.assertEquals(0, task.cachedRecords.size());
+    records.forEach(r -> task.commitRecord(r, meta));
+    Assert.assertEquals(0, task.inFlightRecords.size());
+    Assert.assertEquals(0, task.inFlightRecords.bytes());
+    // the counters are updated by next poll
+    task.inFlightRecords.updateCounters();
+    Assert.assertEquals(0, task.inFlightMessageSizeCounter.getValue());
+    task.stop();
+  }
+
+  @Test
+  public void filteredRecordsShouldNotBeCached() {
+    RowSourceRecord record =
+        RowSourceRecord.builder()
+            .row(Row.of(Cell.of("a", CommonUtils.randomString())))
+            .topicName(CommonUtils.randomString(10))
+            .build();
+    RowSourceTask task =
+        new DumbSourceTask() {
+          @Override
+          protected List<RowSourceRecord> pollRecords() {
+            return Collections.singletonList(record);
+          }
+        };
+    task.start(
+        ConnectorFormatter.of()
+            .connectorKey(ConnectorKey.of("a", "b"))
+            .checkRule(SettingDef.CheckRule.PERMISSIVE)
+            .column(Column.builder().name("b").dataType(DataType.STRING).build())
+            .raw());
+    Assert.assertEquals(0, task.poll().size());
+    Assert.assertEquals(0, task.inFlightRecords.size());
+    task.stop();
+  }
+
+  @Test
+  public void testBackpressure() {
+    RowSourceTask task =
+        new DumbSourceTask() {
+          @Override
+          protected List<RowSourceRecord> pollRecords() {
+            return Collections.singletonList(
+                RowSourceRecord.builder()
+                    .row(Row.of(Cell.of("a", CommonUtils.randomString())))
+                    .topicName("t")
+                    .build());
+          }
+        };
+    task.start(
+        ConnectorFormatter.of()
+            .connectorKey(ConnectorKey.of("a", "b"))
+            .setting(ConnectorDefUtils.MAX_INFLIGHT_RECORDS_DEFINITION.key(), "2")
+            .raw());
+    List<SourceRecord> records = new ArrayList<>(task.poll());
+    records.addAll(task.poll());
+    Assert.assertEquals(2, records.size());
+    // the in-flight records are full
+    Assert.assertNull(task.poll());
+    task.commitRecord(
+        records.get(0),
+        new org.apache.kafka.clients.producer.RecordMetadata(
+            new org.apache.kafka.common.TopicPartition("t", 0), 1, 2, 3, 4L, 5, 6));
+    Assert.assertEquals(1, task.poll().size());
+    task.stop();
+  }
+
+  private static RowSourceTask countingTask(AtomicInteger count, int numberOfRecords) {
+    return new DumbSourceTask() {
+      @Override
+      protected List<RowSourceRecord> pollRecords() {
+        count.incrementAndGet();
+        return IntStream.range(0, numberOfRecords)
+            .mapToObj(
+                i ->
+                    RowSourceRecord.builder()
+                        .row(Row.of(Cell.of("a", CommonUtils.randomString(10))))
+                        .topicName("t")
+                        .build())
+            .collect(Collectors.toList());
+      }
+    };
+  }
+
+  @Test
+  public void testBatchRecords() {
+    AtomicInteger count = new AtomicInteger();
+    RowSourceTask task = countingTask(count, 5);
+    task.start(
+        ConnectorFormatter.of()
+            .connectorKey(ConnectorKey.of("a", "b"))
+            .setting(ConnectorDefUtils.SOURCE_BATCH_RECORDS_DEFINITION.key(), "2")
+            .raw());
+    try {
+      Assert.assertEquals(2, task.poll().size());
+      Assert.assertEquals(3, task.pendingRecords.size());
+      Assert.assertEquals(2, task.poll().size());
+      Assert.assertEquals(1, task.poll().size());
+      // the pending records are sent before polling connector again
+      Assert.assertEquals(1, count.get());
+      Assert.assertEquals(2, task.poll().size());
+      Assert.assertEquals(2, count.get());
+    } finally {
+      task.stop();
+    }
+  }
+
+  @Test
+  public void testBatchBytes() {
+    AtomicInteger count = new AtomicInteger();
+    RowSourceTask task = countingTask(count, 5);
+    task.start(
+        ConnectorFormatter.of()
+            .connectorKey(ConnectorKey.of("a", "b"))
+            .setting(ConnectorDefUtils.SOURCE_BATCH_BYTES_DEFINITION.key(), "1")
+            .raw());
+    try {
+      // the batch is full after the first record
+      Assert.assertEquals(1, task.poll().size());
+      Assert.assertEquals(4, task.pendingRecords.size());
+    } finally {
+      task.stop();
+    }
+  }
+
+  @Test
+  public void testLinger() {
+    AtomicInteger count = new AtomicInteger();
+    RowSourceTask task = countingTask(count, 1);
+    task.start(
+        ConnectorFormatter.of()
+            .connectorKey(ConnectorKey.of("a", "b"))
+            .setting(ConnectorDefUtils.SOURCE_BATCH_RECORDS_DEFINITION.key(), "3")
+            .setting(ConnectorDefUtils.SOURCE_LINGER_DEFINITION.key(), "10 seconds")
+            .raw());
+    try {
+      // the records are accumulated until the batch is full
+      Assert.assertEquals(3, task.poll().size());
+      Assert.assertEquals(3, count.get());
+    } finally {
+      task.stop();
+    }
+  }
+
+  @Test
+  public void testEmptyPollBackoff() {
+    AtomicInteger count = new AtomicInteger();
+    RowSourceTask task = countingTask(count, 0);
+    task.start(
+        ConnectorFormatter.of()
+            .connectorKey(ConnectorKey.of("a", "b"))
+            .setting(ConnectorDefUtils.SOURCE_EMPTY_POLL_BACKOFF_DEFINITION.key(), "4 milliseconds")
+            .raw());
+    try {
+      Assert.assertNull(task.poll());
+      Assert.assertEquals(1, task.emptyPollSleepMs);
+      Assert.assertNull(task.poll());
+      Assert.assertEquals(2, task.emptyPollSleepMs);
+      Assert.assertNull(task.poll());
+      Assert.assertNull(task.poll());
+      Assert.assertEquals(4, task.emptyPollSleepMs);
+    } finally {
+      task.stop();
+    }
   }
 }
@@ -0,0 +1,363 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.kafka.connector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import oharastream.ohara.common.data.Cell;
+import oharastream.ohara.common.data.Row;
+import oharastream.ohara.common.data.Serializer;
+import oharastream.ohara.common.rule.OharaTest;
+import oharastream.ohara.common.setting.ConnectorKey;
+import oharastream.ohara.common.setting.PropGroup;
+import oharastream.ohara.common.setting.SettingDef;
+import oharastream.ohara.kafka.connector.json.ConnectorDefUtils;
+import oharastream.ohara.kafka.connector.json.ConnectorFormatter;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestRowTransformer extends OharaTest {
+
+  private static Map<String, String> transform(
+      int order, RowTransformer.Operator operator, String name, String value) {
+    Map<String, String> props = new HashMap<>();
+    props.put(SettingDef.ORDER_KEY, String.valueOf(order));
+    props.put(RowTransformer.OPERATOR_KEY, operator.name());
+    props.put(SettingDef.COLUMN_NAME_KEY, name);
+    if (value != null) props.put(RowTransformer.VALUE_KEY, value);
+    return props;
+  }
+
+  private static RowTransformer transformer(List<Map<String, String>> transforms) {
+    return RowTransformer.of(PropGroup.of(transforms));
+  }
+
+  @Test
+  public void testEmpty() {
+    RowTransformer transformer = RowTransformer.of(PropGroup.of(Collections.emptyList()));
+    Assert.assertTrue(transformer.isEmpty());
+    Row row = Row.of(Cell.of("a", 1));
+    Assert.assertSame(row, transformer.transform(row).get());
+  }
+
+  @Test
+  public void testProject() {
+    Row row =
+        transformer(
+                Collections.singletonList(
+                    transform(0, RowTransformer.Operator.PROJECT, "c, a, d", null)))
+            .transform(
+                Row.of(
+                    Collections.singletonList("tag"),
+                    Cell.of("a", 1),
+                    Cell.of("b", 2),
+                    Cell.of("c", 3)))
+            .get();
+    Assert.assertEquals(Arrays.asList("c", "a"), row.names());
+    Assert.assertEquals(Collections.singletonList("tag"), row.tags());
+  }
+
+  @Test
+  public void testRename() {
+    Row row =
+        transformer(
+                Collections.singletonList(transform(0, RowTransformer.Operator.RENAME, "a", "b")))
+            .transform(Row.of(Cell.of("a", 1), Cell.of("c", 3)))
+            .get();
+    Assert.assertEquals(Row.of(Cell.of("b", 1), Cell.of("c", 3)), row);
+  }
+
+  @Test
+  public void testCast() {
+    Row row =
+        transformer(
+                Arrays.asList(
+                    transform(0, RowTransformer.Operator.CAST, "a", "int"),
+                    transform(1, RowTransformer.Operator.CAST, "b", "STRING"),
+                    transform(2, RowTransformer.Operator.CAST, "c", "DOUBLE")))
+            .transform(Row.of(Cell.of("a", " 10 "), Cell.of("b", 3L), Cell.of("c", 5)))
+            .get();
+    Assert.assertEquals(Row.of(Cell.of("a", 10), Cell.of("b", "3"), Cell.of("c", 5.0D)), row);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIllegalCast() {
+    transformer(Collections.singletonList(transform(0, RowTransformer.Operator.CAST, "a", "INT")))
+        .transform(Row.of(Cell.of("a", "abc")));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnsupportedCast() {
+    transformer(Collections.singletonList(transform(0, RowTransformer.Operator.CAST, "a", "ROW")));
+  }
+
+  @Test
+  public void testFilter() {
+    RowTransformer transformer =
+        transformer(
+            Arrays.asList(
+                transform(0, RowTransformer.Operator.FILTER, "a", ">= 10"),
+                transform(1, RowTransformer.Operator.FILTER, "b", "!= x")));
+    Assert.assertTrue(
+        transformer.transform(Row.of(Cell.of("a", 10), Cell.of("b", "y"))).isPresent());
+    Assert.assertTrue(
+        transformer.transform(Row.of(Cell.of("a", 11.5), Cell.of("b", "y"))).isPresent());
+    Assert.assertFalse(
+        transformer.transform(Row.of(Cell.of("a", 9), Cell.of("b", "y"))).isPresent());
+    Assert.assertFalse(
+        transformer.transform(Row.of(Cell.of("a", 10), Cell.of("b", "x"))).isPresent());
+    // the row having no such column is filtered out
+    Assert.assertFalse(transformer.transform(Row.of(Cell.of("b", "y"))).isPresent());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIllegalPredicate() {
+    transformer(Collections.singletonList(transform(0, RowTransformer.Operator.FILTER, "a", "10")));
+  }
+
+  @Test
+  public void testAddColumns() {
+    long before = System.currentTimeMillis();
+    Row row =
+        transformer(
+                Arrays.asList(
+                    transform(0, RowTransformer.Operator.CONSTANT, "a", "v"),
+                    transform(1, RowTransformer.Operator.TIMESTAMP, "ts", null)))
+            .transform(Row.of(Cell.of("a", 1), Cell.of("b", 2)))
+            .get();
+    Assert.assertEquals(Arrays.asList("a", "b", "ts"), row.names());
+    Assert.assertEquals("v", row.cell("a").value());
+    Assert.assertTrue((Long) row.cell("ts").value() >= before);
+  }
+
+  @Test
+  public void testOrder() {
+    // the rename is executed before the filter
+    RowTransformer transformer =
+        transformer(
+            Arrays.asList(
+                transform(1, RowTransformer.Operator.FILTER, "b", "== 1"),
+                transform(0, RowTransformer.Operator.RENAME, "a", "b")));
+    Assert.assertTrue(transformer.transform(Row.of(Cell.of("a", 1))).isPresent());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMissingValue() {
+    transformer(Collections.singletonList(transform(0, RowTransformer.Operator.RENAME, "a", null)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownOperator() {
+    Map<String, String> props = transform(0, RowTransformer.Operator.RENAME, "a", "b");
+    props.put(RowTransformer.OPERATOR_KEY, "abc");
+    transformer(Collections.singletonList(props));
+  }
+
+  @Test
+  public void testSourceTask() {
+    RowSourceTask task =
+        new DumbSourceTask() {
+          @Override
+          protected List<RowSourceRecord> pollRecords() {
+            return Arrays.asList(
+                RowSourceRecord.builder().row(Row.of(Cell.of("a", 1))).topicName("t").build(),
+                RowSourceRecord.builder().row(Row.of(Cell.of("a", 2))).topicName("t").build());
+          }
+        };
+    task.start(
+        ConnectorFormatter.of()
+            .connectorKey(ConnectorKey.of("a", "b"))
+            .propGroup(
+                ConnectorDefUtils.ROW_TRANSFORMS_DEFINITION.key(),
+                PropGroup.of(
+                    Arrays.asList(
+                        transform(0, RowTransformer.Operator.FILTER, "a", "> 1"),
+                        transform(1, RowTransformer.Operator.RENAME, "a", "b"))))
+            .raw());
+    try {
+      List<SourceRecord> records = task.poll();
+      Assert.assertEquals(1, records.size());
+      Assert.assertEquals(
+          Row.of(Cell.of("b", 2)), Serializer.ROW.from((byte[]) records.get(0).key()));
+    } finally {
+      task.stop();
+    }
+  }
+
+  @Test
+  public void testSinkTask() {
+    List<RowSinkRecord> records = new ArrayList<>();
+    RowSinkTask task =
+        new DumbSinkTask() {
+          @Override
+          protected void putRecords(List<RowSinkRecord> rs) {
+            records.addAll(rs);
+          }
+        };
+    task.start(
+        ConnectorFormatter.of()
+            .connectorKey(ConnectorKey.of("a", "b"))
+            .propGroup(
+                ConnectorDefUtils.ROW_TRANSFORMS_DEFINITION.key(),
+                PropGroup.of(
+                    Arrays.asList(
+                        transform(0, RowTransformer.Operator.FILTER, "a", "> 1"),
+                        transform(1, RowTransformer.Operator.CAST, "a", "STRING"))))
+            .raw());
+    try {
+      task.put(
+          Arrays.asList(
+              new SinkRecord(
+                  "t",
+                  0,
+                  Schema.BYTES_SCHEMA,
+                  Serializer.ROW.to(Row.of(Cell.of("a", 1))),
+                  null,
+                  null,
+                  0),
+              new SinkRecord(
+                  "t",
+                  0,
+                  Schema.BYTES_SCHEMA,
+                  Serializer.ROW.to(Row.of(Cell.of("a", 2))),
+                  null,
+                  null,
+                  1)));
+      Assert.assertEquals(1, records.size());
+      Assert.assertEquals(Row.of(Cell.of("a", "2")), records.get(0).row());
+      Assert.assertEquals(1, records.get(0).offset());
+    } finally {
+      task.stop();
+    }
+  }
+
+  private static RowSourceTask illegalCastSourceTask(SettingDef.CheckRule rule) {
+    RowSourceTask task =
+        new DumbSourceTask() {
+          @Override
+          protected List<RowSourceRecord> pollRecords() {
+            return Arrays.asList(
+                RowSourceRecord.builder().row(Row.of(Cell.of("a", "1"))).topicName("t").build(),
+                RowSourceRecord.builder().row(Row.of(Cell.of("a", "abc"))).topicName("t").build(),
+                RowSourceRecord.builder().row(Row.of(Cell.of("a", "3"))).topicName("t").build());
+          }
+        };
+    task.start(
+        ConnectorFormatter.of()
+            .connectorKey(ConnectorKey.of("a", "b"))
+            .checkRule(rule)
+            .propGroup(
+                ConnectorDefUtils.ROW_TRANSFORMS_DEFINITION.key(),
+                PropGroup.of(
+                    Collections.singletonList(
+                        transform(0, RowTransformer.Operator.CAST, "a", "INT"))))
+            .raw());
+    return task;
+  }
+
+  @Test
+  public void testIllegalCastInSourceTaskIsIgnoredByPermissive() {
+    RowSourceTask task = illegalCastSourceTask(SettingDef.CheckRule.PERMISSIVE);
+    try {
+      // the illegal row is dropped but other rows in the same batch are sent
+      List<SourceRecord> records = task.poll();
+      Assert.assertEquals(2, records.size());
+      Assert.assertEquals(
+          Row.of(Cell.of("a", 1)), Serializer.ROW.from((byte[]) records.get(0).key()));
+      Assert.assertEquals(
+          Row.of(Cell.of("a", 3)), Serializer.ROW.from((byte[]) records.get(1).key()));
+      Assert.assertEquals(1, task.ignoredMessageNumberCounter.getValue());
+      Assert.assertNotEquals(0, task.ignoredMessageSizeCounter.getValue());
+    } finally {
+      task.stop();
+    }
+  }
+
+  @Test
+  public void testIllegalCastInSourceTaskFailsByEnforcing() {
+    RowSourceTask task = illegalCastSourceTask(SettingDef.CheckRule.ENFORCING);
+    try {
+      assertException(IllegalArgumentException.class, task::poll);
+    } finally {
+      task.stop();
+    }
+  }
+
+  private static List<SinkRecord> illegalCastSinkRecords() {
+    return Arrays.asList(
+        new SinkRecord(
+            "t",
+            0,
+            Schema.BYTES_SCHEMA,
+            Serializer.ROW.to(Row.of(Cell.of("a", "1"))),
+            null,
+            null,
+            0),
+        new SinkRecord(
+            "t",
+            0,
+            Schema.BYTES_SCHEMA,
+            Serializer.ROW.to(Row.of(Cell.of("a", "abc"))),
+            null,
+            null,
+            1));
+  }
+
+  @Test
+  public void testIllegalCastInSinkTask() {
+    List<RowSinkRecord> records = new ArrayList<>();
+    RowSinkTask task =
+        new DumbSinkTask() {
+          @Override
+          protected void putRecords(List<RowSinkRecord> rs) {
+            records.addAll(rs);
+          }
+        };
+    ConnectorFormatter formatter =
+        ConnectorFormatter.of()
+            .connectorKey(ConnectorKey.of("a", "b"))
+            .propGroup(
+                ConnectorDefUtils.ROW_TRANSFORMS_DEFINITION.key(),
+                PropGroup.of(
+                    Collections.singletonList(
+                        transform(0, RowTransformer.Operator.CAST, "a", "INT"))));
+    task.start(formatter.checkRule(SettingDef.CheckRule.PERMISSIVE).raw());
+    try {
+      task.put(illegalCastSinkRecords());
+      Assert.assertEquals(1, records.size());
+      Assert.assertEquals(Row.of(Cell.of("a", 1)), records.get(0).row());
+      Assert.assertEquals(1, task.ignoredMessageNumberCounter.getValue());
+      Assert.assertNotEquals(0, task.ignoredMessageSizeCounter.getValue());
+    } finally {
+      task.stop();
+    }
+
+    task.start(formatter.checkRule(SettingDef.CheckRule.ENFORCING).raw());
+    try {
+      assertException(IllegalArgumentException.class, () -> task.put(illegalCastSinkRecords()));
+    } finally {
+      task.stop();
+    }
+  }
+}
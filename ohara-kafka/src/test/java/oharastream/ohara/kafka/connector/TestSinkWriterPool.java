@@ -0,0 +1,332 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.kafka.connector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import oharastream.ohara.common.data.Cell;
+import oharastream.ohara.common.data.Row;
+import oharastream.ohara.common.data.Serializer;
+import oharastream.ohara.common.rule.OharaTest;
+import oharastream.ohara.common.setting.ConnectorKey;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.kafka.connector.json.ConnectorDefUtils;
+import oharastream.ohara.kafka.connector.json.ConnectorFormatter;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.apache.kafka.connect.sink.SinkTaskContext;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestSinkWriterPool extends OharaTest {
+  private static final String TOPIC = "topic";
+  private static final Row ROW = Row.of(Cell.of("a", "b"));
+
+  private static RowSinkRecord record(int partition, long offset) {
+    return RowSinkRecord.builder()
+        .topicName(TOPIC)
+        .row(ROW)
+        .partition(partition)
+        .offset(offset)
+        .timestamp(CommonUtils.current())
+        .timestampType(oharastream.ohara.kafka.TimestampType.CREATE_TIME)
+        .build();
+  }
+
+  private static SinkRecord sinkRecord(int partition, long offset) {
+    return new SinkRecord(
+        TOPIC,
+        partition,
+        null,
+        Serializer.ROW.to(ROW),
+        null,
+        null,
+        offset,
+        CommonUtils.current(),
+        TimestampType.CREATE_TIME);
+  }
+
+  @Test
+  public void testOrder() {
+    List<RowSinkRecord> written = new CopyOnWriteArrayList<>();
+    try (SinkWriterPool pool = SinkWriterPool.of(3, 1000, written::addAll)) {
+      IntStream.range(0, 100)
+          .forEach(i -> pool.submit(Collections.singletonList(record(i % 2, i))));
+      List<TopicPartition> partitions =
+          IntStream.range(0, 2)
+              .mapToObj(i -> new TopicPartition(TOPIC, i))
+              .collect(Collectors.toList());
+      pool.await(partitions);
+      Assert.assertEquals(100, written.size());
+      partitions.forEach(
+          p -> {
+            List<Long> offsets =
+                written.stream()
+                    .filter(r -> r.partition() == p.partition())
+                    .map(RowSinkRecord::offset)
+                    .collect(Collectors.toList());
+            List<Long> sorted = new ArrayList<>(offsets);
+            Collections.sort(sorted);
+            Assert.assertEquals(sorted, offsets);
+            Assert.assertEquals(offsets.get(offsets.size() - 1) + 1, pool.durableOffset(p));
+            Assert.assertEquals(0, pool.pending(p));
+          });
+    }
+  }
+
+  @Test
+  public void testFullQueue() throws InterruptedException {
+    CountDownLatch latch = new CountDownLatch(1);
+    TopicPartition partition = new TopicPartition(TOPIC, 0);
+    try (SinkWriterPool pool =
+        SinkWriterPool.of(
+            1,
+            4,
+            records -> {
+              try {
+                latch.await();
+              } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+              }
+            })) {
+      Assert.assertTrue(pool.submit(Collections.singletonList(record(0, 0))).isEmpty());
+      Assert.assertEquals(-1, pool.durableOffset(partition));
+      Assert.assertEquals(
+          Collections.singletonList(partition),
+          pool.submit(
+              IntStream.range(1, 4).mapToObj(i -> record(0, i)).collect(Collectors.toList())));
+      // the paused partition is not reported again
+      Assert.assertTrue(pool.submit(Collections.singletonList(record(0, 4))).isEmpty());
+      Assert.assertTrue(pool.resumable().isEmpty());
+      latch.countDown();
+      pool.await(Collections.singletonList(partition));
+      Assert.assertEquals(Collections.singletonList(partition), pool.resumable());
+      Assert.assertEquals(5, pool.durableOffset(partition));
+    }
+  }
+
+  @Test
+  public void testError() {
+    CountDownLatch latch = new CountDownLatch(1);
+    List<RowSinkRecord> written = new CopyOnWriteArrayList<>();
+    SinkWriterPool pool =
+        SinkWriterPool.of(
+            1,
+            100,
+            records -> {
+              try {
+                latch.await();
+              } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+              }
+              if (records.get(0).offset() == 1) throw new IllegalArgumentException("fail");
+              written.addAll(records);
+            });
+    IntStream.range(0, 3).forEach(i -> pool.submit(Collections.singletonList(record(0, i))));
+    latch.countDown();
+    assertException(
+        IllegalStateException.class,
+        () -> pool.await(Collections.singletonList(new TopicPartition(TOPIC, 0))));
+    // the records after failed records are not written
+    Assert.assertEquals(1, written.size());
+    Assert.assertEquals(1, pool.durableOffset(new TopicPartition(TOPIC, 0)));
+    assertException(IllegalStateException.class, pool::checkError);
+    assertException(IllegalStateException.class, pool::close);
+  }
+
+  @Test
+  public void testAsyncSinkTask() throws InterruptedException {
+    CountDownLatch latch = new CountDownLatch(1);
+    List<RowSinkRecord> written = new CopyOnWriteArrayList<>();
+    RowSinkTask task =
+        new DumbSinkTask() {
+          @Override
+          protected void putRecords(List<RowSinkRecord> records) {
+            try {
+              Assert.assertTrue(latch.await(30, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+              throw new IllegalStateException(e);
+            }
+            written.addAll(records);
+          }
+        };
+    Set<org.apache.kafka.common.TopicPartition> paused = new HashSet<>();
+    task.initialize(context(paused));
+    task.start(
+        ConnectorFormatter.of()
+            .connectorKey(ConnectorKey.of("a", "b"))
+            .setting(ConnectorDefUtils.SINK_WRITERS_DEFINITION.key(), "2")
+            .setting(ConnectorDefUtils.SINK_QUEUE_SIZE_DEFINITION.key(), "2")
+            .raw());
+    org.apache.kafka.common.TopicPartition partition =
+        new org.apache.kafka.common.TopicPartition(TOPIC, 0);
+    task.open(Collections.singletonList(partition));
+    // the put is not blocked by the writer
+    task.put(IntStream.range(0, 3).mapToObj(i -> sinkRecord(0, i)).collect(Collectors.toList()));
+    Assert.assertEquals(Collections.singleton(partition), paused);
+    Map<org.apache.kafka.common.TopicPartition, OffsetAndMetadata> offsets =
+        Collections.singletonMap(partition, new OffsetAndMetadata(3));
+    // nothing is written so there is no offset to commit
+    Assert.assertTrue(task.preCommit(offsets).isEmpty());
+
+    latch.countDown();
+    task.writerPool.await(Collections.singletonList(new TopicPartition(TOPIC, 0)));
+    Assert.assertEquals(3, written.size());
+    Assert.assertEquals(offsets, task.preCommit(offsets));
+    // the partition is resumed by next put
+    task.put(Collections.emptyList());
+    Assert.assertTrue(paused.isEmpty());
+
+    task.close(Collections.singletonList(partition));
+    task.stop();
+  }
+
+  @Test
+  public void testReopenPausedPartition() {
+    CountDownLatch latch = new CountDownLatch(1);
+    RowSinkTask task =
+        new DumbSinkTask() {
+          @Override
+          protected void putRecords(List<RowSinkRecord> records) {
+            try {
+              Assert.assertTrue(latch.await(30, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+              throw new IllegalStateException(e);
+            }
+          }
+        };
+    Set<org.apache.kafka.common.TopicPartition> paused = new HashSet<>();
+    task.initialize(context(paused));
+    task.start(
+        ConnectorFormatter.of()
+            .connectorKey(ConnectorKey.of("a", "b"))
+            .setting(ConnectorDefUtils.SINK_WRITERS_DEFINITION.key(), "1")
+            .setting(ConnectorDefUtils.SINK_QUEUE_SIZE_DEFINITION.key(), "2")
+            .raw());
+    org.apache.kafka.common.TopicPartition partition =
+        new org.apache.kafka.common.TopicPartition(TOPIC, 0);
+    task.open(Collections.singletonList(partition));
+    task.put(IntStream.range(0, 3).mapToObj(i -> sinkRecord(0, i)).collect(Collectors.toList()));
+    Assert.assertEquals(Collections.singleton(partition), paused);
+    latch.countDown();
+
+    // kafka keeps pausing the partition after rebalance
+    task.close(Collections.singletonList(partition));
+    task.open(Collections.singletonList(partition));
+    Assert.assertEquals(Collections.singleton(partition), paused);
+    // the partition is resumed by next put
+    task.put(Collections.emptyList());
+    Assert.assertTrue(paused.isEmpty());
+
+    task.close(Collections.singletonList(partition));
+    task.stop();
+  }
+
+  @Test
+  public void testIdlePartitions() {
+    testIdlePartitions(false);
+  }
+
+  @Test
+  public void testIdlePartitionsInAsyncMode() {
+    testIdlePartitions(true);
+  }
+
+  private void testIdlePartitions(boolean async) {
+    Set<TopicPartition> idle = ConcurrentHashMap.newKeySet();
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+    RowSinkTask task =
+        new DumbSinkTask() {
+          @Override
+          protected void idlePartition(TopicPartition partition) {
+            idle.add(partition);
+            threads.add(Thread.currentThread().getName());
+          }
+        };
+    org.apache.kafka.common.TopicPartition partition0 =
+        new org.apache.kafka.common.TopicPartition(TOPIC, 0);
+    org.apache.kafka.common.TopicPartition partition1 =
+        new org.apache.kafka.common.TopicPartition(TOPIC, 1);
+    task.initialize(context(new HashSet<>(), new HashSet<>(Arrays.asList(partition0, partition1))));
+    ConnectorFormatter formatter = ConnectorFormatter.of().connectorKey(ConnectorKey.of("a", "b"));
+    if (async) formatter.setting(ConnectorDefUtils.SINK_WRITERS_DEFINITION.key(), "1");
+    task.start(formatter.raw());
+    task.open(Arrays.asList(partition0, partition1));
+
+    // the partition having records is not idle
+    task.put(Collections.singletonList(sinkRecord(0, 0)));
+    if (async) task.writerPool.await(Collections.singletonList(new TopicPartition(TOPIC, 1)));
+    Assert.assertEquals(Collections.singleton(new TopicPartition(TOPIC, 1)), idle);
+    Assert.assertEquals(
+        Collections.singleton(async ? "sink-writer-0" : Thread.currentThread().getName()), threads);
+    task.stop();
+  }
+
+  private static SinkTaskContext context(Set<org.apache.kafka.common.TopicPartition> paused) {
+    return context(paused, Collections.emptySet());
+  }
+
+  private static SinkTaskContext context(
+      Set<org.apache.kafka.common.TopicPartition> paused,
+      Set<org.apache.kafka.common.TopicPartition> assignment) {
+    return new SinkTaskContext() {
+      @Override
+      public Map<String, String> configs() {
+        return Collections.emptyMap();
+      }
+
+      @Override
+      public void offset(Map<org.apache.kafka.common.TopicPartition, Long> offsets) {}
+
+      @Override
+      public void offset(org.apache.kafka.common.TopicPartition tp, long offset) {}
+
+      @Override
+      public void timeout(long timeoutMs) {}
+
+      @Override
+      public Set<org.apache.kafka.common.TopicPartition> assignment() {
+        return assignment;
+      }
+
+      @Override
+      public void pause(org.apache.kafka.common.TopicPartition... partitions) {
+        Collections.addAll(paused, partitions);
+      }
+
+      @Override
+      public void resume(org.apache.kafka.common.TopicPartition... partitions) {
+        for (org.apache.kafka.common.TopicPartition p : partitions) paused.remove(p);
+      }
+
+      @Override
+      public void requestCommit() {}
+    };
+  }
+}
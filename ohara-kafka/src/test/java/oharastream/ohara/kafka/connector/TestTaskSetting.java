@@ -22,9 +22,15 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import oharastream.ohara.common.data.Column;
+import oharastream.ohara.common.data.DataType;
 import oharastream.ohara.common.rule.OharaTest;
+import oharastream.ohara.common.setting.ConnectorKey;
 import oharastream.ohara.common.setting.PropGroup;
+import oharastream.ohara.common.setting.SettingDef;
 import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.kafka.connector.json.ConnectorDefUtils;
+import oharastream.ohara.kafka.connector.json.ConnectorFormatter;
 import oharastream.ohara.kafka.connector.json.StringList;
 import org.junit.Assert;
 import org.junit.Test;
@@ -152,6 +158,43 @@ public class TestTaskSetting extends OharaTest {
     Assert.assertTrue(config.columns().isEmpty());
   }
 
+  @Test
+  public void testCachedColumns() {
+    Column column = Column.builder().name("a").dataType(DataType.STRING).build();
+    TaskSetting config =
+        TaskSetting.of(
+            ConnectorFormatter.of()
+                .connectorKey(ConnectorKey.of("a", "b"))
+                .column(column)
+                .checkRule(SettingDef.CheckRule.PERMISSIVE)
+                .raw());
+    Assert.assertEquals(Collections.singletonList(column), config.columns());
+    Assert.assertSame(config.columns(), config.columns());
+    Assert.assertEquals(SettingDef.CheckRule.PERMISSIVE, config.checkRule());
+    Assert.assertSame(config.checkRule(), config.checkRule());
+  }
+
+  @Test
+  public void testLagMetrics() {
+    TaskSetting disabled =
+        TaskSetting.of(ConnectorFormatter.of().connectorKey(ConnectorKey.of("a", "b")).raw());
+    Assert.assertFalse(disabled.lagMetrics());
+    // the collector is not created if the lag metrics are disabled
+    Assert.assertFalse(ConnectorUtils.sinkLagCollector(disabled).isPresent());
+    Assert.assertTrue(
+        TaskSetting.of(
+                ConnectorFormatter.of()
+                    .connectorKey(ConnectorKey.of("a", "b"))
+                    .setting(ConnectorDefUtils.LAG_METRICS_DEFINITION.key(), "true")
+                    .raw())
+            .lagMetrics());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void columnsShouldBeImmutable() {
+    TaskSetting.of(Collections.singletonMap("a", "b")).columns().clear();
+  }
+
   @Test
   public void testToDuration() {
     Duration duration = Duration.ofSeconds(10);
@@ -102,6 +102,9 @@ public abstract class CsvSinkTestBase extends OharaTest {
 
   protected static class MockSinkContext implements RowSinkContext {
     private final Map<TopicPartition, Long> offsets = new HashMap<>();
+    private final Set<TopicPartition> paused = new HashSet<>();
+    private int commitRequests = 0;
+    private long timeout = -1;
     private Set<TopicPartition> assignment;
 
     public MockSinkContext(Set<TopicPartition> assignment) {
@@ -118,9 +121,41 @@ public abstract class CsvSinkTestBase extends OharaTest {
       offsets.put(tp, offset);
     }
 
+    @Override
+    public void pause(Collection<TopicPartition> partitions) {
+      paused.addAll(partitions);
+    }
+
+    @Override
+    public void resume(Collection<TopicPartition> partitions) {
+      paused.removeAll(partitions);
+    }
+
+    @Override
+    public void requestCommit() {
+      commitRequests++;
+    }
+
+    @Override
+    public void timeout(long timeoutMs) {
+      this.timeout = timeoutMs;
+    }
+
     @Override
     public Set<TopicPartition> assignment() {
       return assignment;
     }
+
+    public int commitRequests() {
+      return commitRequests;
+    }
+
+    public long timeout() {
+      return timeout;
+    }
+
+    public Set<TopicPartition> paused() {
+      return paused;
+    }
   }
 }
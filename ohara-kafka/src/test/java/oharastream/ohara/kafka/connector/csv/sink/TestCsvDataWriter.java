@@ -129,6 +129,47 @@ public class TestCsvDataWriter extends WithMockStorage {
     Assert.assertEquals(0, dataWriter.getTopicPartitionWriters().size());
   }
 
+  @Test
+  public void testWriteDetachedPartition() {
+    localProps.put(CsvConnectorDefinitions.FLUSH_SIZE_KEY, "3");
+    setUp();
+
+    dataWriter.detach(Collections.singleton(TOPIC_PARTITION));
+    Assert.assertEquals(1, dataWriter.getAssignment().size());
+    Assert.assertEquals(1, dataWriter.getTopicPartitionWriters().size());
+
+    // the records of detached partition are skipped
+    dataWriter.write(createRecords(3));
+    Assert.assertTrue(dataWriter.getCommittedOffsetsAndReset().isEmpty());
+
+    dataWriter.write(createRecords(3, 0, Collections.singleton(TOPIC_PARTITION2)));
+    Assert.assertEquals(
+        Collections.singletonMap(TOPIC_PARTITION2, 3L), dataWriter.getCommittedOffsetsAndReset());
+
+    dataWriter.close();
+  }
+
+  @Test
+  public void testRotateIdlePartition() throws InterruptedException {
+    localProps.put(CsvConnectorDefinitions.FLUSH_SIZE_KEY, "99999");
+    localProps.put(CsvConnectorDefinitions.ROTATE_INTERVAL_MS_KEY, "1000");
+    setUp();
+
+    dataWriter.write(createRecords(2));
+    Assert.assertTrue(dataWriter.getCommittedOffsetsAndReset().isEmpty());
+    Thread.sleep(1500);
+
+    // the records of other partition don't rotate the idle partition
+    dataWriter.write(createRecords(1, 0, Collections.singleton(TOPIC_PARTITION2)));
+    Assert.assertFalse(dataWriter.getCommittedOffsetsAndReset().containsKey(TOPIC_PARTITION));
+
+    dataWriter.rotate(TOPIC_PARTITION);
+    Assert.assertEquals(
+        Collections.singletonMap(TOPIC_PARTITION, 2L), dataWriter.getCommittedOffsetsAndReset());
+
+    dataWriter.close();
+  }
+
   protected void verify(List<RowSinkRecord> sinkRecords, long[] validOffsets) {
     verify(sinkRecords, validOffsets, Collections.singleton(TOPIC_PARTITION));
   }
@@ -85,6 +85,10 @@ public class TestTopicPartitionWriter extends WithMockStorage {
 
     Assert.assertEquals(1, writer.getRecordCount());
     Assert.assertEquals(6, writer.getCommittedOffset().intValue());
+    // the commit is requested by each rotation
+    Assert.assertEquals(2, ((MockSinkContext) context).commitRequests());
+    // the remaining record should be committed by the scheduled rotation
+    Assert.assertTrue(((MockSinkContext) context).timeout() > 0);
   }
 
   @Test
@@ -103,6 +107,10 @@ public class TestTopicPartitionWriter extends WithMockStorage {
 
     Assert.assertEquals(7, writer.getRecordCount());
     Assert.assertEquals(null, writer.getCommittedOffset());
+    Assert.assertEquals(0, ((MockSinkContext) context).commitRequests());
+    // the task should be woken up before the rotation
+    long timeout = ((MockSinkContext) context).timeout();
+    Assert.assertTrue(timeout > 0 && timeout <= 3000);
 
     Thread.sleep(5000);
 
@@ -16,7 +16,14 @@
 
 package oharastream.ohara.kafka.connector.csv.source;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import oharastream.ohara.common.rule.OharaTest;
+import oharastream.ohara.kafka.connector.RowSourceContext;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -30,4 +37,74 @@ public class TestCsvOffsetCache extends OharaTest {
     Assert.assertTrue(cache.predicate(path, 2));
     Assert.assertFalse(cache.predicate(path, 1));
   }
+
+  @Test
+  public void testLoadInBatch() {
+    AtomicInteger singleCount = new AtomicInteger();
+    AtomicInteger batchCount = new AtomicInteger();
+    RowSourceContext context =
+        new RowSourceContext() {
+          @Override
+          public <T> Map<String, Object> offset(Map<String, T> partition) {
+            singleCount.incrementAndGet();
+            return Collections.emptyMap();
+          }
+
+          @Override
+          public <T> Map<Map<String, T>, Map<String, Object>> offset(
+              List<Map<String, T>> partitions) {
+            batchCount.incrementAndGet();
+            Map<Map<String, T>, Map<String, Object>> offsets = new HashMap<>();
+            // the path "c" is failed so it is absent
+            partitions.forEach(
+                partition -> {
+                  Object path = partition.get(CsvRecordConverter.CSV_PARTITION_KEY);
+                  if (path.equals("a"))
+                    offsets.put(
+                        partition, Collections.singletonMap(CsvRecordConverter.CSV_OFFSET_KEY, 5));
+                  else if (path.equals("b")) offsets.put(partition, null);
+                });
+            return offsets;
+          }
+        };
+    CsvOffsetCache cache = new CsvOffsetCache();
+    cache.loadIfNeed(context, Arrays.asList("a", "b", "c", "a"));
+    Assert.assertEquals(1, batchCount.get());
+    Assert.assertEquals(2, cache.size());
+    Assert.assertFalse(cache.predicate("a", 5));
+    Assert.assertTrue(cache.predicate("a", 6));
+    Assert.assertTrue(cache.predicate("b", 1));
+
+    // the loaded paths are not looked up again
+    cache.loadIfNeed(context, "a");
+    cache.loadIfNeed(context, "b");
+    Assert.assertEquals(0, singleCount.get());
+    cache.loadIfNeed(context, Arrays.asList("a", "b"));
+    Assert.assertEquals(1, batchCount.get());
+
+    // the failed path is loaded by next read
+    cache.loadIfNeed(context, "c");
+    Assert.assertEquals(1, singleCount.get());
+    cache.loadIfNeed(context, "c");
+    Assert.assertEquals(1, singleCount.get());
+  }
+
+  @Test
+  public void testCapacity() {
+    CsvOffsetCache cache = new CsvOffsetCache(2);
+    cache.update("a", 1);
+    cache.update("b", 1);
+    // touch "a" so "b" is the eldest
+    Assert.assertFalse(cache.predicate("a", 1));
+    cache.update("c", 1);
+    Assert.assertEquals(2, cache.size());
+    Assert.assertFalse(cache.predicate("a", 1));
+    Assert.assertTrue(cache.predicate("b", 1));
+    Assert.assertFalse(cache.predicate("c", 1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeCapacity() {
+    new CsvOffsetCache(-1);
+  }
 }
@@ -16,7 +16,9 @@
 
 package oharastream.ohara.kafka.connector.json;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -26,7 +28,9 @@ import oharastream.ohara.common.data.Serializer;
 import oharastream.ohara.common.rule.OharaTest;
 import oharastream.ohara.common.setting.PropGroup;
 import oharastream.ohara.common.setting.SettingDef;
+import oharastream.ohara.common.setting.TableColumn;
 import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.kafka.connector.RowTransformer;
 import org.apache.kafka.common.config.ConfigDef;
 import org.apache.kafka.common.config.ConfigException;
 import org.apache.kafka.connect.runtime.rest.entities.ConfigKeyInfo;
@@ -271,10 +275,14 @@ public class TestConnectorDefUtils extends OharaTest {
   @Test
   public void mustHaveTable() {
     Assert.assertEquals(
-        1,
+        new HashSet<>(
+            Arrays.asList(
+                ConnectorDefUtils.COLUMNS_DEFINITION.key(),
+                ConnectorDefUtils.ROW_TRANSFORMS_DEFINITION.key())),
         ConnectorDefUtils.DEFAULT.values().stream()
             .filter(definition -> definition.valueType().equals(SettingDef.Type.TABLE))
-            .count());
+            .map(SettingDef::key)
+            .collect(Collectors.toSet()));
   }
 
   @Test
@@ -283,7 +291,17 @@ public class TestConnectorDefUtils extends OharaTest {
         .values()
         .forEach(
             definition -> {
-              if (definition.valueType().equals(SettingDef.Type.TABLE)) {
+              if (definition.equals(ConnectorDefUtils.ROW_TRANSFORMS_DEFINITION)) {
+                Assert.assertEquals(
+                    Arrays.asList(
+                        SettingDef.ORDER_KEY,
+                        RowTransformer.OPERATOR_KEY,
+                        SettingDef.COLUMN_NAME_KEY,
+                        RowTransformer.VALUE_KEY),
+                    definition.tableKeys().stream()
+                        .map(TableColumn::name)
+                        .collect(Collectors.toList()));
+              } else if (definition.valueType().equals(SettingDef.Type.TABLE)) {
                 Assert.assertTrue(
                     definition.tableKeys().stream()
                         .anyMatch(k -> k.name().equals(SettingDef.ORDER_KEY)));
@@ -48,6 +48,8 @@ import javax.management.remote.JMXServiceURL;
 import oharastream.ohara.common.annotations.VisibleForTesting;
 import oharastream.ohara.common.util.CommonUtils;
 import oharastream.ohara.metrics.basic.CounterMBean;
+import oharastream.ohara.metrics.basic.HistogramMBean;
+import oharastream.ohara.metrics.basic.MetricsRegistry;
 import oharastream.ohara.metrics.kafka.TopicMeter;
 
 /**
@@ -90,9 +92,24 @@ public interface BeanChannel extends Iterable<BeanObject> {
   /** @return a immutable list of bean objects */
   List<BeanObject> beanObjects();
 
-  /** @return get only counter type from bean objects */
+  /**
+   * @return get only counter type from bean objects. NOTED: the aggregated counters of {@link
+   *     MetricsRegistry} are expanded also.
+   */
   default List<CounterMBean> counterMBeans() {
-    return stream().filter(CounterMBean::is).map(CounterMBean::of).collect(Collectors.toList());
+    return stream()
+        .flatMap(
+            obj -> {
+              if (CounterMBean.is(obj)) return Stream.of(CounterMBean.of(obj));
+              if (MetricsRegistry.is(obj)) return MetricsRegistry.of(obj).stream();
+              return Stream.empty();
+            })
+        .collect(Collectors.toList());
+  }
+
+  /** @return get only histogram type from bean objects */
+  default List<HistogramMBean> histogramMBeans() {
+    return stream().filter(HistogramMBean::is).map(HistogramMBean::of).collect(Collectors.toList());
   }
 
   /** @return get only TopicMeter type from bean objects */
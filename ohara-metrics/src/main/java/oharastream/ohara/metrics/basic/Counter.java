@@ -42,6 +42,9 @@ public final class Counter extends ReleaseOnce implements CounterMBean, Serializ
   }
 
   @VisibleForTesting final boolean needClose;
+  /** true if this counter is exposed by the aggregated mbean of {@link MetricsRegistry} */
+  @VisibleForTesting final boolean aggregated;
+
   @VisibleForTesting final Map<String, String> properties;
   private final ObjectKey key;
   private final String item;
@@ -54,6 +57,7 @@ public final class Counter extends ReleaseOnce implements CounterMBean, Serializ
 
   private Counter(
       boolean needClose,
+      boolean aggregated,
       Map<String, String> properties,
       ObjectKey key,
       String item,
@@ -64,6 +68,7 @@ public final class Counter extends ReleaseOnce implements CounterMBean, Serializ
       long value,
       long lastModified) {
     this.needClose = needClose;
+    this.aggregated = aggregated;
     this.properties =
         Collections.unmodifiableMap(new HashMap<>(CommonUtils.requireNonEmpty(properties)));
     this.key = Objects.requireNonNull(key);
@@ -269,7 +274,11 @@ public final class Counter extends ReleaseOnce implements CounterMBean, Serializ
 
   @Override
   protected void doClose() {
-    if (needClose) BeanChannel.unregister(CounterMBean.DOMAIN, properties);
+    if (needClose) {
+      LocalMetrics.remove(this);
+      if (aggregated) MetricsRegistry.remove(this);
+      else BeanChannel.unregister(CounterMBean.DOMAIN, properties);
+    }
   }
 
   public static class Builder implements oharastream.ohara.common.pattern.Builder<Counter> {
@@ -350,7 +359,7 @@ public final class Counter extends ReleaseOnce implements CounterMBean, Serializ
      */
     @Override
     public Counter build() {
-      return build(false);
+      return build(false, false);
     }
 
     /**
@@ -359,21 +368,38 @@ public final class Counter extends ReleaseOnce implements CounterMBean, Serializ
      * @return Counter
      */
     public Counter register() {
-      Counter counter = build(true);
-      return BeanChannel.<Counter>register()
+      Counter counter = build(true, false);
+      BeanChannel.<Counter>register()
           .domain(DOMAIN)
           .properties(counter.properties)
           .beanObject(counter)
           .run();
+      LocalMetrics.add(counter);
+      return counter;
+    }
+
+    /**
+     * create a mutable counter and put it in {@link MetricsRegistry}. The counter does not have
+     * individual mbean. Instead, it is exposed by the single mbean shared by all counters having
+     * same key. It is useful to the component which has a lot of counters.
+     *
+     * @return Counter
+     */
+    public Counter registerAggregated() {
+      Counter counter = build(true, true);
+      MetricsRegistry.add(counter);
+      LocalMetrics.add(counter);
+      return counter;
     }
 
     /**
      * Create a counter with a flag indicating the action of unregistering beans from local jvm.
      *
      * @param needClose if true, the close() method will invoke unregister also.
+     * @param aggregated if true, the counter is exposed by {@link MetricsRegistry}
      * @return counter
      */
-    private Counter build(boolean needClose) {
+    private Counter build(boolean needClose, boolean aggregated) {
       checkArgument();
       Map<String, String> properties = new HashMap<>();
       properties.put(TYPE_KEY, TYPE_VALUE);
@@ -387,6 +413,7 @@ public final class Counter extends ReleaseOnce implements CounterMBean, Serializ
       properties.put(ID_KEY, CommonUtils.isEmpty(id) ? CommonUtils.randomString() : id);
       return new Counter(
           needClose,
+          aggregated,
           properties,
           key,
           item,
@@ -0,0 +1,377 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.metrics.basic;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import oharastream.ohara.common.annotations.Optional;
+import oharastream.ohara.common.annotations.VisibleForTesting;
+import oharastream.ohara.common.setting.ObjectKey;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.common.util.ReleaseOnce;
+import oharastream.ohara.metrics.BeanChannel;
+
+/**
+ * A histogram with fixed buckets. Each observed value is put into the first bucket whose
+ * (inclusive) upper bound is bigger than or equal with the value. The update is lock-free so it is
+ * fine to call {@link #update(long)} in the hot path.
+ */
+public final class Histogram extends ReleaseOnce implements HistogramMBean, Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * the default bounds are friendly to latency in milliseconds. It ranges from 1 ms to 1 minute.
+   */
+  public static final long[] DEFAULT_BOUNDS = {
+    1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000, 60000
+  };
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  @VisibleForTesting final boolean needClose;
+  @VisibleForTesting final Map<String, String> properties;
+  private final ObjectKey key;
+  private final String item;
+  private final String document;
+  private final String unit;
+  private final long[] bounds;
+  private final AtomicLongArray bucketCounts;
+  private final AtomicLong count = new AtomicLong(0);
+  private final AtomicLong sum = new AtomicLong(0);
+  private final AtomicLong lastModified = new AtomicLong(CommonUtils.current());
+  private final long startTime;
+  private final long queryTime;
+
+  private Histogram(
+      boolean needClose,
+      Map<String, String> properties,
+      ObjectKey key,
+      String item,
+      String document,
+      String unit,
+      long[] bounds,
+      long startTime,
+      long queryTime,
+      long count,
+      long sum,
+      long[] bucketCounts,
+      long lastModified) {
+    this.needClose = needClose;
+    this.properties =
+        Collections.unmodifiableMap(new HashMap<>(CommonUtils.requireNonEmpty(properties)));
+    this.key = Objects.requireNonNull(key);
+    this.item = CommonUtils.requireNonEmpty(item);
+    this.document = CommonUtils.requireNonEmpty(document);
+    this.unit = CommonUtils.requireNonEmpty(unit);
+    this.bounds = Arrays.copyOf(bounds, bounds.length);
+    this.bucketCounts = new AtomicLongArray(bucketCounts);
+    this.startTime = startTime;
+    this.queryTime = queryTime;
+    this.count.set(count);
+    this.sum.set(sum);
+    this.lastModified.set(lastModified);
+  }
+
+  @Override
+  public ObjectKey key() {
+    return key;
+  }
+
+  @Override
+  public String item() {
+    return item;
+  }
+
+  @Override
+  public String getDocument() {
+    return document;
+  }
+
+  @Override
+  public String getUnit() {
+    return unit;
+  }
+
+  /**
+   * record a value.
+   *
+   * @param value observed value
+   */
+  public void update(long value) {
+    bucketCounts.incrementAndGet(indexOf(value));
+    sum.addAndGet(value);
+    count.incrementAndGet();
+    lastModified.updateAndGet(last -> Math.max(last, CommonUtils.current()));
+  }
+
+  private int indexOf(long value) {
+    int index = Arrays.binarySearch(bounds, value);
+    // the value is equal to a bound
+    if (index >= 0) return index;
+    // the insertion point is the first bound bigger than value. If all bounds are smaller than
+    // value, the insertion point is equal to bounds.length which is the index of "infinity" bucket.
+    return -index - 1;
+  }
+
+  @Override
+  public long getStartTime() {
+    return startTime;
+  }
+
+  @Override
+  public long getQueryTime() {
+    return queryTime;
+  }
+
+  @Override
+  public long getLastModified() {
+    return lastModified.get();
+  }
+
+  @Override
+  public long getCount() {
+    return count.get();
+  }
+
+  @Override
+  public long getSum() {
+    return sum.get();
+  }
+
+  @Override
+  public long[] getBounds() {
+    return Arrays.copyOf(bounds, bounds.length);
+  }
+
+  @Override
+  public long[] getBucketCounts() {
+    long[] counts = new long[bucketCounts.length()];
+    for (int i = 0; i != counts.length; ++i) counts[i] = bucketCounts.get(i);
+    return counts;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj instanceof Histogram) {
+      Histogram another = (Histogram) obj;
+      return another.key().equals(key())
+          && another.item().equals(item())
+          && another.getStartTime() == getStartTime()
+          && another.getCount() == getCount()
+          && another.getSum() == getSum()
+          && Arrays.equals(another.getBounds(), getBounds())
+          && Arrays.equals(another.getBucketCounts(), getBucketCounts())
+          && another.getUnit().equals(getUnit())
+          && another.getQueryTime() == getQueryTime()
+          && another.getLastModified() == getLastModified();
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(key(), item(), getCount(), getSum(), getStartTime(), getUnit());
+  }
+
+  @Override
+  public String toString() {
+    return "key:"
+        + key()
+        + " item:"
+        + item()
+        + " start:"
+        + getStartTime()
+        + " count:"
+        + getCount()
+        + " sum:"
+        + getSum()
+        + " bounds:"
+        + Arrays.toString(getBounds())
+        + " buckets:"
+        + Arrays.toString(getBucketCounts())
+        + " unit:"
+        + getUnit()
+        + " query time:"
+        + getQueryTime()
+        + " last modified:"
+        + getLastModified();
+  }
+
+  @Override
+  protected void doClose() {
+    if (needClose) {
+      LocalMetrics.remove(this);
+      BeanChannel.unregister(HistogramMBean.DOMAIN, properties);
+    }
+  }
+
+  public static class Builder implements oharastream.ohara.common.pattern.Builder<Histogram> {
+    private String id;
+    private ObjectKey key;
+    private String item;
+    private String unit = "N/A";
+    private String document = "there is no document for this histogram...";
+    private long[] bounds = DEFAULT_BOUNDS;
+    private long count = 0;
+    private long sum = 0;
+    private long[] bucketCounts = null;
+    private long startTime = CommonUtils.current();
+    private long lastModified = startTime;
+    private long queryTime = CommonUtils.current();
+
+    private Builder() {}
+
+    @Optional("default is random string")
+    public Builder id(String id) {
+      this.id = CommonUtils.requireNonEmpty(id);
+      return this;
+    }
+
+    public Builder key(ObjectKey key) {
+      this.key = Objects.requireNonNull(key);
+      return this;
+    }
+
+    public Builder item(String item) {
+      this.item = CommonUtils.requireNonEmpty(item);
+      return this;
+    }
+
+    /**
+     * set the inclusive upper bounds of buckets. The bounds must be in ascending order.
+     *
+     * @param bounds upper bounds
+     * @return this builder
+     */
+    @Optional("default is DEFAULT_BOUNDS")
+    public Builder bounds(long[] bounds) {
+      if (Objects.requireNonNull(bounds).length == 0)
+        throw new IllegalArgumentException("bounds can't be empty");
+      for (int i = 1; i < bounds.length; ++i)
+        if (bounds[i] <= bounds[i - 1])
+          throw new IllegalArgumentException(
+              "bounds must be in ascending order, actual:" + Arrays.toString(bounds));
+      this.bounds = Arrays.copyOf(bounds, bounds.length);
+      return this;
+    }
+
+    @Optional("default is zero")
+    Builder values(long count, long sum, long[] bucketCounts) {
+      this.count = count;
+      this.sum = sum;
+      this.bucketCounts = Objects.requireNonNull(bucketCounts);
+      return this;
+    }
+
+    @Optional("default is current time")
+    Builder startTime(long startTime) {
+      this.startTime = CommonUtils.requirePositiveLong(startTime);
+      return this;
+    }
+
+    @Optional("default is current time")
+    Builder lastModified(long lastModified) {
+      this.lastModified = CommonUtils.requirePositiveLong(lastModified);
+      return this;
+    }
+
+    @Optional("default is current time")
+    Builder queryTime(long queryTime) {
+      this.queryTime = CommonUtils.requirePositiveLong(queryTime);
+      return this;
+    }
+
+    @Optional("default is no document")
+    public Builder document(String document) {
+      this.document = CommonUtils.requireNonEmpty(document);
+      return this;
+    }
+
+    @Optional("default is N/A")
+    public Builder unit(String unit) {
+      this.unit = CommonUtils.requireNonEmpty(unit);
+      return this;
+    }
+
+    private void checkArgument() {
+      Objects.requireNonNull(key);
+      CommonUtils.requireNonEmpty(item);
+      if (bucketCounts != null && bucketCounts.length != bounds.length + 1)
+        throw new IllegalArgumentException(
+            "the number of buckets must be equal to bounds + 1, actual:" + bucketCounts.length);
+    }
+
+    /**
+     * create a mutable histogram without registry.
+     *
+     * @return Histogram
+     */
+    @Override
+    public Histogram build() {
+      return build(false);
+    }
+
+    /**
+     * create and register a mutable histogram.
+     *
+     * @return Histogram
+     */
+    public Histogram register() {
+      Histogram histogram = build(true);
+      BeanChannel.<Histogram>register()
+          .domain(DOMAIN)
+          .properties(histogram.properties)
+          .beanObject(histogram)
+          .run();
+      LocalMetrics.add(histogram);
+      return histogram;
+    }
+
+    private Histogram build(boolean needClose) {
+      checkArgument();
+      Map<String, String> properties = new HashMap<>();
+      properties.put(TYPE_KEY, TYPE_VALUE);
+      properties.put(KEY_KEY, key.toPlain());
+      properties.put(ITEM_KEY, item);
+      // see Counter.Builder#build(boolean)
+      properties.put(ID_KEY, CommonUtils.isEmpty(id) ? CommonUtils.randomString() : id);
+      return new Histogram(
+          needClose,
+          properties,
+          key,
+          item,
+          document,
+          unit,
+          bounds,
+          startTime,
+          queryTime,
+          count,
+          sum,
+          bucketCounts == null ? new long[bounds.length + 1] : bucketCounts,
+          lastModified);
+    }
+  }
+}
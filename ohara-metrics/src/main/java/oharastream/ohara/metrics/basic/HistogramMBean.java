@@ -0,0 +1,173 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.metrics.basic;
+
+import oharastream.ohara.common.setting.ObjectKey;
+import oharastream.ohara.metrics.BeanObject;
+
+/**
+ * The bean of a histogram. It shares the domain, key and item with {@link CounterMBean} so the
+ * metrics tools can group both of them by the same object key.
+ */
+public interface HistogramMBean {
+  String DOMAIN = CounterMBean.DOMAIN;
+  String TYPE_KEY = CounterMBean.TYPE_KEY;
+  String TYPE_VALUE = "histogram";
+  String KEY_KEY = CounterMBean.KEY_KEY;
+  String ITEM_KEY = CounterMBean.ITEM_KEY;
+  String ID_KEY = CounterMBean.ID_KEY;
+
+  String START_TIME_KEY = "StartTime";
+  String LAST_MODIFIED_KEY = "LastModified";
+  String COUNT_KEY = "Count";
+  String SUM_KEY = "Sum";
+  String BOUNDS_KEY = "Bounds";
+  String BUCKET_COUNTS_KEY = "BucketCounts";
+  String DOCUMENT_KEY = "Document";
+  String UNIT_KEY = "Unit";
+
+  static boolean is(BeanObject obj) {
+    return obj.domainName().equals(DOMAIN)
+        && TYPE_VALUE.equals(obj.properties().get(TYPE_KEY))
+        && obj.properties().containsKey(ITEM_KEY)
+        && obj.properties().containsKey(KEY_KEY)
+        && ObjectKey.ofPlain(obj.properties().get(KEY_KEY)).isPresent()
+        && obj.attributes().containsKey(START_TIME_KEY)
+        && obj.attributes().containsKey(LAST_MODIFIED_KEY)
+        && obj.attributes().containsKey(COUNT_KEY)
+        && obj.attributes().containsKey(SUM_KEY)
+        && obj.attributes().containsKey(BOUNDS_KEY)
+        && obj.attributes().containsKey(BUCKET_COUNTS_KEY)
+        && obj.attributes().containsKey(DOCUMENT_KEY)
+        && obj.attributes().containsKey(UNIT_KEY);
+  }
+
+  static HistogramMBean of(BeanObject obj) {
+    return Histogram.builder()
+        // NOTED: key is NOT a part of attribute!!!!
+        .key(ObjectKey.requirePlain(obj.properties().get(KEY_KEY)))
+        // NOTED: item is NOT a part of attribute!!!!
+        .item(obj.properties().get(ITEM_KEY))
+        .bounds((long[]) obj.attributes().get(BOUNDS_KEY))
+        .startTime((long) obj.attributes().get(START_TIME_KEY))
+        .lastModified((long) obj.attributes().get(LAST_MODIFIED_KEY))
+        .queryTime(obj.queryTime())
+        .values(
+            (long) obj.attributes().get(COUNT_KEY),
+            (long) obj.attributes().get(SUM_KEY),
+            (long[]) obj.attributes().get(BUCKET_COUNTS_KEY))
+        .document((String) obj.attributes().get(DOCUMENT_KEY))
+        .unit((String) obj.attributes().get(UNIT_KEY))
+        .build();
+  }
+
+  /**
+   * NOTED: this is NOT a part of java beans!!!
+   *
+   * @return object key of this histogram
+   */
+  ObjectKey key();
+
+  /**
+   * NOTED: this is NOT a part of java beans!!!
+   *
+   * @return item of this histogram
+   */
+  String item();
+
+  /**
+   * NOTED: if you are going to change the method name, you have to rewrite the {@link
+   * HistogramMBean#START_TIME_KEY} also
+   *
+   * @return the start time of this histogram
+   */
+  long getStartTime();
+
+  /**
+   * Get query time
+   *
+   * @return the time of querying metrics object
+   */
+  long getQueryTime();
+
+  /**
+   * Get last modified time
+   *
+   * @return the time of modifying metrics object
+   */
+  long getLastModified();
+
+  /**
+   * NOTED: if you are going to change the method name, you have to rewrite the {@link
+   * HistogramMBean#COUNT_KEY} also
+   *
+   * @return the number of observed values
+   */
+  long getCount();
+
+  /**
+   * NOTED: if you are going to change the method name, you have to rewrite the {@link
+   * HistogramMBean#SUM_KEY} also
+   *
+   * @return the sum of observed values
+   */
+  long getSum();
+
+  /**
+   * NOTED: if you are going to change the method name, you have to rewrite the {@link
+   * HistogramMBean#BOUNDS_KEY} also
+   *
+   * @return the inclusive upper bounds of buckets. The bucket of "infinity" is excluded.
+   */
+  long[] getBounds();
+
+  /**
+   * NOTED: if you are going to change the method name, you have to rewrite the {@link
+   * HistogramMBean#BUCKET_COUNTS_KEY} also
+   *
+   * @return the (non-cumulative) count of each bucket. The length is equal to bounds + 1 and the
+   *     last element is the count of values larger than all bounds.
+   */
+  long[] getBucketCounts();
+
+  /**
+   * NOTED: if you are going to change the method name, you have to rewrite the {@link
+   * HistogramMBean#UNIT_KEY} also
+   *
+   * @return the unit of value
+   */
+  String getUnit();
+
+  /**
+   * NOTED: if you are going to change the method name, you have to rewrite the {@link
+   * HistogramMBean#DOCUMENT_KEY} also
+   *
+   * @return description of histogram
+   */
+  String getDocument();
+
+  /**
+   * A helper method to calculate the average of observed values
+   *
+   * @return the average
+   */
+  default double average() {
+    long count = getCount();
+    if (count <= 0) return 0;
+    else return (double) getSum() / (double) count;
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.metrics.basic;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the references of counters and histograms registered by local jvm. The metrics exporters
+ * iterate the registered objects directly so they don't need to query the mbean server (and all the
+ * reflection behind it) for each scrape.
+ *
+ * <p>NOTED: the objects are indexed by their jmx properties rather than themselves since the
+ * equality of counter is based on the mutable value.
+ */
+public final class LocalMetrics {
+  private static final Map<Map<String, String>, Counter> COUNTERS = new ConcurrentHashMap<>();
+  private static final Map<Map<String, String>, Histogram> HISTOGRAMS = new ConcurrentHashMap<>();
+
+  /**
+   * @return a read-only view of registered counters. The key is the jmx properties which is unique
+   *     in local jvm.
+   */
+  public static Map<Map<String, String>, Counter> counters() {
+    return Collections.unmodifiableMap(COUNTERS);
+  }
+
+  /**
+   * @return a read-only view of registered histograms. The key is the jmx properties which is
+   *     unique in local jvm.
+   */
+  public static Map<Map<String, String>, Histogram> histograms() {
+    return Collections.unmodifiableMap(HISTOGRAMS);
+  }
+
+  static void add(Counter counter) {
+    COUNTERS.put(counter.properties, counter);
+  }
+
+  static void remove(Counter counter) {
+    COUNTERS.remove(counter.properties);
+  }
+
+  static void add(Histogram histogram) {
+    HISTOGRAMS.put(histogram.properties, histogram);
+  }
+
+  static void remove(Histogram histogram) {
+    HISTOGRAMS.remove(histogram.properties);
+  }
+
+  private LocalMetrics() {}
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.metrics.basic;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanNotificationInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.OpenMBeanAttributeInfoSupport;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import javax.management.openmbean.TabularData;
+import javax.management.openmbean.TabularDataSupport;
+import javax.management.openmbean.TabularType;
+import oharastream.ohara.common.setting.ObjectKey;
+import oharastream.ohara.metrics.BeanChannel;
+import oharastream.ohara.metrics.BeanObject;
+
+/**
+ * Keeps the aggregated counters in memory. The counters having same key are exposed by a single
+ * dynamic mbean, and all of them are carried by the tabular attribute {@link #COUNTERS_KEY}. It
+ * saves the cost of registering and scanning thousands of mbeans since the number of beans is
+ * bounded by the number of keys rather than the number of counters.
+ *
+ * <p>NOTED: {@link BeanChannel#counterMBeans()} expands the aggregated beans so the callers can't
+ * tell the difference between the aggregated counters and the normal counters.
+ */
+public final class MetricsRegistry {
+  public static final String DOMAIN = CounterMBean.DOMAIN;
+  public static final String TYPE_KEY = CounterMBean.TYPE_KEY;
+  public static final String TYPE_VALUE = "counters";
+  public static final String KEY_KEY = CounterMBean.KEY_KEY;
+  public static final String COUNTERS_KEY = "Counters";
+
+  private static final String[] ITEM_NAMES = {
+    CounterMBean.ID_KEY,
+    CounterMBean.ITEM_KEY,
+    CounterMBean.START_TIME_KEY,
+    CounterMBean.LAST_MODIFIED_KEY,
+    CounterMBean.VALUE_KEY,
+    CounterMBean.DOCUMENT_KEY,
+    CounterMBean.UNIT_KEY
+  };
+
+  private static final CompositeType ROW_TYPE;
+  private static final TabularType TABLE_TYPE;
+
+  static {
+    try {
+      ROW_TYPE =
+          new CompositeType(
+              "counter",
+              "the attributes of a counter",
+              ITEM_NAMES,
+              ITEM_NAMES,
+              new OpenType<?>[] {
+                SimpleType.STRING,
+                SimpleType.STRING,
+                SimpleType.LONG,
+                SimpleType.LONG,
+                SimpleType.LONG,
+                SimpleType.STRING,
+                SimpleType.STRING
+              });
+      TABLE_TYPE =
+          new TabularType(
+              "counters", "the counters having same key", ROW_TYPE, new String[] {ITEM_NAMES[0]});
+    } catch (OpenDataException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /** the key of map is the plain string of ObjectKey */
+  private static final Map<String, Group> GROUPS = new ConcurrentHashMap<>();
+
+  /**
+   * @param obj bean object
+   * @return true if the bean object is a group of aggregated counters
+   */
+  public static boolean is(BeanObject obj) {
+    return obj.domainName().equals(DOMAIN)
+        && TYPE_VALUE.equals(obj.properties().get(TYPE_KEY))
+        && obj.properties().containsKey(KEY_KEY)
+        && ObjectKey.ofPlain(obj.properties().get(KEY_KEY)).isPresent()
+        && obj.attributes().get(COUNTERS_KEY) instanceof TabularData;
+  }
+
+  /**
+   * parse the aggregated counters from bean object.
+   *
+   * @param obj bean object
+   * @return counters carried by the bean object
+   */
+  public static List<CounterMBean> of(BeanObject obj) {
+    ObjectKey key = ObjectKey.requirePlain(obj.properties().get(KEY_KEY));
+    return ((TabularData) obj.attributes().get(COUNTERS_KEY))
+        .values().stream()
+            .map(
+                row -> {
+                  CompositeData data = (CompositeData) row;
+                  return (CounterMBean)
+                      Counter.builder()
+                          .key(key)
+                          .id((String) data.get(CounterMBean.ID_KEY))
+                          .item((String) data.get(CounterMBean.ITEM_KEY))
+                          .startTime((long) data.get(CounterMBean.START_TIME_KEY))
+                          .lastModified((long) data.get(CounterMBean.LAST_MODIFIED_KEY))
+                          .queryTime(obj.queryTime())
+                          .value((long) data.get(CounterMBean.VALUE_KEY))
+                          .document((String) data.get(CounterMBean.DOCUMENT_KEY))
+                          .unit((String) data.get(CounterMBean.UNIT_KEY))
+                          .build();
+                })
+            .collect(Collectors.toList());
+  }
+
+  /** @return the number of registered mbeans */
+  public static int beans() {
+    return GROUPS.size();
+  }
+
+  /**
+   * @param key object key
+   * @return the aggregated counters having the key
+   */
+  public static Collection<Counter> counters(ObjectKey key) {
+    Group group = GROUPS.get(key.toPlain());
+    return group == null
+        ? Collections.emptyList()
+        : Collections.unmodifiableCollection(group.counters.values());
+  }
+
+  static synchronized void add(Counter counter) {
+    String id = counter.properties.get(CounterMBean.ID_KEY);
+    Group group = GROUPS.get(counter.key().toPlain());
+    if (group == null) {
+      group = new Group(counter.key());
+      BeanChannel.<Group>register()
+          .domain(DOMAIN)
+          .properties(group.properties)
+          .beanObject(group)
+          .run();
+      GROUPS.put(counter.key().toPlain(), group);
+    }
+    if (group.counters.putIfAbsent(id, counter) != null)
+      throw new IllegalArgumentException(
+          "the counter:" + id + " is already registered to " + counter.key());
+  }
+
+  static synchronized void remove(Counter counter) {
+    Group group = GROUPS.get(counter.key().toPlain());
+    if (group == null) return;
+    group.counters.remove(counter.properties.get(CounterMBean.ID_KEY), counter);
+    if (group.counters.isEmpty()) {
+      GROUPS.remove(counter.key().toPlain());
+      BeanChannel.unregister(DOMAIN, group.properties);
+    }
+  }
+
+  /** the dynamic mbean of counters having same key. */
+  private static final class Group implements DynamicMBean {
+    private final Map<String, String> properties;
+    /** the key of map is the id of counter */
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    private Group(ObjectKey key) {
+      Map<String, String> properties = new HashMap<>();
+      properties.put(TYPE_KEY, TYPE_VALUE);
+      properties.put(KEY_KEY, key.toPlain());
+      this.properties = Collections.unmodifiableMap(properties);
+    }
+
+    private TabularData table() {
+      TabularDataSupport table = new TabularDataSupport(TABLE_TYPE);
+      counters.forEach(
+          (id, counter) -> {
+            try {
+              table.put(
+                  new CompositeDataSupport(
+                      ROW_TYPE,
+                      ITEM_NAMES,
+                      new Object[] {
+                        id,
+                        counter.item(),
+                        counter.getStartTime(),
+                        counter.getLastModified(),
+                        counter.getValue(),
+                        counter.getDocument(),
+                        counter.getUnit()
+                      }));
+            } catch (OpenDataException e) {
+              throw new IllegalStateException(e);
+            }
+          });
+      return table;
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+      if (COUNTERS_KEY.equals(attribute)) return table();
+      throw new AttributeNotFoundException(attribute);
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) {
+      throw new UnsupportedOperationException("the aggregated counters are read-only");
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+      AttributeList list = new AttributeList();
+      for (String attribute : attributes)
+        if (COUNTERS_KEY.equals(attribute)) list.add(new Attribute(attribute, table()));
+      return list;
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+      return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) {
+      throw new UnsupportedOperationException("there is no operation for aggregated counters");
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+      return new MBeanInfo(
+          Group.class.getName(),
+          "the counters of " + properties.get(KEY_KEY),
+          new MBeanAttributeInfo[] {
+            new OpenMBeanAttributeInfoSupport(
+                COUNTERS_KEY, "the counters having same key", TABLE_TYPE, true, false, false)
+          },
+          null,
+          new MBeanOperationInfo[0],
+          new MBeanNotificationInfo[0]);
+    }
+  }
+
+  private MetricsRegistry() {}
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.metrics.basic;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import oharastream.ohara.common.annotations.Optional;
+import oharastream.ohara.common.setting.ObjectKey;
+import oharastream.ohara.common.util.Releasable;
+
+/**
+ * A timer is a {@link Histogram} recording durations in milliseconds. It is exported as a histogram
+ * so it is still visible to the tools which are aware of {@link HistogramMBean} only.
+ */
+public final class Timer implements Releasable {
+  public static final String UNIT = "milliseconds";
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  private final Histogram histogram;
+
+  private Timer(Histogram histogram) {
+    this.histogram = histogram;
+  }
+
+  /** @return the histogram storing the durations */
+  public Histogram histogram() {
+    return histogram;
+  }
+
+  public void record(long duration, TimeUnit unit) {
+    histogram.update(unit.toMillis(duration));
+  }
+
+  public void record(Duration duration) {
+    histogram.update(duration.toMillis());
+  }
+
+  /**
+   * execute the function and record the elapsed time
+   *
+   * @param function function
+   * @param <T> result type
+   * @return the result of function
+   */
+  public <T> T time(Supplier<T> function) {
+    long start = System.nanoTime();
+    try {
+      return function.get();
+    } finally {
+      record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /**
+   * execute the runnable and record the elapsed time
+   *
+   * @param runnable runnable
+   */
+  public void time(Runnable runnable) {
+    time(
+        () -> {
+          runnable.run();
+          return null;
+        });
+  }
+
+  @Override
+  public void close() {
+    histogram.close();
+  }
+
+  public static class Builder implements oharastream.ohara.common.pattern.Builder<Timer> {
+    private final Histogram.Builder builder = Histogram.builder().unit(UNIT);
+
+    private Builder() {}
+
+    public Builder key(ObjectKey key) {
+      builder.key(Objects.requireNonNull(key));
+      return this;
+    }
+
+    public Builder item(String item) {
+      builder.item(item);
+      return this;
+    }
+
+    @Optional("default is Histogram.DEFAULT_BOUNDS")
+    public Builder bounds(long[] bounds) {
+      builder.bounds(bounds);
+      return this;
+    }
+
+    @Optional("default is no document")
+    public Builder document(String document) {
+      builder.document(document);
+      return this;
+    }
+
+    /**
+     * create a timer without registry.
+     *
+     * @return Timer
+     */
+    @Override
+    public Timer build() {
+      return new Timer(builder.build());
+    }
+
+    /**
+     * create and register a timer.
+     *
+     * @return Timer
+     */
+    public Timer register() {
+      return new Timer(builder.register());
+    }
+  }
+}
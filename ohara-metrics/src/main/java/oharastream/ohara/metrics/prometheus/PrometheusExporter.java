@@ -0,0 +1,266 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.metrics.prometheus;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import oharastream.ohara.common.annotations.VisibleForTesting;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.common.util.ReleaseOnce;
+import oharastream.ohara.metrics.basic.Counter;
+import oharastream.ohara.metrics.basic.Histogram;
+import oharastream.ohara.metrics.basic.LocalMetrics;
+
+/**
+ * An embedded http server exposing all local counters and histograms in the prometheus text format.
+ * The metrics are read from {@link LocalMetrics} so a scrape does not touch the mbean server. The
+ * labels are generated by the object key (group and name), item and unit. NOTED: the ohara counter
+ * is able to decrease so it is exported as a gauge.
+ */
+public final class PrometheusExporter extends ReleaseOnce {
+  /** the env key used to pass the exporter port to the containers which don't have setting */
+  public static final String PORT_ENV_KEY = "OHARA_PROMETHEUS_PORT";
+
+  public static final String PATH = "/metrics";
+  public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+  public static final String COUNTER_NAME = "ohara_counter";
+  public static final String HISTOGRAM_NAME = "ohara_histogram";
+
+  private static PrometheusExporter LOCAL = null;
+
+  /**
+   * start a jvm-wide exporter. It does nothing if there is already a running exporter.
+   *
+   * @param port bound port
+   * @return the jvm-wide exporter
+   */
+  public static synchronized PrometheusExporter local(int port) {
+    if (LOCAL == null || LOCAL.isClosed()) LOCAL = builder().port(port).build();
+    return LOCAL;
+  }
+
+  /**
+   * start a jvm-wide exporter if the {@link #PORT_ENV_KEY} is defined.
+   *
+   * @return the jvm-wide exporter or empty if the env is not defined
+   */
+  public static Optional<PrometheusExporter> localFromEnv() {
+    String port = System.getenv(PORT_ENV_KEY);
+    if (CommonUtils.isEmpty(port)) return Optional.empty();
+    return Optional.of(local(Integer.parseInt(port.trim())));
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  private final HttpServer server;
+  /** cache the label strings so the scrape doesn't need to regenerate them */
+  private final Map<Map<String, String>, String> labels = new ConcurrentHashMap<>();
+
+  private PrometheusExporter(HttpServer server) {
+    this.server = server;
+    this.server.createContext(PATH, this::handle);
+    this.server.start();
+  }
+
+  /** @return the port bound by this exporter */
+  public int port() {
+    return server.getAddress().getPort();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try {
+      byte[] body = render().getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream output = exchange.getResponseBody()) {
+        output.write(body);
+      }
+    } finally {
+      exchange.close();
+    }
+  }
+
+  @VisibleForTesting
+  String render() {
+    Map<Map<String, String>, Counter> counters = LocalMetrics.counters();
+    Map<Map<String, String>, Histogram> histograms = LocalMetrics.histograms();
+    Set<Map<String, String>> alive = new HashSet<>();
+    StringBuilder builder = new StringBuilder(128 * (counters.size() + histograms.size()) + 256);
+    builder
+        .append("# HELP ")
+        .append(COUNTER_NAME)
+        .append(" the counters of ohara\n")
+        .append("# TYPE ")
+        .append(COUNTER_NAME)
+        .append(" gauge\n");
+    counters.forEach(
+        (properties, counter) -> {
+          alive.add(properties);
+          builder
+              .append(COUNTER_NAME)
+              .append('{')
+              .append(
+                  labels(
+                      properties,
+                      counter.key().group(),
+                      counter.key().name(),
+                      counter.item(),
+                      counter.getUnit()))
+              .append("} ")
+              .append(counter.getValue())
+              .append('\n');
+        });
+    builder
+        .append("# HELP ")
+        .append(HISTOGRAM_NAME)
+        .append(" the histograms of ohara\n")
+        .append("# TYPE ")
+        .append(HISTOGRAM_NAME)
+        .append(" histogram\n");
+    histograms.forEach(
+        (properties, histogram) -> {
+          alive.add(properties);
+          String label =
+              labels(
+                  properties,
+                  histogram.key().group(),
+                  histogram.key().name(),
+                  histogram.item(),
+                  histogram.getUnit());
+          long[] bounds = histogram.getBounds();
+          long[] buckets = histogram.getBucketCounts();
+          long cumulative = 0;
+          for (int i = 0; i != buckets.length; ++i) {
+            cumulative += buckets[i];
+            builder
+                .append(HISTOGRAM_NAME)
+                .append("_bucket{")
+                .append(label)
+                .append(",le=\"")
+                .append(i < bounds.length ? String.valueOf(bounds[i]) : "+Inf")
+                .append("\"} ")
+                .append(cumulative)
+                .append('\n');
+          }
+          builder
+              .append(HISTOGRAM_NAME)
+              .append("_sum{")
+              .append(label)
+              .append("} ")
+              .append(histogram.getSum())
+              .append('\n')
+              .append(HISTOGRAM_NAME)
+              .append("_count{")
+              .append(label)
+              .append("} ")
+              // the count must be equal to the "+Inf" bucket
+              .append(cumulative)
+              .append('\n');
+        });
+    // remove the labels of closed metrics
+    labels.keySet().retainAll(alive);
+    return builder.toString();
+  }
+
+  private String labels(
+      Map<String, String> properties, String group, String name, String item, String unit) {
+    return labels.computeIfAbsent(
+        properties,
+        ignored ->
+            "group=\""
+                + escape(group)
+                + "\",name=\""
+                + escape(name)
+                + "\",item=\""
+                + escape(item)
+                + "\",unit=\""
+                + escape(unit)
+                + "\"");
+  }
+
+  @VisibleForTesting
+  static String escape(String value) {
+    StringBuilder builder = new StringBuilder(value.length());
+    for (int i = 0; i != value.length(); ++i) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '\\':
+          builder.append("\\\\");
+          break;
+        case '"':
+          builder.append("\\\"");
+          break;
+        case '\n':
+          builder.append("\\n");
+          break;
+        default:
+          builder.append(c);
+      }
+    }
+    return builder.toString();
+  }
+
+  @Override
+  protected void doClose() {
+    server.stop(0);
+  }
+
+  public static class Builder
+      implements oharastream.ohara.common.pattern.Builder<PrometheusExporter> {
+    private String hostname = CommonUtils.anyLocalAddress();
+    private int port = 0;
+
+    private Builder() {}
+
+    @oharastream.ohara.common.annotations.Optional("default is 0.0.0.0")
+    public Builder hostname(String hostname) {
+      this.hostname = CommonUtils.requireNonEmpty(hostname);
+      return this;
+    }
+
+    @oharastream.ohara.common.annotations.Optional("default is random port")
+    public Builder port(int port) {
+      this.port = CommonUtils.requireBindPort(port);
+      return this;
+    }
+
+    /**
+     * create and start the exporter.
+     *
+     * @return exporter
+     */
+    @Override
+    public PrometheusExporter build() {
+      try {
+        return new PrometheusExporter(HttpServer.create(new InetSocketAddress(hostname, port), 0));
+      } catch (IOException e) {
+        throw new IllegalArgumentException(e);
+      }
+    }
+  }
+}
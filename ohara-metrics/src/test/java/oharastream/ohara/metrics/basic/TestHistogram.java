@@ -0,0 +1,121 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.metrics.basic;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import oharastream.ohara.common.rule.OharaTest;
+import oharastream.ohara.common.setting.ObjectKey;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.metrics.BeanChannel;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestHistogram extends OharaTest {
+
+  @Test
+  public void testUpdate() {
+    try (Histogram histogram =
+        Histogram.builder()
+            .key(CommonUtils.randomKey())
+            .item(CommonUtils.randomString(10))
+            .bounds(new long[] {10, 100})
+            .build()) {
+      histogram.update(1);
+      histogram.update(10);
+      histogram.update(11);
+      histogram.update(1000);
+      Assert.assertEquals(4, histogram.getCount());
+      Assert.assertEquals(1022, histogram.getSum());
+      Assert.assertArrayEquals(new long[] {2, 1, 1}, histogram.getBucketCounts());
+      Assert.assertEquals(1022D / 4D, histogram.average(), 0.0001);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testEmptyBounds() {
+    Histogram.builder().bounds(new long[0]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnsortedBounds() {
+    Histogram.builder().bounds(new long[] {10, 1});
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void testNullKey() {
+    Histogram.builder().key(null);
+  }
+
+  @Test
+  public void testTimer() {
+    try (Timer timer =
+        Timer.builder().key(CommonUtils.randomKey()).item(CommonUtils.randomString()).build()) {
+      timer.record(2, TimeUnit.SECONDS);
+      Assert.assertEquals("ok", timer.time(() -> "ok"));
+      Assert.assertEquals(2, timer.histogram().getCount());
+      Assert.assertEquals(Timer.UNIT, timer.histogram().getUnit());
+      Assert.assertTrue(timer.histogram().getSum() >= 2000);
+    }
+  }
+
+  @Test
+  public void testRegister() {
+    ObjectKey key = CommonUtils.randomKey();
+    String item = CommonUtils.randomString();
+    Histogram histogram =
+        Histogram.builder()
+            .key(key)
+            .item(item)
+            .unit("ms")
+            .document("abc")
+            .bounds(new long[] {1, 2, 3})
+            .register();
+    try {
+      histogram.update(2);
+      histogram.update(5);
+      Assert.assertTrue(LocalMetrics.histograms().containsValue(histogram));
+      List<HistogramMBean> beans =
+          BeanChannel.builder()
+              .local()
+              .domainName(HistogramMBean.DOMAIN)
+              .properties(histogram.properties)
+              .build()
+              .histogramMBeans();
+      Assert.assertEquals(1, beans.size());
+      HistogramMBean bean = beans.get(0);
+      Assert.assertEquals(key, bean.key());
+      Assert.assertEquals(item, bean.item());
+      Assert.assertEquals("ms", bean.getUnit());
+      Assert.assertEquals("abc", bean.getDocument());
+      Assert.assertEquals(2, bean.getCount());
+      Assert.assertEquals(7, bean.getSum());
+      Assert.assertArrayEquals(new long[] {1, 2, 3}, bean.getBounds());
+      Assert.assertArrayEquals(new long[] {0, 1, 0, 1}, bean.getBucketCounts());
+      // the histogram is not a counter
+      Assert.assertTrue(
+          BeanChannel.local().counterMBeans().stream()
+              .noneMatch(c -> c.key().equals(key) && c.item().equals(item)));
+      histogram.close();
+      Assert.assertFalse(LocalMetrics.histograms().containsValue(histogram));
+      Assert.assertTrue(
+          BeanChannel.local().histogramMBeans().stream().noneMatch(h -> h.key().equals(key)));
+    } finally {
+      histogram.close();
+    }
+  }
+}
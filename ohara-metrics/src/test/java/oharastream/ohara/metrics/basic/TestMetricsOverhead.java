@@ -0,0 +1,125 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.metrics.basic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import oharastream.ohara.common.rule.OharaBenchmark;
+import oharastream.ohara.common.setting.ObjectKey;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.metrics.BeanChannel;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Measures the cost of metrics. The budgets can be overridden by the system properties so the slow
+ * machine (for example, QA) is able to run this benchmark also.
+ */
+public class TestMetricsOverhead extends OharaBenchmark {
+  /** the max cost (in microseconds) of scraping a counter from local mbean server */
+  private static final double SCRAPE_BUDGET = budget("ohara.benchmark.metrics.scrape.budget", 1000);
+  /** the max cost (in nanoseconds) of updating a counter or a histogram */
+  private static final double UPDATE_BUDGET = budget("ohara.benchmark.metrics.update.budget", 2000);
+
+  private static void testScrape(int numberOfCounters, Function<Counter.Builder, Counter> f) {
+    // the scrape has to iterate all beans (for example, the beans of jvm) so we subtract the cost
+    // of scraping the existent beans.
+    long baseline = bestOf(5, () -> BeanChannel.local().counterMBeans());
+    ObjectKey key = CommonUtils.randomKey();
+    List<Counter> counters = new ArrayList<>(numberOfCounters);
+    try {
+      for (int i = 0; i != numberOfCounters; ++i)
+        counters.add(f.apply(Counter.builder().key(key).item("counter-" + i)));
+      long cost =
+          bestOf(
+              5,
+              () ->
+                  Assert.assertEquals(
+                      numberOfCounters,
+                      BeanChannel.local().counterMBeans().stream()
+                          .filter(c -> c.key().equals(key))
+                          .count()));
+      long costPerCounter =
+          TimeUnit.NANOSECONDS.toMicros(Math.max(0, cost - baseline)) / numberOfCounters;
+      Assert.assertTrue(
+          "scraping "
+              + numberOfCounters
+              + " counters costs "
+              + TimeUnit.NANOSECONDS.toMillis(cost)
+              + " ms (the baseline is "
+              + TimeUnit.NANOSECONDS.toMillis(baseline)
+              + " ms). the budget is "
+              + SCRAPE_BUDGET
+              + " us per counter",
+          costPerCounter <= SCRAPE_BUDGET);
+    } finally {
+      counters.forEach(Counter::close);
+    }
+  }
+
+  @Test
+  public void testScrape100Counters() {
+    testScrape(100, Counter.Builder::register);
+    testScrape(100, Counter.Builder::registerAggregated);
+  }
+
+  @Test
+  public void testScrape1000Counters() {
+    testScrape(1000, Counter.Builder::register);
+    testScrape(1000, Counter.Builder::registerAggregated);
+  }
+
+  @Test
+  public void testScrape10000Counters() {
+    testScrape(10000, Counter.Builder::register);
+    testScrape(10000, Counter.Builder::registerAggregated);
+  }
+
+  private static void checkUpdateCost(String name, long cost) {
+    Assert.assertTrue(
+        "updating " + name + " costs " + cost + " ns. the budget is " + UPDATE_BUDGET + " ns",
+        cost <= UPDATE_BUDGET);
+  }
+
+  @Test
+  public void testUpdateCost() {
+    int count = 100000;
+    try (Counter counter =
+            Counter.builder().key(CommonUtils.randomKey()).item("counter").registerAggregated();
+        Histogram histogram =
+            Histogram.builder().key(CommonUtils.randomKey()).item("histogram").register()) {
+      checkUpdateCost(
+          "counter",
+          bestOf(
+                  5,
+                  () -> {
+                    for (int i = 0; i != count; ++i) counter.addAndGet(i);
+                  })
+              / count);
+      checkUpdateCost(
+          "histogram",
+          bestOf(
+                  5,
+                  () -> {
+                    for (int i = 0; i != count; ++i) histogram.update(i);
+                  })
+              / count);
+    }
+  }
+}
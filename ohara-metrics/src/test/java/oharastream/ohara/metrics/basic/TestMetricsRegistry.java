@@ -0,0 +1,135 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.metrics.basic;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import oharastream.ohara.common.rule.OharaTest;
+import oharastream.ohara.common.setting.ObjectKey;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.metrics.BeanChannel;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestMetricsRegistry extends OharaTest {
+
+  private static BeanChannel aggregatedBeans(ObjectKey key) {
+    Map<String, String> properties = new HashMap<>();
+    properties.put(MetricsRegistry.TYPE_KEY, MetricsRegistry.TYPE_VALUE);
+    properties.put(MetricsRegistry.KEY_KEY, key.toPlain());
+    return BeanChannel.builder()
+        .local()
+        .domainName(MetricsRegistry.DOMAIN)
+        .properties(properties)
+        .build();
+  }
+
+  private static List<CounterMBean> counterMBeans(ObjectKey key) {
+    return BeanChannel.local().counterMBeans().stream()
+        .filter(c -> c.key().equals(key))
+        .collect(Collectors.toList());
+  }
+
+  @Test
+  public void testSingleBeanPerKey() {
+    ObjectKey key = CommonUtils.randomKey();
+    Counter c0 = Counter.builder().key(key).item("c0").registerAggregated();
+    Counter c1 = Counter.builder().key(key).item("c1").registerAggregated();
+    Counter c2 = Counter.builder().key(key).item("c2").registerAggregated();
+    try {
+      Assert.assertTrue(c0.aggregated);
+      Assert.assertEquals(3, MetricsRegistry.counters(key).size());
+      BeanChannel channel =
+          BeanChannel.builder()
+              .local()
+              .domainName(MetricsRegistry.DOMAIN)
+              .properties(c0.properties)
+              .build();
+      // there is no individual mbean
+      Assert.assertEquals(0, channel.size());
+      Assert.assertEquals(1, aggregatedBeans(key).size());
+      Assert.assertTrue(MetricsRegistry.is(aggregatedBeans(key).beanObjects().get(0)));
+      Assert.assertEquals(3, counterMBeans(key).size());
+      c1.close();
+      Assert.assertEquals(2, counterMBeans(key).size());
+      Assert.assertEquals(1, aggregatedBeans(key).size());
+    } finally {
+      c0.close();
+      c1.close();
+      c2.close();
+    }
+    Assert.assertEquals(0, aggregatedBeans(key).size());
+    Assert.assertEquals(0, MetricsRegistry.counters(key).size());
+  }
+
+  @Test
+  public void testFromBean() {
+    ObjectKey key = CommonUtils.randomKey();
+    String item = CommonUtils.randomString();
+    String document = CommonUtils.randomString();
+    String unit = CommonUtils.randomString();
+    try (Counter counter =
+        Counter.builder()
+            .key(key)
+            .item(item)
+            .document(document)
+            .unit(unit)
+            .value(10)
+            .registerAggregated()) {
+      List<CounterMBean> beans = counterMBeans(key);
+      Assert.assertEquals(1, beans.size());
+      CounterMBean bean = beans.get(0);
+      Assert.assertEquals(key, bean.key());
+      Assert.assertEquals(item, bean.item());
+      Assert.assertEquals(document, bean.getDocument());
+      Assert.assertEquals(unit, bean.getUnit());
+      Assert.assertEquals(10, bean.getValue());
+      Assert.assertEquals(counter.getStartTime(), bean.getStartTime());
+
+      counter.addAndGet(5);
+      Assert.assertEquals(15, counterMBeans(key).get(0).getValue());
+    }
+  }
+
+  @Test
+  public void testMixedCounters() {
+    ObjectKey key = CommonUtils.randomKey();
+    try (Counter c0 = Counter.builder().key(key).item("c0").registerAggregated();
+        Counter c1 = Counter.builder().key(key).item("c1").register()) {
+      Assert.assertEquals(2, counterMBeans(key).size());
+      Assert.assertTrue(LocalMetrics.counters().containsKey(c0.properties));
+      Assert.assertTrue(LocalMetrics.counters().containsKey(c1.properties));
+    }
+    Assert.assertEquals(0, counterMBeans(key).size());
+  }
+
+  @SuppressWarnings("try")
+  @Test(expected = IllegalArgumentException.class)
+  public void testDuplicateRegister() {
+    Counter.Builder builder =
+        Counter.builder()
+            .key(CommonUtils.randomKey())
+            .item(CommonUtils.randomString(10))
+            .id(CommonUtils.randomString());
+    try (Counter c = builder.registerAggregated();
+        Counter c2 = builder.registerAggregated()) {
+      throw new AssertionError();
+    }
+  }
+}
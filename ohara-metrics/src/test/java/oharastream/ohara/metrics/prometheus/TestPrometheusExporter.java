@@ -0,0 +1,138 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.metrics.prometheus;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import oharastream.ohara.common.rule.OharaTest;
+import oharastream.ohara.common.setting.ObjectKey;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.metrics.basic.Counter;
+import oharastream.ohara.metrics.basic.Histogram;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestPrometheusExporter extends OharaTest {
+
+  @Test
+  public void testEscape() {
+    Assert.assertEquals("a\\\\b\\\"c\\n", PrometheusExporter.escape("a\\b\"c\n"));
+    Assert.assertEquals("abc", PrometheusExporter.escape("abc"));
+  }
+
+  @Test
+  public void testRenderCounter() {
+    ObjectKey key = CommonUtils.randomKey();
+    Counter counter = Counter.builder().key(key).item("rows").unit("row").register();
+    try (PrometheusExporter exporter = PrometheusExporter.builder().build()) {
+      counter.setAndGet(123);
+      String line =
+          PrometheusExporter.COUNTER_NAME
+              + "{group=\""
+              + key.group()
+              + "\",name=\""
+              + key.name()
+              + "\",item=\"rows\",unit=\"row\"} 123";
+      Assert.assertTrue(exporter.render().contains(line));
+      counter.close();
+      Assert.assertFalse(exporter.render().contains(line));
+    } finally {
+      counter.close();
+    }
+  }
+
+  @Test
+  public void testRenderUnregisteredCounter() {
+    try (PrometheusExporter exporter = PrometheusExporter.builder().build();
+        Counter counter = Counter.builder().key(CommonUtils.randomKey()).item("rows").build()) {
+      Assert.assertFalse(exporter.render().contains(counter.key().name()));
+    }
+  }
+
+  @Test
+  public void testRenderHistogram() {
+    ObjectKey key = CommonUtils.randomKey();
+    try (PrometheusExporter exporter = PrometheusExporter.builder().build();
+        Histogram histogram =
+            Histogram.builder()
+                .key(key)
+                .item("latency")
+                .unit("ms")
+                .bounds(new long[] {10, 100})
+                .register()) {
+      histogram.update(5);
+      histogram.update(50);
+      histogram.update(500);
+      String labels =
+          "group=\"" + key.group() + "\",name=\"" + key.name() + "\",item=\"latency\",unit=\"ms\"";
+      String result = exporter.render();
+      String prefix = PrometheusExporter.HISTOGRAM_NAME;
+      Assert.assertTrue(result.contains(prefix + "_bucket{" + labels + ",le=\"10\"} 1"));
+      Assert.assertTrue(result.contains(prefix + "_bucket{" + labels + ",le=\"100\"} 2"));
+      Assert.assertTrue(result.contains(prefix + "_bucket{" + labels + ",le=\"+Inf\"} 3"));
+      Assert.assertTrue(result.contains(prefix + "_sum{" + labels + "} 555"));
+      Assert.assertTrue(result.contains(prefix + "_count{" + labels + "} 3"));
+    }
+  }
+
+  @Test
+  public void testScrape() throws Exception {
+    ObjectKey key = CommonUtils.randomKey();
+    try (PrometheusExporter exporter = PrometheusExporter.builder().build();
+        Counter counter = Counter.builder().key(key).item("rows").register()) {
+      counter.setAndGet(10);
+      HttpURLConnection connection =
+          (HttpURLConnection)
+              new URL("http://localhost:" + exporter.port() + PrometheusExporter.PATH)
+                  .openConnection();
+      try {
+        Assert.assertEquals(200, connection.getResponseCode());
+        Assert.assertEquals(PrometheusExporter.CONTENT_TYPE, connection.getContentType());
+        try (InputStream input = connection.getInputStream()) {
+          ByteArrayOutputStream output = new ByteArrayOutputStream();
+          byte[] buffer = new byte[1024];
+          int size;
+          while ((size = input.read(buffer)) > 0) output.write(buffer, 0, size);
+          String body = new String(output.toByteArray(), StandardCharsets.UTF_8);
+          Assert.assertTrue(body.contains("name=\"" + key.name() + "\""));
+        }
+      } finally {
+        connection.disconnect();
+      }
+    }
+  }
+
+  @Test
+  public void testLocal() {
+    int port = CommonUtils.availablePort();
+    PrometheusExporter exporter = PrometheusExporter.local(port);
+    try {
+      Assert.assertEquals(port, exporter.port());
+      Assert.assertSame(exporter, PrometheusExporter.local(port));
+    } finally {
+      exporter.close();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativePort() {
+    PrometheusExporter.builder().port(-1);
+  }
+}
@@ -22,6 +22,12 @@ import java.util.concurrent.atomic.AtomicInteger
 import oharastream.ohara.common.util.VersionUtils
 import oharastream.ohara.common.setting.{SettingDef, WithDefinitions}
 import oharastream.ohara.common.setting.SettingDef.Type
+import oharastream.ohara.kafka.{
+  ColumnHashPartitioner,
+  LoadAwarePartitioner,
+  RowDefaultPartitioner,
+  StickyRoundRobinPartitioner
+}
 import scala.jdk.CollectionConverters._
 import scala.collection.mutable
 
@@ -103,6 +109,16 @@ object ShabondiDefinitions {
     .build
     .registerTo(basicDefinitionMap)
 
+  val PROMETHEUS_PORT_DEFINITION = SettingDef.builder
+    .group(CORE_GROUP)
+    .key("prometheusPort")
+    .orderInGroup(orderInGroup())
+    .optional(Type.BINDING_PORT)
+    .displayName("Prometheus export port")
+    .documentation("The port of this Shabondi service using to export metrics in prometheus format")
+    .build
+    .registerTo(basicDefinitionMap)
+
   val BROKER_CLUSTER_KEY_DEFINITION = SettingDef.builder
     .group(CORE_GROUP)
     .key("brokerClusterKey")
@@ -211,6 +227,42 @@ object ShabondiDefinitions {
     .build
     .registerTo(sourceDefinitionMap)
 
+  val SOURCE_PARTITIONER_CLASS_DEFINITION = SettingDef.builder
+    .key("shabondi.source.partitioner.class")
+    .group(CORE_GROUP)
+    .orderInGroup(orderInGroup())
+    .displayName("Partitioner class")
+    .documentation(
+      "The partitioner deciding the partition of rows. The built-in partitioners are " +
+        s"${classOf[ColumnHashPartitioner].getName}, ${classOf[StickyRoundRobinPartitioner].getName} " +
+        s"and ${classOf[LoadAwarePartitioner].getName}"
+    )
+    .optionalClassValue(classOf[RowDefaultPartitioner].getName)
+    .build
+    .registerTo(sourceDefinitionMap)
+
+  val SOURCE_PARTITIONER_COLUMNS_DEFINITION = SettingDef.builder
+    .key("shabondi.source.partitioner.columns")
+    .group(CORE_GROUP)
+    .orderInGroup(orderInGroup())
+    .displayName("Partitioner columns")
+    .documentation(s"The columns used to compute the hash by ${classOf[ColumnHashPartitioner].getName}")
+    .optional(Type.ARRAY)
+    .build
+    .registerTo(sourceDefinitionMap)
+
+  val SOURCE_PARTITIONER_JMX_PORT_DEFINITION = SettingDef.builder
+    .key("shabondi.source.partitioner.jmx.port")
+    .group(CORE_GROUP)
+    .orderInGroup(orderInGroup())
+    .displayName("Partitioner jmx port")
+    .documentation(
+      s"The jmx port of brokers used by ${classOf[LoadAwarePartitioner].getName} to fetch the load of brokers"
+    )
+    .optional(Type.REMOTE_PORT)
+    .build
+    .registerTo(sourceDefinitionMap)
+
   //-------------- Definitions of Shabondi Sink -----------------
 
   val SINK_KIND_DEFINITION: SettingDef = WithDefinitions
@@ -247,4 +299,14 @@ object ShabondiDefinitions {
     .documentation("The resource will be released automatically if the data group is not used more than idle time.")
     .build
     .registerTo(sinkDefinitionMap)
+
+  val SINK_LAG_METRICS_DEFINITION = SettingDef.builder
+    .key("shabondi.sink.lag.metrics")
+    .group(CORE_GROUP)
+    .orderInGroup(orderInGroup())
+    .optional(false)
+    .displayName("Lag metrics")
+    .documentation("true if the consumer lag of each data group should be exposed. It costs a polling thread per group")
+    .build
+    .registerTo(sinkDefinitionMap)
 }
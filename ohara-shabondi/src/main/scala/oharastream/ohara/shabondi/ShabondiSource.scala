@@ -18,6 +18,7 @@ package oharastream.ohara.shabondi
 
 import com.typesafe.scalalogging.Logger
 import oharastream.ohara.common.util.CommonUtils
+import oharastream.ohara.metrics.prometheus.PrometheusExporter
 import oharastream.ohara.shabondi.common.ShabondiUtils
 
 object ShabondiSource {
@@ -29,11 +30,13 @@ object ShabondiSource {
     newArgs.foreach { case (k, v) => log.info(s"  $k=$v") }
 
     val config    = new source.SourceConfig(newArgs)
+    val exporter  = config.prometheusPort.map(PrometheusExporter.local)
     val webServer = new source.WebServer(config)
     try {
       webServer.start(CommonUtils.anyLocalAddress(), config.port)
     } finally {
       webServer.close()
+      exporter.foreach(_.close())
     }
   }
 }
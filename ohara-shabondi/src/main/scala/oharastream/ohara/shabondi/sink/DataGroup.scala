@@ -20,9 +20,10 @@ import java.time.{Duration => JDuration}
 import java.util.concurrent.atomic.AtomicBoolean
 import java.util.function.Consumer
 
-import oharastream.ohara.common.util.Releasable
+import oharastream.ohara.common.util.{CommonUtils, Releasable}
 import com.typesafe.scalalogging.Logger
 import oharastream.ohara.common.setting.ObjectKey
+import oharastream.ohara.kafka.LagCollector
 import oharastream.ohara.metrics.basic.Counter
 
 private[sink] class DataGroup(
@@ -30,7 +31,8 @@ private[sink] class DataGroup(
   objectKey: ObjectKey,
   brokerProps: String,
   topicNames: Set[String],
-  pollTimeout: JDuration
+  pollTimeout: JDuration,
+  lagMetrics: Boolean
 ) extends Releasable {
   private val log = Logger(classOf[RowQueue])
 
@@ -41,10 +43,24 @@ private[sink] class DataGroup(
       .unit("row")
       .document(s"The number of received rows of group $name")
       .value(0)
-      .register()
+      .registerAggregated()
+
+  private[this] val groupId = s"shabondi-${objectKey.toPlain}-$name-${CommonUtils.randomString(5)}"
+
+  private[this] val lagCollector: Option[LagCollector] =
+    if (lagMetrics)
+      Some(
+        LagCollector.builder
+          .connectionProps(brokerProps)
+          .key(objectKey)
+          .groupId(groupId)
+          .item(s"${LagCollector.DEFAULT_ITEM}-$name")
+          .build()
+      )
+    else None
 
   val queue                = new RowQueue
-  val queueProducer        = new QueueProducer(name, queue, brokerProps, topicNames, pollTimeout, rowCounter)
+  val queueProducer        = new QueueProducer(name, groupId, queue, brokerProps, topicNames, pollTimeout, rowCounter)
   private[this] val closed = new AtomicBoolean(false)
 
   def resume(): Unit =
@@ -67,6 +83,7 @@ private[sink] class DataGroup(
       }
       Releasable.close(queueProducer, addSuppressedException)
       Releasable.close(rowCounter, addSuppressedException)
+      lagCollector.foreach(Releasable.close(_, addSuppressedException))
       if (exception != null) throw exception
       log.info("Group {} closed.", name)
     }
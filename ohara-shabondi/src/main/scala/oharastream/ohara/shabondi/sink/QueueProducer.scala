@@ -31,6 +31,7 @@ import scala.jdk.CollectionConverters._
 
 private[sink] class QueueProducer(
   val groupName: String,
+  val groupId: String,
   val queue: JQueue[Row],
   val brokerProps: String,
   val topicNames: Set[String],
@@ -47,6 +48,7 @@ private[sink] class QueueProducer(
     .keySerializer(Serializer.ROW)
     .valueSerializer(Serializer.BYTES)
     .offsetFromBegin()
+    .groupId(groupId)
     .topicNames(topicNames.asJava)
     .connectionProps(brokerProps)
     .build()
@@ -62,12 +64,12 @@ private[sink] class QueueProducer(
     try {
       while (!stopped.get) {
         if (!paused.get && queue.isEmpty) {
-          val rows = consumer.poll(pollTimeout).asScala.map(_.key.get)
-          rows.foreach { r =>
-            queue.add(r)
+          // the records are passed one by one so no intermediate collection is created
+          val count = consumer.poll(pollTimeout, (record: Consumer.Record[Row, Array[Byte]]) => {
+            queue.add(record.key.get)
             rowCounter.incrementAndGet()
-          }
-          log.trace("    group[{}], queue: {}, rows: {}", groupName, queue.size, rows.size)
+          })
+          log.trace("    group[{}], queue: {}, rows: {}", groupName, queue.size, count)
         } else {
           TimeUnit.MILLISECONDS.sleep(10)
         }
@@ -33,6 +33,8 @@ private[shabondi] class SinkConfig(raw: Map[String, String]) {
 
   def port: Int = raw(CLIENT_PORT_DEFINITION.key).toInt
 
+  def prometheusPort: Option[Int] = raw.get(PROMETHEUS_PORT_DEFINITION.key).map(_.toInt)
+
   def brokers: String = raw(BROKERS_DEFINITION.key)
 
   def sinkFromTopics: Seq[TopicKey] = TopicKey.toTopicKeys(raw(SINK_FROM_TOPICS_DEFINITION.key)).asScala.toSeq
@@ -41,6 +43,8 @@ private[shabondi] class SinkConfig(raw: Map[String, String]) {
 
   def sinkGroupIdleTime: JDuration = durationValue(SINK_GROUP_IDLETIME)
 
+  def sinkLagMetrics: Boolean = raw.get(SINK_LAG_METRICS_DEFINITION.key).exists(_.toBoolean)
+
   private def durationValue(settingDef: SettingDef): JDuration =
     if (!raw.contains(settingDef.key))
       settingDef.defaultDuration()
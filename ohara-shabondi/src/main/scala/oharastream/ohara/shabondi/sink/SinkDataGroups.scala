@@ -31,10 +31,21 @@ private[sink] object SinkDataGroups {
     new SinkDataGroups(config)
 }
 
-private class SinkDataGroups(objectKey: ObjectKey, brokerProps: String, topicNames: Set[String], pollTimeout: JDuration)
-    extends Releasable {
+private class SinkDataGroups(
+  objectKey: ObjectKey,
+  brokerProps: String,
+  topicNames: Set[String],
+  pollTimeout: JDuration,
+  lagMetrics: Boolean = false
+) extends Releasable {
   def this(config: SinkConfig) = {
-    this(config.objectKey, config.brokers, config.sinkFromTopics.map(_.topicNameOnKafka).toSet, config.sinkPollTimeout)
+    this(
+      config.objectKey,
+      config.brokers,
+      config.sinkFromTopics.map(_.topicNameOnKafka).toSet,
+      config.sinkPollTimeout,
+      config.sinkLagMetrics
+    )
   }
 
   private val threadPool: ExecutorService =
@@ -59,7 +70,7 @@ private class SinkDataGroups(objectKey: ObjectKey, brokerProps: String, topicNam
     dataGroups.computeIfAbsent(
       name, { n =>
         log.info("create data group: {}", n)
-        val dataGroup = new DataGroup(n, objectKey, brokerProps, topicNames, pollTimeout)
+        val dataGroup = new DataGroup(n, objectKey, brokerProps, topicNames, pollTimeout, lagMetrics)
         threadPool.submit(dataGroup.queueProducer)
         dataGroup
       }
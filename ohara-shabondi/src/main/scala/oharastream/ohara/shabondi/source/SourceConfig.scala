@@ -17,6 +17,8 @@
 package oharastream.ohara.shabondi.source
 
 import oharastream.ohara.common.setting.{ObjectKey, TopicKey}
+import oharastream.ohara.kafka.{ColumnHashPartitioner, LoadAwarePartitioner}
+import oharastream.ohara.kafka.connector.json.StringList
 import oharastream.ohara.shabondi.ShabondiDefinitions._
 
 import scala.jdk.CollectionConverters._
@@ -32,7 +34,22 @@ private[shabondi] class SourceConfig(raw: Map[String, String]) {
 
   def port: Int = raw(CLIENT_PORT_DEFINITION.key).toInt
 
+  def prometheusPort: Option[Int] = raw.get(PROMETHEUS_PORT_DEFINITION.key).map(_.toInt)
+
   def brokers: String = raw(BROKERS_DEFINITION.key)
 
   def sourceToTopics: Seq[TopicKey] = TopicKey.toTopicKeys(raw(SOURCE_TO_TOPICS_DEFINITION.key)).asScala.toSeq
+
+  /**
+    * the producer options carrying the partitioner and its settings.
+    */
+  def producerOptions: Map[String, String] =
+    Map(
+      "partitioner.class" ->
+        raw.getOrElse(SOURCE_PARTITIONER_CLASS_DEFINITION.key, SOURCE_PARTITIONER_CLASS_DEFINITION.defaultString())
+    ) ++
+      raw
+        .get(SOURCE_PARTITIONER_COLUMNS_DEFINITION.key)
+        .map(s => ColumnHashPartitioner.COLUMNS_KEY -> StringList.ofJson(s).asScala.mkString(",")) ++
+      raw.get(SOURCE_PARTITIONER_JMX_PORT_DEFINITION.key).map(LoadAwarePartitioner.JMX_PORT_KEY -> _)
 }
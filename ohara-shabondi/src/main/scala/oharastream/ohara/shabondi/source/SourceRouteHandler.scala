@@ -16,7 +16,6 @@
 
 package oharastream.ohara.shabondi.source
 
-import java.util.concurrent.{ExecutorService, Executors}
 import java.util.function.Consumer
 
 import akka.actor.ActorSystem
@@ -27,11 +26,12 @@ import akka.stream.OverflowStrategy
 import akka.stream.scaladsl.{Flow, Keep, Sink, Source}
 import oharastream.ohara.common.data.Serializer
 import oharastream.ohara.common.util.Releasable
-import oharastream.ohara.kafka.Producer
+import oharastream.ohara.kafka.ProducerPool
 import oharastream.ohara.metrics.basic.Counter
 import oharastream.ohara.shabondi.common.{ConvertSupport, JsonSupport, RouteHandler}
 
-import scala.concurrent.{ExecutionContext, Future}
+import scala.concurrent.duration._
+import scala.jdk.CollectionConverters._
 
 private[shabondi] object SourceRouteHandler {
   def apply(config: SourceConfig)(implicit actorSystem: ActorSystem) =
@@ -44,9 +44,6 @@ private[shabondi] class SourceRouteHandler(
   import oharastream.ohara.shabondi.common.JsonSupport._
   private val log = Logging(actorSystem, classOf[SourceRouteHandler])
 
-  private val threadPool: ExecutorService = Executors.newFixedThreadPool(4)
-  implicit private val ec                 = ExecutionContext.fromExecutorService(threadPool)
-
   private val totalRowsCounter =
     Counter.builder
       .key(config.objectKey)
@@ -56,29 +53,52 @@ private[shabondi] class SourceRouteHandler(
       .value(0)
       .register()
 
+  private val failedRowsCounter =
+    Counter.builder
+      .key(config.objectKey)
+      .item("failed-rows")
+      .unit("row")
+      .document("The number of rows failed to be sent to topics")
+      .value(0)
+      .register()
+
   private val exceptionHandler = ExceptionHandler {
     case ex: Throwable =>
       log.error(ex, ex.getMessage)
       complete((StatusCodes.InternalServerError, ex.getMessage))
   }
 
-  private val producer = Producer
-    .builder()
-    .connectionProps(config.brokers)
-    .keySerializer(Serializer.ROW)
-    .valueSerializer(Serializer.BYTES)
-    .build()
+  // the handlers connecting to the same brokers (and using the same partitioner) share the producer
+  private val producer =
+    ProducerPool.global().producer(config.brokers, Serializer.ROW, Serializer.BYTES, config.producerOptions.asJava)
 
   private val topicKeys = config.sourceToTopics
 
-  // TODO: The error handling for the Kafka Producer exception
-  private val sendRowFlow = Flow[RowData].mapAsync(4) { rowData =>
+  // the rows are sent by batch so all rows (and all topics) in a batch share a callback. The failed rows are
+  // logged and counted rather than failing the stream since the stream serves all following requests
+  private val sendRowFlow = Flow[RowData].groupedWithin(1000, 10.milliseconds).mapAsync(4) { rows =>
     import ConvertSupport._
-    val row = JsonSupport.toRow(rowData)
-    Future.sequence(topicKeys.map { topicKey =>
-      val sender = producer.sender().key(row).topicName(topicKey.topicNameOnKafka)
-      sender.send.toScala
-    })
+    import actorSystem.dispatcher
+    val sender = producer.batchSender()
+    rows.map(JsonSupport.toRow).foreach { row =>
+      topicKeys.foreach(topicKey => sender.record(topicKey.topicNameOnKafka, row, null))
+    }
+    val numberOfRecords = rows.size * topicKeys.size
+    sender.send.toScala
+      .map { result =>
+        if (!result.succeeded) {
+          failedRowsCounter.addAndGet(result.errors.size)
+          val error = result.errors.values.iterator.next
+          log.error(error, s"failed to send ${result.errors.size} of ${result.numberOfRecords} rows")
+        }
+        result.numberOfSucceeded
+      }
+      .recover {
+        case e: Throwable =>
+          failedRowsCounter.addAndGet(numberOfRecords)
+          log.error(e, s"failed to send $numberOfRecords rows")
+          0
+      }
   }
 
   private val rowQueue = Source
@@ -106,7 +126,7 @@ private[shabondi] class SourceRouteHandler(
     }
     Releasable.close(producer, addSuppressedException)
     Releasable.close(totalRowsCounter, addSuppressedException)
+    Releasable.close(failedRowsCounter, addSuppressedException)
     if (exception != null) throw exception
-    threadPool.shutdown()
   }
 }
@@ -49,5 +49,6 @@ final class TestSinkConfig extends OharaTest {
     config.sinkFromTopics(1) should ===(topicKeys(1))
     config.sinkPollTimeout should ===(JDuration.ofMillis(1500))
     config.sinkGroupIdleTime should ===(JDuration.ofSeconds(180))
+    config.sinkLagMetrics shouldBe false
   }
 }
@@ -18,6 +18,7 @@ package oharastream.ohara.shabondi.source
 
 import oharastream.ohara.common.rule.OharaTest
 import oharastream.ohara.common.setting.TopicKey
+import oharastream.ohara.kafka.{ColumnHashPartitioner, LoadAwarePartitioner, RowDefaultPartitioner}
 import org.junit.Test
 
 import scala.jdk.CollectionConverters._
@@ -44,4 +45,23 @@ final class TestSourceConfig extends OharaTest {
     config.sourceToTopics(0) should ===(topicKeys(0))
     config.sourceToTopics(1) should ===(topicKeys(1))
   }
+
+  @Test
+  def testProducerOptions(): Unit = {
+    import oharastream.ohara.shabondi.ShabondiDefinitions._
+    new SourceConfig(Map.empty).producerOptions shouldBe Map(
+      "partitioner.class" -> classOf[RowDefaultPartitioner].getName
+    )
+
+    val args = Map(
+      SOURCE_PARTITIONER_CLASS_DEFINITION.key    -> classOf[ColumnHashPartitioner].getName,
+      SOURCE_PARTITIONER_COLUMNS_DEFINITION.key  -> """["a","b"]""",
+      SOURCE_PARTITIONER_JMX_PORT_DEFINITION.key -> "9999"
+    )
+    new SourceConfig(args).producerOptions shouldBe Map(
+      "partitioner.class"               -> classOf[ColumnHashPartitioner].getName,
+      ColumnHashPartitioner.COLUMNS_KEY -> "a,b",
+      LoadAwarePartitioner.JMX_PORT_KEY -> "9999"
+    )
+  }
 }
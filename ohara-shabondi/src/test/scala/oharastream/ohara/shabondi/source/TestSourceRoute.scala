@@ -70,8 +70,9 @@ final class TestSourceRoute extends BasicShabondiTest {
 
       // assert metrics
       val beans = counterMBeans()
-      beans.size should ===(1)
-      beans(0).getValue should ===(requestCount)
+      beans.size should ===(2)
+      beans.find(_.item == "total-rows").get.getValue should ===(requestCount)
+      beans.find(_.item == "failed-rows").get.getValue should ===(0)
     } finally {
       webServer.close()
       topicAdmin.deleteTopic(topicKey1)
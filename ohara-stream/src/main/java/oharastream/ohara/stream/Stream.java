@@ -29,8 +29,11 @@ import oharastream.ohara.common.setting.SettingDef;
 import oharastream.ohara.common.setting.TopicKey;
 import oharastream.ohara.common.setting.WithDefinitions;
 import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.kafka.TuningProfile;
+import oharastream.ohara.metrics.prometheus.PrometheusExporter;
 import oharastream.ohara.stream.config.StreamDefUtils;
 import oharastream.ohara.stream.config.StreamSetting;
+import oharastream.ohara.stream.ostream.OStreamBuilder;
 
 @SuppressWarnings({"unchecked", "rawtypes"})
 public abstract class Stream implements WithDefinitions {
@@ -56,9 +59,23 @@ public abstract class Stream implements WithDefinitions {
           final Stream theApp = cons.newInstance();
           StreamSetting streamSetting =
               StreamSetting.of(theApp.settingDefinitions().values(), configs);
+          // the exporter is disabled if the port is not defined
+          streamSetting
+              .string(StreamDefUtils.PROMETHEUS_PORT_DEFINITION.key())
+              .map(Integer::parseInt)
+              .ifPresent(PrometheusExporter::local);
 
+          OStreamBuilder builder = OStream.builder();
+          streamSetting
+              .string(StreamDefUtils.TUNING_PROFILE_DEFINITION.key())
+              .map(TuningProfile::of)
+              .ifPresent(builder::profile);
+          if (streamSetting
+              .string(StreamDefUtils.LAG_METRICS_DEFINITION.key())
+              .map(Boolean::parseBoolean)
+              .orElse(false)) builder.collectLag();
           OStream<Row> ostream =
-              OStream.builder()
+              builder
                   .key(streamSetting.key())
                   .bootstrapServers(streamSetting.brokerConnectionProps())
                   // TODO: Currently, the number of from topics must be 1
@@ -25,6 +25,7 @@ import java.util.stream.Collectors;
 import oharastream.ohara.common.setting.SettingDef;
 import oharastream.ohara.common.setting.SettingDef.Type;
 import oharastream.ohara.common.util.VersionUtils;
+import oharastream.ohara.kafka.TuningProfile;
 
 /**
  * This is an helper class for getting / setting {@link oharastream.ohara.common.setting.SettingDef}
@@ -154,6 +155,16 @@ public final class StreamDefUtils {
           .bindingPortWithRandomDefault()
           .build();
 
+  public static final SettingDef PROMETHEUS_PORT_DEFINITION =
+      SettingDef.builder()
+          .key("prometheusPort")
+          .group(CORE_GROUP)
+          .orderInGroup(ORDER_COUNTER.getAndIncrement())
+          .displayName("Prometheus export port")
+          .documentation("The port of this stream using to export metrics in prometheus format")
+          .optional(Type.BINDING_PORT)
+          .build();
+
   public static final SettingDef NODE_NAMES_DEFINITION =
       SettingDef.builder()
           .key("nodeNames")
@@ -189,6 +200,28 @@ public final class StreamDefUtils {
           .optional(Type.TAGS)
           .build();
 
+  public static final SettingDef TUNING_PROFILE_DEFINITION =
+      SettingDef.builder()
+          .key("tuning.profile")
+          .group(CORE_GROUP)
+          .orderInGroup(ORDER_COUNTER.getAndIncrement())
+          .displayName("Tuning profile")
+          .documentation(
+              "The batching, compression and fetching options of the clients used by stream")
+          .optional(TuningProfile.names())
+          .build();
+
+  public static final SettingDef LAG_METRICS_DEFINITION =
+      SettingDef.builder()
+          .key("lag.metrics")
+          .group(CORE_GROUP)
+          .orderInGroup(ORDER_COUNTER.getAndIncrement())
+          .displayName("Lag metrics")
+          .documentation(
+              "true if the consumer lag of this stream should be exposed. It costs a polling thread")
+          .optional(false)
+          .build();
+
   public static final SettingDef MAX_HEAP_DEFINITION =
       SettingDef.builder()
           .key("xmx")
@@ -22,6 +22,7 @@ import oharastream.ohara.common.data.Row;
 import oharastream.ohara.common.pattern.Builder;
 import oharastream.ohara.common.setting.ObjectKey;
 import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.kafka.TuningProfile;
 import oharastream.ohara.stream.OStream;
 
 /**
@@ -38,6 +39,8 @@ public final class OStreamBuilder implements Builder<OStream<Row>> {
   private Class<? extends TimestampExtractor> extractor = null;
   private boolean cleanStart = false;
   private boolean exactlyOnce = false;
+  private TuningProfile profile = null;
+  private boolean collectLag = false;
 
   // We are in Ohara world, the data type of topics must be <Row, byte[]> for current version...
   private final Consumed fromSerde = new Consumed<>(Serdes.ROW, Serdes.BYTES);
@@ -85,6 +88,30 @@ public final class OStreamBuilder implements Builder<OStream<Row>> {
     return this;
   }
 
+  /**
+   * apply the producer and consumer options of profile to the kafka streams. The kafka's default
+   * options are used if the profile is not defined.
+   *
+   * @param profile tuning profile
+   * @return this builder
+   */
+  public OStreamBuilder profile(TuningProfile profile) {
+    this.profile = Objects.requireNonNull(profile);
+    return this;
+  }
+
+  /**
+   * report the consumer lag of this stream application by counters. The collector is started with
+   * the stream and it is closed by {@link OStream#stop()}.
+   *
+   * @return this builder
+   */
+  @oharastream.ohara.common.annotations.Optional("default value is false")
+  public OStreamBuilder collectLag() {
+    this.collectLag = true;
+    return this;
+  }
+
   /**
    * enable exactly once. Note: This method is intend to test the functionality for current version.
    * Since we will have a better way to passing the "configurable" properties for cluster settings.
@@ -177,4 +204,12 @@ public final class OStreamBuilder implements Builder<OStream<Row>> {
   boolean getExactlyOnce() {
     return exactlyOnce;
   }
+
+  TuningProfile getProfile() {
+    return profile;
+  }
+
+  boolean isCollectLag() {
+    return collectLag;
+  }
 }
@@ -24,6 +24,8 @@ import oharastream.ohara.common.data.Cell;
 import oharastream.ohara.common.data.Pair;
 import oharastream.ohara.common.data.Row;
 import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.common.util.Releasable;
+import oharastream.ohara.kafka.LagCollector;
 import oharastream.ohara.kafka.TopicAdmin;
 import oharastream.ohara.metrics.basic.Counter;
 import oharastream.ohara.stream.OGroupedStream;
@@ -43,6 +45,9 @@ class OStreamImpl extends AbstractStream<Row, Row> implements OStream<Row> {
 
   private final Logger log = LoggerFactory.getLogger(OStreamImpl.class);
   private static Topology topology = null;
+  /** it is created by the actual run and it is closed with the topology */
+  private static LagCollector lagCollector = null;
+
   private final Counter counter;
 
   OStreamImpl(OStreamBuilder ob) {
@@ -72,8 +77,10 @@ class OStreamImpl extends AbstractStream<Row, Row> implements OStream<Row> {
 
   @Override
   public OStream<Row> through(String topicName, int partitions) {
-    TopicAdmin client = TopicAdmin.of(builder.getBootstrapServers());
-    client.topicCreator().topicName(topicName).numberOfPartitions(partitions).create();
+    // the admin is used only once so we close it to release the connections
+    try (TopicAdmin client = TopicAdmin.of(builder.getBootstrapServers())) {
+      client.topicCreator().topicName(topicName).numberOfPartitions(partitions).create();
+    }
     return new OStreamImpl(
         builder,
         kstreams.through(
@@ -163,6 +170,19 @@ class OStreamImpl extends AbstractStream<Row, Row> implements OStream<Row> {
         prop.put(StreamsConfig.GUARANTEE, StreamsConfig.GUARANTEES.EXACTLY_ONCE.getName());
       }
 
+      if (builder.getProfile() != null) {
+        builder
+            .getProfile()
+            .producerOptions()
+            .forEach(
+                (k, v) -> prop.put(org.apache.kafka.streams.StreamsConfig.producerPrefix(k), v));
+        builder
+            .getProfile()
+            .consumerOptions()
+            .forEach(
+                (k, v) -> prop.put(org.apache.kafka.streams.StreamsConfig.consumerPrefix(k), v));
+      }
+
       prop.put(StreamsConfig.BOOTSTRAP_SERVERS, builder.getBootstrapServers());
       prop.put(StreamsConfig.APP_ID, builder.getAppId());
       prop.put(StreamsConfig.CLIENT_ID, builder.getAppId());
@@ -191,6 +211,7 @@ class OStreamImpl extends AbstractStream<Row, Row> implements OStream<Row> {
     baseActionInitial(false);
 
     topology.start();
+    startLagCollector();
   }
 
   @Override
@@ -208,6 +229,23 @@ class OStreamImpl extends AbstractStream<Row, Row> implements OStream<Row> {
     baseActionInitial(false);
 
     topology.start();
+    startLagCollector();
+  }
+
+  /** the lag is an optional metrics so it should not obstruct the stream */
+  private void startLagCollector() {
+    if (!builder.isCollectLag() || lagCollector != null) return;
+    try {
+      // the application id of kafka streams is the group id of its consumers
+      lagCollector =
+          LagCollector.builder()
+              .connectionProps(builder.getBootstrapServers())
+              .key(builder.key())
+              .groupId(builder.getAppId())
+              .build();
+    } catch (RuntimeException e) {
+      log.warn("failed to collect the lag of " + builder.key(), e);
+    }
   }
 
   @Override
@@ -215,7 +253,12 @@ class OStreamImpl extends AbstractStream<Row, Row> implements OStream<Row> {
     if (topology == null) {
       throw new RuntimeException("The Stream : " + builder.getAppId() + " is not running");
     }
-    topology.close();
+    try {
+      topology.close();
+    } finally {
+      Releasable.close(lagCollector);
+      lagCollector = null;
+    }
   }
 
   @Override